@@ -0,0 +1,204 @@
+package benchmarks;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.businessobject.Resource;
+import bio.terra.cli.businessobject.Server;
+import bio.terra.cli.businessobject.Workspace;
+import bio.terra.cli.serialization.persisted.PDServer;
+import bio.terra.cli.serialization.persisted.PDWorkspace;
+import bio.terra.cli.utils.Logger;
+import bio.terra.cli.utils.UserIO;
+import bio.terra.workspace.model.AccessScope;
+import bio.terra.workspace.model.CloningInstructionsEnum;
+import bio.terra.workspace.model.ControlledResourceMetadata;
+import bio.terra.workspace.model.GcpBigQueryDatasetAttributes;
+import bio.terra.workspace.model.GcpGcsBucketAttributes;
+import bio.terra.workspace.model.GitRepoAttributes;
+import bio.terra.workspace.model.ManagedBy;
+import bio.terra.workspace.model.ResourceAttributesUnion;
+import bio.terra.workspace.model.ResourceDescription;
+import bio.terra.workspace.model.ResourceMetadata;
+import bio.terra.workspace.model.ResourceType;
+import bio.terra.workspace.model.StewardshipType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Utility methods for setting up the global context and fake workspace resources for benchmarks.
+ * Nothing here talks to a real Terra server or cloud project.
+ */
+public class BenchmarkContext {
+  // fixed seed for the workspace id, so that every run writes the same context file
+  private static final UUID WORKSPACE_ID =
+      UUID.nameUUIDFromBytes("benchmark".getBytes(StandardCharsets.UTF_8));
+
+  private BenchmarkContext() {}
+
+  /**
+   * Point the context directory at a new temporary directory, and initialize the context, logging
+   * and printing the same way a command does. Command output is discarded.
+   *
+   * <p>The context directory is set via the "user.home" system property, so this must not be run
+   * with the TERRA_CONTEXT_PARENT_DIR environment variable set.
+   *
+   * @return the temporary directory that contains the context directory
+   */
+  public static Path initialize() throws IOException {
+    Path parentDir = Files.createTempDirectory("terra-benchmark-");
+    System.setProperty("user.home", parentDir.toString());
+
+    Context.initializeFromDisk();
+    Logger.setupLogging(
+        Context.getConfig().getConsoleLoggingLevel(), Context.getConfig().getFileLoggingLevel());
+    PrintStream discard =
+        new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+    UserIO.initialize(discard, discard, InputStream.nullInputStream());
+    return parentDir;
+  }
+
+  /**
+   * Delete a temporary directory created by {@link #initialize}, and everything in it.
+   *
+   * @param parentDir the temporary directory
+   */
+  public static void deleteTempDir(Path parentDir) throws IOException {
+    try (Stream<Path> paths = Files.walk(parentDir)) {
+      for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  /**
+   * Point the current server at a stand-in server, and save it to the context file.
+   *
+   * @param standInServer local server that serves fake WSM and SAM responses
+   */
+  public static void useStandInServer(StandInServer standInServer) {
+    Context.setServer(
+        new Server(
+            new PDServer.Builder()
+                .name("benchmark-stand-in")
+                .description("Local stand-in for WSM and SAM")
+                .samUri(standInServer.getUri())
+                .samInviteRequiresAdmin(false)
+                .workspaceManagerUri(standInServer.getUri())
+                .build()));
+  }
+
+  /**
+   * Set the current workspace to one with the given resources, and save it to the context file.
+   *
+   * @param wsmResources resources in the WSM client library format
+   */
+  public static void setWorkspace(List<ResourceDescription> wsmResources) {
+    PDWorkspace pdWorkspace =
+        new PDWorkspace.Builder()
+            .id(WORKSPACE_ID)
+            .name("benchmark workspace")
+            .description("Workspace with " + wsmResources.size() + " resources")
+            .googleProjectId("terra-benchmark-project")
+            .serverName(Context.getServer().getName())
+            .userEmail("benchmark@example.com")
+            .resources(
+                wsmResources.stream()
+                    .map(Resource::deserializeFromWsm)
+                    .map(Resource::serializeToDisk)
+                    .collect(Collectors.toList()))
+            .resourcesSyncTime(OffsetDateTime.now())
+            .isLoaded(true)
+            .build();
+    Context.setWorkspace(new Workspace(pdWorkspace));
+  }
+
+  /** Get the id of the workspace that {@link #setWorkspace} creates. */
+  public static UUID getWorkspaceId() {
+    return WORKSPACE_ID;
+  }
+
+  /**
+   * Build a list of resources in the WSM client library format. The list cycles through the
+   * resource types that don't need cloud calls to resolve: controlled GCS buckets, referenced GCS
+   * buckets, referenced BigQuery datasets and referenced Git repositories.
+   *
+   * @param numResources number of resources to build
+   * @return list of resources, with unique names
+   */
+  public static List<ResourceDescription> buildWsmResources(int numResources) {
+    List<ResourceDescription> resources = new ArrayList<>(numResources);
+    for (int ctr = 0; ctr < numResources; ctr++) {
+      ResourceDescription resource = new ResourceDescription();
+      switch (ctr % 4) {
+        case 0:
+          resource
+              .metadata(
+                  buildMetadata(ctr, ResourceType.GCS_BUCKET, StewardshipType.CONTROLLED)
+                      .controlledResourceMetadata(
+                          new ControlledResourceMetadata()
+                              .accessScope(AccessScope.SHARED_ACCESS)
+                              .managedBy(ManagedBy.USER)))
+              .resourceAttributes(
+                  new ResourceAttributesUnion()
+                      .gcpGcsBucket(
+                          new GcpGcsBucketAttributes().bucketName("controlled-bucket-" + ctr)));
+          break;
+        case 1:
+          resource
+              .metadata(buildMetadata(ctr, ResourceType.GCS_BUCKET, StewardshipType.REFERENCED))
+              .resourceAttributes(
+                  new ResourceAttributesUnion()
+                      .gcpGcsBucket(
+                          new GcpGcsBucketAttributes().bucketName("referenced-bucket-" + ctr)));
+          break;
+        case 2:
+          resource
+              .metadata(
+                  buildMetadata(ctr, ResourceType.BIG_QUERY_DATASET, StewardshipType.REFERENCED))
+              .resourceAttributes(
+                  new ResourceAttributesUnion()
+                      .gcpBqDataset(
+                          new GcpBigQueryDatasetAttributes()
+                              .projectId("terra-benchmark-project")
+                              .datasetId("dataset_" + ctr)));
+          break;
+        default:
+          resource
+              .metadata(buildMetadata(ctr, ResourceType.GIT_REPO, StewardshipType.REFERENCED))
+              .resourceAttributes(
+                  new ResourceAttributesUnion()
+                      .gitRepo(
+                          new GitRepoAttributes()
+                              .gitRepoUrl("https://github.com/example/repo-" + ctr + ".git")));
+          break;
+      }
+      resources.add(resource);
+    }
+    return resources;
+  }
+
+  /** Build the metadata common to all resource types. */
+  private static ResourceMetadata buildMetadata(
+      int resourceNum, ResourceType resourceType, StewardshipType stewardshipType) {
+    return new ResourceMetadata()
+        .workspaceId(WORKSPACE_ID)
+        .resourceId(
+            UUID.nameUUIDFromBytes(("resource-" + resourceNum).getBytes(StandardCharsets.UTF_8)))
+        .name("resource_" + resourceNum)
+        .description("Benchmark resource number " + resourceNum)
+        .resourceType(resourceType)
+        .stewardshipType(stewardshipType)
+        .cloningInstructions(CloningInstructionsEnum.NOTHING);
+  }
+}
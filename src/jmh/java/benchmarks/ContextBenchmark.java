@@ -0,0 +1,59 @@
+package benchmarks;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.businessobject.Workspace;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks for reading and writing the context files, which every command does at least once.
+ * The cached list of workspace resources is kept in a separate file, and is not read or written
+ * unless it's needed or changed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ContextBenchmark {
+  @Param({"100", "1000", "5000"})
+  public int numResources;
+
+  private Path tempDir;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    tempDir = BenchmarkContext.initialize();
+    BenchmarkContext.setWorkspace(BenchmarkContext.buildWsmResources(numResources));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    BenchmarkContext.deleteTempDir(tempDir);
+  }
+
+  /** `Context.initializeFromDisk`, then read the workspace, as at the start of most commands. */
+  @Benchmark
+  public Workspace initializeFromDisk() {
+    Context.initializeFromDisk();
+    return Context.requireWorkspace();
+  }
+
+  /**
+   * `Context.synchronizeToDisk` with no changes since the last write, as when a command syncs
+   * without changing anything. Only compares the serialized context with the files on disk.
+   */
+  @Benchmark
+  public void synchronizeToDisk() {
+    Context.synchronizeToDisk();
+  }
+}
@@ -0,0 +1,93 @@
+package benchmarks;
+
+import bio.terra.cli.app.CommandRunner;
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.businessobject.Resource;
+import bio.terra.cli.businessobject.Workspace.ResourceCacheMode;
+import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.serialization.userfacing.UFResource;
+import bio.terra.workspace.model.ResourceDescription;
+import bio.terra.workspace.model.StewardshipType;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks for the in-memory work done on each resource in a workspace: converting from the WSM
+ * client library format, printing as JSON (e.g. `terra resource list --format=json`), building the
+ * TERRA_[name] environment variables for app commands, and looking up or filtering the cached list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ResourceBenchmark {
+  @Param({"1000", "5000"})
+  public int numResources;
+
+  private Path tempDir;
+  private List<ResourceDescription> wsmResources;
+  private List<UFResource> ufResources;
+  private String lastResourceName;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    tempDir = BenchmarkContext.initialize();
+    wsmResources = BenchmarkContext.buildWsmResources(numResources);
+    BenchmarkContext.setWorkspace(wsmResources);
+    ufResources =
+        Context.requireWorkspace().getResources().stream()
+            .map(Resource::serializeToCommandWithoutCloudMetadata)
+            .collect(Collectors.toList());
+    lastResourceName = "resource_" + (numResources - 1);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    BenchmarkContext.deleteTempDir(tempDir);
+  }
+
+  /** `Resource.deserializeFromWsm` over every resource, as when syncing the resource cache. */
+  @Benchmark
+  public List<Resource> deserializeFromWsm() {
+    return wsmResources.stream().map(Resource::deserializeFromWsm).collect(Collectors.toList());
+  }
+
+  /** `Format.printJson` over every resource. Output is discarded, but still fully formatted. */
+  @Benchmark
+  public void printJson() {
+    Format.printJson(ufResources);
+  }
+
+  /** `CommandRunner.buildMapOfTerraReferences`, as called before running an app command. */
+  @Benchmark
+  public Map<String, String> buildMapOfTerraReferences() {
+    return CommandRunner.buildMapOfTerraReferences();
+  }
+
+  /** `Workspace.getResource` for the last resource in the cached list, as for `--name` options. */
+  @Benchmark
+  public Resource getResourceByName() {
+    return Context.requireWorkspace().getResource(lastResourceName, ResourceCacheMode.OFFLINE);
+  }
+
+  /** `Workspace.listResources` with type and stewardship filters, as for `terra resource list`. */
+  @Benchmark
+  public List<Resource> listResourcesFiltered() {
+    return Context.requireWorkspace()
+        .listResources(
+            ResourceCacheMode.OFFLINE, Resource.Type.GIT_REPO, StewardshipType.REFERENCED);
+  }
+}
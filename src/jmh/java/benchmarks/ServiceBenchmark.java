@@ -0,0 +1,88 @@
+package benchmarks;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.service.SamService;
+import bio.terra.cli.service.SamService.GroupPolicy;
+import bio.terra.cli.service.WorkspaceManagerService;
+import bio.terra.workspace.model.ResourceDescription;
+import com.google.auth.oauth2.AccessToken;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks for calls to WSM and SAM, against a {@link StandInServer} on the loopback interface.
+ * These measure the CLI's overhead per call (client setup, paging, JSON parsing), not the latency
+ * of a real server.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+  private static final String GROUP_NAME = "benchmark-group";
+
+  @Param({"100", "1000", "5000"})
+  public int numResources;
+
+  private Path tempDir;
+  private StandInServer standInServer;
+  private AccessToken accessToken;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    tempDir = BenchmarkContext.initialize();
+    standInServer = StandInServer.start();
+    BenchmarkContext.useStandInServer(standInServer);
+
+    List<ResourceDescription> wsmResources = BenchmarkContext.buildWsmResources(numResources);
+    standInServer.serveWsmResources(BenchmarkContext.getWorkspaceId(), wsmResources);
+    standInServer.serveSamGroupMembers(
+        GROUP_NAME,
+        GroupPolicy.MEMBER,
+        IntStream.range(0, numResources)
+            .mapToObj(ctr -> "member-" + ctr + "@example.com")
+            .collect(Collectors.toList()));
+
+    // the stand-in server doesn't check the token
+    accessToken =
+        new AccessToken("stand-in-token", Date.from(Instant.now().plus(Duration.ofDays(1))));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    standInServer.close();
+    BenchmarkContext.deleteTempDir(tempDir);
+  }
+
+  /** `WorkspaceManagerService.enumerateAllResources`, as called when syncing the resource cache. */
+  @Benchmark
+  public List<ResourceDescription> enumerateAllResources() {
+    return WorkspaceManagerService.unauthenticated(Context.getServer())
+        .enumerateAllResources(
+            BenchmarkContext.getWorkspaceId(),
+            numResources,
+            Context.getConfig().getResourcesPageSize());
+  }
+
+  /** `SamService.listUsersInGroup`, as called by `terra group list-users`. */
+  @Benchmark
+  public List<String> listUsersInGroup() {
+    return SamService.forToken(accessToken).listUsersInGroup(GROUP_NAME, GroupPolicy.MEMBER);
+  }
+}
@@ -0,0 +1,144 @@
+package benchmarks;
+
+import bio.terra.cli.service.SamService.GroupPolicy;
+import bio.terra.cli.utils.JacksonMapper;
+import bio.terra.workspace.model.ResourceDescription;
+import bio.terra.workspace.model.ResourceList;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP server that stands in for WSM and SAM, so that benchmarks of the service classes
+ * measure the CLI's side of a call (client setup, request, JSON parsing) without depending on the
+ * latency or availability of a real Terra server.
+ *
+ * <p>Responses are serialized once and then cached, so the server adds as little time as possible
+ * to each call. Point the current server at this one with {@link
+ * BenchmarkContext#useStandInServer}.
+ */
+public class StandInServer implements AutoCloseable {
+  // enough threads to serve all the parallel enumerate requests from WorkspaceManagerService
+  private static final int NUM_THREADS = 8;
+
+  private final HttpServer httpServer;
+  private final ExecutorService executorService;
+
+  private StandInServer(HttpServer httpServer, ExecutorService executorService) {
+    this.httpServer = httpServer;
+    this.executorService = executorService;
+  }
+
+  /** Start a server on an unused loopback port. */
+  public static StandInServer start() throws IOException {
+    HttpServer httpServer =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    ExecutorService executorService = Executors.newFixedThreadPool(NUM_THREADS);
+    httpServer.setExecutor(executorService);
+    httpServer.start();
+    return new StandInServer(httpServer, executorService);
+  }
+
+  /** Base URI to use for both the WSM and SAM URIs of the current server. */
+  public String getUri() {
+    return "http://"
+        + httpServer.getAddress().getAddress().getHostAddress()
+        + ":"
+        + httpServer.getAddress().getPort();
+  }
+
+  /**
+   * Serve the WSM GET "/api/workspaces/v1/{workspaceId}/resources" endpoint, paging through the
+   * given list with the offset and limit query parameters.
+   *
+   * @param workspaceId workspace to serve resources for
+   * @param resources all resources in the workspace
+   */
+  public void serveWsmResources(UUID workspaceId, List<ResourceDescription> resources) {
+    String path = "/api/workspaces/v1/" + workspaceId + "/resources";
+    // query string -> response body
+    Map<String, byte[]> pages = new ConcurrentHashMap<>();
+    httpServer.createContext(
+        path,
+        exchange -> {
+          String query = exchange.getRequestURI().getRawQuery();
+          byte[] body =
+              pages.computeIfAbsent(
+                  String.valueOf(query),
+                  key -> {
+                    Map<String, String> queryParams = parseQuery(query);
+                    int offset = Integer.parseInt(queryParams.getOrDefault("offset", "0"));
+                    int limit = Integer.parseInt(queryParams.getOrDefault("limit", "10"));
+                    int fromIndex = Math.min(offset, resources.size());
+                    int toIndex = Math.min(offset + limit, resources.size());
+                    return toJson(
+                        new ResourceList().resources(resources.subList(fromIndex, toIndex)));
+                  });
+          respond(exchange, body);
+        });
+  }
+
+  /**
+   * Serve the SAM GET "/api/groups/v1/{groupName}/{policyName}" endpoint.
+   *
+   * @param groupName name of the group
+   * @param policy policy the users belong to
+   * @param emails email addresses to return
+   */
+  public void serveSamGroupMembers(String groupName, GroupPolicy policy, List<String> emails) {
+    byte[] body = toJson(emails);
+    httpServer.createContext(
+        "/api/groups/v1/" + groupName + "/" + policy.getSamPolicy(),
+        exchange -> respond(exchange, body));
+  }
+
+  /** Stop the server and its threads. */
+  @Override
+  public void close() {
+    httpServer.stop(0);
+    executorService.shutdownNow();
+  }
+
+  /** Send a 200 response with a JSON body. */
+  private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+    exchange.getRequestBody().readAllBytes();
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream responseBody = exchange.getResponseBody()) {
+      responseBody.write(body);
+    }
+  }
+
+  /** Serialize an object to JSON, the same way the real services would. */
+  private static byte[] toJson(Object value) {
+    try {
+      return JacksonMapper.getMapper().writeValueAsString(value).getBytes(StandardCharsets.UTF_8);
+    } catch (IOException ioEx) {
+      throw new IllegalStateException("Error serializing stand-in response.", ioEx);
+    }
+  }
+
+  /** Parse a query string into a map of parameter name to value. */
+  private static Map<String, String> parseQuery(String query) {
+    Map<String, String> queryParams = new HashMap<>();
+    if (query == null) {
+      return queryParams;
+    }
+    for (String param : query.split("&")) {
+      String[] nameAndValue = param.split("=", 2);
+      queryParams.put(nameAndValue[0], nameAndValue.length > 1 ? nameAndValue[1] : "");
+    }
+    return queryParams;
+  }
+}
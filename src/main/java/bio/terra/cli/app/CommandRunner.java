@@ -80,6 +80,10 @@ public abstract class CommandRunner {
     }
     envVars.putAll(terraEnvVars);
 
+    // the tool may call the CLI, so write any changes to the context first. in a parallel `terra
+    // batch`, this also writes the changes made so far by the other lines
+    Context.flushToDisk();
+
     // call the sub-class implementation of running a tool command
     int exitCode = runToolCommandImpl(wrapCommandInSetupCleanup(command), envVars);
 
@@ -116,12 +120,12 @@ public abstract class CommandRunner {
    *
    * @return a map of Terra references (name -> cloud id)
    */
-  private Map<String, String> buildMapOfTerraReferences() {
+  @VisibleForTesting
+  public static Map<String, String> buildMapOfTerraReferences() {
     // build a map of reference string -> resolved value
     Map<String, String> terraReferences = new HashMap<>();
     Context.requireWorkspace()
-        .getResources()
-        .forEach(
+        .forEachResource(
             resource -> terraReferences.put("TERRA_" + resource.getName(), resource.resolve()));
 
     return terraReferences;
@@ -2,8 +2,10 @@ package bio.terra.cli.app;
 
 import bio.terra.cli.app.utils.AppDefaultCredentialUtils;
 import bio.terra.cli.app.utils.DockerClientWrapper;
+import bio.terra.cli.app.utils.DockerImageManager;
 import bio.terra.cli.businessobject.Context;
 import bio.terra.cli.exception.PassthroughException;
+import com.google.common.annotations.VisibleForTesting;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.nio.file.Path;
 import java.util.HashMap;
@@ -21,6 +23,7 @@ public class DockerCommandRunner extends CommandRunner {
   private static final Logger logger = LoggerFactory.getLogger(DockerCommandRunner.class);
 
   private final DockerClientWrapper dockerClientWrapper = new DockerClientWrapper();
+  private final DockerImageManager dockerImageManager = new DockerImageManager(dockerClientWrapper);
 
   // default $HOME directory on the container (this is where we expect to look for the global
   // context)
@@ -32,27 +35,34 @@ public class DockerCommandRunner extends CommandRunner {
   private static final String APPLICATION_DEFAULT_CREDENTIALS_FILE_NAME =
       "application_default_credentials.json";
 
+  // the terra_init script is already copied into the Docker image. it configures gcloud with the
+  // workspace project and pet SA
+  private static final String SETUP_COMMAND = "terra_init.sh";
+
+  // environment variables that the setup command depends on. a warm container is started with only
+  // these, and is reused as long as they don't change. all other environment variables (e.g. the
+  // resolved workspace resources) are passed to each command separately, so they're never stale
+  private static final List<String> SETUP_ENV_VARS =
+      List.of(
+          "GOOGLE_APPLICATION_CREDENTIALS", "GOOGLE_CLOUD_PROJECT", "GOOGLE_SERVICE_ACCOUNT_EMAIL");
+
   /**
-   * This method builds a command string that:
-   *
-   * <p>- calls the terra_init.sh script, which configures gcloud with the workspace project and pet
-   * SA
-   *
-   * <p>- runs the given command
+   * This method builds a command string that runs the given command. The terra_init.sh setup is
+   * added by {@link #runToolCommandImpl}, because it only needs to run once per container.
    *
    * @param command the command and arguments to execute
    * @return the full string of commands and arguments to execute
    */
   protected String wrapCommandInSetupCleanup(List<String> command) {
-    // the terra_init script is already copied into the Docker image
-    return "terra_init.sh && " + buildFullCommand(command);
+    return buildFullCommand(command);
   }
 
   /**
-   * Run a tool command inside a new Docker container.
+   * Run a tool command inside a new Docker container, or inside a warm container that is kept
+   * running between commands if the app container idle timeout is set.
    *
    * <p>The terra_init.sh script that was copied into the Docker image will be run before the given
-   * command.
+   * command. In a warm container, it only runs when the container starts.
    *
    * <p>This method sets the GOOGLE_APPLICATION_CREDENTIALS env var = path to the pet SA key file on
    * the container. This will overwrite any previous version, because the path will likely be
@@ -81,6 +91,7 @@ public class DockerCommandRunner extends CommandRunner {
     }
 
     // check if the system property for testing credentials is populated
+    String setupCommand;
     Optional<Path> credentialsFileForTest = getOverrideCredentialsFileForTesting();
     if (credentialsFileForTest.isPresent()) { // this is a unit test
       // mount the file to the container
@@ -89,11 +100,13 @@ public class DockerCommandRunner extends CommandRunner {
 
       // set the env var and gcloud auth credentials using the pet SA key file
       envVars.put("GOOGLE_APPLICATION_CREDENTIALS", adcFileOnContainer.toString());
-      command =
+      setupCommand =
           "echo \"Setting the gcloud credentials to match the application default credentials\"; "
               + "gcloud auth activate-service-account --key-file=${GOOGLE_APPLICATION_CREDENTIALS}; "
-              + command;
+              + SETUP_COMMAND;
     } else { // this is normal operation
+      setupCommand = SETUP_COMMAND;
+
       // check that the ADC match the user or their pet SA
       AppDefaultCredentialUtils.throwIfADCDontMatchContext();
 
@@ -119,13 +132,50 @@ public class DockerCommandRunner extends CommandRunner {
       }
     }
 
+    // make sure the image is on the local machine. this is usually just a check of the readiness
+    // marker in the context directory
+    String imageId = Context.getConfig().getDockerImageId();
+    dockerImageManager.ensureReady(imageId);
+    dockerImageManager.prefetchDefaultImage(imageId);
+
+    // if the image was removed after it was marked ready (e.g. docker image prune), then this
+    // pulls it and tries again
+    return dockerImageManager.runWithImage(
+        imageId, () -> runInContainer(imageId, setupCommand, command, envVars, bindMounts));
+  }
+
+  /**
+   * Run a tool command inside a new Docker container, or inside a warm container if the app
+   * container idle timeout is set.
+   *
+   * @param imageId the id of the docker image to use for the container
+   * @param setupCommand the full string of commands to run before the tool command
+   * @param command the full string of command and arguments to execute
+   * @param envVars a mapping of environment variable names to values
+   * @param bindMounts a mapping of container mount point to the local directory being mounted
+   * @return process exit code
+   */
+  private int runInContainer(
+      String imageId,
+      String setupCommand,
+      String command,
+      Map<String, String> envVars,
+      Map<Path, Path> bindMounts) {
+    int idleTimeoutSeconds = Context.getConfig().getAppContainerIdleTimeoutSeconds();
+    if (idleTimeoutSeconds > 0) {
+      Optional<Long> exitCode =
+          runInWarmContainer(
+              imageId, setupCommand, command, envVars, bindMounts, idleTimeoutSeconds);
+      if (exitCode.isPresent()) {
+        return exitCode.get().intValue();
+      }
+      // e.g. the setup failed. running it again in a new container prints the error output
+      logger.info("Warm container is not available, running the command in a new container.");
+    }
+
     // create and start the docker container
     dockerClientWrapper.startContainer(
-        Context.getConfig().getDockerImageId(),
-        command,
-        CONTAINER_WORKING_DIR,
-        envVars,
-        bindMounts);
+        imageId, setupCommand + " && " + command, CONTAINER_WORKING_DIR, envVars, bindMounts);
 
     // read the container logs, which contains the command output, and write them to stdout
     dockerClientWrapper.streamLogsForContainer();
@@ -144,6 +194,59 @@ public class DockerCommandRunner extends CommandRunner {
     return exitCode.intValue();
   }
 
+  /**
+   * Run a tool command inside a warm container for the current workspace and image, starting one
+   * if needed.
+   *
+   * @param imageId the id of the docker image to use for the container
+   * @param setupCommand the full string of commands to run once when the container starts
+   * @param command the full string of command and arguments to execute
+   * @param envVars a mapping of environment variable names to values
+   * @param bindMounts a mapping of container mount point to the local directory being mounted
+   * @param idleTimeoutSeconds number of seconds without a command before the container exits
+   * @return process exit code, or empty if there is no warm container to run the command in
+   */
+  private Optional<Long> runInWarmContainer(
+      String imageId,
+      String setupCommand,
+      String command,
+      Map<String, String> envVars,
+      Map<Path, Path> bindMounts,
+      int idleTimeoutSeconds) {
+    Optional<String> warmContainerId =
+        dockerClientWrapper.getOrStartWarmContainer(
+            imageId,
+            setupCommand,
+            CONTAINER_WORKING_DIR,
+            getSetupEnvVars(envVars),
+            bindMounts,
+            idleTimeoutSeconds);
+    if (warmContainerId.isEmpty()) {
+      return Optional.empty();
+    }
+    Optional<Long> exitCode =
+        dockerClientWrapper.execInWarmContainer(
+            warmContainerId.get(), command, CONTAINER_WORKING_DIR, envVars);
+    logger.debug("docker exec exit code: {}", exitCode);
+    return exitCode;
+  }
+
+  /**
+   * Get the environment variables that a warm container is started with, i.e. the ones that the
+   * setup command depends on. Variables that aren't set are included with an empty value.
+   *
+   * @param envVars all the environment variables for the tool command
+   * @return a mapping of setup environment variable names to values
+   */
+  @VisibleForTesting
+  public static Map<String, String> getSetupEnvVars(Map<String, String> envVars) {
+    Map<String, String> setupEnvVars = new HashMap<>();
+    for (String setupEnvVar : SETUP_ENV_VARS) {
+      setupEnvVars.put(setupEnvVar, envVars.getOrDefault(setupEnvVar, ""));
+    }
+    return setupEnvVars;
+  }
+
   /**
    * Get the global context directory on the container.
    *
@@ -6,28 +6,38 @@ import bio.terra.cli.utils.UserIO;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.ExecCreateCmd;
 import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.command.WaitContainerResultCallback;
+import com.github.dockerjava.api.exception.ConflictException;
 import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.AccessMode;
 import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.Container;
 import com.github.dockerjava.api.model.Frame;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.SELContext;
+import com.github.dockerjava.api.model.StreamType;
 import com.github.dockerjava.api.model.Volume;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientConfig;
 import com.github.dockerjava.core.DockerClientImpl;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 import com.github.dockerjava.transport.DockerHttpClient;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,8 +45,25 @@ import org.slf4j.LoggerFactory;
 public class DockerClientWrapper {
   private static final Logger logger = LoggerFactory.getLogger(DockerClientWrapper.class);
 
+  // label that identifies warm containers, with a value that is unique to how they were set up
+  private static final String WARM_CONTAINER_LABEL = "bio.terra.cli.warm-container";
+
+  // files on a warm container that track whether it finished setup, when it last ran a command and
+  // which commands are running now (one file per process id)
+  private static final String WARM_CONTAINER_READY_FILE = "/tmp/terra-warm-container/ready";
+  private static final String WARM_CONTAINER_LAST_USED_FILE = "/tmp/terra-warm-container/last-used";
+  private static final String WARM_CONTAINER_RUNNING_DIR = "/tmp/terra-warm-container/running";
+
+  // how often a warm container checks whether it has been idle long enough to exit
+  private static final int WARM_CONTAINER_IDLE_CHECK_INTERVAL_SECONDS = 5;
+
+  // maximum time to wait for a new warm container to finish setup, and how often to check
+  private static final Duration WARM_CONTAINER_STARTUP_TIMEOUT = Duration.ofMinutes(2);
+  private static final Duration WARM_CONTAINER_POLL_INTERVAL = Duration.ofMillis(200);
+
   private final DockerClient dockerClient;
   private String containerId;
+  private LogContainerCommandCallback logContainerCommandCallback;
 
   public DockerClientWrapper() {
     this.dockerClient = DockerClientWrapper.buildDockerClient();
@@ -89,12 +116,37 @@ public class DockerClientWrapper {
       String workingDir,
       Map<String, String> envVars,
       Map<Path, Path> bindMounts) {
-    // flatten the environment variables from a map, into a list of key=val strings
-    List<String> envVarsStr = new ArrayList<>();
-    for (Map.Entry<String, String> envVar : envVars.entrySet()) {
-      envVarsStr.add(envVar.getKey() + "=" + envVar.getValue());
+    try {
+      containerId =
+          createAndStartContainer(
+              imageId, command, workingDir, envVars, bindMounts, Map.of(), false);
+      logger.debug("container id: {}", containerId);
+    } catch (RuntimeException rtEx) {
+      throw wrapExceptionIfDockerConnectionFailed(rtEx);
     }
+  }
 
+  /**
+   * Create a Docker container and start it running the given command.
+   *
+   * @param imageId the id of the docker image to use for the container
+   * @param command the full string command to execute in a bash shell (bash -c ..cmd..)
+   * @param workingDir the directory where the commmand will be executed
+   * @param envVars a mapping of environment variable names to values
+   * @param bindMounts a mapping of container mount point to the local directory being mounted
+   * @param labels labels to add to the container
+   * @param autoRemove true to have the Docker daemon remove the container when it exits
+   * @return the container id
+   * @throws SystemException if the local directory does not exist or is not a directory
+   */
+  private String createAndStartContainer(
+      String imageId,
+      String command,
+      String workingDir,
+      Map<String, String> envVars,
+      Map<Path, Path> bindMounts,
+      Map<String, String> labels,
+      boolean autoRemove) {
     // create Bind objects for each specified mount
     List<Bind> bindMountsObj = new ArrayList<>();
     for (Map.Entry<Path, Path> bindMount : bindMounts.entrySet()) {
@@ -117,31 +169,315 @@ public class DockerClientWrapper {
         dockerClient
             .createContainerCmd(imageId)
             .withCmd("bash", "-c", command)
-            .withEnv(envVarsStr)
-            .withHostConfig(HostConfig.newHostConfig().withBinds(bindMountsObj))
+            .withEnv(buildEnvVarsList(envVars))
+            .withLabels(labels)
+            .withHostConfig(
+                HostConfig.newHostConfig().withBinds(bindMountsObj).withAutoRemove(autoRemove))
             .withAttachStdout(true)
             .withAttachStderr(true);
     if (workingDir != null) {
       createContainerCmd.withWorkingDir(workingDir);
     }
+    String newContainerId = createContainerCmd.exec().getId();
+    dockerClient.startContainerCmd(newContainerId).exec();
+    return newContainerId;
+  }
+
+  /** Flatten the environment variables from a map, into a list of key=val strings. */
+  private static List<String> buildEnvVarsList(Map<String, String> envVars) {
+    List<String> envVarsStr = new ArrayList<>();
+    for (Map.Entry<String, String> envVar : envVars.entrySet()) {
+      envVarsStr.add(envVar.getKey() + "=" + envVar.getValue());
+    }
+    return envVarsStr;
+  }
+
+  /**
+   * Get a warm container, i.e. a long-lived container that runs a setup command once and then
+   * waits for commands to be run in it with {@link #execInWarmContainer}. Calls with the same
+   * image, setup command, working directory, environment variables, bind mounts and idle timeout
+   * share the same warm container, even across CLI processes.
+   *
+   * <p>This reuses a running warm container if it passes a health check, and otherwise starts a new
+   * one and waits for its setup command to finish. A warm container exits and is removed once no
+   * command has run in it for the idle timeout.
+   *
+   * @param imageId the id of the docker image to use for the container
+   * @param setupCommand the full string command to run once when the container starts
+   * @param workingDir the directory where the setup command will be executed
+   * @param envVars a mapping of environment variable names to values, for the setup command. these
+   *     identify the warm container, so values that change between calls should be passed to {@link
+   *     #execInWarmContainer} instead
+   * @param bindMounts a mapping of container mount point to the local directory being mounted
+   * @param idleTimeoutSeconds number of seconds without a command before the container exits
+   * @return the container id, or empty if the setup command failed or timed out
+   * @throws SystemException if the local directory does not exist or is not a directory
+   */
+  public Optional<String> getOrStartWarmContainer(
+      String imageId,
+      String setupCommand,
+      String workingDir,
+      Map<String, String> envVars,
+      Map<Path, Path> bindMounts,
+      int idleTimeoutSeconds) {
+    String key =
+        buildWarmContainerKey(
+            imageId, setupCommand, workingDir, envVars, bindMounts, idleTimeoutSeconds);
+    Map<String, String> labels = Map.of(WARM_CONTAINER_LABEL, key);
+
     try {
-      containerId = createContainerCmd.exec().getId();
+      List<Container> runningContainers =
+          dockerClient
+              .listContainersCmd()
+              .withLabelFilter(labels)
+              .withStatusFilter(List.of("running"))
+              .exec();
+      for (Container runningContainer : runningContainers) {
+        if (isWarmContainerHealthy(runningContainer.getId())) {
+          logger.debug("reusing warm container id: {}", runningContainer.getId());
+          return Optional.of(runningContainer.getId());
+        }
+        logger.info("Removing unhealthy warm container: {}", runningContainer.getId());
+        removeContainerIfExists(runningContainer.getId());
+      }
 
-      dockerClient.startContainerCmd(containerId).exec();
+      String newContainerId =
+          createAndStartContainer(
+              imageId,
+              buildWarmContainerCommand(setupCommand, idleTimeoutSeconds),
+              workingDir,
+              envVars,
+              bindMounts,
+              labels,
+              true);
+      logger.debug("new warm container id: {}", newContainerId);
+      return waitForWarmContainerReady(newContainerId)
+          ? Optional.of(newContainerId)
+          : Optional.empty();
+    } catch (RuntimeException rtEx) {
+      throw wrapExceptionIfDockerConnectionFailed(rtEx);
+    }
+  }
 
-      logger.debug("container id: {}", containerId);
+  /**
+   * Build the label value that identifies a warm container. Everything that affects how the
+   * container is set up goes into the key, so that a change in e.g. the workspace, the image or the
+   * credentials gets a new container. The parameters are the same as for {@link
+   * #getOrStartWarmContainer}.
+   *
+   * @return a hash of the container setup, which doesn't depend on the order of the maps
+   */
+  @VisibleForTesting
+  public static String buildWarmContainerKey(
+      String imageId,
+      String setupCommand,
+      String workingDir,
+      Map<String, String> envVars,
+      Map<Path, Path> bindMounts,
+      int idleTimeoutSeconds) {
+    return Hashing.sha256()
+        .hashString(
+            String.join(
+                "\n",
+                imageId,
+                setupCommand,
+                String.valueOf(workingDir),
+                new TreeMap<>(envVars).toString(),
+                new TreeMap<>(bindMounts).toString(),
+                String.valueOf(idleTimeoutSeconds)),
+            StandardCharsets.UTF_8)
+        .toString();
+  }
+
+  /**
+   * Run a command in a warm container from {@link #getOrStartWarmContainer}, and write its output
+   * to standard out.
+   *
+   * @param warmContainerId the id of the warm container
+   * @param command the full string command to execute in a bash shell (bash -c ..cmd..)
+   * @param workingDir the directory where the commmand will be executed
+   * @param envVars a mapping of environment variable names to values, added to the ones the
+   *     container was started with
+   * @return the command's exit code, or empty if the container stopped before the command started
+   */
+  public Optional<Long> execInWarmContainer(
+      String warmContainerId, String command, String workingDir, Map<String, String> envVars) {
+    // mark the command as running while it runs, so the container doesn't exit part way through.
+    // the command runs in a sub-shell, so that it can't skip the cleanup by calling exit
+    String trackedCommand =
+        String.join(
+            "\n",
+            "touch " + WARM_CONTAINER_RUNNING_DIR + "/$$ " + WARM_CONTAINER_LAST_USED_FILE,
+            "(",
+            command,
+            ")",
+            "exitCode=$?",
+            "rm -f " + WARM_CONTAINER_RUNNING_DIR + "/$$",
+            "touch " + WARM_CONTAINER_LAST_USED_FILE,
+            "exit $exitCode");
+    try {
+      return Optional.of(exec(warmContainerId, trackedCommand, workingDir, envVars, true));
+    } catch (NotFoundException | ConflictException ex) {
+      // the container exited (e.g. it reached the idle timeout) after the health check
+      logger.info("Warm container stopped before the command started.", ex);
+      return Optional.empty();
     } catch (RuntimeException rtEx) {
       throw wrapExceptionIfDockerConnectionFailed(rtEx);
     }
   }
 
-  /** Block until the Docker container exits, then return its status code. */
+  /**
+   * Build the main command for a warm container. This runs the setup command, marks the container
+   * as ready, and then waits until there are no running commands and the last one finished more
+   * than the idle timeout ago. If the setup command fails, the container exits right away.
+   */
+  private static String buildWarmContainerCommand(String setupCommand, int idleTimeoutSeconds) {
+    return String.join(
+        "\n",
+        "mkdir -p " + WARM_CONTAINER_RUNNING_DIR,
+        "(",
+        setupCommand,
+        ") || exit $?",
+        "touch " + WARM_CONTAINER_LAST_USED_FILE + " " + WARM_CONTAINER_READY_FILE,
+        "while true; do",
+        // forget about commands that were killed before they could clean up after themselves
+        "  for pidFile in " + WARM_CONTAINER_RUNNING_DIR + "/*; do",
+        "    if [ -e \"$pidFile\" ] && ! kill -0 \"${pidFile##*/}\" 2>/dev/null; then",
+        "      rm -f \"$pidFile\"",
+        "    fi",
+        "  done",
+        "  lastUsed=$(stat -c %Y " + WARM_CONTAINER_LAST_USED_FILE + ")",
+        "  if [ -z \"$(ls -A " + WARM_CONTAINER_RUNNING_DIR + ")\" ] \\",
+        "      && [ $(( $(date +%s) - lastUsed )) -ge " + idleTimeoutSeconds + " ]; then",
+        "    exit 0",
+        "  fi",
+        "  sleep " + WARM_CONTAINER_IDLE_CHECK_INTERVAL_SECONDS,
+        "done");
+  }
+
+  /**
+   * Check that a warm container finished its setup command and can run commands. A healthy
+   * container also restarts its idle timeout, so it doesn't exit before the caller's command runs.
+   */
+  private boolean isWarmContainerHealthy(String warmContainerId) {
+    try {
+      return exec(
+              warmContainerId,
+              "test -f "
+                  + WARM_CONTAINER_READY_FILE
+                  + " && touch "
+                  + WARM_CONTAINER_LAST_USED_FILE,
+              null,
+              Map.of(),
+              false)
+          == 0;
+    } catch (NotFoundException | ConflictException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Block until a new warm container finishes its setup command.
+   *
+   * @return true if the container is ready, false if it exited or took too long
+   */
+  private boolean waitForWarmContainerReady(String warmContainerId) {
+    Instant deadline = Instant.now().plus(WARM_CONTAINER_STARTUP_TIMEOUT);
+    while (Instant.now().isBefore(deadline)) {
+      try {
+        Boolean isRunning =
+            dockerClient.inspectContainerCmd(warmContainerId).exec().getState().getRunning();
+        if (!Boolean.TRUE.equals(isRunning)) {
+          logger.info("Warm container exited during setup: {}", warmContainerId);
+          return false;
+        }
+      } catch (NotFoundException nfEx) {
+        // containers are removed automatically when they exit
+        logger.info("Warm container exited during setup: {}", warmContainerId);
+        return false;
+      }
+      if (isWarmContainerHealthy(warmContainerId)) {
+        return true;
+      }
+      try {
+        Thread.sleep(WARM_CONTAINER_POLL_INTERVAL.toMillis());
+      } catch (InterruptedException intEx) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    logger.info("Warm container did not finish setup in time: {}", warmContainerId);
+    removeContainerIfExists(warmContainerId);
+    return false;
+  }
+
+  /**
+   * Run a command in a running container and block until it exits.
+   *
+   * @param streamOutput true to write the command output to standard out
+   * @return the command's exit code
+   */
+  private long exec(
+      String runningContainerId,
+      String command,
+      String workingDir,
+      Map<String, String> envVars,
+      boolean streamOutput) {
+    ExecCreateCmd execCreateCmd =
+        dockerClient
+            .execCreateCmd(runningContainerId)
+            .withCmd("bash", "-c", command)
+            .withEnv(buildEnvVarsList(envVars))
+            .withAttachStdout(streamOutput)
+            .withAttachStderr(streamOutput);
+    if (workingDir != null) {
+      execCreateCmd.withWorkingDir(workingDir);
+    }
+    String execId = execCreateCmd.exec().getId();
+    try {
+      dockerClient
+          .execStartCmd(execId)
+          .exec(
+              streamOutput
+                  ? new LogContainerCommandCallback()
+                  : new ResultCallback.Adapter<Frame>())
+          .awaitCompletion();
+    } catch (InterruptedException intEx) {
+      Thread.currentThread().interrupt();
+      throw new SystemException("Interrupted while running a command in a container.", intEx);
+    }
+    return dockerClient.inspectExecCmd(execId).exec().getExitCodeLong();
+  }
+
+  /** Force remove a container, ignoring it if it was already removed. */
+  private void removeContainerIfExists(String containerIdToRemove) {
+    try {
+      dockerClient.removeContainerCmd(containerIdToRemove).withForce(true).exec();
+    } catch (NotFoundException | ConflictException ex) {
+      // already removed, or the Docker daemon is already removing it because it exited
+      logger.debug("Container already removed: {}", containerIdToRemove);
+    }
+  }
+
+  /**
+   * Block until the Docker container exits, then return its status code. If the container logs are
+   * being streamed, this also waits until all of them have been written to standard out.
+   */
   public Integer waitForContainerToExit() {
     WaitContainerResultCallback waitContainerResultCallback = new WaitContainerResultCallback();
     try {
       WaitContainerResultCallback exec =
           dockerClient.waitContainerCmd(containerId).exec(waitContainerResultCallback);
-      return exec.awaitStatusCode();
+      Integer statusCode = exec.awaitStatusCode();
+      if (logContainerCommandCallback != null) {
+        // the log stream ends when the container exits, but the last frames may still be in flight
+        logContainerCommandCallback.awaitCompletion();
+        logContainerCommandCallback = null;
+      }
+      return statusCode;
+    } catch (InterruptedException intEx) {
+      Thread.currentThread().interrupt();
+      throw new SystemException("Interrupted while streaming the container logs.", intEx);
     } catch (RuntimeException rtEx) {
       throw wrapExceptionIfDockerConnectionFailed(rtEx);
     }
@@ -162,16 +498,20 @@ public class DockerClientWrapper {
     return container.getState().getExitCodeLong();
   }
 
-  /** Read the Docker container logs and write them to standard out. */
+  /**
+   * Read the Docker container logs and write them to standard out and standard err, as they come
+   * in. Call {@link #waitForContainerToExit} to wait for the rest of the logs.
+   */
   public void streamLogsForContainer() {
     try {
-      dockerClient
-          .logContainerCmd(containerId)
-          .withStdOut(true)
-          .withStdErr(true)
-          .withFollowStream(true)
-          .withTailAll()
-          .exec(new LogContainerCommandCallback());
+      logContainerCommandCallback =
+          dockerClient
+              .logContainerCmd(containerId)
+              .withStdOut(true)
+              .withStdErr(true)
+              .withFollowStream(true)
+              .withTailAll()
+              .exec(new LogContainerCommandCallback());
     } catch (RuntimeException rtEx) {
       throw wrapExceptionIfDockerConnectionFailed(rtEx);
     }
@@ -199,15 +539,21 @@ public class DockerClientWrapper {
       this.buildFramesList = buildFramesList;
     }
 
+    /**
+     * Write the frame's raw bytes to standard out or standard err, matching the stream in the
+     * container. The bytes aren't decoded, so binary output (e.g. `gsutil cat` of an image) comes
+     * through unchanged.
+     */
     @Override
     public void onNext(Frame frame) {
-      String logStr = new String(frame.getPayload(), StandardCharsets.UTF_8);
-      PrintStream out = UserIO.getOut();
-      out.print(logStr);
+      byte[] payload = frame.getPayload();
+      PrintStream out =
+          frame.getStreamType() == StreamType.STDERR ? UserIO.getErr() : UserIO.getOut();
+      out.write(payload, 0, payload.length);
       out.flush();
 
       if (buildSingleStringOutput) {
-        log.append(logStr);
+        log.append(new String(payload, StandardCharsets.UTF_8));
       }
       if (buildFramesList) {
         framesList.add(frame);
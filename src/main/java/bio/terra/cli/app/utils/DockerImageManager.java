@@ -0,0 +1,378 @@
+package bio.terra.cli.app.utils;
+
+import bio.terra.cli.businessobject.Config;
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.exception.SystemException;
+import bio.terra.cli.exception.UserActionableException;
+import bio.terra.cli.utils.FileUtils;
+import bio.terra.cli.utils.UserIO;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class keeps track of which Docker images are ready to use on the local machine, and pulls
+ * the ones that are missing.
+ *
+ * <p>A readiness marker file in the context directory records that an image was found on the
+ * local machine, so that running a tool command doesn't need to ask the Docker daemon first. If
+ * the image is removed after it was marked ready (e.g. by `docker image prune`), then creating the
+ * container fails and the caller should pull the image with {@link #pullInForeground} and try
+ * again.
+ *
+ * <p>Large pulls should happen before a command needs the image, so commands that change the image
+ * (e.g. `terra config set image`) start a background pull with {@link #pullInBackgroundIfMissing}.
+ *
+ * <p>After an upgrade of the CLI, tool commands pre-fetch the new default image in the background
+ * with {@link #prefetchDefaultImage}, as long as the configured image is the default image of an
+ * older version (i.e. the user hasn't picked a different image).
+ *
+ * <p>Pulls call the docker CLI, so that they use the same registry credentials (e.g. the gcloud
+ * credential helper) as a manual `docker pull`.
+ */
+public class DockerImageManager {
+  private static final Logger logger = LoggerFactory.getLogger(DockerImageManager.class);
+
+  // files in the Docker images directory, named by a hash of the image id
+  private static final String READY_MARKER_SUFFIX = ".ready";
+  private static final String PULL_LOCK_SUFFIX = ".pulling";
+  private static final String PULL_LOG_SUFFIX = ".pull.log";
+
+  // maximum time to wait for a background pull of an image that a command needs, before pulling
+  // it in the foreground instead, and how often to check
+  private static final Duration BACKGROUND_PULL_WAIT_TIMEOUT = Duration.ofMinutes(30);
+  private static final Duration BACKGROUND_PULL_POLL_INTERVAL = Duration.ofSeconds(1);
+
+  // minimum time between attempts to pre-fetch the default image, so that a pull that fails (e.g.
+  // no access to the registry) isn't retried on every command
+  private static final Duration PREFETCH_RETRY_INTERVAL = Duration.ofDays(1);
+
+  // script that pulls an image in the background and marks it ready if the pull succeeds. the
+  // arguments are: docker command, image id, pull log file, ready marker file, pull lock file. it
+  // ignores hangup and interrupt signals, so that it keeps running after the terminal that started
+  // it is closed
+  private static final String BACKGROUND_PULL_SCRIPT =
+      "trap '' HUP INT\n"
+          + "if \"$1\" pull \"$2\" > \"$3\" 2>&1; then echo \"$2\" > \"$4\"; fi\n"
+          + "rm -f \"$5\"";
+
+  private final DockerClientWrapper dockerClientWrapper;
+
+  // docker CLI executable that pulls images
+  private final String dockerCommand;
+
+  public DockerImageManager(DockerClientWrapper dockerClientWrapper) {
+    this(dockerClientWrapper, "docker");
+  }
+
+  /**
+   * Build an instance that pulls images with the given executable instead of the docker CLI on the
+   * path. Tests use this to pull images without a registry.
+   */
+  @VisibleForTesting
+  public DockerImageManager(DockerClientWrapper dockerClientWrapper, String dockerCommand) {
+    this.dockerClientWrapper = dockerClientWrapper;
+    this.dockerCommand = dockerCommand;
+  }
+
+  /**
+   * Make sure an image is on the local machine before a command uses it. If the image is missing,
+   * this waits for a background pull that is already running, or pulls the image in the
+   * foreground.
+   *
+   * @param imageId the id of the docker image
+   * @throws UserActionableException if the image can't be pulled
+   */
+  public void ensureReady(String imageId) {
+    if (isMarkedReady(imageId)) {
+      return;
+    }
+    if (dockerClientWrapper.checkImageExists(imageId)) {
+      markReady(imageId);
+      return;
+    }
+    waitForBackgroundPull(imageId);
+    if (!isMarkedReady(imageId)) {
+      pullInForeground(imageId);
+    }
+  }
+
+  /**
+   * Start pulling an image in the background, unless it's already on the local machine or being
+   * pulled. The pull keeps going after the CLI process exits.
+   *
+   * @param imageId the id of the docker image
+   * @return true if the image is missing and is being pulled in the background, see {@link
+   *     #getPullLogFile} for progress
+   */
+  public boolean pullInBackgroundIfMissing(String imageId) {
+    if (isMarkedReady(imageId)) {
+      return false;
+    }
+    if (isBackgroundPullRunning(imageId)) {
+      return true;
+    }
+    if (dockerClientWrapper.checkImageExists(imageId)) {
+      markReady(imageId);
+      return false;
+    }
+    return startBackgroundPull(imageId);
+  }
+
+  /**
+   * Start pulling the default image for this version of the CLI in the background, if the
+   * configured image is the default image of another version (i.e. the CLI was upgraded since the
+   * image was set) and the new one isn't on the local machine yet. That way it's already there when
+   * the user switches to it (e.g. `terra config set image --default`). Users who picked a different
+   * image don't pull the default one.
+   *
+   * @param configuredImageId the id of the docker image currently in use
+   */
+  public void prefetchDefaultImage(String configuredImageId) {
+    String defaultImageId = Config.getDefaultImageId();
+    if (!isOtherVersionOfDefaultImage(configuredImageId, defaultImageId)) {
+      return;
+    }
+    Path pullLogFile = getPullLogFile(defaultImageId);
+    try {
+      if (pullLogFile.toFile().exists()
+          && Files.getLastModifiedTime(pullLogFile)
+              .toInstant()
+              .isAfter(Instant.now().minus(PREFETCH_RETRY_INTERVAL))) {
+        // already tried recently. if that pull succeeded, the image is marked ready
+        return;
+      }
+      pullInBackgroundIfMissing(defaultImageId);
+    } catch (IOException | RuntimeException ex) {
+      // pre-fetching is only an optimization, so don't fail the user's command
+      logger.warn("Error pre-fetching the default Docker image: {}", defaultImageId, ex);
+    }
+  }
+
+  /**
+   * Return true if an image id has the same repository path, image name and tag as the default
+   * image, but a different CLI version. Default image ids look like
+   * [repository path]/[image name]/[CLI version]:[tag].
+   *
+   * @param imageId the id of the docker image
+   * @param defaultImageId the id of the default docker image for this version of the CLI
+   */
+  @VisibleForTesting
+  public static boolean isOtherVersionOfDefaultImage(
+      @Nullable String imageId, @Nullable String defaultImageId) {
+    if (imageId == null || defaultImageId == null || imageId.equals(defaultImageId)) {
+      return false;
+    }
+    int versionStart = defaultImageId.lastIndexOf('/');
+    int tagStart = defaultImageId.lastIndexOf(':');
+    if (versionStart < 0 || tagStart < versionStart) {
+      return false;
+    }
+    String prefix = defaultImageId.substring(0, versionStart + 1);
+    String suffix = defaultImageId.substring(tagStart);
+    return imageId.startsWith(prefix)
+        && imageId.endsWith(suffix)
+        && imageId.length() > prefix.length() + suffix.length()
+        && imageId.indexOf('/', prefix.length()) < 0;
+  }
+
+  /**
+   * Run something that needs an image to be on the local machine, e.g. creating and starting a
+   * container. If that fails because the image is missing even though it was marked ready (e.g. it
+   * was removed by `docker image prune`), then pull the image and run it again. The container was
+   * never created, so the first attempt didn't run the user's command and it's safe to repeat.
+   *
+   * @param imageId the id of the docker image
+   * @param runner the code that needs the image
+   * @return the result of the runner
+   * @throws NotFoundException if the runner failed for another reason than a missing image
+   */
+  public <T> T runWithImage(String imageId, Supplier<T> runner) {
+    try {
+      return runner.get();
+    } catch (NotFoundException nfEx) {
+      if (dockerClientWrapper.checkImageExists(imageId)) {
+        throw nfEx;
+      }
+      logger.info("Docker image {} is missing, pulling it and trying again.", imageId);
+      pullInForeground(imageId);
+      return runner.get();
+    }
+  }
+
+  /**
+   * Pull an image in the foreground, and print the progress to stderr.
+   *
+   * @param imageId the id of the docker image
+   * @throws UserActionableException if the pull fails
+   */
+  public void pullInForeground(String imageId) {
+    clearReady(imageId);
+    PrintStream err = UserIO.getErr();
+    err.println("Pulling Docker image " + imageId + ". This may take a few minutes.");
+    int exitCode;
+    try {
+      Process process =
+          new ProcessBuilder(dockerCommand, "pull", imageId).redirectErrorStream(true).start();
+      process.getOutputStream().close();
+      process.getInputStream().transferTo(err);
+      err.flush();
+      exitCode = process.waitFor();
+    } catch (IOException ioEx) {
+      throw new UserActionableException(
+          "Error running `docker pull`. Check that Docker is installed and running.", ioEx);
+    } catch (InterruptedException intEx) {
+      Thread.currentThread().interrupt();
+      throw new SystemException("Interrupted while pulling Docker image " + imageId, intEx);
+    }
+    if (exitCode != 0) {
+      throw new UserActionableException(
+          "Error pulling Docker image "
+              + imageId
+              + ". Check the image id (terra config get image) and that you have access to its"
+              + " registry.");
+    }
+    markReady(imageId);
+  }
+
+  /**
+   * Get the file that a background pull writes its progress to.
+   *
+   * @param imageId the id of the docker image
+   * @return absolute path to the pull log file
+   */
+  public Path getPullLogFile(String imageId) {
+    return getImageFile(imageId, PULL_LOG_SUFFIX);
+  }
+
+  /**
+   * Get the file that records which process is pulling an image in the background.
+   *
+   * @param imageId the id of the docker image
+   * @return absolute path to the pull lock file
+   */
+  @VisibleForTesting
+  public Path getPullLockFile(String imageId) {
+    return getImageFile(imageId, PULL_LOCK_SUFFIX);
+  }
+
+  /** Return true if the image was marked ready, i.e. it was found on the local machine. */
+  @VisibleForTesting
+  public boolean isMarkedReady(String imageId) {
+    return getImageFile(imageId, READY_MARKER_SUFFIX).toFile().exists();
+  }
+
+  /** Mark an image ready. This is only an optimization, so errors are logged and ignored. */
+  private void markReady(String imageId) {
+    try {
+      FileUtils.writeStringToFile(getImageFile(imageId, READY_MARKER_SUFFIX).toFile(), imageId);
+    } catch (IOException ioEx) {
+      logger.warn("Error writing Docker image readiness marker.", ioEx);
+    }
+  }
+
+  /** Remove the ready marker for an image, e.g. because it was removed from the local machine. */
+  private void clearReady(String imageId) {
+    try {
+      Files.deleteIfExists(getImageFile(imageId, READY_MARKER_SUFFIX));
+    } catch (IOException ioEx) {
+      logger.warn("Error deleting Docker image readiness marker.", ioEx);
+    }
+  }
+
+  /**
+   * Start a background process that pulls an image.
+   *
+   * @return true if the process was started
+   */
+  private boolean startBackgroundPull(String imageId) {
+    Path pullLockFile = getPullLockFile(imageId);
+    Path pullLogFile = getPullLogFile(imageId);
+    try {
+      Files.createDirectories(Context.getDockerImagesDir());
+      Process process =
+          new ProcessBuilder(
+                  "sh",
+                  "-c",
+                  BACKGROUND_PULL_SCRIPT,
+                  "terra-docker-pull",
+                  dockerCommand,
+                  imageId,
+                  pullLogFile.toString(),
+                  getImageFile(imageId, READY_MARKER_SUFFIX).toString(),
+                  pullLockFile.toString())
+              .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+              .redirectError(ProcessBuilder.Redirect.DISCARD)
+              .start();
+      process.getOutputStream().close();
+      // if the pull finishes before this is written, then the lock points to a process that isn't
+      // running anymore, which is the same as no lock
+      Files.writeString(pullLockFile, String.valueOf(process.pid()), StandardCharsets.UTF_8);
+      logger.info("Started background pull of Docker image {}, pid {}", imageId, process.pid());
+      return true;
+    } catch (IOException ioEx) {
+      logger.warn("Error starting background pull of Docker image: {}", imageId, ioEx);
+      return false;
+    }
+  }
+
+  /** Return true if a background pull of this image is running, from this or any CLI process. */
+  private boolean isBackgroundPullRunning(String imageId) {
+    Path pullLockFile = getPullLockFile(imageId);
+    if (!pullLockFile.toFile().exists()) {
+      return false;
+    }
+    try {
+      long pid = Long.parseLong(Files.readString(pullLockFile, StandardCharsets.UTF_8).trim());
+      Optional<ProcessHandle> processHandle = ProcessHandle.of(pid);
+      if (processHandle.isPresent() && processHandle.get().isAlive()) {
+        return true;
+      }
+      Files.deleteIfExists(pullLockFile);
+    } catch (IOException | NumberFormatException ex) {
+      logger.warn("Error reading Docker image pull lock file: {}", pullLockFile, ex);
+    }
+    return false;
+  }
+
+  /** Block until a running background pull of this image finishes, if there is one. */
+  private void waitForBackgroundPull(String imageId) {
+    if (!isBackgroundPullRunning(imageId)) {
+      return;
+    }
+    UserIO.getErr()
+        .println(
+            "Waiting for Docker image "
+                + imageId
+                + " to finish downloading in the background. Progress is written to "
+                + getPullLogFile(imageId));
+    Instant deadline = Instant.now().plus(BACKGROUND_PULL_WAIT_TIMEOUT);
+    while (Instant.now().isBefore(deadline) && isBackgroundPullRunning(imageId)) {
+      try {
+        Thread.sleep(BACKGROUND_PULL_POLL_INTERVAL.toMillis());
+      } catch (InterruptedException intEx) {
+        Thread.currentThread().interrupt();
+        throw new SystemException("Interrupted while waiting for Docker image " + imageId, intEx);
+      }
+    }
+  }
+
+  /** Get a file in the Docker images directory for the given image. */
+  private static Path getImageFile(String imageId, String suffix) {
+    String imageHash =
+        Hashing.sha256().hashString(imageId, StandardCharsets.UTF_8).toString().substring(0, 32);
+    return Context.getDockerImagesDir().resolve(imageHash + suffix);
+  }
+}
@@ -2,12 +2,9 @@ package bio.terra.cli.app.utils;
 
 import bio.terra.cli.exception.SystemException;
 import bio.terra.cli.utils.UserIO;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.PrintStream;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +15,10 @@ public class LocalProcessLauncher {
   private Thread stdOutThread;
   private Thread stdErrThread;
 
+  // true if the child process writes straight to this process's stdout and stderr, false if its
+  // output is piped back to this process and relayed to the CLI console
+  private boolean inheritsOutput;
+
   public LocalProcessLauncher() {}
 
   /**
@@ -50,7 +51,16 @@ public class LocalProcessLauncher {
       Map<String, String> procEnvVars = procBuilder.environment();
       procEnvVars.putAll(envVars);
     }
-    procBuilder.inheritIO();
+    // if the CLI console is this process's stdout and stderr, then the child process can write to
+    // them directly. that means no copying at all, so the output is exactly what the child wrote
+    // and throughput is the same as running it outside the CLI. otherwise (e.g. tests that
+    // capture the output), the output is piped back and relayed in streamOutputForProcess
+    inheritsOutput = UserIO.isDefaultOutput();
+    if (inheritsOutput) {
+      procBuilder.inheritIO();
+    } else {
+      procBuilder.redirectInput(ProcessBuilder.Redirect.INHERIT);
+    }
 
     try {
       process = procBuilder.start();
@@ -59,8 +69,14 @@ public class LocalProcessLauncher {
     }
   }
 
-  /** Stream standard out/err from the child process to the CLI console. */
+  /**
+   * Stream standard out/err from the child process to the CLI console. This is a no-op if the child
+   * process writes to the console directly.
+   */
   public void streamOutputForProcess() {
+    if (inheritsOutput) {
+      return;
+    }
     Runnable streamStdOut = () -> streamOutput(process.getInputStream(), UserIO.getOut());
     stdOutThread = new Thread(streamStdOut);
     stdOutThread.start();
@@ -71,29 +87,35 @@ public class LocalProcessLauncher {
   }
 
   /**
-   * Helper method to stream the child process' output to the CLI console.
+   * Helper method to stream the child process' output to the CLI console. This copies the raw
+   * bytes, so binary output (e.g. `gsutil cat` of an image) comes through unchanged.
    *
    * @param fromStream stream reading from the child process output
    * @param toStream stream writing to the CLI console
    */
   private static void streamOutput(InputStream fromStream, PrintStream toStream) {
-    try (BufferedReader bufferedReader =
-        new BufferedReader(new InputStreamReader(fromStream, StandardCharsets.UTF_8))) {
-
-      String line;
-      while ((line = bufferedReader.readLine()) != null) {
-        toStream.print(line);
-        toStream.flush();
-      }
+    try (fromStream) {
+      fromStream.transferTo(toStream);
+      toStream.flush();
     } catch (IOException ioEx) {
       throw new SystemException("Error streaming output of child process", ioEx);
     }
   }
 
-  /** Block until the child process terminates, then return its exit code. */
+  /**
+   * Block until the child process terminates and all of its output has been streamed, then return
+   * its exit code.
+   */
   public int waitForTerminate() {
     try {
-      return process.waitFor();
+      int exitCode = process.waitFor();
+      if (stdOutThread != null) {
+        stdOutThread.join();
+      }
+      if (stdErrThread != null) {
+        stdErrThread.join();
+      }
+      return exitCode;
     } catch (InterruptedException intEx) {
       throw new SystemException("Error waiting for child process to terminate", intEx);
     }
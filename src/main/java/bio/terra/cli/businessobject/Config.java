@@ -8,6 +8,7 @@ import bio.terra.cli.command.shared.options.Format;
 import bio.terra.cli.command.shared.options.Format.FormatOptions;
 import bio.terra.cli.serialization.persisted.PDConfig;
 import bio.terra.cli.utils.Logger;
+import bio.terra.cli.utils.Version;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -24,10 +25,28 @@ public class Config {
   private CommandRunnerOption commandRunnerOption = CommandRunnerOption.DOCKER_CONTAINER;
   private String dockerImageId;
 
+  // how long a tool container is kept running after a command, so that later commands for the same
+  // workspace and image can run in it without starting a new container. zero means start a new
+  // container for every command
+  private int appContainerIdleTimeoutSeconds = DEFAULT_APP_CONTAINER_IDLE_TIMEOUT_SECONDS;
+
   // maximum number of resources to cache on disk for a single workspace before throwing an error
   // (corresponds to ~1MB cache size on disk)
   private int resourcesCacheSize = DEFAULT_RESOURCES_CACHE_SIZE;
 
+  // number of resources to fetch per call to the WSM enumerate endpoint
+  private int resourcesPageSize = DEFAULT_RESOURCES_PAGE_SIZE;
+
+  // how long the list of resources cached in the context file is considered fresh. commands that
+  // read resources re-fetch the list from WSM once it is older than this. zero means always
+  // re-fetch
+  private int resourcesCacheTtlSeconds = DEFAULT_RESOURCES_CACHE_TTL_SECONDS;
+
+  // number of threads and per-resource timeout for the cloud lookups done when describing
+  // resources (e.g. number of objects in a bucket, number of tables in a dataset)
+  private int resourceLookupThreads = DEFAULT_RESOURCE_LOOKUP_THREADS;
+  private int resourceLookupTimeoutSeconds = DEFAULT_RESOURCE_LOOKUP_TIMEOUT_SECONDS;
+
   // log levels for file and stdout
   private Logger.LogLevel consoleLoggingLevel = Logger.LogLevel.OFF;
   private Logger.LogLevel fileLoggingLevel = Logger.LogLevel.INFO;
@@ -35,7 +54,12 @@ public class Config {
   // Output format option
   private Format.FormatOptions format = FormatOptions.TEXT;
 
+  public static final int DEFAULT_APP_CONTAINER_IDLE_TIMEOUT_SECONDS = 0;
   public static final int DEFAULT_RESOURCES_CACHE_SIZE = 1000;
+  public static final int DEFAULT_RESOURCES_PAGE_SIZE = 100;
+  public static final int DEFAULT_RESOURCES_CACHE_TTL_SECONDS = 60;
+  public static final int DEFAULT_RESOURCE_LOOKUP_THREADS = 10;
+  public static final int DEFAULT_RESOURCE_LOOKUP_TIMEOUT_SECONDS = 30;
 
   /** Build an instance of this class from the serialized format on disk. */
   public Config(PDConfig configFromDisk) {
@@ -43,6 +67,27 @@ public class Config {
     this.commandRunnerOption = configFromDisk.commandRunnerOption;
     this.dockerImageId = configFromDisk.dockerImageId;
     this.resourcesCacheSize = configFromDisk.resourcesCacheSize;
+    // context files written by older versions of the CLI do not include these properties
+    this.appContainerIdleTimeoutSeconds =
+        configFromDisk.appContainerIdleTimeoutSeconds != null
+            ? configFromDisk.appContainerIdleTimeoutSeconds
+            : DEFAULT_APP_CONTAINER_IDLE_TIMEOUT_SECONDS;
+    this.resourcesPageSize =
+        configFromDisk.resourcesPageSize > 0
+            ? configFromDisk.resourcesPageSize
+            : DEFAULT_RESOURCES_PAGE_SIZE;
+    this.resourcesCacheTtlSeconds =
+        configFromDisk.resourcesCacheTtlSeconds != null
+            ? configFromDisk.resourcesCacheTtlSeconds
+            : DEFAULT_RESOURCES_CACHE_TTL_SECONDS;
+    this.resourceLookupThreads =
+        configFromDisk.resourceLookupThreads > 0
+            ? configFromDisk.resourceLookupThreads
+            : DEFAULT_RESOURCE_LOOKUP_THREADS;
+    this.resourceLookupTimeoutSeconds =
+        configFromDisk.resourceLookupTimeoutSeconds > 0
+            ? configFromDisk.resourceLookupTimeoutSeconds
+            : DEFAULT_RESOURCE_LOOKUP_TIMEOUT_SECONDS;
     this.fileLoggingLevel = configFromDisk.fileLoggingLevel;
     this.consoleLoggingLevel = configFromDisk.consoleLoggingLevel;
     this.format = configFromDisk.format;
@@ -56,7 +101,7 @@ public class Config {
   /** Returns the default Docker image id for launching apps. */
   public static String getDefaultImageId() {
     // read from the JAR Manifest file
-    String fromJarManifest = Config.class.getPackage().getImplementationVersion();
+    String fromJarManifest = Version.getImplementationVersion();
     if (fromJarManifest != null) {
       return fromJarManifest;
     } else {
@@ -124,6 +169,15 @@ public class Config {
     Context.synchronizeToDisk();
   }
 
+  public int getAppContainerIdleTimeoutSeconds() {
+    return appContainerIdleTimeoutSeconds;
+  }
+
+  public void setAppContainerIdleTimeoutSeconds(int appContainerIdleTimeoutSeconds) {
+    this.appContainerIdleTimeoutSeconds = appContainerIdleTimeoutSeconds;
+    Context.synchronizeToDisk();
+  }
+
   public int getResourcesCacheSize() {
     return resourcesCacheSize;
   }
@@ -133,6 +187,38 @@ public class Config {
     Context.synchronizeToDisk();
   }
 
+  public int getResourcesPageSize() {
+    return resourcesPageSize;
+  }
+
+  public void setResourcesPageSize(int resourcesPageSize) {
+    this.resourcesPageSize = resourcesPageSize;
+    Context.synchronizeToDisk();
+  }
+
+  public int getResourcesCacheTtlSeconds() {
+    return resourcesCacheTtlSeconds;
+  }
+
+  public void setResourcesCacheTtlSeconds(int resourcesCacheTtlSeconds) {
+    this.resourcesCacheTtlSeconds = resourcesCacheTtlSeconds;
+    Context.synchronizeToDisk();
+  }
+
+  public int getResourceLookupThreads() {
+    return resourceLookupThreads;
+  }
+
+  public int getResourceLookupTimeoutSeconds() {
+    return resourceLookupTimeoutSeconds;
+  }
+
+  public void setResourceLookup(int resourceLookupThreads, int resourceLookupTimeoutSeconds) {
+    this.resourceLookupThreads = resourceLookupThreads;
+    this.resourceLookupTimeoutSeconds = resourceLookupTimeoutSeconds;
+    Context.synchronizeToDisk();
+  }
+
   public Logger.LogLevel getConsoleLoggingLevel() {
     return consoleLoggingLevel;
   }
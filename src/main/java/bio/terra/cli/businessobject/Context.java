@@ -2,14 +2,25 @@ package bio.terra.cli.businessobject;
 
 import bio.terra.cli.exception.SystemException;
 import bio.terra.cli.exception.UserActionableException;
+import bio.terra.cli.serialization.persisted.PDConfig;
 import bio.terra.cli.serialization.persisted.PDContext;
+import bio.terra.cli.serialization.persisted.PDServer;
+import bio.terra.cli.serialization.persisted.PDUser;
+import bio.terra.cli.serialization.persisted.PDVersionCheck;
+import bio.terra.cli.serialization.persisted.PDWorkspace;
 import bio.terra.cli.utils.JacksonMapper;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,100 +28,340 @@ import org.slf4j.LoggerFactory;
 /**
  * Internal representation of the current context or state. This class maintains singleton instances
  * of the internal state classes (Config, Server, User, Workspace).
+ *
+ * <p>Each of these is persisted to its own file in the context directory, and is only read the
+ * first time a command asks for it. On a sync to disk, only the files whose contents changed are
+ * rewritten. While a command is running, syncs are deferred and coalesced into a single write when
+ * the command finishes (see {@link #deferWritesToDisk}).
+ *
+ * <p>Several CLI processes can share the same context directory (e.g. a script that runs commands
+ * in parallel). Each file is replaced atomically, so reads don't need a lock. Writes take an
+ * exclusive lock on a file in the context directory, see {@link #runWithLock}. Under the lock, each
+ * part of the context that this command changed is checked against the version it read, so a part
+ * that this command didn't change is never overwritten with stale values.
+ *
+ * <p>Within a process, the getters and {@link #synchronizeToDisk} can be called from several
+ * threads (e.g. the workers in {@link bio.terra.cli.utils.ParallelUtils}): each part is read under
+ * its shard's lock, and writes take the process lock. Changing which server, user or workspace is
+ * current, and {@link #initializeFromDisk}, are only called by the thread running the command.
  */
 public class Context {
   private static final Logger logger = LoggerFactory.getLogger(Context.class);
 
-  // singleton objects that define the current context or state
-  private static Config currentConfig;
-  private static Server currentServer;
-  @Nullable private static User currentUser;
-  @Nullable private static Workspace currentWorkspace;
-  @Nullable private static VersionCheck currentVersionCheck;
+  // file names related to persisting the context on disk
+  private static final String CONTEXT_DIRNAME = ".terra";
+  private static final String CONTEXT_SHARD_DIRNAME = "context";
+  private static final String CONFIG_FILENAME = "config.json";
+  private static final String SERVER_FILENAME = "server.json";
+  private static final String USER_FILENAME = "user.json";
+  private static final String WORKSPACE_FILENAME = "workspace.json";
+  private static final String VERSION_CHECK_FILENAME = "version-check.json";
+  private static final String LEGACY_CONTEXT_FILENAME = "context.json";
+  private static final String LOCK_FILENAME = "context.lock";
+  private static final String PET_KEYS_DIRNAME = "pet-keys";
+  private static final String PET_ACCESS_TOKENS_FILENAME = "access-tokens.json";
+  private static final String LOGS_DIRNAME = "logs";
+  private static final String DOCKER_IMAGES_DIRNAME = "docker-images";
+  private static final String RESOURCES_DIRNAME = "resources";
+  private static final String RESOURCE_STORE_FILE_EXTENSION = ".ndjson";
+  private static final String LOG_FILENAME = "terra.log";
+
+  // singleton objects that define the current context or state, each persisted to its own file
+  private static final ContextShard<Config, PDConfig> configShard =
+      new ContextShard<>(
+          CONFIG_FILENAME, PDConfig.class, Config::new, PDConfig::new, Config::new, null);
+  private static final ContextShard<Server, PDServer> serverShard =
+      new ContextShard<>(
+          SERVER_FILENAME, PDServer.class, Server::new, PDServer::new, Server::new, "name");
+  private static final ContextShard<User, PDUser> userShard =
+      new ContextShard<>(USER_FILENAME, PDUser.class, User::new, PDUser::new, () -> null, "id");
+  private static final ContextShard<Workspace, PDWorkspace> workspaceShard =
+      new ContextShard<>(
+          WORKSPACE_FILENAME,
+          PDWorkspace.class,
+          Workspace::new,
+          PDWorkspace::new,
+          () -> null,
+          "id");
+  private static final ContextShard<VersionCheck, PDVersionCheck> versionCheckShard =
+      new ContextShard<>(
+          VERSION_CHECK_FILENAME,
+          PDVersionCheck.class,
+          VersionCheck::new,
+          PDVersionCheck::new,
+          () -> null,
+          null);
+  private static final List<ContextShard<?, ?>> allShards =
+      List.of(configShard, serverShard, userShard, workspaceShard, versionCheckShard);
+
+  // true if the context was read from a context file written by an older version of the CLI. it's
+  // deleted once the files for each part of the context have been written
+  private static volatile boolean readFromLegacyFile;
+  // true if syncs to disk are deferred until the end of the command, and whether one is pending
+  private static volatile boolean deferWrites;
+  private static volatile boolean writePending;
+
+  // write lock is held while this process holds the exclusive lock on the context directory, and
+  // read lock while it holds the shared lock. file locks are per process, so this also makes
+  // threads in this process wait for each other, and lets the exclusive lock be re-entered
+  private static final ReentrantReadWriteLock processLock = new ReentrantReadWriteLock();
+  // shared lock on the context directory, held while any thread in this process is reading with
+  // it, and the number of those threads. guarded by sharedFileLockMonitor
+  private static final Object sharedFileLockMonitor = new Object();
+  @Nullable private static FileChannel sharedLockChannel;
+  private static int numSharedLockHolders;
 
   // functions as the current workspace for this command execution only
   // unlike the other parts of the current context, this property is not persisted to disk
-  private static Workspace overrideWorkspace;
+  private static volatile Workspace overrideWorkspace;
   // true if the current command is using an override workspace
-  private static boolean useOverrideWorkspace;
+  private static volatile boolean useOverrideWorkspace;
 
   // env var name to optionally override where the context is persisted on disk
   private static final String CONTEXT_DIR_OVERRIDE_NAME = "TERRA_CONTEXT_PARENT_DIR";
 
-  // file paths related to persisting the context on disk
-  private static final String CONTEXT_DIRNAME = ".terra";
-  private static final String CONTEXT_FILENAME = "context.json";
-  private static final String PET_KEYS_DIRNAME = "pet-keys";
-  private static final String LOGS_DIRNAME = "logs";
-  private static final String LOG_FILENAME = "terra.log";
-
   /**
-   * Reads the context file from disk and initializes the singleton internal state classes (Config,
-   * Server, User, Workspace).
+   * Resets the singleton internal state classes (Config, Server, User, Workspace), so that each one
+   * is read from disk the first time it's requested.
+   *
+   * <p>If the context was written by an older version of the CLI, as a single file, then this reads
+   * that file instead, and the next sync to disk writes it out as separate files.
    *
    * <p>Note: DO NOT put any logger statements in this function. Because we setup the loggers using
    * the logging levels specified in the context, the loggers have not been setup when we first call
    * this function.
    */
   public static void initializeFromDisk() {
-    try {
-      // try to read in an instance of the context file
-      PDContext diskContext =
-          JacksonMapper.readFileIntoJavaObject(getContextFile().toFile(), PDContext.class);
-      currentConfig = new Config(diskContext.config);
-      currentServer = new Server(diskContext.server);
-      currentUser = diskContext.user == null ? null : new User(diskContext.user);
-      currentWorkspace =
-          diskContext.workspace == null ? null : new Workspace(diskContext.workspace);
-      currentVersionCheck =
-          diskContext.versionCheck == null ? null : new VersionCheck(diskContext.versionCheck);
-
-    } catch (FileNotFoundException fnfEx) {
-      // file not found is a common error here (e.g. first time running the CLI, there will be no
-      // pre-existing context file). we handle this by returning an object populated with
-      // default values below. so, no need to log or throw the exception returned here.
-      logger.debug("Context file not found. Re-initializing with default values");
-      initializeDefaults();
-    } catch (IOException ioEx) {
-      throw new SystemException("Error reading context file from disk.", ioEx);
+    allShards.forEach(ContextShard::reset);
+    readFromLegacyFile = false;
+    deferWrites = false;
+    writePending = false;
+
+    Path legacyContextFile = getContextDir().resolve(LEGACY_CONTEXT_FILENAME);
+    if (!getContextShardDir().toFile().exists() && legacyContextFile.toFile().exists()) {
+      try {
+        PDContext diskContext =
+            JacksonMapper.readFileIntoJavaObject(legacyContextFile.toFile(), PDContext.class);
+        configShard.setFromOtherSource(new Config(diskContext.config));
+        serverShard.setFromOtherSource(new Server(diskContext.server));
+        userShard.setFromOtherSource(
+            diskContext.user == null ? null : new User(diskContext.user));
+        workspaceShard.setFromOtherSource(
+            diskContext.workspace == null ? null : new Workspace(diskContext.workspace));
+        versionCheckShard.setFromOtherSource(
+            diskContext.versionCheck == null ? null : new VersionCheck(diskContext.versionCheck));
+        readFromLegacyFile = true;
+      } catch (IOException ioEx) {
+        throw new SystemException("Error reading context file from disk.", ioEx);
+      }
     }
     overrideWorkspace = null;
     useOverrideWorkspace = false;
   }
 
-  private static void initializeDefaults() {
-    currentConfig = new Config();
-    currentServer = new Server();
-    currentUser = null;
-    currentWorkspace = null;
-    currentVersionCheck = null;
+  /**
+   * Writes the parts of the current internal state (Config, Server, User, Workspace) that changed
+   * to disk. If writes are deferred, then this just notes that a write is needed at the end of the
+   * command.
+   */
+  public static void synchronizeToDisk() {
+    if (deferWrites) {
+      writePending = true;
+      return;
+    }
+    writeChangedShards();
+  }
+
+  /**
+   * Defer syncs to disk until {@link #flushToDisk} or {@link #stopDeferringWritesToDisk} is called.
+   * Commands call this at the start, so that a command that changes the context several times only
+   * writes it once.
+   */
+  public static void deferWritesToDisk() {
+    deferWrites = true;
   }
 
   /**
-   * Writes the current internal state (Config, Server, User, Workspace) to the context file on
-   * disk.
+   * Write any deferred changes to disk now, e.g. before starting another process that may read the
+   * context. Later syncs are still deferred.
    */
-  public static void synchronizeToDisk() {
+  public static void flushToDisk() {
+    if (writePending) {
+      writePending = false;
+      writeChangedShards();
+    }
+  }
+
+  /** Write any deferred changes to disk, and write each later sync immediately. */
+  public static void stopDeferringWritesToDisk() {
+    flushToDisk();
+    deferWrites = false;
+  }
+
+  /**
+   * Write each part of the context that changed since it was read or last written. If another
+   * command changed the same part, then this command's changes are merged with it, see {@link
+   * ContextShard#writeIfChanged}.
+   *
+   * @throws UserActionableException if this command's changes to a part conflict with another
+   *     command's. the other parts are still written
+   */
+  private static void writeChangedShards() {
+    List<UserActionableException> conflicts = new ArrayList<>();
     try {
-      PDContext diskContext =
-          new PDContext(
-              currentConfig, currentServer, currentUser, currentWorkspace, currentVersionCheck);
-      JacksonMapper.writeJavaObjectToFile(getContextFile().toFile(), diskContext);
-      logger.info("Wrote context to disk: \n{}", diskContext);
+      runWithLock(
+          () -> {
+            // write the workspace's resources first, so the context never records a sync time for
+            // a list of resources that isn't on disk
+            if (workspaceShard.isLoaded() && workspaceShard.get() != null) {
+              workspaceShard.get().synchronizeResourcesToDisk();
+            }
+            List<Path> writtenFiles = new ArrayList<>();
+            for (ContextShard<?, ?> shard : allShards) {
+              ContextShard.WriteResult writeResult;
+              try {
+                writeResult = shard.writeIfChanged();
+              } catch (UserActionableException uaEx) {
+                conflicts.add(uaEx);
+                continue;
+              }
+              if (writeResult == ContextShard.WriteResult.MERGED_CONCURRENT_CHANGE) {
+                logger.info(
+                    "{} was changed by another command since this one read it. Merged the changes.",
+                    shard.getFile());
+              }
+              if (writeResult != ContextShard.WriteResult.UNCHANGED) {
+                writtenFiles.add(shard.getFile());
+              }
+            }
+            if (readFromLegacyFile && conflicts.isEmpty()) {
+              Files.deleteIfExists(getContextDir().resolve(LEGACY_CONTEXT_FILENAME));
+              readFromLegacyFile = false;
+            }
+            logger.info("Wrote context to disk: {}", writtenFiles);
+          });
     } catch (IOException ioEx) {
       logger.error("Error persisting context to disk.", ioEx);
     }
+    if (!conflicts.isEmpty()) {
+      throw conflicts.get(0);
+    }
+  }
+
+  /**
+   * Run a function while holding an exclusive lock on the context directory, waiting for any other
+   * CLI process that holds it. Use this for anything that reads and then writes files in the
+   * context directory, so that another process can't change them in between. The lock can be
+   * re-entered by the thread that holds it.
+   *
+   * @param function function to run
+   * @throws IOException if the lock can't be taken, or the function throws it
+   */
+  static void runWithLock(LockedFunction function) throws IOException {
+    processLock.writeLock().lock();
+    try {
+      if (processLock.writeLock().getHoldCount() > 1) {
+        function.run();
+        return;
+      }
+      Files.createDirectories(getContextDir());
+      try (FileChannel lockChannel =
+              FileChannel.open(
+                  getContextDir().resolve(LOCK_FILENAME),
+                  StandardOpenOption.CREATE,
+                  StandardOpenOption.WRITE);
+          FileLock fileLock = lockChannel.lock()) {
+        function.run();
+      }
+    } finally {
+      processLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Run a function while holding a shared lock on the context directory. Other readers, in this
+   * process or others, can hold it at the same time, but {@link #runWithLock} waits for all of
+   * them. Use this for reads of files that are changed in place (e.g. appends), and keep the
+   * function short. The function must not call {@link #runWithLock}.
+   *
+   * @param function function to run
+   * @throws IOException if the lock can't be taken, or the function throws it
+   */
+  static void runWithSharedLock(LockedFunction function) throws IOException {
+    if (processLock.isWriteLockedByCurrentThread()) {
+      // the exclusive lock already keeps out writers
+      function.run();
+      return;
+    }
+    processLock.readLock().lock();
+    try {
+      acquireSharedFileLock();
+      try {
+        function.run();
+      } finally {
+        releaseSharedFileLock();
+      }
+    } finally {
+      processLock.readLock().unlock();
+    }
+  }
+
+  /** Take the shared lock on the context directory, if no other thread in this process has it. */
+  private static void acquireSharedFileLock() throws IOException {
+    synchronized (sharedFileLockMonitor) {
+      if (numSharedLockHolders == 0) {
+        Files.createDirectories(getContextDir());
+        FileChannel lockChannel =
+            FileChannel.open(
+                getContextDir().resolve(LOCK_FILENAME),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+          lockChannel.lock(0, Long.MAX_VALUE, true);
+        } catch (IOException | RuntimeException ex) {
+          lockChannel.close();
+          throw ex;
+        }
+        sharedLockChannel = lockChannel;
+      }
+      numSharedLockHolders++;
+    }
+  }
+
+  /** Release the shared lock on the context directory, once no thread in this process needs it. */
+  private static void releaseSharedFileLock() throws IOException {
+    synchronized (sharedFileLockMonitor) {
+      numSharedLockHolders--;
+      if (numSharedLockHolders == 0) {
+        // closing the channel releases the lock
+        sharedLockChannel.close();
+        sharedLockChannel = null;
+      }
+    }
+  }
+
+  /** Function to run while holding the lock on the context directory. */
+  @FunctionalInterface
+  interface LockedFunction {
+    void run() throws IOException;
   }
 
   // ====================================================
   // Directory and file names for persisting on disk
   //   - context directory parent: $HOME/ or $TERRA_CONTEXT_PARENT_DIR/
   //       - context directory: .terra/
-  //           - persisted context file: context.json
+  //           - lock file for writes from concurrent CLI processes: context.lock
+  //           - sub-directory for the persisted context, one file per part: context/
+  //               - config.json, server.json, user.json, workspace.json, version-check.json
   //           - sub-directory for persisting pet SA keys: pet-keys/[terra user id]/
   //               - pet SA key filename: [workspace id]
   //           - sub-directory for log files: logs/
   //               -*.terra.log
+  //           - sub-directory for Docker image readiness markers and background pulls:
+  //             docker-images/
+  //           - sub-directory for the cached list of resources in each workspace: resources/
+  //               - resource store filename: [workspace id].ndjson
   //           - sub-directory for Java library dependencies: lib/
   //               -*.jar
 
@@ -140,12 +391,13 @@ public class Context {
   }
 
   /**
-   * Get the context file.
+   * Get the directory that contains the persisted context, one file per part of the context. This
+   * is a sub-directory of the context directory.
    *
-   * @return absolute path to the context file
+   * @return absolute path to the persisted context directory
    */
-  public static Path getContextFile() {
-    return getContextDir().resolve(CONTEXT_FILENAME);
+  public static Path getContextShardDir() {
+    return getContextDir().resolve(CONTEXT_SHARD_DIRNAME);
   }
 
   /**
@@ -182,6 +434,17 @@ public class Context {
     return Context.getPetSaKeyDir(user).resolve(requireWorkspace().getId().toString());
   }
 
+  /**
+   * Get the file that caches pet SA access tokens for the given user. This is stored alongside the
+   * pet SA key files, so that it is deleted along with them on logout.
+   *
+   * @param user user whose access tokens we want
+   * @return absolute path to the access token cache file for the given user
+   */
+  public static Path getPetSaAccessTokenFile(User user) {
+    return getPetSaKeyDir(user).resolve(PET_ACCESS_TOKENS_FILENAME);
+  }
+
   /**
    * Get the log file name.
    *
@@ -191,29 +454,55 @@ public class Context {
     return getContextDir().resolve(LOGS_DIRNAME).resolve(LOG_FILENAME);
   }
 
+  /**
+   * Get the directory that tracks which Docker images are ready to use on the local machine, and
+   * any image pulls that are running in the background. This is a sub-directory of the context
+   * directory.
+   *
+   * @return absolute path to the Docker images directory
+   */
+  public static Path getDockerImagesDir() {
+    return getContextDir().resolve(DOCKER_IMAGES_DIRNAME);
+  }
+
+  /**
+   * Get the file that stores the cached list of resources for a workspace. This is stored in a
+   * sub-directory of the context directory.
+   *
+   * @param workspaceId id of the workspace
+   * @return absolute path to the resource store file for the given workspace
+   */
+  public static Path getResourceStoreFile(UUID workspaceId) {
+    return getContextDir()
+        .resolve(RESOURCES_DIRNAME)
+        .resolve(workspaceId + RESOURCE_STORE_FILE_EXTENSION);
+  }
+
   // ====================================================
   // Singleton get/setters.
   public static Config getConfig() {
-    if (currentConfig == null) {
+    Config config = configShard.get();
+    if (config == null) {
       throw new SystemException("Config not initialized.");
     }
-    return currentConfig;
+    return config;
   }
 
   public static Server getServer() {
-    if (currentServer == null) {
+    Server server = serverShard.get();
+    if (server == null) {
       throw new SystemException("Server not initialized.");
     }
-    return currentServer;
+    return server;
   }
 
   public static void setServer(Server server) {
-    currentServer = server;
+    serverShard.set(server);
     synchronizeToDisk();
   }
 
   public static Optional<User> getUser() {
-    return Optional.ofNullable(currentUser);
+    return Optional.ofNullable(userShard.get());
   }
 
   public static User requireUser() {
@@ -225,12 +514,12 @@ public class Context {
   }
 
   public static void setUser(User user) {
-    currentUser = user;
+    userShard.set(user);
     synchronizeToDisk();
   }
 
   public static Optional<Workspace> getWorkspace() {
-    return Optional.ofNullable(useOverrideWorkspace ? overrideWorkspace : currentWorkspace);
+    return Optional.ofNullable(useOverrideWorkspace ? overrideWorkspace : workspaceShard.get());
   }
 
   public static Workspace requireWorkspace() {
@@ -245,21 +534,22 @@ public class Context {
     if (useOverrideWorkspace) {
       overrideWorkspace = workspace;
     } else {
-      currentWorkspace = workspace;
+      workspaceShard.set(workspace);
       synchronizeToDisk();
     }
   }
 
   public static Optional<VersionCheck> getVersionCheck() {
-    return Optional.ofNullable(currentVersionCheck);
+    return Optional.ofNullable(versionCheckShard.get());
   }
 
   public static void setVersionCheck(VersionCheck versionCheck) {
-    currentVersionCheck = versionCheck;
+    versionCheckShard.set(versionCheck);
     synchronizeToDisk();
   }
 
   public static void useOverrideWorkspace(UUID id) {
+    Workspace currentWorkspace = workspaceShard.get();
     if (currentWorkspace != null && id.equals(currentWorkspace.getId())) {
       // If the user provides the --workspace argument with the same ID as their current workspace,
       // ignore it. We should still update the current context so that the user does not see out
@@ -269,4 +559,14 @@ public class Context {
     useOverrideWorkspace = true;
     Workspace.load(id);
   }
+
+  /**
+   * Go back to using the current workspace, instead of the one set by {@link
+   * #useOverrideWorkspace}. The `terra batch` command calls this between lines, because the
+   * commands it runs share the context without reading it from disk again.
+   */
+  public static void clearOverrideWorkspace() {
+    overrideWorkspace = null;
+    useOverrideWorkspace = false;
+  }
 }
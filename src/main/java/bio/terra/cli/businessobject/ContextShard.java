@@ -0,0 +1,305 @@
+package bio.terra.cli.businessobject;
+
+import bio.terra.cli.exception.SystemException;
+import bio.terra.cli.exception.UserActionableException;
+import bio.terra.cli.utils.FileUtils;
+import bio.terra.cli.utils.JacksonMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * One part of the current context (e.g. config, server, user) that is persisted to its own file in
+ * the context directory. This lets a command read only the parts of the context it needs, and write
+ * only the parts it changed.
+ *
+ * <p>The file is read the first time the value is requested. On a sync to disk, the value is
+ * serialized and compared with the bytes last read or written, and the file is only rewritten if
+ * they differ. So changes made directly on the internal objects (e.g. config setters) are picked
+ * up without having to mark the shard as changed. A null value is persisted by deleting the file.
+ * The bytes last read or written are also the version that a write checks against, to detect
+ * changes made by another command in the meantime. Those changes are merged with this command's
+ * changes, one top-level field at a time, see {@link #writeIfChanged}.
+ *
+ * <p>Methods are synchronized because the first request for a value may come from one of the
+ * threads that look up resources in parallel.
+ *
+ * <p>Note: DO NOT put any logger statements in this class. The config shard is read before the
+ * loggers are setup.
+ *
+ * @param <T> internal class (e.g. {@link Config})
+ * @param <P> disk format class (e.g. {@link bio.terra.cli.serialization.persisted.PDConfig})
+ */
+class ContextShard<T, P> {
+  // number of times to re-read the file and merge this command's changes before giving up
+  private static final int MAX_WRITE_ATTEMPTS = 3;
+
+  private final String fileName;
+  private final Class<P> diskClass;
+  private final Function<P, T> deserializer;
+  private final Function<T, P> serializer;
+  private final Supplier<T> defaultValue;
+  @Nullable private final String identityField;
+
+  private boolean isLoaded;
+  @Nullable private T value;
+  // bytes of the file as last read or written. null if there is no file
+  @Nullable private byte[] bytesOnDisk;
+
+  /**
+   * Build a shard. This does not read the file.
+   *
+   * @param fileName name of the file in the context sub-directory
+   * @param diskClass disk format class, for Jackson
+   * @param deserializer converts the disk format to the internal object
+   * @param serializer converts the internal object to the disk format
+   * @param defaultValue supplies the value to use when there is no file, may return null
+   * @param identityField field of the disk format that identifies which object the file holds
+   *     (e.g. the workspace id), or null if it always holds the same one. changes this command made
+   *     to an object that another command has since replaced with a different one are dropped
+   */
+  ContextShard(
+      String fileName,
+      Class<P> diskClass,
+      Function<P, T> deserializer,
+      Function<T, P> serializer,
+      Supplier<T> defaultValue,
+      @Nullable String identityField) {
+    this.fileName = fileName;
+    this.diskClass = diskClass;
+    this.deserializer = deserializer;
+    this.serializer = serializer;
+    this.defaultValue = defaultValue;
+    this.identityField = identityField;
+  }
+
+  /** Forget the value, so that it's read from disk again the next time it's requested. */
+  synchronized void reset() {
+    isLoaded = false;
+    value = null;
+    bytesOnDisk = null;
+  }
+
+  /** Get the value, reading it from disk first if it hasn't been read yet. */
+  @Nullable
+  synchronized T get() {
+    if (!isLoaded) {
+      load();
+    }
+    return value;
+  }
+
+  /** Set the value. This does not write it to disk, see {@link #writeIfChanged}. */
+  synchronized void set(@Nullable T value) {
+    this.value = value;
+    this.isLoaded = true;
+  }
+
+  /**
+   * Set a value that was read from somewhere other than this shard's file (i.e. a context file
+   * written by an older version of the CLI). The file is always written on the next sync.
+   */
+  synchronized void setFromOtherSource(@Nullable T value) {
+    set(value);
+    bytesOnDisk = null;
+  }
+
+  /** Return true if the value was read or set during this command. */
+  synchronized boolean isLoaded() {
+    return isLoaded;
+  }
+
+  /**
+   * Write the value to disk, if it was read or set during this command and it's different from
+   * the version this command read. The file is written to a temporary file first and then renamed,
+   * so a reader never sees a partially written file.
+   *
+   * <p>The caller should hold the lock on the context directory, so that the check of the version
+   * on disk and the write happen together. If this command didn't change the value, then the file
+   * is left alone, even if another command changed it in the meantime.
+   *
+   * <p>If another command changed the file since this one read it, then the file is re-read and
+   * the top-level fields that this command changed are applied on top of it, and the write is
+   * tried again. The value is replaced with the merged one, so objects returned by {@link #get}
+   * before this call are out of date.
+   *
+   * @return whether the file was written, and if so, whether another command's changes were merged
+   * @throws UserActionableException if both commands changed the same field to different values
+   * @throws IOException if the file can't be read or written
+   */
+  synchronized WriteResult writeIfChanged() throws IOException {
+    if (!isLoaded) {
+      return WriteResult.UNCHANGED;
+    }
+    byte[] bytes = serialize(value);
+    if (Arrays.equals(bytes, bytesOnDisk)) {
+      return WriteResult.UNCHANGED;
+    }
+
+    Path file = getFile();
+    boolean merged = false;
+    for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+      // compare the current version on disk with the one this command read
+      byte[] currentBytes = readBytesIfExists(file);
+      if (Arrays.equals(bytes, currentBytes)) {
+        // another command already wrote the same value
+        bytesOnDisk = currentBytes;
+        return WriteResult.UNCHANGED;
+      }
+      if (Arrays.equals(currentBytes, bytesOnDisk)) {
+        if (bytes == null) {
+          Files.deleteIfExists(file);
+        } else {
+          FileUtils.writeBytesToFileAtomically(file, bytes);
+        }
+        bytesOnDisk = bytes;
+        return merged ? WriteResult.MERGED_CONCURRENT_CHANGE : WriteResult.WRITTEN;
+      }
+
+      // another command changed the file since this one read it
+      JsonNode mergedTree = merge(bytesOnDisk, bytes, currentBytes);
+      value =
+          mergedTree == null
+              ? null
+              : deserializer.apply(JacksonMapper.getMapper().treeToValue(mergedTree, diskClass));
+      bytesOnDisk = currentBytes;
+      bytes = serialize(value);
+      merged = true;
+      if (Arrays.equals(bytes, bytesOnDisk)) {
+        // none of this command's changes are left after the merge
+        return WriteResult.UNCHANGED;
+      }
+    }
+    throw new UserActionableException(
+        "The context file "
+            + file
+            + " keeps being changed by another command. Wait for other commands to finish and try"
+            + " again.");
+  }
+
+  /** Result of {@link #writeIfChanged}. */
+  enum WriteResult {
+    // this command didn't change the value, or the file already has it
+    UNCHANGED,
+    // the file was written or deleted
+    WRITTEN,
+    // the file was written, after merging this command's changes with another command's
+    MERGED_CONCURRENT_CHANGE;
+  }
+
+  /**
+   * Apply the top-level fields that this command changed on top of the version that another
+   * command wrote. Fields that only the other command changed keep its values.
+   *
+   * @param baseBytes version this command read, or null if there was no file
+   * @param ourBytes version this command is writing, or null to delete the file
+   * @param theirBytes version the other command wrote, or null if it deleted the file
+   * @return merged disk format, or null to delete the file
+   * @throws UserActionableException if both commands changed the same field to different values
+   */
+  @Nullable
+  private JsonNode merge(
+      @Nullable byte[] baseBytes, @Nullable byte[] ourBytes, @Nullable byte[] theirBytes)
+      throws IOException {
+    ObjectMapper mapper = JacksonMapper.getMapper();
+    JsonNode base = baseBytes == null ? null : mapper.readTree(baseBytes);
+    JsonNode ours = ourBytes == null ? null : mapper.readTree(ourBytes);
+    JsonNode theirs = theirBytes == null ? null : mapper.readTree(theirBytes);
+    if (identityField != null
+        && base != null
+        && theirs != null
+        && !Objects.equals(base.get(identityField), theirs.get(identityField))
+        && (ours == null || Objects.equals(base.get(identityField), ours.get(identityField)))) {
+      // the other command replaced the object this command changed, e.g. it set a different
+      // workspace. this command's changes don't apply to the new one
+      return theirs;
+    }
+    if (!(base instanceof ObjectNode)
+        || !(ours instanceof ObjectNode)
+        || !(theirs instanceof ObjectNode)) {
+      // one of the commands created or deleted the file, so there are no fields to merge
+      throw conflict();
+    }
+
+    ObjectNode mergedTree = ((ObjectNode) theirs).deepCopy();
+    Set<String> fieldNames = new LinkedHashSet<>();
+    base.fieldNames().forEachRemaining(fieldNames::add);
+    ours.fieldNames().forEachRemaining(fieldNames::add);
+    for (String fieldName : fieldNames) {
+      JsonNode baseField = base.get(fieldName);
+      JsonNode ourField = ours.get(fieldName);
+      JsonNode theirField = theirs.get(fieldName);
+      if (Objects.equals(baseField, ourField) || Objects.equals(ourField, theirField)) {
+        continue;
+      } else if (!Objects.equals(baseField, theirField)) {
+        throw conflict();
+      }
+      if (ourField == null) {
+        mergedTree.remove(fieldName);
+      } else {
+        mergedTree.set(fieldName, ourField);
+      }
+    }
+    return mergedTree;
+  }
+
+  /** Build the exception for changes from another command that can't be merged. */
+  private UserActionableException conflict() {
+    return new UserActionableException(
+        "The context file "
+            + getFile()
+            + " was changed by another command while this one was running. Check the current"
+            + " context (e.g. `terra status`) and re-run the command.");
+  }
+
+  /** Serialize a value to the bytes written to disk, or null if there should be no file. */
+  @Nullable
+  private byte[] serialize(@Nullable T value) throws IOException {
+    return value == null
+        ? null
+        : JacksonMapper.getMapper()
+            .writerWithDefaultPrettyPrinter()
+            .writeValueAsBytes(serializer.apply(value));
+  }
+
+  /** Get the file for this shard. */
+  Path getFile() {
+    return Context.getContextShardDir().resolve(fileName);
+  }
+
+  /** Read the contents of a file, or return null if it doesn't exist. */
+  @Nullable
+  private static byte[] readBytesIfExists(Path file) throws IOException {
+    try {
+      return Files.readAllBytes(file);
+    } catch (NoSuchFileException nsfEx) {
+      return null;
+    }
+  }
+
+  /** Read the value from disk, or use the default value if there is no file. */
+  private void load() {
+    try {
+      byte[] bytes = readBytesIfExists(getFile());
+      value =
+          bytes == null
+              ? defaultValue.get()
+              : deserializer.apply(JacksonMapper.getMapper().readValue(bytes, diskClass));
+      bytesOnDisk = bytes;
+    } catch (IOException ioEx) {
+      throw new SystemException("Error reading context file from disk: " + fileName, ioEx);
+    }
+    isLoaded = true;
+  }
+}
@@ -3,6 +3,7 @@ package bio.terra.cli.businessobject;
 import bio.terra.cli.exception.UserActionableException;
 import bio.terra.cli.service.SamService;
 import bio.terra.cli.service.SamService.GroupPolicy;
+import bio.terra.cli.utils.ParallelUtils;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -146,6 +147,49 @@ public class Group {
     logger.info("Removed user from group: group={}, email={}, policy={}", name, email, policy);
   }
 
+  /**
+   * Add members to SAM group policies in bulk. See {@link MembershipChange} for how the changes
+   * are made.
+   *
+   * @param changes email + policy pairs to add
+   * @param maxThreads maximum number of calls to SAM to make at the same time
+   */
+  public void addPolicyToMembers(List<MembershipChange<GroupPolicy>> changes, int maxThreads) {
+    SamService samService = SamService.fromContext();
+    MembershipChange.applyAll(
+        changes,
+        true,
+        listPoliciesByEmail(),
+        (email, policy) -> {
+          samService.addUserToGroup(name, policy, email);
+          logger.info("Added user to group: group={}, email={}, policy={}", name, email, policy);
+        },
+        this::listPoliciesByEmail,
+        maxThreads);
+  }
+
+  /**
+   * Remove members from SAM group policies in bulk. See {@link MembershipChange} for how the
+   * changes are made.
+   *
+   * @param changes email + policy pairs to remove
+   * @param maxThreads maximum number of calls to SAM to make at the same time
+   */
+  public void removePolicyFromMembers(List<MembershipChange<GroupPolicy>> changes, int maxThreads) {
+    SamService samService = SamService.fromContext();
+    MembershipChange.applyAll(
+        changes,
+        false,
+        listPoliciesByEmail(),
+        (email, policy) -> {
+          samService.removeUserFromGroup(name, policy, email);
+          logger.info(
+              "Removed user from group: group={}, email={}, policy={}", name, email, policy);
+        },
+        this::listPoliciesByEmail,
+        maxThreads);
+  }
+
   /**
    * Get the group member object.
    *
@@ -172,12 +216,19 @@ public class Group {
    * @return a map of email -> group member object
    */
   private Map<String, Member> listMembersByEmail() {
-    // call SAM to get the emails + policies for the group
+    // call SAM to get the emails + policies for the group. there's one endpoint per policy, and the
+    // calls are independent, so make them all at the same time with the same client
+    SamService samService = SamService.fromContext();
+    List<GroupPolicy> policies = List.of(GroupPolicy.values());
+    List<List<String>> emailsByPolicy =
+        ParallelUtils.mapInParallel(
+            policies, policy -> samService.listUsersInGroup(name, policy), policies.size());
+
     // convert the SAM objects (policy -> list of emails) to CLI objects (email -> list of policies)
     Map<String, Member> groupMembers = new HashMap<>();
-    for (GroupPolicy policy : GroupPolicy.values()) {
-      List<String> emailsWithPolicy = SamService.fromContext().listUsersInGroup(name, policy);
-      for (String email : emailsWithPolicy) {
+    for (int ctr = 0; ctr < policies.size(); ctr++) {
+      GroupPolicy policy = policies.get(ctr);
+      for (String email : emailsByPolicy.get(ctr)) {
         // lowercase the email so there is a consistent way of looking up the email address
         // the email address casing in SAM may not match the case of what is provided by the
         // user
@@ -193,6 +244,16 @@ public class Group {
     return groupMembers;
   }
 
+  /**
+   * Get the policies of each member of the group.
+   *
+   * @return a map of email -> list of policies
+   */
+  private Map<String, List<GroupPolicy>> listPoliciesByEmail() {
+    return listMembersByEmail().values().stream()
+        .collect(Collectors.toMap(Member::getEmail, Member::getPolicies));
+  }
+
   // ====================================================
   // Property getters.
 
@@ -0,0 +1,147 @@
+package bio.terra.cli.businessobject;
+
+import bio.terra.cli.utils.ParallelUtils;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Internal representation of one change in a bulk membership update (e.g. grant a workspace role
+ * to an email). This class is not part of the current context or state.
+ *
+ * <p>A bulk update reads the current membership once, skips the changes that are already in
+ * effect, makes the rest in parallel, and then reads the membership once more to report the roles
+ * each email ends up with. A change that fails doesn't stop the others, so the same input can be
+ * re-run after fixing the failed lines.
+ *
+ * @param <R> enum of the roles or policies that can be granted (e.g. {@link WorkspaceUser.Role})
+ */
+public class MembershipChange<R extends Enum<R>> {
+  private static final Logger logger = LoggerFactory.getLogger(MembershipChange.class);
+
+  private final String email;
+  private final R role;
+  private Status status;
+  @Nullable private String errorMessage;
+  private List<R> rolesAfter = Collections.emptyList();
+
+  /** Outcome of a change. */
+  public enum Status {
+    // not made yet
+    PENDING,
+    // made successfully
+    CHANGED,
+    // skipped because it was already in effect
+    UNCHANGED,
+    // the call to make the change failed
+    FAILED;
+  }
+
+  public MembershipChange(String email, R role) {
+    this.email = email;
+    this.role = role;
+    this.status = Status.PENDING;
+  }
+
+  /**
+   * Make a list of changes that all add roles, or all remove them.
+   *
+   * @param changes changes to make. their status, error message and roles after the update are set
+   *     by this method
+   * @param isAdd true if the changes grant roles, false if they revoke them
+   * @param rolesByEmail current roles, keyed by lowercase email
+   * @param operation call that makes a single change, given the email and role
+   * @param reader call that reads the roles again after the changes, keyed by lowercase email
+   * @param maxThreads maximum number of changes to make at the same time
+   * @param <R> enum of the roles or policies
+   */
+  static <R extends Enum<R>> void applyAll(
+      List<MembershipChange<R>> changes,
+      boolean isAdd,
+      Map<String, List<R>> rolesByEmail,
+      BiConsumer<String, R> operation,
+      Supplier<Map<String, List<R>>> reader,
+      int maxThreads) {
+    // skip the changes that are already in effect
+    List<MembershipChange<R>> pendingChanges = new ArrayList<>();
+    for (MembershipChange<R> change : changes) {
+      boolean hasRole =
+          rolesByEmail.getOrDefault(change.getLowercaseEmail(), List.of()).contains(change.role);
+      if (hasRole == isAdd) {
+        change.status = Status.UNCHANGED;
+      } else {
+        pendingChanges.add(change);
+      }
+    }
+    logger.info(
+        "Making {} of {} membership changes on {} threads",
+        pendingChanges.size(),
+        changes.size(),
+        maxThreads);
+
+    ParallelUtils.mapInParallel(
+        pendingChanges,
+        change -> {
+          try {
+            operation.accept(change.email, change.role);
+            change.status = Status.CHANGED;
+          } catch (RuntimeException ex) {
+            logger.error(
+                "Error changing membership: email={}, role={}", change.email, change.role, ex);
+            change.status = Status.FAILED;
+            change.errorMessage = ex.getMessage();
+          }
+          return change;
+        },
+        maxThreads);
+
+    // read the membership again only if something may have changed
+    Map<String, List<R>> rolesAfterByEmail =
+        pendingChanges.isEmpty() ? rolesByEmail : reader.get();
+    for (MembershipChange<R> change : changes) {
+      change.rolesAfter =
+          rolesAfterByEmail.getOrDefault(change.getLowercaseEmail(), Collections.emptyList());
+    }
+  }
+
+  /** Count the changes that failed. */
+  public static <R extends Enum<R>> long countFailed(List<MembershipChange<R>> changes) {
+    return changes.stream().filter(change -> change.status == Status.FAILED).count();
+  }
+
+  // lowercase the email so there is a consistent way of looking up the email address
+  // the email address casing in SAM may not match the case of what is provided by the user
+  private String getLowercaseEmail() {
+    return email.toLowerCase();
+  }
+
+  // ====================================================
+  // Property getters.
+
+  public String getEmail() {
+    return email;
+  }
+
+  public R getRole() {
+    return role;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  @Nullable
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public List<R> getRolesAfter() {
+    return rolesAfter;
+  }
+}
@@ -0,0 +1,222 @@
+package bio.terra.cli.businessobject;
+
+import bio.terra.cli.serialization.persisted.PDPetSaAccessToken;
+import bio.terra.cli.service.GoogleOauth;
+import bio.terra.cli.service.SamService;
+import bio.terra.cli.utils.FileUtils;
+import bio.terra.cli.utils.JacksonMapper;
+import com.google.auth.oauth2.AccessToken;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.File;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of pet SA access tokens, keyed by user, Google project and scopes. SAM returns pet SA
+ * access tokens without an expiration time, so this class looks it up once per token and then
+ * re-uses the token until shortly before it expires. The cache is shared by all threads in the
+ * process, and is also persisted in the pet SA key directory, so that consecutive commands can
+ * re-use the same token.
+ */
+public class PetSaAccessTokenCache {
+  private static final Logger logger = LoggerFactory.getLogger(PetSaAccessTokenCache.class);
+
+  // fetch a new token when the cached one is this close to expiring, so that a call that starts
+  // with the cached token doesn't fail part way through
+  private static final Duration REFRESH_AHEAD = Duration.ofMinutes(5);
+
+  // lifetime to assume if the expiration time of a new token can't be looked up. Google access
+  // tokens are valid for an hour, but SAM may return a token that it minted earlier.
+  private static final Duration ASSUMED_LIFETIME = Duration.ofMinutes(10);
+
+  // user id -> (google project id + scopes) -> token
+  private static final Map<String, Map<String, PDPetSaAccessToken>> tokensByUser =
+      new HashMap<>();
+
+  // user id + key -> lock held while fetching that token, so only one caller fetches it at a time
+  private static final Map<String, Object> refreshLocks = new ConcurrentHashMap<>();
+
+  // fetches new tokens from SAM and looks up when they expire
+  private static final TokenFetcher SAM_TOKEN_FETCHER =
+      new TokenFetcher() {
+        @Override
+        public String fetchToken(User user, String googleProjectId, List<String> scopes) {
+          return SamService.forUser(user).getPetSaAccessTokenForProject(googleProjectId, scopes);
+        }
+
+        @Override
+        public Optional<Date> getExpiration(String tokenValue) {
+          return GoogleOauth.getAccessTokenExpiration(tokenValue);
+        }
+      };
+
+  private static volatile TokenFetcher tokenFetcher = SAM_TOKEN_FETCHER;
+  private static volatile Clock clock = Clock.systemUTC();
+
+  private PetSaAccessTokenCache() {}
+
+  /** Source of new pet SA access tokens. This is only replaced by tests. */
+  @VisibleForTesting
+  public interface TokenFetcher {
+    /** Fetch a new pet SA access token. */
+    String fetchToken(User user, String googleProjectId, List<String> scopes);
+
+    /** Look up the expiration time of a token, or return empty if it can't be looked up. */
+    Optional<Date> getExpiration(String tokenValue);
+  }
+
+  /**
+   * Get a pet SA access token for the given user, project and scopes. Return the cached token if it
+   * is not close to expiring. Otherwise, fetch a new one from SAM and cache it.
+   *
+   * <p>Concurrent callers that need the same token (e.g. the parallel cloud lookups for a resource
+   * list) wait for a single request to SAM instead of each making their own. The network calls are
+   * made outside the lock on the cache itself, so a slow refresh of one token doesn't block callers
+   * that need a different one.
+   *
+   * @param user user whose pet SA token to get
+   * @param googleProjectId project the pet SA belongs to
+   * @param scopes scopes to request for the token
+   * @return access token, with its expiration time
+   */
+  public static AccessToken get(User user, String googleProjectId, List<String> scopes) {
+    String key = buildKey(googleProjectId, scopes);
+    PDPetSaAccessToken cachedToken = getCachedToken(user, key);
+    if (cachedToken != null) {
+      logger.debug("Using cached pet SA access token for project {}", googleProjectId);
+      return new AccessToken(cachedToken.tokenValue, cachedToken.expirationTime);
+    }
+
+    Object refreshLock = refreshLocks.computeIfAbsent(user.getId() + " " + key, k -> new Object());
+    synchronized (refreshLock) {
+      // re-check, in case another caller refreshed this token while we were waiting
+      cachedToken = getCachedToken(user, key);
+      if (cachedToken != null) {
+        logger.debug("Using pet SA access token refreshed by another caller");
+        return new AccessToken(cachedToken.tokenValue, cachedToken.expirationTime);
+      }
+
+      logger.debug("Fetching new pet SA access token for project {}", googleProjectId);
+      String tokenValue = tokenFetcher.fetchToken(user, googleProjectId, scopes);
+      Date expirationTime =
+          tokenFetcher
+              .getExpiration(tokenValue)
+              .orElseGet(() -> new Date(clock.millis() + ASSUMED_LIFETIME.toMillis()));
+      PDPetSaAccessToken newToken =
+          new PDPetSaAccessToken.Builder()
+              .googleProjectId(googleProjectId)
+              .scopes(scopes)
+              .tokenValue(tokenValue)
+              .expirationTime(expirationTime)
+              .build();
+      putCachedToken(user, key, newToken);
+      return new AccessToken(tokenValue, expirationTime);
+    }
+  }
+
+  /** Return the cached token for the given key, or null if there isn't one that's still fresh. */
+  private static synchronized PDPetSaAccessToken getCachedToken(User user, String key) {
+    PDPetSaAccessToken cachedToken =
+        tokensByUser.computeIfAbsent(user.getId(), userId -> readFromDisk(user)).get(key);
+    return cachedToken == null || isCloseToExpiring(cachedToken) ? null : cachedToken;
+  }
+
+  /** Add a token to the cache, and write the user's cached tokens to disk. */
+  private static synchronized void putCachedToken(
+      User user, String key, PDPetSaAccessToken newToken) {
+    Map<String, PDPetSaAccessToken> userTokens =
+        tokensByUser.computeIfAbsent(user.getId(), userId -> readFromDisk(user));
+    userTokens.put(key, newToken);
+    writeToDisk(user, userTokens);
+  }
+
+  /**
+   * Clear the in-memory cached tokens for the given user. The file on disk is deleted along with
+   * the rest of the pet SA key directory.
+   *
+   * @param user user whose tokens to clear
+   */
+  public static synchronized void clear(User user) {
+    tokensByUser.remove(user.getId());
+  }
+
+  /**
+   * Fetch new tokens and check their expiration with the given fetcher and clock, instead of
+   * calling SAM and reading the system clock. Pass null for either to go back to the default. This
+   * also clears the in-memory cached tokens for all users.
+   *
+   * @param fetcher source of new tokens, or null for SAM
+   * @param testClock clock to check expiration against, or null for the system clock
+   */
+  @VisibleForTesting
+  public static synchronized void setTokenFetcherAndClock(
+      @Nullable TokenFetcher fetcher, @Nullable Clock testClock) {
+    tokenFetcher = fetcher == null ? SAM_TOKEN_FETCHER : fetcher;
+    clock = testClock == null ? Clock.systemUTC() : testClock;
+    tokensByUser.clear();
+  }
+
+  /** Build the cache key for a project and set of scopes. The order of the scopes is ignored. */
+  private static String buildKey(String googleProjectId, List<String> scopes) {
+    return googleProjectId + " " + scopes.stream().sorted().collect(Collectors.joining(" "));
+  }
+
+  /** Return true if the token expires within the refresh-ahead window. */
+  private static boolean isCloseToExpiring(PDPetSaAccessToken token) {
+    return token.expirationTime == null
+        || token.expirationTime.getTime() - clock.millis() < REFRESH_AHEAD.toMillis();
+  }
+
+  /**
+   * Read the cached tokens for the given user from disk, skipping any that are close to expiring.
+   * Return an empty map if there is no cache file or it can't be read.
+   */
+  private static Map<String, PDPetSaAccessToken> readFromDisk(User user) {
+    Map<String, PDPetSaAccessToken> userTokens = new HashMap<>();
+    File tokensFile = Context.getPetSaAccessTokenFile(user).toFile();
+    if (!tokensFile.exists()) {
+      return userTokens;
+    }
+    try {
+      PDPetSaAccessToken[] tokensFromDisk =
+          JacksonMapper.readFileIntoJavaObject(tokensFile, PDPetSaAccessToken[].class);
+      for (PDPetSaAccessToken token : tokensFromDisk) {
+        if (!isCloseToExpiring(token)) {
+          userTokens.put(buildKey(token.googleProjectId, token.scopes), token);
+        }
+      }
+    } catch (IOException ioEx) {
+      // the cache is just an optimization, so don't fail the command if it's unreadable
+      logger.warn("Error reading pet SA access token cache file, ignoring it.", ioEx);
+    }
+    return userTokens;
+  }
+
+  /**
+   * Write the cached tokens for the given user to disk. The file is only readable by the owner,
+   * because it holds credentials. Log, but don't throw, any errors.
+   */
+  private static void writeToDisk(User user, Map<String, PDPetSaAccessToken> userTokens) {
+    try {
+      FileUtils.writeOwnerOnlyBytesToFileAtomically(
+          Context.getPetSaAccessTokenFile(user),
+          JacksonMapper.getMapper()
+              .writerWithDefaultPrettyPrinter()
+              .writeValueAsBytes(new ArrayList<>(userTokens.values())));
+    } catch (IOException ioEx) {
+      logger.warn("Error writing pet SA access token cache file.", ioEx);
+    }
+  }
+}
@@ -11,6 +11,7 @@ import bio.terra.cli.serialization.persisted.PDResource;
 import bio.terra.cli.serialization.userfacing.UFResource;
 import bio.terra.cli.serialization.userfacing.input.UpdateResourceParams;
 import bio.terra.cli.service.WorkspaceManagerService;
+import bio.terra.cli.utils.ParallelUtils;
 import bio.terra.workspace.model.AccessScope;
 import bio.terra.workspace.model.CloningInstructionsEnum;
 import bio.terra.workspace.model.ControlledResourceIamRole;
@@ -20,8 +21,10 @@ import bio.terra.workspace.model.PrivateResourceUser;
 import bio.terra.workspace.model.ResourceDescription;
 import bio.terra.workspace.model.ResourceMetadata;
 import bio.terra.workspace.model.StewardshipType;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -55,12 +58,23 @@ public abstract class Resource {
    * the enum names are, which are exposed to users as command options.
    */
   public enum Type {
-    GCS_BUCKET,
-    GCS_OBJECT,
-    BQ_DATASET,
-    BQ_TABLE,
-    AI_NOTEBOOK,
-    GIT_REPO;
+    GCS_BUCKET(bio.terra.workspace.model.ResourceType.GCS_BUCKET),
+    GCS_OBJECT(bio.terra.workspace.model.ResourceType.GCS_OBJECT),
+    BQ_DATASET(bio.terra.workspace.model.ResourceType.BIG_QUERY_DATASET),
+    BQ_TABLE(bio.terra.workspace.model.ResourceType.BIG_QUERY_DATA_TABLE),
+    AI_NOTEBOOK(bio.terra.workspace.model.ResourceType.AI_NOTEBOOK),
+    GIT_REPO(bio.terra.workspace.model.ResourceType.GIT_REPO);
+
+    // corresponding WSM resource type, for filtering on the server
+    private final bio.terra.workspace.model.ResourceType wsmResourceType;
+
+    Type(bio.terra.workspace.model.ResourceType wsmResourceType) {
+      this.wsmResourceType = wsmResourceType;
+    }
+
+    public bio.terra.workspace.model.ResourceType getWsmResourceType() {
+      return wsmResourceType;
+    }
   }
 
   /** Deserialize an instance of the disk format to the internal object. */
@@ -128,6 +142,56 @@ public abstract class Resource {
    */
   public abstract UFResource serializeToCommand();
 
+  /**
+   * Serialize the internal representation of the resource to the format for command input/output,
+   * without querying the cloud for any additional properties (e.g. number of objects in a bucket).
+   * Sub-classes that query the cloud during serialization should override this method.
+   */
+  public UFResource serializeToCommandWithoutCloudMetadata() {
+    return serializeToCommand();
+  }
+
+  /**
+   * Serialize a list of resources to the format for command input/output. The cloud lookups for
+   * the resources run in parallel, using the number of threads and per-resource timeout in the
+   * current config. If the lookups for a resource time out, then that resource is serialized
+   * without the cloud properties (i.e. they display as unknown).
+   *
+   * @param resources list of resources to serialize
+   * @return list of serialized resources, in the same order as the input list
+   */
+  public static List<UFResource> serializeListToCommand(List<Resource> resources) {
+    Config config = Context.getConfig();
+    return ParallelUtils.mapInParallel(
+        resources,
+        Resource::serializeToCommand,
+        Resource::serializeToCommandWithoutCloudMetadata,
+        config.getResourceLookupThreads(),
+        Duration.ofSeconds(config.getResourceLookupTimeoutSeconds()));
+  }
+
+  /**
+   * Serialize a list of resources to the format for command input/output, passing each one to the
+   * given consumer as soon as it is ready. The cloud lookups run the same way as in {@link
+   * #serializeListToCommand(List)}, but the caller does not have to wait for all of them to finish
+   * before handling the first one.
+   *
+   * @param resources list of resources to serialize
+   * @param consumer function to call with each serialized resource, in the same order as the input
+   *     list
+   */
+  public static void serializeListToCommand(
+      List<Resource> resources, Consumer<UFResource> consumer) {
+    Config config = Context.getConfig();
+    ParallelUtils.mapInParallel(
+        resources,
+        Resource::serializeToCommand,
+        Resource::serializeToCommandWithoutCloudMetadata,
+        config.getResourceLookupThreads(),
+        Duration.ofSeconds(config.getResourceLookupTimeoutSeconds()),
+        consumer);
+  }
+
   /** Serialize the internal representation of the resource to the format for writing to disk. */
   public abstract PDResource serializeToDisk();
 
@@ -152,7 +216,9 @@ public abstract class Resource {
   protected void updatePropertiesAndSync(UpdateResourceParams updateParams) {
     this.name = updateParams.name == null ? name : updateParams.name;
     this.description = updateParams.description == null ? description : updateParams.description;
-    Context.requireWorkspace().listResourcesAndSync();
+    // this object is part of the cached list of resources. add it again, so that the list's index
+    // by name picks up any new name, and sync the updated list to disk
+    Context.requireWorkspace().addResourceAndSync(this);
   }
 
   /** Delete an existing resource in the workspace. */
@@ -167,7 +233,7 @@ public abstract class Resource {
       default:
         throw new IllegalArgumentException("Unknown stewardship type: " + stewardshipType);
     }
-    Context.requireWorkspace().listResourcesAndSync();
+    Context.requireWorkspace().removeResourceAndSync(id);
   }
 
   /** Call WSM to delete a referenced resource. */
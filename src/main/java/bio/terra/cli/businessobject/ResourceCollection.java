@@ -0,0 +1,141 @@
+package bio.terra.cli.businessobject;
+
+import bio.terra.workspace.model.StewardshipType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Internal representation of the list of resources in a workspace, with indexes for looking up
+ * resources by name or id, and for filtering them by type or stewardship, without scanning the
+ * whole list.
+ *
+ * <p>Instances of this class are immutable. Adding or removing a resource returns a new collection,
+ * so the indexes never get out of sync with the list.
+ */
+public class ResourceCollection {
+  private final List<Resource> resources;
+  private final Map<String, Resource> resourcesByName;
+  private final Map<UUID, Resource> resourcesById;
+  private final Map<Resource.Type, List<Resource>> resourcesByType;
+  private final Map<StewardshipType, List<Resource>> resourcesByStewardship;
+
+  /**
+   * Build a collection from a list of resources.
+   *
+   * @param resources resources in the workspace, in the order they should be listed
+   */
+  public ResourceCollection(List<Resource> resources) {
+    this.resources = Collections.unmodifiableList(new ArrayList<>(resources));
+    this.resourcesByName = new HashMap<>();
+    this.resourcesById = new HashMap<>();
+    this.resourcesByType = new EnumMap<>(Resource.Type.class);
+    this.resourcesByStewardship = new EnumMap<>(StewardshipType.class);
+    for (Resource resource : this.resources) {
+      // names should be unique within a workspace. if not, keep the first one, as a scan would
+      resourcesByName.putIfAbsent(resource.getName(), resource);
+      resourcesById.putIfAbsent(resource.getId(), resource);
+      resourcesByType
+          .computeIfAbsent(resource.getResourceType(), t -> new ArrayList<>())
+          .add(resource);
+      resourcesByStewardship
+          .computeIfAbsent(resource.getStewardshipType(), s -> new ArrayList<>())
+          .add(resource);
+    }
+  }
+
+  /** Build an empty collection. */
+  public static ResourceCollection empty() {
+    return new ResourceCollection(List.of());
+  }
+
+  /** Get all the resources, in their original order. The list is unmodifiable. */
+  public List<Resource> asList() {
+    return resources;
+  }
+
+  /** Get the number of resources. */
+  public int size() {
+    return resources.size();
+  }
+
+  /** Find a resource by name. */
+  public Optional<Resource> findByName(String name) {
+    return Optional.ofNullable(resourcesByName.get(name));
+  }
+
+  /** Find a resource by id. */
+  public Optional<Resource> findById(UUID id) {
+    return Optional.ofNullable(resourcesById.get(id));
+  }
+
+  /**
+   * Get the resources that match the given type and stewardship, in their original order.
+   *
+   * @param type resource type to match, or null to match all types
+   * @param stewardshipType stewardship type to match, or null to match all stewardship types
+   * @return unmodifiable list of matching resources
+   */
+  public List<Resource> filter(
+      @Nullable Resource.Type type, @Nullable StewardshipType stewardshipType) {
+    if (type == null && stewardshipType == null) {
+      return resources;
+    }
+    List<Resource> ofType =
+        type == null ? null : resourcesByType.getOrDefault(type, Collections.emptyList());
+    List<Resource> ofStewardship =
+        stewardshipType == null
+            ? null
+            : resourcesByStewardship.getOrDefault(stewardshipType, Collections.emptyList());
+    if (ofStewardship == null) {
+      return Collections.unmodifiableList(ofType);
+    }
+    if (ofType == null) {
+      return Collections.unmodifiableList(ofStewardship);
+    }
+    // start from the smaller of the two indexes, and check the other property
+    return ofType.size() <= ofStewardship.size()
+        ? ofType.stream()
+            .filter(resource -> resource.getStewardshipType() == stewardshipType)
+            .collect(Collectors.toUnmodifiableList())
+        : ofStewardship.stream()
+            .filter(resource -> resource.getResourceType() == type)
+            .collect(Collectors.toUnmodifiableList());
+  }
+
+  /**
+   * Build a new collection with the given resource replacing any existing resource with the same
+   * id, in the same position. If there isn't one, then add the resource at the end.
+   *
+   * @param resource resource to add
+   * @return new collection
+   */
+  public ResourceCollection withResource(Resource resource) {
+    List<Resource> updatedResources = new ArrayList<>(resources);
+    updatedResources.replaceAll(
+        existing -> existing.getId().equals(resource.getId()) ? resource : existing);
+    if (!resourcesById.containsKey(resource.getId())) {
+      updatedResources.add(resource);
+    }
+    return new ResourceCollection(updatedResources);
+  }
+
+  /**
+   * Build a new collection without the resource with the given id.
+   *
+   * @param resourceId id of the resource to remove
+   * @return new collection
+   */
+  public ResourceCollection withoutResource(UUID resourceId) {
+    List<Resource> updatedResources = new ArrayList<>(resources);
+    updatedResources.removeIf(existing -> existing.getId().equals(resourceId));
+    return new ResourceCollection(updatedResources);
+  }
+}
@@ -0,0 +1,291 @@
+package bio.terra.cli.businessobject;
+
+import bio.terra.cli.serialization.persisted.PDResource;
+import bio.terra.cli.utils.FileUtils;
+import bio.terra.cli.utils.JacksonMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk store for the cached list of resources in a workspace. This is kept in a separate file
+ * per workspace, instead of in the context file, so that large workspaces don't make every write
+ * of the context file slow.
+ *
+ * <p>The file has one compact JSON object per line, in the disk format of a resource ({@link
+ * PDResource}). This means that adding a resource only appends a line, and reading the list can
+ * parse the lines one resource at a time, without holding all of the parsed resources in memory.
+ *
+ * <p>Full rewrites go to a temporary file that is then renamed over the store file, so a command
+ * that is interrupted part way through never leaves a partially written list behind.
+ *
+ * <p>Every write holds the exclusive lock on the context directory, and every read holds the
+ * shared lock while it copies the lines out of the file, because appends aren't atomic. An append
+ * is only safe if no other command rewrote the file since this store last read or wrote it
+ * (otherwise the resource may already be there), so this store remembers the version of the file
+ * it last saw. If the file changed, the append is done as a {@link #replace} instead.
+ */
+public class ResourceStore {
+  private static final Logger logger = LoggerFactory.getLogger(ResourceStore.class);
+
+  private final Path storeFile;
+
+  // version of the store file as last read or written by this instance. null if it didn't exist
+  @Nullable private volatile String knownVersion;
+
+  /**
+   * Build a store for the given workspace. This does not read or create the file.
+   *
+   * @param workspaceId id of the workspace
+   */
+  public ResourceStore(UUID workspaceId) {
+    this.storeFile = Context.getResourceStoreFile(workspaceId);
+  }
+
+  /**
+   * Read every resource in the store, in the order they were written.
+   *
+   * @return list of resources, empty if the store file doesn't exist
+   * @throws IOException if the file can't be read or any line can't be parsed
+   */
+  public List<Resource> readAll() throws IOException {
+    List<Resource> resources = new ArrayList<>();
+    forEach(resources::add);
+    return resources;
+  }
+
+  /**
+   * Read the resources in the store, in the order they were written, and pass each one to the
+   * consumer. The lines are copied out of the file under the shared lock, and then parsed one at a
+   * time, so the consumer runs without holding the lock and only one parsed resource is held in
+   * memory at a time.
+   *
+   * @param consumer function to call on each resource
+   * @throws IOException if the file can't be read or any line can't be parsed
+   */
+  public void forEach(Consumer<Resource> consumer) throws IOException {
+    List<String> lines = new ArrayList<>();
+    Context.runWithSharedLock(
+        () -> {
+          try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ);
+              BufferedReader reader =
+                  new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+              if (!line.isBlank()) {
+                lines.add(line);
+              }
+            }
+          } catch (NoSuchFileException nsfEx) {
+            logger.debug("Resource store file not found: {}", storeFile);
+          }
+          knownVersion = getCurrentVersion();
+        });
+
+    ObjectReader objectReader = JacksonMapper.getMapper().readerFor(PDResource.class);
+    for (String line : lines) {
+      PDResource resource = objectReader.readValue(line);
+      consumer.accept(resource.deserializeToInternal());
+    }
+  }
+
+  /**
+   * Replace the contents of the store with the given resources.
+   *
+   * @param resources resources to write, in the order they should be listed
+   * @throws IOException if the file can't be written
+   */
+  public void writeAll(List<Resource> resources) throws IOException {
+    Context.runWithLock(
+        () -> {
+          Path tempFile = createTempFile();
+          try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            ObjectWriter objectWriter = getObjectWriter();
+            for (Resource resource : resources) {
+              writeLine(writer, objectWriter, resource);
+            }
+          }
+          replaceStoreFile(tempFile);
+        });
+    logger.debug("Wrote {} resources to store file: {}", resources.size(), storeFile);
+  }
+
+  /**
+   * Add a resource to the end of the store. The caller must make sure that the store, as last read
+   * or written by this instance, doesn't contain a resource with the same id. If another command
+   * changed the file since then, this replaces any resource with the same id instead.
+   *
+   * @param resource resource to add
+   * @throws IOException if the file can't be written
+   */
+  public void append(Resource resource) throws IOException {
+    Context.runWithLock(
+        () -> {
+          if (!Objects.equals(getCurrentVersion(), knownVersion)) {
+            logger.debug("Resource store file changed by another command: {}", storeFile);
+            replace(resource);
+            return;
+          }
+          Files.createDirectories(storeFile.getParent());
+          try (BufferedWriter writer =
+              Files.newBufferedWriter(
+                  storeFile,
+                  StandardCharsets.UTF_8,
+                  StandardOpenOption.CREATE,
+                  StandardOpenOption.APPEND)) {
+            writeLine(writer, getObjectWriter(), resource);
+          }
+          knownVersion = getCurrentVersion();
+        });
+  }
+
+  /**
+   * Replace the resource with the same id, keeping its place in the list, or add it to the end of
+   * the store if there isn't one.
+   *
+   * @param resource resource to write
+   * @throws IOException if the file can't be read or written
+   */
+  public void replace(Resource resource) throws IOException {
+    rewrite(Function.identity(), resource.serializeToDisk());
+  }
+
+  /**
+   * Remove the resource with the given id, if there is one.
+   *
+   * @param resourceId id of the resource to remove
+   * @throws IOException if the file can't be read or written
+   */
+  public void remove(UUID resourceId) throws IOException {
+    rewrite(existing -> existing.id.equals(resourceId) ? null : existing, null);
+  }
+
+  /** Delete the store file, if it exists. */
+  public void delete() throws IOException {
+    Context.runWithLock(
+        () -> {
+          Files.deleteIfExists(storeFile);
+          knownVersion = null;
+        });
+  }
+
+  /**
+   * Stream the store into a new file, passing each resource through the given function, then
+   * rename the new file over the store file.
+   *
+   * @param update function that returns the resource to keep, or null to drop it
+   * @param putResource resource to write in place of the first one with the same id, or at the
+   *     end if there isn't one. null to not write one
+   */
+  private void rewrite(Function<PDResource, PDResource> update, @Nullable PDResource putResource)
+      throws IOException {
+    Context.runWithLock(() -> rewriteWithLock(update, putResource));
+  }
+
+  /** Implementation of {@link #rewrite}, for the caller holding the lock. */
+  private void rewriteWithLock(
+      Function<PDResource, PDResource> update, @Nullable PDResource putResource)
+      throws IOException {
+    ObjectReader objectReader = JacksonMapper.getMapper().readerFor(PDResource.class);
+    ObjectWriter objectWriter = getObjectWriter();
+    Path tempFile = createTempFile();
+    boolean putResourceWritten = false;
+    try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+      if (Files.exists(storeFile)) {
+        try (BufferedReader reader = Files.newBufferedReader(storeFile, StandardCharsets.UTF_8)) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+              continue;
+            }
+            PDResource existing = objectReader.readValue(line);
+            if (putResource != null && existing.id.equals(putResource.id)) {
+              // write the new version where the old one was, and drop any duplicates after it
+              if (!putResourceWritten) {
+                writer.write(objectWriter.writeValueAsString(putResource));
+                writer.newLine();
+                putResourceWritten = true;
+              }
+              continue;
+            }
+            PDResource updated = update.apply(existing);
+            if (updated == existing) {
+              // unchanged, so copy the line instead of serializing it again
+              writer.write(line);
+              writer.newLine();
+            } else if (updated != null) {
+              writer.write(objectWriter.writeValueAsString(updated));
+              writer.newLine();
+            }
+          }
+        }
+      }
+      if (putResource != null && !putResourceWritten) {
+        writer.write(objectWriter.writeValueAsString(putResource));
+        writer.newLine();
+      }
+    }
+    replaceStoreFile(tempFile);
+  }
+
+  /** Create an empty temporary file in the same directory as the store file. */
+  private Path createTempFile() throws IOException {
+    Files.createDirectories(storeFile.getParent());
+    return Files.createTempFile(storeFile.getParent(), storeFile.getFileName().toString(), ".tmp");
+  }
+
+  /** Rename a temporary file over the store file, atomically if the file system supports it. */
+  private void replaceStoreFile(Path tempFile) throws IOException {
+    try {
+      FileUtils.moveAtomically(tempFile, storeFile);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+    knownVersion = getCurrentVersion();
+  }
+
+  /**
+   * Get the current version of the store file: its identity (which changes whenever it's replaced
+   * by a rename), size and modification time. Returns null if the file doesn't exist.
+   */
+  @Nullable
+  private String getCurrentVersion() throws IOException {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(storeFile, BasicFileAttributes.class);
+      return attributes.fileKey() + ":" + attributes.size() + ":" + attributes.lastModifiedTime();
+    } catch (NoSuchFileException nsfEx) {
+      return null;
+    }
+  }
+
+  /** Write a resource as a single line of compact JSON. */
+  private static void writeLine(BufferedWriter writer, ObjectWriter objectWriter, Resource resource)
+      throws IOException {
+    writer.write(objectWriter.writeValueAsString(resource.serializeToDisk()));
+    writer.newLine();
+  }
+
+  /** Get a writer for the disk format, without the pretty printer used for the context file. */
+  private static ObjectWriter getObjectWriter() {
+    return JacksonMapper.getMapper().writerFor(PDResource.class);
+  }
+}
@@ -58,6 +58,51 @@ public class SpendProfileUser {
     return getUser(email);
   }
 
+  /**
+   * Enable users on the default WSM spend profile in bulk. See {@link MembershipChange} for how the
+   * changes are made.
+   *
+   * @param changes email + policy pairs to add
+   * @param maxThreads maximum number of calls to SAM to make at the same time
+   */
+  public static void enableAll(List<MembershipChange<SpendProfilePolicy>> changes, int maxThreads) {
+    SpendProfileManagerService spendProfileManagerService =
+        SpendProfileManagerService.fromContext();
+    MembershipChange.applyAll(
+        changes,
+        true,
+        listPoliciesByEmail(),
+        (email, policy) -> {
+          spendProfileManagerService.enableUserForDefaultSpendProfile(policy, email);
+          logger.info("Enabled user on spend profile: email={}, policy={}", email, policy);
+        },
+        SpendProfileUser::listPoliciesByEmail,
+        maxThreads);
+  }
+
+  /**
+   * Disable users on the default WSM spend profile in bulk. See {@link MembershipChange} for how
+   * the changes are made.
+   *
+   * @param changes email + policy pairs to remove
+   * @param maxThreads maximum number of calls to SAM to make at the same time
+   */
+  public static void disableAll(
+      List<MembershipChange<SpendProfilePolicy>> changes, int maxThreads) {
+    SpendProfileManagerService spendProfileManagerService =
+        SpendProfileManagerService.fromContext();
+    MembershipChange.applyAll(
+        changes,
+        false,
+        listPoliciesByEmail(),
+        (email, policy) -> {
+          spendProfileManagerService.disableUserForDefaultSpendProfile(policy, email);
+          logger.info("Disabled user on spend profile: email={}, policy={}", email, policy);
+        },
+        SpendProfileUser::listPoliciesByEmail,
+        maxThreads);
+  }
+
   /** Get the spend profile user object. */
   private static SpendProfileUser getUser(String email) {
     // lowercase the email so there is a consistent way of looking up the email address
@@ -107,6 +152,16 @@ public class SpendProfileUser {
     return spendProfileUsers;
   }
 
+  /**
+   * Get the policies of each user of the default WSM spend profile.
+   *
+   * @return a map of email -> list of policies
+   */
+  private static Map<String, List<SpendProfilePolicy>> listPoliciesByEmail() {
+    return listUsersInMap().values().stream()
+        .collect(Collectors.toMap(SpendProfileUser::getEmail, SpendProfileUser::getPolicies));
+  }
+
   // ====================================================
   // Property getters.
 
@@ -60,6 +60,14 @@ public class User {
   // default credentials.
   private GoogleCredentials googleCredentials;
 
+  // true once the credentials were loaded from disk or set by a login flow. credentials are loaded
+  // the first time they are needed, so that commands that don't talk to a server don't pay for it
+  private boolean credentialsLoaded;
+
+  // true if the login check was deferred until the credentials are first used. see {@link
+  // #loginOnFirstUse}
+  private boolean loginOnFirstUse;
+
   /**
    * User specified what mode to log-in. When log-in mode is {@code APP_DEFAULT_CREDENTIALS}, check
    * for ADC instead of user credentials that are stored on disk in the Terra CLI credential store
@@ -105,7 +113,9 @@ public class User {
    * Load any existing credentials for this user. Return silently, do not prompt for login, if they
    * are expired or do not exist on disk.
    */
-  public void loadExistingCredentials() {
+  public synchronized void loadExistingCredentials() {
+    credentialsLoaded = true;
+
     // load existing user credentials from disk
     if (logInMode == LogInMode.APP_DEFAULT_CREDENTIALS) {
       loadAppDefaultCredentials();
@@ -119,18 +129,41 @@ public class User {
     } catch (IOException | GeneralSecurityException ex) {
       throw new SystemException("Error fetching user credentials.", ex);
     }
+  }
 
-    // load existing pet SA credentials from disk
-    if (Context.getWorkspace().isEmpty() || !Context.requireWorkspace().getIsLoaded()) {
-      logger.debug(
-          "Current workspace is either not defined or not loaded, so there are no pet SA credentials.");
+  /**
+   * Load the credentials the first time they are needed. If the login check was deferred (see
+   * {@link #loginOnFirstUse}), then also prompt for login if they are expired or do not exist.
+   */
+  private synchronized void loadCredentialsOnFirstUse() {
+    if (credentialsLoaded) {
       return;
     }
-    Path jsonKeyPath = Context.getPetSaKeyFile(this);
-    logger.debug("Looking for pet SA key file at: {}", jsonKeyPath);
-    if (!jsonKeyPath.toFile().exists()) {
-      logger.debug("Pet SA key file not found for current user + workspace");
-      return;
+    loadExistingCredentials();
+    if (loginOnFirstUse && logInMode != LogInMode.APP_DEFAULT_CREDENTIALS) {
+      loginOnFirstUse = false;
+      if (requiresReauthentication()) {
+        doOauthLoginFlow();
+      }
+    }
+  }
+
+  /**
+   * Make sure there is a logged in user, like {@link #login()}, but don't load or check the
+   * credentials of an existing user until they are first used. Reading the credential store and
+   * refreshing an expired token is slow, and many commands never need to (e.g. they only read the
+   * cached list of resources). If the credentials turn out to be expired or missing when they are
+   * used, then this prompts for login at that point.
+   *
+   * <p>If there is no current user, then this logs in now, because the login flow also fetches the
+   * user information (e.g. email) that commands may need without any credentials.
+   */
+  public static void loginOnFirstUse() {
+    Optional<User> currentUser = Context.getUser();
+    if (currentUser.isPresent() && !currentUser.get().credentialsLoaded) {
+      currentUser.get().loginOnFirstUse = true;
+    } else {
+      login();
     }
   }
 
@@ -186,6 +219,7 @@ public class User {
    * googleCredentials}.
    */
   private void loadAppDefaultCredentials() {
+    credentialsLoaded = true;
     googleCredentials =
         AppDefaultCredentialUtils.getApplicationDefaultCredentials().createScoped(PET_SA_SCOPES);
   }
@@ -303,6 +337,7 @@ public class User {
     }
 
     this.petSAEmail = null;
+    PetSaAccessTokenCache.clear(this);
   }
 
   /**
@@ -316,6 +351,7 @@ public class User {
       // log the user in and get their consent to the requested scopes
       boolean launchBrowserAutomatically =
           Context.getConfig().getBrowserLaunchOption().equals(Config.BrowserLaunchOption.AUTO);
+      credentialsLoaded = true;
       googleCredentials =
           GoogleOauth.doLoginAndConsent(
               USER_SCOPES,
@@ -389,11 +425,13 @@ public class User {
   }
 
   public Optional<GoogleCredentials> getGoogleCredentials() {
+    loadCredentialsOnFirstUse();
     return Optional.ofNullable(googleCredentials);
   }
 
   public GoogleCredentials getPetSACredentials() {
-    return GoogleCredentials.create(getPetSaAccessToken());
+    String googleProjectId = Context.requireWorkspace().getGoogleProjectId();
+    return new PetSaCredentials(this, googleProjectId);
   }
 
   public LogInMode getLogInMode() {
@@ -402,6 +440,7 @@ public class User {
 
   /** Return true if the user credentials are expired or do not exist on disk. */
   public boolean requiresReauthentication() {
+    loadCredentialsOnFirstUse();
     if (googleCredentials == null) {
       return true;
     }
@@ -416,14 +455,36 @@ public class User {
 
   /** Get the access token for the user credentials. */
   public AccessToken getUserAccessToken() {
+    loadCredentialsOnFirstUse();
     return GoogleOauth.getAccessToken(googleCredentials);
   }
 
-  /** Get the access token for the pet SA credentials. */
+  /**
+   * Credentials object for a pet SA access token. The Google client libraries refresh the token
+   * shortly before it expires, so get the refreshed token from the cache instead of failing.
+   */
+  private static class PetSaCredentials extends GoogleCredentials {
+    private final transient User user;
+    private final String googleProjectId;
+
+    PetSaCredentials(User user, String googleProjectId) {
+      super(PetSaAccessTokenCache.get(user, googleProjectId, PET_SA_SCOPES));
+      this.user = user;
+      this.googleProjectId = googleProjectId;
+    }
+
+    @Override
+    public AccessToken refreshAccessToken() {
+      return PetSaAccessTokenCache.get(user, googleProjectId, PET_SA_SCOPES);
+    }
+  }
+
+  /**
+   * Get the access token for the pet SA credentials. This re-uses a cached token until shortly
+   * before it expires, instead of asking SAM for a new one each time.
+   */
   public AccessToken getPetSaAccessToken() {
     String googleProjectId = Context.requireWorkspace().getGoogleProjectId();
-    String accessTokenStr =
-        SamService.forUser(this).getPetSaAccessTokenForProject(googleProjectId, PET_SA_SCOPES);
-    return new AccessToken(accessTokenStr, null);
+    return PetSaAccessTokenCache.get(this, googleProjectId, PET_SA_SCOPES);
   }
 }
@@ -11,6 +11,7 @@ import bio.terra.cloudres.google.cloudresourcemanager.CloudResourceManagerCow;
 import bio.terra.workspace.model.CloneWorkspaceResult;
 import bio.terra.workspace.model.ClonedWorkspace;
 import bio.terra.workspace.model.ResourceDescription;
+import bio.terra.workspace.model.StewardshipType;
 import bio.terra.workspace.model.WorkspaceDescription;
 import com.google.api.services.cloudresourcemanager.v3.model.Binding;
 import com.google.api.services.cloudresourcemanager.v3.model.GetIamPolicyRequest;
@@ -19,11 +20,13 @@ import com.google.api.services.cloudresourcemanager.v3.model.SetIamPolicyRequest
 import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -47,8 +50,29 @@ public class Workspace {
   // email of the user that loaded the workspace to this machine
   private String userEmail;
 
-  // list of resources (controlled & referenced)
-  private List<Resource> resources;
+  // list of resources (controlled & referenced), indexed by name, id, type and stewardship. null
+  // until it's read from the resource store, so commands that don't need it don't read it. the
+  // methods that read or change it are synchronized, because commands run by `terra batch
+  // --parallel` share this object. the monitor is never held while taking the locks on the context
+  // directory (e.g. by calling the resource store): a sync to disk holds those locks while it takes
+  // the monitor, so the other order would deadlock
+  @Nullable private ResourceCollection resources;
+
+  // store for the cached list of resources on disk. created the first time it's needed
+  @Nullable private ResourceStore resourceStore;
+
+  // true if the list of resources in memory has changed in a way that requires rewriting the whole
+  // resource store on the next sync to disk. small changes are written to the store right away
+  private boolean resourcesDirty;
+
+  // time the list of resources was last fetched from WSM. null if it has never been fetched (e.g.
+  // context files written by older versions of the CLI)
+  @Nullable private OffsetDateTime resourcesSyncTime;
+
+  // number of resources in the resource store, as of the last sync to disk. this is kept in the
+  // context, so that checking whether the cached list is stale doesn't need to read the store.
+  // only used while the list hasn't been read into memory. null if unknown
+  @Nullable private Integer resourcesCount;
 
   // true if the workspace metadata was fetched. false when a user sets the workspace without being
   // logged in; in that case, we can't request the metadata from WSM without valid credentials.
@@ -63,7 +87,8 @@ public class Workspace {
         wsmObject.getGcpContext() == null ? null : wsmObject.getGcpContext().getProjectId();
     this.serverName = Context.getServer().getName();
     this.userEmail = Context.requireUser().getEmail();
-    this.resources = new ArrayList<>();
+    this.resources = ResourceCollection.empty();
+    this.resourcesDirty = true;
     this.isLoaded = true;
   }
 
@@ -75,11 +100,34 @@ public class Workspace {
     this.googleProjectId = configFromDisk.googleProjectId;
     this.serverName = configFromDisk.serverName;
     this.userEmail = configFromDisk.userEmail;
-    this.resources =
-        configFromDisk.resources.stream()
-            .map(PDResource::deserializeToInternal)
-            .collect(Collectors.toList());
     this.isLoaded = configFromDisk.isLoaded;
+    if (configFromDisk.formatVersion < PDWorkspace.CURRENT_FORMAT_VERSION) {
+      // context files written by older versions of the CLI hold the resources, instead of the
+      // resource store. move them to the store on the next sync to disk
+      this.resources =
+          new ResourceCollection(
+              configFromDisk.resources == null
+                  ? List.of()
+                  : configFromDisk.resources.stream()
+                      .map(PDResource::deserializeToInternal)
+                      .collect(Collectors.toList()));
+      this.resourcesDirty = true;
+      if (configFromDisk.resources != null) {
+        this.resourcesSyncTime = configFromDisk.resourcesSyncTime;
+      }
+    } else if (configFromDisk.formatVersion > PDWorkspace.CURRENT_FORMAT_VERSION) {
+      // context files written by newer versions of the CLI may hold the resources in a format this
+      // version can't read. don't read them, and treat the cached list as stale instead
+      logger.warn(
+          "Workspace context was written by a newer version of the CLI (format version {}). "
+              + "Ignoring the cached list of resources.",
+          configFromDisk.formatVersion);
+      this.resources = ResourceCollection.empty();
+      this.resourcesDirty = true;
+    } else {
+      this.resourcesSyncTime = configFromDisk.resourcesSyncTime;
+      this.resourcesCount = configFromDisk.resourcesCount;
+    }
   }
 
   /**
@@ -89,7 +137,8 @@ public class Workspace {
   private Workspace(UUID id, String serverName) {
     this.id = id;
     this.serverName = serverName;
-    this.resources = new ArrayList<>();
+    this.resources = ResourceCollection.empty();
+    this.resourcesDirty = true;
     this.isLoaded = false;
   }
 
@@ -194,6 +243,13 @@ public class Workspace {
     // delete the pet SA credentials for the user
     Context.requireUser().deletePetSaCredentials();
 
+    // delete the cached list of resources
+    try {
+      getResourceStore().delete();
+    } catch (IOException ioEx) {
+      logger.warn("Error deleting the resource store for workspace: {}", id, ioEx);
+    }
+
     // unset the workspace in the current context
     Context.setWorkspace(null);
   }
@@ -237,13 +293,59 @@ public class Workspace {
   }
 
   /**
-   * Get a resource by name.
+   * Get a resource by name. Use the cached list of resources, even if it is stale. If the resource
+   * is not in the cached list, then look up just that resource in WSM, in case it was added by
+   * another client since the list was cached.
    *
    * @throws UserActionableException if there is no resource with that name
    */
   public Resource getResource(String name) {
+    Optional<Resource> cachedResource = getCachedResources().findByName(name);
+    if (cachedResource.isPresent()) {
+      return cachedResource.get();
+    }
+    logger.debug("Resource {} not found in the cached list, fetching it from WSM", name);
+    return fetchResource(name);
+  }
+
+  /**
+   * Get a resource by name. Unlike {@link #listResources(ResourceCacheMode)}, this never re-fetches
+   * the whole list of resources. If the cache mode requires going to WSM, then only the one
+   * resource is fetched, and the cached list is updated with it.
+   *
+   * @param name resource name
+   * @param cacheMode whether to use the cached list of resources
+   * @throws UserActionableException if there is no resource with that name
+   */
+  public Resource getResource(String name, ResourceCacheMode cacheMode) {
+    if (cacheMode == ResourceCacheMode.OFFLINE) {
+      return getCachedResources()
+          .findByName(name)
+          .orElseThrow(() -> new UserActionableException("Resource not found: " + name));
+    }
+    return cacheNeedsFetch(cacheMode) ? fetchResource(name) : getResource(name);
+  }
+
+  /**
+   * Fetch a single resource by name from WSM, and update the cached list of resources with it. This
+   * only fetches the pages of the resource list up to the one with the resource. If WSM doesn't
+   * have a resource with that name, then remove any stale copy from the cached list.
+   *
+   * @throws UserActionableException if there is no resource with that name
+   */
+  private Resource fetchResource(String name) {
     Optional<Resource> resourceOpt =
-        resources.stream().filter(resource -> resource.name.equals(name)).findFirst();
+        WorkspaceManagerService.fromContext()
+            .findResourceByName(id, name, Context.getConfig().getResourcesPageSize())
+            .map(Resource::deserializeFromWsm);
+    Optional<Resource> cachedResource = getCachedResources().findByName(name);
+    if (cachedResource.isPresent()
+        && (resourceOpt.isEmpty()
+            || !cachedResource.get().getId().equals(resourceOpt.get().getId()))) {
+      // the cached resource with this name was deleted, or replaced by one with a different id
+      removeResourceAndSync(cachedResource.get().getId());
+    }
+    resourceOpt.ifPresent(this::addResourceAndSync);
     return resourceOpt.orElseThrow(
         () -> new UserActionableException("Resource not found: " + name));
   }
@@ -252,11 +354,125 @@ public class Workspace {
   private void populateResources() {
     List<ResourceDescription> wsmObjects =
         WorkspaceManagerService.fromContext()
-            .enumerateAllResources(id, Context.getConfig().getResourcesCacheSize());
+            .enumerateAllResources(
+                id,
+                Context.getConfig().getResourcesCacheSize(),
+                Context.getConfig().getResourcesPageSize());
     List<Resource> resources =
         wsmObjects.stream().map(Resource::deserializeFromWsm).collect(Collectors.toList());
 
-    this.resources = resources;
+    synchronized (this) {
+      this.resources = new ResourceCollection(resources);
+      this.resourcesDirty = true;
+      this.resourcesSyncTime = OffsetDateTime.now();
+    }
+  }
+
+  /**
+   * Get the cached list of resources, reading it from the resource store first if it hasn't been
+   * read yet. If the store can't be read, then start from an empty list and mark it stale, so that
+   * the next command that allows it re-fetches the list from WSM.
+   */
+  private ResourceCollection getCachedResources() {
+    synchronized (this) {
+      if (resources != null) {
+        return resources;
+      }
+    }
+    ResourceCollection storedResources;
+    boolean readFailed = false;
+    try {
+      storedResources = new ResourceCollection(getResourceStore().readAll());
+    } catch (IOException | RuntimeException ex) {
+      logger.warn("Error reading the resource store, discarding the cached list.", ex);
+      storedResources = ResourceCollection.empty();
+      readFailed = true;
+    }
+    synchronized (this) {
+      // another thread may have read or changed the list in the meantime
+      if (resources == null) {
+        resources = storedResources;
+        if (readFailed) {
+          resourcesDirty = true;
+          resourcesSyncTime = null;
+        }
+      }
+      return resources;
+    }
+  }
+
+  /** Get the store for the cached list of resources on disk. */
+  private synchronized ResourceStore getResourceStore() {
+    if (resourceStore == null) {
+      resourceStore = new ResourceStore(id);
+    }
+    return resourceStore;
+  }
+
+  /**
+   * Call a function on each resource in the cached list, without re-fetching the list from WSM. If
+   * the list hasn't been read into memory yet, then stream through the resource store instead of
+   * reading the whole list first.
+   *
+   * @param consumer function to call on each resource
+   */
+  public void forEachResource(Consumer<Resource> consumer) {
+    ResourceCollection cachedResources;
+    synchronized (this) {
+      cachedResources = resources;
+    }
+    if (cachedResources != null) {
+      cachedResources.asList().forEach(consumer);
+      return;
+    }
+    try {
+      getResourceStore().forEach(consumer);
+    } catch (IOException ioEx) {
+      logger.warn("Error streaming the resource store, reading the cached list instead.", ioEx);
+      getCachedResources().asList().forEach(consumer);
+    }
+  }
+
+  /**
+   * Write the cached list of resources to the resource store, if it changed since the last write.
+   * If the write fails, then mark the list stale so the next command re-fetches it from WSM. This
+   * is called when syncing the current context to disk.
+   */
+  void synchronizeResourcesToDisk() {
+    ResourceCollection dirtyResources;
+    synchronized (this) {
+      if (!resourcesDirty || resources == null) {
+        return;
+      }
+      // a change made while this writes marks the list dirty again, for the next sync
+      dirtyResources = resources;
+      resourcesDirty = false;
+    }
+    try {
+      getResourceStore().writeAll(dirtyResources.asList());
+    } catch (IOException ioEx) {
+      logger.error("Error writing the resource store to disk.", ioEx);
+      synchronized (this) {
+        resourcesDirty = true;
+        resourcesSyncTime = null;
+      }
+    }
+  }
+
+  /**
+   * Return true if the cached list of resources is older than the TTL in the current config. Also
+   * return true if the cached list is larger than the current resource limit, so that lowering the
+   * limit takes effect on the next command, or if its size is unknown. This only uses the sync time
+   * and count in the context, so it doesn't read the resource store.
+   */
+  private synchronized boolean resourcesAreStale() {
+    Config config = Context.getConfig();
+    Integer count = getResourcesCount();
+    if (resourcesSyncTime == null || count == null || count > config.getResourcesCacheSize()) {
+      return true;
+    }
+    Duration age = Duration.between(resourcesSyncTime, OffsetDateTime.now());
+    return age.compareTo(Duration.ofSeconds(config.getResourcesCacheTtlSeconds())) >= 0;
   }
 
   /**
@@ -266,7 +482,181 @@ public class Workspace {
   public List<Resource> listResourcesAndSync() {
     populateResources();
     Context.synchronizeToDisk();
-    return resources;
+    return getCachedResources().asList();
+  }
+
+  /**
+   * List the resources for the current workspace, using the cached list if allowed by the cache
+   * mode.
+   *
+   * @param cacheMode whether to use the cached list of resources
+   * @return list of resources
+   */
+  public List<Resource> listResources(ResourceCacheMode cacheMode) {
+    return getResourceCollection(cacheMode).asList();
+  }
+
+  /**
+   * List the resources for the current workspace that match the given type and stewardship, using
+   * the cached list if allowed by the cache mode.
+   *
+   * @param cacheMode whether to use the cached list of resources
+   * @param type resource type to match, or null to match all types
+   * @param stewardshipType stewardship type to match, or null to match all stewardship types
+   * @return list of matching resources
+   */
+  public List<Resource> listResources(
+      ResourceCacheMode cacheMode,
+      @Nullable Resource.Type type,
+      @Nullable StewardshipType stewardshipType) {
+    if ((type != null || stewardshipType != null) && cacheNeedsFetch(cacheMode)) {
+      // the cache only holds the full list, so rather than refreshing it, just fetch the matching
+      // resources. this doesn't update the cache
+      logger.debug("Fetching filtered list of resources: {}, {}", type, stewardshipType);
+      return WorkspaceManagerService.fromContext()
+          .enumerateAllResources(
+              id,
+              type == null ? null : type.getWsmResourceType(),
+              stewardshipType,
+              Context.getConfig().getResourcesCacheSize(),
+              Context.getConfig().getResourcesPageSize())
+          .stream()
+          .map(Resource::deserializeFromWsm)
+          .collect(Collectors.toList());
+    }
+    return getResourceCollection(cacheMode).filter(type, stewardshipType);
+  }
+
+  /**
+   * List a range of the resources for the current workspace that match the given type and
+   * stewardship, in the order that WSM returns them. Only fetches the pages that overlap the range,
+   * unless the cache mode is offline, in which case the range comes from the cached list. This
+   * doesn't update the cache.
+   *
+   * @param cacheMode whether to use the cached list of resources
+   * @param type resource type to match, or null to match all types
+   * @param stewardshipType stewardship type to match, or null to match all stewardship types
+   * @param offset the number of matching resources to skip
+   * @param limit the maximum number of resources to return
+   * @return list of up to limit matching resources
+   */
+  public List<Resource> listResourcesRange(
+      ResourceCacheMode cacheMode,
+      @Nullable Resource.Type type,
+      @Nullable StewardshipType stewardshipType,
+      int offset,
+      int limit) {
+    if (cacheMode == ResourceCacheMode.OFFLINE) {
+      logger.debug("Using cached list of resources, last synced at {}", resourcesSyncTime);
+      List<Resource> matching = getCachedResources().filter(type, stewardshipType);
+      int fromIndex = Math.min(offset, matching.size());
+      return matching.subList(fromIndex, fromIndex + Math.min(limit, matching.size() - fromIndex));
+    }
+    return WorkspaceManagerService.fromContext()
+        .enumerateResources(
+            id,
+            type == null ? null : type.getWsmResourceType(),
+            stewardshipType,
+            offset,
+            limit,
+            Context.getConfig().getResourcesPageSize())
+        .stream()
+        .map(Resource::deserializeFromWsm)
+        .collect(Collectors.toList());
+  }
+
+  /** Return true if the cache mode requires re-fetching the list of resources from WSM. */
+  private boolean cacheNeedsFetch(ResourceCacheMode cacheMode) {
+    return cacheMode == ResourceCacheMode.REFRESH
+        || (cacheMode == ResourceCacheMode.IF_STALE && resourcesAreStale());
+  }
+
+  /**
+   * Get the indexed collection of resources for the current workspace, re-fetching it from WSM
+   * first if required by the cache mode.
+   *
+   * @param cacheMode whether to use the cached list of resources
+   * @return collection of resources
+   */
+  private ResourceCollection getResourceCollection(ResourceCacheMode cacheMode) {
+    if (cacheNeedsFetch(cacheMode)) {
+      listResourcesAndSync();
+    } else {
+      logger.debug("Using cached list of resources, last synced at {}", resourcesSyncTime);
+    }
+    return getCachedResources();
+  }
+
+  /**
+   * Add a resource that was just created to the cached list of resources, replacing any existing
+   * resource with the same id. Sync the cached list to disk, without re-fetching it from WSM.
+   *
+   * @param resource resource that was created
+   */
+  public void addResourceAndSync(Resource resource) {
+    getCachedResources();
+    try {
+      // take the lock on the context directory before the monitor, the same order as a sync to
+      // disk, and hold it until the store is updated, so a sync can't write the resource first
+      Context.runWithLock(
+          () -> {
+            boolean isNewResource;
+            boolean updateStore;
+            synchronized (this) {
+              isNewResource = resources.findById(resource.getId()).isEmpty();
+              this.resources = resources.withResource(resource);
+              // if the whole list is dirty, it gets rewritten on the sync below anyway
+              updateStore = !resourcesDirty;
+            }
+            if (!updateStore) {
+              return;
+            }
+            if (isNewResource) {
+              getResourceStore().append(resource);
+            } else {
+              getResourceStore().replace(resource);
+            }
+          });
+    } catch (IOException ioEx) {
+      logger.warn("Error updating the resource store, rewriting it instead.", ioEx);
+      synchronized (this) {
+        this.resources = resources.withResource(resource);
+        resourcesDirty = true;
+      }
+    }
+    Context.synchronizeToDisk();
+  }
+
+  /**
+   * Remove a resource that was just deleted from the cached list of resources. Sync the cached list
+   * to disk, without re-fetching it from WSM.
+   *
+   * @param resourceId id of the resource that was deleted
+   */
+  public void removeResourceAndSync(UUID resourceId) {
+    getCachedResources();
+    try {
+      // same lock order as adding a resource
+      Context.runWithLock(
+          () -> {
+            boolean updateStore;
+            synchronized (this) {
+              this.resources = resources.withoutResource(resourceId);
+              // if the whole list is dirty, it gets rewritten on the sync below anyway
+              updateStore = !resourcesDirty;
+            }
+            if (updateStore) {
+              getResourceStore().remove(resourceId);
+            }
+          });
+    } catch (IOException ioEx) {
+      logger.warn("Error updating the resource store, rewriting it instead.", ioEx);
+      synchronized (this) {
+        this.resources = resources.withoutResource(resourceId);
+        resourcesDirty = true;
+      }
+    }
+    Context.synchronizeToDisk();
   }
 
   /**
@@ -329,6 +719,16 @@ public class Workspace {
     return granteeProxyGroupEmail;
   }
 
+  /** This enum specifies whether to use the list of resources cached in the context file. */
+  public enum ResourceCacheMode {
+    // use the cached list, unless it is older than the TTL in the current config
+    IF_STALE,
+    // always re-fetch the list from WSM
+    REFRESH,
+    // always use the cached list, even if it is stale
+    OFFLINE;
+  }
+
   // ====================================================
   // Property get/setters.
   public UUID getId() {
@@ -356,7 +756,31 @@ public class Workspace {
   }
 
   public List<Resource> getResources() {
-    return Collections.unmodifiableList(resources);
+    return getCachedResources().asList();
+  }
+
+  /**
+   * Get the cached resources of the given type, without re-fetching the list from WSM.
+   *
+   * @param type resource type to match
+   * @return unmodifiable list of matching resources
+   */
+  public List<Resource> getResourcesOfType(Resource.Type type) {
+    return getCachedResources().filter(type, null);
+  }
+
+  public OffsetDateTime getResourcesSyncTime() {
+    return resourcesSyncTime;
+  }
+
+  /**
+   * Get the number of cached resources, without reading the resource store.
+   *
+   * @return number of resources, or null if the list hasn't been read and the count is unknown
+   */
+  @Nullable
+  public synchronized Integer getResourcesCount() {
+    return resources == null ? resourcesCount : Integer.valueOf(resources.size());
   }
 
   public boolean getIsLoaded() {
@@ -104,6 +104,59 @@ public class WorkspaceUser {
     return getUser(email, workspace);
   }
 
+  /**
+   * Add users to a workspace in bulk. See {@link MembershipChange} for how the changes are made.
+   *
+   * @param changes email + role pairs to add
+   * @param workspace workspace to add the users to
+   * @param maxThreads maximum number of calls to WSM to make at the same time
+   */
+  public static void addAll(
+      List<MembershipChange<Role>> changes, Workspace workspace, int maxThreads) {
+    WorkspaceManagerService workspaceManagerService = WorkspaceManagerService.fromContext();
+    MembershipChange.applyAll(
+        changes,
+        true,
+        listRolesByEmail(workspace),
+        (email, role) -> {
+          workspaceManagerService.grantIamRole(workspace.getId(), email, role.getWsmRole());
+          logger.info(
+              "Added user to workspace: user={}, role={}, workspaceId={}",
+              email,
+              role,
+              workspace.getId());
+        },
+        () -> listRolesByEmail(workspace),
+        maxThreads);
+  }
+
+  /**
+   * Remove users from a workspace in bulk. See {@link MembershipChange} for how the changes are
+   * made.
+   *
+   * @param changes email + role pairs to remove
+   * @param workspace workspace to remove the users from
+   * @param maxThreads maximum number of calls to WSM to make at the same time
+   */
+  public static void removeAll(
+      List<MembershipChange<Role>> changes, Workspace workspace, int maxThreads) {
+    WorkspaceManagerService workspaceManagerService = WorkspaceManagerService.fromContext();
+    MembershipChange.applyAll(
+        changes,
+        false,
+        listRolesByEmail(workspace),
+        (email, role) -> {
+          workspaceManagerService.removeIamRole(workspace.getId(), email, role.getWsmRole());
+          logger.info(
+              "Removed user from workspace: user={}, role={}, workspaceId={}",
+              email,
+              role,
+              workspace.getId());
+        },
+        () -> listRolesByEmail(workspace),
+        maxThreads);
+  }
+
   /** Get the workspace user object in a workspace. */
   private static WorkspaceUser getUser(String email, Workspace workspace) {
     // lowercase the email so there is a consistent way of looking up the email address
@@ -152,6 +205,17 @@ public class WorkspaceUser {
     return workspaceUsers;
   }
 
+  /**
+   * Get the roles of each workspace user for a workspace.
+   *
+   * @param workspace workspace to list users in
+   * @return a map of email -> list of roles
+   */
+  private static Map<String, List<Role>> listRolesByEmail(Workspace workspace) {
+    return listUsersInMap(workspace).values().stream()
+        .collect(Collectors.toMap(WorkspaceUser::getEmail, WorkspaceUser::getRoles));
+  }
+
   // ====================================================
   // Property getters.
 
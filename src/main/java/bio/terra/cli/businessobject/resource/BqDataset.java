@@ -65,6 +65,14 @@ public class BqDataset extends Resource {
     return new UFBqDataset(this);
   }
 
+  /**
+   * Serialize the internal representation of the resource to the format for command input/output,
+   * without querying the cloud for any additional properties.
+   */
+  public UFBqDataset serializeToCommandWithoutCloudMetadata() {
+    return new UFBqDataset(this, false);
+  }
+
   /** Serialize the internal representation of the resource to the format for writing to disk. */
   public PDBqDataset serializeToDisk() {
     return new PDBqDataset(this);
@@ -84,8 +92,9 @@ public class BqDataset extends Resource {
     logger.info("Created BQ dataset: {}", addedResource);
 
     // convert the WSM object to a CLI object
-    Context.requireWorkspace().listResourcesAndSync();
-    return new BqDataset(addedResource);
+    BqDataset bqDataset = new BqDataset(addedResource);
+    Context.requireWorkspace().addResourceAndSync(bqDataset);
+    return bqDataset;
   }
 
   /**
@@ -103,8 +112,9 @@ public class BqDataset extends Resource {
     logger.info("Created BQ dataset: {}", createdResource);
 
     // convert the WSM object to a CLI object
-    Context.requireWorkspace().listResourcesAndSync();
-    return new BqDataset(createdResource);
+    BqDataset bqDataset = new BqDataset(createdResource);
+    Context.requireWorkspace().addResourceAndSync(bqDataset);
+    return bqDataset;
   }
 
   /** Update a BigQuery dataset referenced resource in the workspace. */
@@ -59,6 +59,14 @@ public class BqTable extends Resource {
     return new UFBqTable(this);
   }
 
+  /**
+   * Serialize the internal representation of the resource to the format for command input/output,
+   * without querying the cloud for any additional properties.
+   */
+  public UFBqTable serializeToCommandWithoutCloudMetadata() {
+    return new UFBqTable(this, false);
+  }
+
   /** Serialize the internal representation of the resource to the format for writing to disk. */
   public PDBqTable serializeToDisk() {
     return new PDBqTable(this);
@@ -78,8 +86,9 @@ public class BqTable extends Resource {
     logger.info("Created BQ data table: {}", addedResource);
 
     // convert the WSM object to a CLI object
-    Context.requireWorkspace().listResourcesAndSync();
-    return new BqTable(addedResource);
+    BqTable bqTable = new BqTable(addedResource);
+    Context.requireWorkspace().addResourceAndSync(bqTable);
+    return bqTable;
   }
 
   /** Update a BigQuery data table referenced resource in the workspace. */
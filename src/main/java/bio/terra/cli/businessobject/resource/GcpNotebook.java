@@ -60,6 +60,14 @@ public class GcpNotebook extends Resource {
     return new UFGcpNotebook(this);
   }
 
+  /**
+   * Serialize the internal representation of the resource to the format for command input/output,
+   * without querying the cloud for any additional properties.
+   */
+  public UFGcpNotebook serializeToCommandWithoutCloudMetadata() {
+    return new UFGcpNotebook(this, false);
+  }
+
   /** Serialize the internal representation of the resource to the format for writing to disk. */
   public PDGcpNotebook serializeToDisk() {
     return new PDGcpNotebook(this);
@@ -85,8 +93,9 @@ public class GcpNotebook extends Resource {
     logger.info("Created GCP notebook: {}", createdResource);
 
     // convert the WSM object to a CLI object
-    Context.requireWorkspace().listResourcesAndSync();
-    return new GcpNotebook(createdResource);
+    GcpNotebook gcpNotebook = new GcpNotebook(createdResource);
+    Context.requireWorkspace().addResourceAndSync(gcpNotebook);
+    return gcpNotebook;
   }
 
   /** Delete a GCP notebook referenced resource in the workspace. Currently unsupported. */
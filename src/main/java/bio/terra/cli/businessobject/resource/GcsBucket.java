@@ -56,6 +56,14 @@ public class GcsBucket extends Resource {
     return new UFGcsBucket(this);
   }
 
+  /**
+   * Serialize the internal representation of the resource to the format for command input/output,
+   * without querying the cloud for any additional properties.
+   */
+  public UFGcsBucket serializeToCommandWithoutCloudMetadata() {
+    return new UFGcsBucket(this, false);
+  }
+
   /** Serialize the internal representation of the resource to the format for writing to disk. */
   public PDGcsBucket serializeToDisk() {
     return new PDGcsBucket(this);
@@ -75,8 +83,9 @@ public class GcsBucket extends Resource {
     logger.info("Created GCS bucket: {}", addedResource);
 
     // convert the WSM object to a CLI object
-    Context.requireWorkspace().listResourcesAndSync();
-    return new GcsBucket(addedResource);
+    GcsBucket gcsBucket = new GcsBucket(addedResource);
+    Context.requireWorkspace().addResourceAndSync(gcsBucket);
+    return gcsBucket;
   }
 
   /**
@@ -94,8 +103,9 @@ public class GcsBucket extends Resource {
     logger.info("Created GCS bucket: {}", createdResource);
 
     // convert the WSM object to a CLI object
-    Context.requireWorkspace().listResourcesAndSync();
-    return new GcsBucket(createdResource);
+    GcsBucket gcsBucket = new GcsBucket(createdResource);
+    Context.requireWorkspace().addResourceAndSync(gcsBucket);
+    return gcsBucket;
   }
 
   /** Update a GCS bucket referenced resource in the workspace. */
@@ -55,6 +55,14 @@ public class GcsObject extends Resource {
     return new UFGcsObject(this);
   }
 
+  /**
+   * Serialize the internal representation of the resource to the format for command input/output,
+   * without querying the cloud for any additional properties.
+   */
+  public UFGcsObject serializeToCommandWithoutCloudMetadata() {
+    return new UFGcsObject(this, false);
+  }
+
   /** Serialize the internal representation of the resource to the format for writing to disk. */
   public PDGcsObject serializeToDisk() {
     return new PDGcsObject(this);
@@ -74,8 +82,9 @@ public class GcsObject extends Resource {
     logger.info("Created GCS bucket object: {}", addedResource);
 
     // convert the WSM object to a CLI object
-    Context.requireWorkspace().listResourcesAndSync();
-    return new GcsObject(addedResource);
+    GcsObject gcsObject = new GcsObject(addedResource);
+    Context.requireWorkspace().addResourceAndSync(gcsObject);
+    return gcsObject;
   }
 
   /** Update a GCS bucket object referenced resource in the workspace. */
@@ -67,8 +67,9 @@ public class GitRepo extends Resource {
             .createReferencedGitRepo(Context.requireWorkspace().getId(), addGitRepoParams);
     logger.info("Created Git repo reference: {}", addedResource);
     // convert the WSM object to a CLI object
-    Context.requireWorkspace().listResourcesAndSync();
-    return new GitRepo(addedResource);
+    GitRepo gitRepo = new GitRepo(addedResource);
+    Context.requireWorkspace().addResourceAndSync(gitRepo);
+    return gitRepo;
   }
 
   /** Update a Git repo referenced resource in the workspace. */
@@ -0,0 +1,271 @@
+package bio.terra.cli.command;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.exception.UserActionableException;
+import bio.terra.cli.serialization.userfacing.UFBatchCommand;
+import bio.terra.cli.utils.FileUtils;
+import bio.terra.cli.utils.ParallelUtils;
+import bio.terra.cli.utils.UserIO;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/**
+ * This class corresponds to the second-level "terra batch" command.
+ *
+ * <p>Each line is run through {@link Main#runCommand}, in this JVM, so the commands share the
+ * context this command read, the credentials and the HTTP clients, instead of each starting a new
+ * process. Their output is captured and printed as one line of JSON per command, in the order of
+ * the input lines.
+ */
+@Command(
+    name = "batch",
+    description = "Run many commands in one process, reading one command per line.",
+    footer =
+        "Each line is a command without the leading `terra` (e.g. `resource describe --name=x`)."
+            + " Arguments are separated by whitespace, and can be quoted with single or double"
+            + " quotes. Blank lines and lines starting with # are skipped.%n%n"
+            + "The exit code and output of each command are printed as one JSON object per line.")
+public class Batch extends BaseCommand {
+  private static final org.slf4j.Logger logger = LoggerFactory.getLogger(Batch.class);
+
+  // value of the --from-file option that means read from stdin
+  private static final String STDIN = "-";
+
+  @CommandLine.Option(
+      names = "--from-file",
+      defaultValue = STDIN,
+      showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+      description = "File with one command per line. Use - to read from stdin.")
+  private String fromFile;
+
+  @CommandLine.Option(
+      names = "--parallel",
+      defaultValue = "1",
+      showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+      description =
+          "Maximum number of commands to run at the same time. Commands that run at the same time must not depend on each other or change the current context (e.g. `workspace set`, `config set`).")
+  private int parallel;
+
+  @CommandLine.Option(
+      names = "--keep-going",
+      description = "Run the remaining commands after one fails, instead of stopping.")
+  private boolean keepGoing;
+
+  /** Read the commands, run them and print the result of each one. */
+  @Override
+  protected void execute() {
+    if (parallel < 1) {
+      throw new UserActionableException("Number of parallel commands must be at least 1.");
+    }
+    List<BatchLine> batchLines = readLines();
+
+    // commands don't read from stdin, so one that prompts (e.g. to confirm a delete) fails instead
+    // of consuming the rest of the input
+    PrintStream batchOut = UserIO.getOut();
+    PrintStream batchErr = UserIO.getErr();
+    InputStream batchIn = UserIO.getIn();
+    UserIO.initialize(batchOut, batchErr, InputStream.nullInputStream());
+
+    List<UFBatchCommand> results = new ArrayList<>();
+    AtomicBoolean stopped = new AtomicBoolean(false);
+    setRunningInBatch(true);
+    try {
+      ParallelUtils.mapInParallel(
+          batchLines,
+          batchLine -> stopped.get() ? null : runLine(batchLine, stopped),
+          null,
+          parallel,
+          null,
+          result -> {
+            // lines that weren't run because an earlier one failed are left out
+            if (result != null) {
+              Format.printJsonLine(result);
+              results.add(result);
+            }
+          });
+    } finally {
+      setRunningInBatch(false);
+      UserIO.initialize(batchOut, batchErr, batchIn);
+    }
+
+    List<UFBatchCommand> failedResults =
+        results.stream().filter(result -> result.exitCode != 0).collect(Collectors.toList());
+    if (failedResults.isEmpty()) {
+      return;
+    }
+    if (results.size() < batchLines.size()) {
+      throw new UserActionableException(
+          "Command on line "
+              + failedResults.get(0).line
+              + " failed, so "
+              + (batchLines.size() - results.size())
+              + " command(s) after it were not run. Use --keep-going to run them anyway.");
+    }
+    throw new UserActionableException(
+        failedResults.size() + " of " + results.size() + " commands failed.");
+  }
+
+  /**
+   * Run a single line, routing its output to its own buffers. In sequential mode, write any changes
+   * it made to the context to disk before the next line runs. In parallel mode, they are written
+   * once all the lines finish, when this command does, except that a line that runs a tool (e.g.
+   * `app execute`, `gcloud`) first writes the changes all the lines made so far, because the tool
+   * may call the CLI.
+   */
+  private UFBatchCommand runLine(BatchLine batchLine, AtomicBoolean stopped) {
+    logger.debug("[BATCH LINE {}] {}", batchLine.lineNumber, batchLine.text);
+    ByteArrayOutputStream lineOut = new ByteArrayOutputStream();
+    ByteArrayOutputStream lineErr = new ByteArrayOutputStream();
+    int exitCode =
+        UserIO.routeOutput(
+            lineOut, lineErr, () -> Main.runCommand(batchLine.args.toArray(new String[0])));
+    if (parallel == 1) {
+      Context.clearOverrideWorkspace();
+      Context.flushToDisk();
+    }
+    if (exitCode != 0 && !keepGoing) {
+      stopped.set(true);
+    }
+    return new UFBatchCommand(
+        batchLine.lineNumber,
+        batchLine.text,
+        exitCode,
+        lineOut.toString(StandardCharsets.UTF_8),
+        lineErr.toString(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read and split the lines from the file or stdin, before running any of them, so that a syntax
+   * error on a later line doesn't leave the batch half run.
+   */
+  private List<BatchLine> readLines() {
+    List<String> lines;
+    try {
+      if (STDIN.equals(fromFile)) {
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(UserIO.getIn(), StandardCharsets.UTF_8));
+        lines = reader.lines().collect(Collectors.toList());
+      } else {
+        lines = Files.readAllLines(FileUtils.resolveUserPath(fromFile), StandardCharsets.UTF_8);
+      }
+    } catch (IOException ioEx) {
+      throw new UserActionableException("Error reading commands: " + fromFile, ioEx);
+    }
+
+    List<BatchLine> batchLines = new ArrayList<>();
+    for (int ctr = 0; ctr < lines.size(); ctr++) {
+      String text = lines.get(ctr).trim();
+      if (text.isEmpty() || text.startsWith("#")) {
+        continue;
+      }
+      int lineNumber = ctr + 1;
+      List<String> args = splitArgs(text, lineNumber);
+      if (args.get(0).equals("terra")) {
+        args = args.subList(1, args.size());
+      }
+      if (args.isEmpty()) {
+        throw new UserActionableException("Line " + lineNumber + " has no command: " + text);
+      }
+      if (args.get(0).equals("batch")) {
+        throw new UserActionableException(
+            "Line " + lineNumber + " runs another batch, which is not supported: " + text);
+      }
+      // the workspace override is part of the shared context, so commands running at the same time
+      // can't each use a different one
+      if (parallel > 1 && args.stream().anyMatch(Batch::isWorkspaceOption)) {
+        throw new UserActionableException(
+            "Line "
+                + lineNumber
+                + " uses --workspace, which is only supported when commands are not run in"
+                + " parallel: "
+                + text);
+      }
+      batchLines.add(new BatchLine(lineNumber, text, args));
+    }
+    return batchLines;
+  }
+
+  /**
+   * Split a line into arguments, the way a shell would for simple cases: on unquoted whitespace,
+   * removing single and double quotes, and un-escaping characters preceded by a backslash (except
+   * inside single quotes). Does not expand variables or globs.
+   */
+  private static List<String> splitArgs(String text, int lineNumber) {
+    List<String> args = new ArrayList<>();
+    StringBuilder arg = new StringBuilder();
+    boolean inArg = false;
+    char quote = 0;
+    for (int ctr = 0; ctr < text.length(); ctr++) {
+      char ch = text.charAt(ctr);
+      boolean canEscape = quote != '\'' && ch == '\\' && ctr + 1 < text.length();
+      if (canEscape) {
+        arg.append(text.charAt(++ctr));
+        inArg = true;
+      } else if (quote != 0) {
+        if (ch == quote) {
+          quote = 0;
+        } else {
+          arg.append(ch);
+        }
+      } else if (ch == '\'' || ch == '"') {
+        quote = ch;
+        inArg = true;
+      } else if (Character.isWhitespace(ch)) {
+        if (inArg) {
+          args.add(arg.toString());
+          arg.setLength(0);
+          inArg = false;
+        }
+      } else {
+        arg.append(ch);
+        inArg = true;
+      }
+    }
+    if (quote != 0) {
+      throw new UserActionableException("Line " + lineNumber + " has an unclosed quote: " + text);
+    }
+    if (inArg) {
+      args.add(arg.toString());
+    }
+    return args;
+  }
+
+  /** Return true if the argument is the --workspace option, with or without its value. */
+  private static boolean isWorkspaceOption(String arg) {
+    return arg.equals("--workspace") || arg.startsWith("--workspace=");
+  }
+
+  /** Commands in the batch use the current user's credentials, so check them once, if any. */
+  @Override
+  protected boolean requiresLogin() {
+    return Context.getUser().isPresent();
+  }
+
+  /** A line to run: its number in the input, text and arguments. */
+  private static class BatchLine {
+    private final int lineNumber;
+    private final String text;
+    private final List<String> args;
+
+    private BatchLine(int lineNumber, String text, List<String> args) {
+      this.lineNumber = lineNumber;
+      this.text = text;
+      this.args = args;
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package bio.terra.cli.command;
+
+import bio.terra.cli.command.daemon.Start;
+import bio.terra.cli.command.daemon.Status;
+import bio.terra.cli.command.daemon.Stop;
+import picocli.CommandLine.Command;
+
+/**
+ * This class corresponds to the second-level "terra daemon" command. This command is not valid by
+ * itself; it is just a grouping keyword for it sub-commands.
+ */
+@Command(
+    name = "daemon",
+    description = "Manage a background process that runs commands without starting a new JVM.",
+    subcommands = {Start.class, Status.class, Stop.class})
+public class Daemon {}
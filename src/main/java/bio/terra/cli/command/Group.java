@@ -1,12 +1,14 @@
 package bio.terra.cli.command;
 
 import bio.terra.cli.command.group.AddUser;
+import bio.terra.cli.command.group.AddUsers;
 import bio.terra.cli.command.group.Create;
 import bio.terra.cli.command.group.Delete;
 import bio.terra.cli.command.group.Describe;
 import bio.terra.cli.command.group.List;
 import bio.terra.cli.command.group.ListUsers;
 import bio.terra.cli.command.group.RemoveUser;
+import bio.terra.cli.command.group.RemoveUsers;
 import picocli.CommandLine;
 
 /**
@@ -18,11 +20,13 @@ import picocli.CommandLine;
     description = "Manage groups of users.",
     subcommands = {
       AddUser.class,
+      AddUsers.class,
       Create.class,
       Delete.class,
       Describe.class,
       List.class,
       ListUsers.class,
-      RemoveUser.class
+      RemoveUser.class,
+      RemoveUsers.class
     })
 public class Group {}
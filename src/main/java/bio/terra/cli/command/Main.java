@@ -30,8 +30,10 @@ import picocli.CommandLine.ParseResult;
     subcommands = {
       App.class,
       Auth.class,
+      Batch.class,
       Bq.class,
       Config.class,
+      Daemon.class,
       Gcloud.class,
       Git.class,
       Group.class,
@@ -62,18 +64,35 @@ public class Main implements Runnable {
           .stackTraces(CommandLine.Help.Ansi.Style.italic)
           .build();
 
-  /** List of user input command and arguments. */
-  private static List<String> argList = List.of();
+  /**
+   * List of user input command and arguments, for the command running on this thread. Commands run
+   * by `terra batch --parallel` each run on their own thread.
+   */
+  private static final ThreadLocal<List<String>> argList = ThreadLocal.withInitial(List::of);
 
   /**
-   * Create and execute the top-level command. Tests call this method instead of {@link
-   * #main(String...)} so that the process isn't terminated.
+   * Create and execute the top-level command. Tests and the {@link
+   * bio.terra.cli.daemon.DaemonServer} call this method instead of {@link #main(String...)} so that
+   * the process isn't terminated.
    *
    * @param args command and arguments
    * @return process exit code
    */
   @VisibleForTesting
   public static int runCommand(String... args) {
+    // save the user input args so that {@link BaseCommand} can log the command and arguments being
+    // executed. restore the previous ones after, for a command run by `terra batch`
+    List<String> previousArgList = argList.get();
+    argList.set(Arrays.asList(args));
+    try {
+      return runCommandWithArgs(args);
+    } finally {
+      argList.set(previousArgList);
+    }
+  }
+
+  /** Create and execute the top-level command, after the args are saved. */
+  private static int runCommandWithArgs(String... args) {
     CommandLine cmd = new CommandLine(new Main());
     cmd.setExecutionStrategy(new CommandLine.RunLast());
     cmd.setExecutionExceptionHandler(new UserActionableAndSystemExceptionHandler());
@@ -111,9 +130,6 @@ public class Main implements Runnable {
    * @param args from stdin
    */
   public static void main(String... args) {
-    // Save the user input args so that {@link BaseCommand} can log the command and arguments being
-    // executed.
-    argList = Arrays.asList(args);
     // run the command
     int exitCode = runCommand(args);
 
@@ -127,7 +143,7 @@ public class Main implements Runnable {
 
   /** Get the user input arguments */
   public static List<String> getArgList() {
-    return argList;
+    return argList.get();
   }
 
   /**
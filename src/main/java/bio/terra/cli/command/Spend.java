@@ -3,7 +3,9 @@ package bio.terra.cli.command;
 import bio.terra.cli.command.spend.CreateProfile;
 import bio.terra.cli.command.spend.DeleteProfile;
 import bio.terra.cli.command.spend.Disable;
+import bio.terra.cli.command.spend.DisableUsers;
 import bio.terra.cli.command.spend.Enable;
+import bio.terra.cli.command.spend.EnableUsers;
 import bio.terra.cli.command.spend.ListUsers;
 import picocli.CommandLine;
 
@@ -17,8 +19,10 @@ import picocli.CommandLine;
     subcommands = {
       CreateProfile.class,
       Enable.class,
+      EnableUsers.class,
       DeleteProfile.class,
       Disable.class,
+      DisableUsers.class,
       ListUsers.class
     })
 public class Spend {}
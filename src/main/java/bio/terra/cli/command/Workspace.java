@@ -1,6 +1,7 @@
 package bio.terra.cli.command;
 
 import bio.terra.cli.command.workspace.AddUser;
+import bio.terra.cli.command.workspace.AddUsers;
 import bio.terra.cli.command.workspace.BreakGlass;
 import bio.terra.cli.command.workspace.Clone;
 import bio.terra.cli.command.workspace.Create;
@@ -9,6 +10,7 @@ import bio.terra.cli.command.workspace.Describe;
 import bio.terra.cli.command.workspace.List;
 import bio.terra.cli.command.workspace.ListUsers;
 import bio.terra.cli.command.workspace.RemoveUser;
+import bio.terra.cli.command.workspace.RemoveUsers;
 import bio.terra.cli.command.workspace.Set;
 import bio.terra.cli.command.workspace.Update;
 import picocli.CommandLine.Command;
@@ -22,6 +24,7 @@ import picocli.CommandLine.Command;
     description = "Setup a Terra workspace.",
     subcommands = {
       AddUser.class,
+      AddUsers.class,
       BreakGlass.class,
       Clone.class,
       Create.class,
@@ -30,6 +33,7 @@ import picocli.CommandLine.Command;
       List.class,
       ListUsers.class,
       RemoveUser.class,
+      RemoveUsers.class,
       Set.class,
       Update.class,
     })
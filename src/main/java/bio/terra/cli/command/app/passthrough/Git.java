@@ -2,11 +2,12 @@ package bio.terra.cli.command.app.passthrough;
 
 import bio.terra.cli.businessobject.Context;
 import bio.terra.cli.businessobject.Resource;
-import bio.terra.cli.exception.PassthroughException;
 import bio.terra.cli.exception.UserActionableException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
@@ -25,6 +26,12 @@ public class Git extends ToolCommand {
       description = "clone all the git repo resources in the current workspace")
   public boolean cloneAll;
 
+  @CommandLine.Option(
+      names = "--parallel",
+      defaultValue = "4",
+      description = "maximum number of git repo resources to clone at the same time")
+  public int parallel;
+
   @Override
   public String getExecutableName() {
     return "git";
@@ -46,16 +53,16 @@ public class Git extends ToolCommand {
     }
     if (cloneAll) {
       validateCloneCommand();
-      Context.requireWorkspace().getResources().stream()
-          .filter(resource -> Resource.Type.GIT_REPO == resource.getResourceType())
-          .forEach(resource -> cloneGitRepoResource(resource));
+      cloneGitRepoResources(Context.requireWorkspace().getResourcesOfType(Resource.Type.GIT_REPO));
       return;
     }
     if (names != null) {
       validateCloneCommand();
+      List<Resource> resources = new ArrayList<>();
       for (String name : names) {
-        cloneGitRepoResource(Context.requireWorkspace().getResource(name));
+        resources.add(Context.requireWorkspace().getResource(name));
       }
+      cloneGitRepoResources(resources);
       return;
     }
     Context.getConfig().getCommandRunnerOption().getRunner().runToolCommand(command);
@@ -68,14 +75,95 @@ public class Git extends ToolCommand {
     }
   }
 
-  private void cloneGitRepoResource(Resource resource) {
-    List<String> cloneCommands = Stream.of("git", "clone").collect(Collectors.toList());
-    String gitRepoUrl = resource.resolve();
-    cloneCommands.add(gitRepoUrl);
-    try {
-      Context.getConfig().getCommandRunnerOption().getRunner().runToolCommand(cloneCommands);
-    } catch (PassthroughException e) {
-      OUT.println("Git clone for " + gitRepoUrl + " failed");
+  /**
+   * Clone the given git repo resources with a single call to the command runner, so that they all
+   * share one tool container (or local process). Clones run in parallel, up to the --parallel
+   * limit. Clones into the same directory (e.g. two resources with the same repo URL) run one after
+   * the other, so that they don't interleave. Each clone's output is captured, and printed in the
+   * summary at the end only if it failed.
+   *
+   * <p>A failed clone doesn't stop the others, and doesn't fail the command, matching cloning the
+   * repos one at a time.
+   */
+  private void cloneGitRepoResources(List<Resource> resources) {
+    if (parallel < 1) {
+      throw new UserActionableException("The --parallel option must be at least 1.");
+    }
+    if (resources.isEmpty()) {
+      OUT.println("No git repo resources to clone.");
+      return;
+    }
+
+    // group the clones by the directory git will clone into, preserving the resource order
+    Map<String, List<Integer>> clonesByDirectory = new LinkedHashMap<>();
+    List<String> gitRepoUrls = new ArrayList<>();
+    for (int ctr = 0; ctr < resources.size(); ctr++) {
+      String gitRepoUrl = resources.get(ctr).resolve();
+      gitRepoUrls.add(gitRepoUrl);
+      clonesByDirectory
+          .computeIfAbsent(getCloneDirectoryName(gitRepoUrl), dir -> new ArrayList<>())
+          .add(ctr);
+    }
+
+    List<String> script = new ArrayList<>();
+    script.add("(");
+    script.add("resultsDir=$(mktemp -d)");
+    script.add("cloneRepo() {");
+    script.add("  local exitCode=0");
+    script.add("  git clone --quiet \"$2\" > \"$resultsDir/$1.log\" 2>&1 || exitCode=$?");
+    script.add("  echo \"$exitCode\" > \"$resultsDir/$1.exit\"");
+    script.add("}");
+    script.add(
+        String.format(
+            "echo 'Cloning %d git repo resources, up to %d at a time'",
+            resources.size(), parallel));
+    for (List<Integer> clones : clonesByDirectory.values()) {
+      // wait for a free slot before starting the next group of clones
+      script.add(
+          String.format("while [ \"$(jobs -pr | wc -l)\" -ge %d ]; do sleep 0.2; done", parallel));
+      script.add(
+          "{ "
+              + clones.stream()
+                  .map(ctr -> "cloneRepo " + ctr + " " + quote(gitRepoUrls.get(ctr)) + "; ")
+                  .collect(Collectors.joining())
+              + "} &");
     }
+    script.add("wait");
+
+    // report the result of each clone in the original order
+    script.add("numCloned=0");
+    for (int ctr = 0; ctr < resources.size(); ctr++) {
+      String description = quote(resources.get(ctr).getName() + " (" + gitRepoUrls.get(ctr) + ")");
+      script.add(
+          String.format(
+              "if [ \"$(cat \"$resultsDir/%1$d.exit\")\" = 0 ]; then "
+                  + "echo \"Cloned \"%2$s; numCloned=$((numCloned + 1)); "
+                  + "else echo \"Git clone for \"%2$s\" failed:\"; "
+                  + "sed 's/^/    /' \"$resultsDir/%1$d.log\"; fi",
+              ctr, description));
+    }
+    script.add(
+        String.format("echo \"Cloned $numCloned of %d git repo resources\"", resources.size()));
+    script.add("rm -rf \"$resultsDir\"");
+    script.add(")");
+
+    Context.getConfig()
+        .getCommandRunnerOption()
+        .getRunner()
+        .runToolCommand(List.of(String.join("\n", script)));
+  }
+
+  /**
+   * Get the name of the directory that `git clone [url]` creates, i.e. the last part of the URL's
+   * path without any .git suffix.
+   */
+  private static String getCloneDirectoryName(String gitRepoUrl) {
+    String path = gitRepoUrl.replaceAll("/+$", "").replaceAll("\\.git$", "");
+    return path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf(':')) + 1);
+  }
+
+  /** Quote a string for a bash script, so that it's passed as a single literal argument. */
+  private static String quote(String value) {
+    return "'" + value.replace("'", "'\\''") + "'";
   }
 }
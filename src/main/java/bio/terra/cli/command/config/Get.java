@@ -1,11 +1,15 @@
 package bio.terra.cli.command.config;
 
+import bio.terra.cli.command.config.get.AppContainerIdleTimeout;
 import bio.terra.cli.command.config.get.AppLaunch;
 import bio.terra.cli.command.config.get.Browser;
 import bio.terra.cli.command.config.get.Format;
 import bio.terra.cli.command.config.get.Image;
 import bio.terra.cli.command.config.get.Logging;
+import bio.terra.cli.command.config.get.ResourceCacheTtl;
 import bio.terra.cli.command.config.get.ResourceLimit;
+import bio.terra.cli.command.config.get.ResourceLookup;
+import bio.terra.cli.command.config.get.ResourcePageSize;
 import bio.terra.cli.command.config.get.Server;
 import bio.terra.cli.command.config.get.Workspace;
 import picocli.CommandLine.Command;
@@ -18,12 +22,16 @@ import picocli.CommandLine.Command;
     name = "get",
     description = "Get a configuration property value.",
     subcommands = {
+      AppContainerIdleTimeout.class,
       AppLaunch.class,
       Browser.class,
       Format.class,
       Image.class,
       Logging.class,
+      ResourceCacheTtl.class,
       ResourceLimit.class,
+      ResourceLookup.class,
+      ResourcePageSize.class,
       Server.class,
       Workspace.class
     })
@@ -1,11 +1,15 @@
 package bio.terra.cli.command.config;
 
+import bio.terra.cli.command.config.set.AppContainerIdleTimeout;
 import bio.terra.cli.command.config.set.AppLaunch;
 import bio.terra.cli.command.config.set.Browser;
 import bio.terra.cli.command.config.set.Format;
 import bio.terra.cli.command.config.set.Image;
 import bio.terra.cli.command.config.set.Logging;
+import bio.terra.cli.command.config.set.ResourceCacheTtl;
 import bio.terra.cli.command.config.set.ResourceLimit;
+import bio.terra.cli.command.config.set.ResourceLookup;
+import bio.terra.cli.command.config.set.ResourcePageSize;
 import bio.terra.cli.command.config.set.Server;
 import bio.terra.cli.command.config.set.Workspace;
 import picocli.CommandLine.Command;
@@ -18,12 +22,16 @@ import picocli.CommandLine.Command;
     name = "set",
     description = "Set a configuration property value.",
     subcommands = {
+      AppContainerIdleTimeout.class,
       AppLaunch.class,
       Browser.class,
       Format.class,
       Image.class,
       Logging.class,
+      ResourceCacheTtl.class,
       ResourceLimit.class,
+      ResourceLookup.class,
+      ResourcePageSize.class,
       Server.class,
       Workspace.class
     })
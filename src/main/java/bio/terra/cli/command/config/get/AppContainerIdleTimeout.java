@@ -0,0 +1,30 @@
+package bio.terra.cli.command.config.get;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.command.shared.options.Format;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/**
+ * This class corresponds to the fourth-level "terra config get app-container-idle-timeout" command.
+ */
+@Command(
+    name = "app-container-idle-timeout",
+    description = "Get the number of seconds to keep a tool container running for reuse.")
+public class AppContainerIdleTimeout extends BaseCommand {
+
+  @CommandLine.Mixin Format formatOption;
+
+  /** Return the app container idle timeout property of the global context. */
+  @Override
+  protected void execute() {
+    formatOption.printReturnValue(Context.getConfig().getAppContainerIdleTimeoutSeconds());
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
@@ -0,0 +1,28 @@
+package bio.terra.cli.command.config.get;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.command.shared.options.Format;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the fourth-level "terra config get resource-cache-ttl" command. */
+@Command(
+    name = "resource-cache-ttl",
+    description = "Get the number of seconds before re-fetching the cached list of resources.")
+public class ResourceCacheTtl extends BaseCommand {
+
+  @CommandLine.Mixin Format formatOption;
+
+  /** Return the resources cache TTL property of the global context. */
+  @Override
+  protected void execute() {
+    formatOption.printReturnValue(Context.getConfig().getResourcesCacheTtlSeconds());
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
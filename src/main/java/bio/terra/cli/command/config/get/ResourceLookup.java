@@ -0,0 +1,43 @@
+package bio.terra.cli.command.config.get;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.serialization.userfacing.UFResourceLookupConfig;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the fourth-level "terra config get resource-lookup" command. */
+@Command(
+    name = "resource-lookup",
+    description = "Get the number of threads and the timeout for resource cloud lookups.")
+public class ResourceLookup extends BaseCommand {
+  @CommandLine.Mixin Format formatOption;
+
+  /** Return the resource lookup properties of the global context. */
+  @Override
+  protected void execute() {
+    UFResourceLookupConfig resourceLookup =
+        new UFResourceLookupConfig.Builder()
+            .threads(Context.getConfig().getResourceLookupThreads())
+            .timeoutSeconds(Context.getConfig().getResourceLookupTimeoutSeconds())
+            .build();
+    formatOption.printReturnValue(resourceLookup, ResourceLookup::printText);
+  }
+
+  /** Print this command's output in text format. */
+  public static void printText(UFResourceLookupConfig returnValue) {
+    OUT.println(
+        "[resource-lookup] threads for resource cloud lookups = "
+            + returnValue.threads
+            + ", timeout per resource = "
+            + returnValue.timeoutSeconds
+            + "s");
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
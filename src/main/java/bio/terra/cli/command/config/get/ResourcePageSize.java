@@ -0,0 +1,28 @@
+package bio.terra.cli.command.config.get;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.command.shared.options.Format;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the fourth-level "terra config get resource-page-size" command. */
+@Command(
+    name = "resource-page-size",
+    description = "Get the number of resources to fetch per request when listing resources.")
+public class ResourcePageSize extends BaseCommand {
+
+  @CommandLine.Mixin Format formatOption;
+
+  /** Return the resources page size property of the global context. */
+  @Override
+  protected void execute() {
+    formatOption.printReturnValue(Context.getConfig().getResourcesPageSize());
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
@@ -0,0 +1,71 @@
+package bio.terra.cli.command.config.set;
+
+import bio.terra.cli.businessobject.Config;
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.exception.UserActionableException;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/**
+ * This class corresponds to the fourth-level "terra config set app-container-idle-timeout" command.
+ */
+@Command(
+    name = "app-container-idle-timeout",
+    description =
+        "Set the number of seconds to keep a tool container running after a command, so that later"
+            + " commands for the same workspace can reuse it. Zero means always start a new"
+            + " container. Only applies to the DOCKER_CONTAINER app launch mode.")
+public class AppContainerIdleTimeout extends BaseCommand {
+
+  @CommandLine.ArgGroup(exclusive = true, multiplicity = "1")
+  AppContainerIdleTimeoutArgGroup argGroup;
+
+  static class AppContainerIdleTimeoutArgGroup {
+    @CommandLine.Option(
+        names = "--seconds",
+        description = "Number of seconds without a command before the container is removed.")
+    private int seconds;
+
+    @CommandLine.Option(
+        names = "--default",
+        description =
+            "Use the default number of seconds: "
+                + Config.DEFAULT_APP_CONTAINER_IDLE_TIMEOUT_SECONDS
+                + ".")
+    private boolean useDefault;
+  }
+
+  /** Updates the app container idle timeout property of the global context. */
+  @Override
+  protected void execute() {
+    Config config = Context.getConfig();
+    int prevTimeout = config.getAppContainerIdleTimeoutSeconds();
+    int newTimeout =
+        argGroup.useDefault ? Config.DEFAULT_APP_CONTAINER_IDLE_TIMEOUT_SECONDS : argGroup.seconds;
+    if (newTimeout < 0) {
+      throw new UserActionableException("App container idle timeout cannot be negative.");
+    }
+    config.setAppContainerIdleTimeoutSeconds(newTimeout);
+
+    if (config.getAppContainerIdleTimeoutSeconds() == prevTimeout) {
+      OUT.println(
+          "App container idle timeout: "
+              + config.getAppContainerIdleTimeoutSeconds()
+              + "s (UNCHANGED)");
+    } else {
+      OUT.println(
+          "App container idle timeout: "
+              + config.getAppContainerIdleTimeoutSeconds()
+              + "s (CHANGED FROM "
+              + prevTimeout
+              + "s)");
+    }
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
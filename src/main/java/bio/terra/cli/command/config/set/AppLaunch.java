@@ -1,6 +1,7 @@
 package bio.terra.cli.command.config.set;
 
 import bio.terra.cli.app.utils.DockerClientWrapper;
+import bio.terra.cli.app.utils.DockerImageManager;
 import bio.terra.cli.businessobject.Config;
 import bio.terra.cli.businessobject.Config.CommandRunnerOption;
 import bio.terra.cli.businessobject.Context;
@@ -22,11 +23,12 @@ public class AppLaunch extends BaseCommand {
     Config.CommandRunnerOption prevAppLaunchOption = config.getCommandRunnerOption();
     if (CommandRunnerOption.DOCKER_CONTAINER == mode) {
       String imageId = Context.getConfig().getDockerImageId();
-      if (!new DockerClientWrapper().checkImageExists(imageId)) {
+      DockerImageManager dockerImageManager = new DockerImageManager(new DockerClientWrapper());
+      if (dockerImageManager.pullInBackgroundIfMissing(imageId)) {
         OUT.printf(
-            "WARNING: Image %s was not found on the local machine. "
-                + "Do `docker pull %s` to obtain it.%n",
-            imageId, imageId);
+            "WARNING: Image %s was not found on the local machine. Pulling it in the background, "
+                + "progress is written to %s.%n",
+            imageId, dockerImageManager.getPullLogFile(imageId));
       }
     }
     config.setCommandRunnerOption(mode);
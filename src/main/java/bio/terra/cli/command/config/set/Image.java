@@ -1,6 +1,7 @@
 package bio.terra.cli.command.config.set;
 
 import bio.terra.cli.app.utils.DockerClientWrapper;
+import bio.terra.cli.app.utils.DockerImageManager;
 import bio.terra.cli.businessobject.Config;
 import bio.terra.cli.businessobject.Context;
 import bio.terra.cli.command.shared.BaseCommand;
@@ -28,11 +29,12 @@ public class Image extends BaseCommand {
     Config config = Context.getConfig();
     String prevImageId = config.getDockerImageId();
     String newImageId = argGroup.useDefault ? Config.getDefaultImageId() : argGroup.imageId;
-    if (!new DockerClientWrapper().checkImageExists(newImageId)) {
+    DockerImageManager dockerImageManager = new DockerImageManager(new DockerClientWrapper());
+    if (dockerImageManager.pullInBackgroundIfMissing(newImageId)) {
       OUT.printf(
-          "WARNING: Image %s was not found on the local machine. "
-              + "Do `docker pull %s` to obtain it.%n",
-          newImageId, newImageId);
+          "WARNING: Image %s was not found on the local machine. Pulling it in the background, "
+              + "progress is written to %s.%n",
+          newImageId, dockerImageManager.getPullLogFile(newImageId));
     }
     config.setDockerImageId(newImageId);
 
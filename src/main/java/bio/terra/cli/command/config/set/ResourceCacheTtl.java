@@ -0,0 +1,65 @@
+package bio.terra.cli.command.config.set;
+
+import bio.terra.cli.businessobject.Config;
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.exception.UserActionableException;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the fourth-level "terra config set resource-cache-ttl" command. */
+@Command(
+    name = "resource-cache-ttl",
+    description =
+        "Set the number of seconds before re-fetching the cached list of resources. Zero means"
+            + " always re-fetch.")
+public class ResourceCacheTtl extends BaseCommand {
+
+  @CommandLine.ArgGroup(exclusive = true, multiplicity = "1")
+  ResourceCacheTtlArgGroup argGroup;
+
+  static class ResourceCacheTtlArgGroup {
+    @CommandLine.Option(
+        names = "--seconds",
+        description = "Number of seconds the cached list of resources is considered fresh.")
+    private int seconds;
+
+    @CommandLine.Option(
+        names = "--default",
+        description =
+            "Use the default number of seconds: "
+                + Config.DEFAULT_RESOURCES_CACHE_TTL_SECONDS
+                + ".")
+    private boolean useDefault;
+  }
+
+  /** Updates the resources cache TTL property of the global context. */
+  @Override
+  protected void execute() {
+    Config config = Context.getConfig();
+    int prevTtl = config.getResourcesCacheTtlSeconds();
+    int newTtl =
+        argGroup.useDefault ? Config.DEFAULT_RESOURCES_CACHE_TTL_SECONDS : argGroup.seconds;
+    if (newTtl < 0) {
+      throw new UserActionableException("Resource cache TTL cannot be negative.");
+    }
+    config.setResourcesCacheTtlSeconds(newTtl);
+
+    if (config.getResourcesCacheTtlSeconds() == prevTtl) {
+      OUT.println("Resource cache TTL: " + config.getResourcesCacheTtlSeconds() + "s (UNCHANGED)");
+    } else {
+      OUT.println(
+          "Resource cache TTL: "
+              + config.getResourcesCacheTtlSeconds()
+              + "s (CHANGED FROM "
+              + prevTtl
+              + "s)");
+    }
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
@@ -0,0 +1,83 @@
+package bio.terra.cli.command.config.set;
+
+import bio.terra.cli.businessobject.Config;
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.exception.UserActionableException;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the fourth-level "terra config set resource-lookup" command. */
+@Command(
+    name = "resource-lookup",
+    description =
+        "Set the number of threads and the timeout for the cloud lookups done when listing or describing resources.")
+public class ResourceLookup extends BaseCommand {
+
+  @CommandLine.ArgGroup(exclusive = true, multiplicity = "1")
+  ResourceLookupArgGroup argGroup;
+
+  static class ResourceLookupArgGroup {
+    @CommandLine.ArgGroup(exclusive = false)
+    ThreadsAndTimeout threadsAndTimeout;
+
+    @CommandLine.Option(
+        names = "--default",
+        description =
+            "Use the default number of threads ("
+                + Config.DEFAULT_RESOURCE_LOOKUP_THREADS
+                + ") and timeout ("
+                + Config.DEFAULT_RESOURCE_LOOKUP_TIMEOUT_SECONDS
+                + "s).")
+    private boolean useDefault;
+  }
+
+  static class ThreadsAndTimeout {
+    @CommandLine.Option(
+        names = "--threads",
+        description = "Maximum number of resources to look up at the same time.")
+    private Integer threads;
+
+    @CommandLine.Option(
+        names = "--timeout",
+        description =
+            "Maximum number of seconds to wait for the lookups for a single resource, before displaying its cloud properties as unknown.")
+    private Integer timeoutSeconds;
+  }
+
+  /** Updates the resource lookup properties of the global context. */
+  @Override
+  protected void execute() {
+    Config config = Context.getConfig();
+    int threads;
+    int timeoutSeconds;
+    if (argGroup.useDefault) {
+      threads = Config.DEFAULT_RESOURCE_LOOKUP_THREADS;
+      timeoutSeconds = Config.DEFAULT_RESOURCE_LOOKUP_TIMEOUT_SECONDS;
+    } else {
+      Integer threadsOption = argGroup.threadsAndTimeout.threads;
+      Integer timeoutOption = argGroup.threadsAndTimeout.timeoutSeconds;
+      threads = threadsOption == null ? config.getResourceLookupThreads() : threadsOption;
+      timeoutSeconds =
+          timeoutOption == null ? config.getResourceLookupTimeoutSeconds() : timeoutOption;
+    }
+    if (threads <= 0 || timeoutSeconds <= 0) {
+      throw new UserActionableException(
+          "Number of threads and timeout for resource lookups must be positive.");
+    }
+    config.setResourceLookup(threads, timeoutSeconds);
+
+    OUT.println(
+        "Resource lookups: "
+            + config.getResourceLookupThreads()
+            + " threads, "
+            + config.getResourceLookupTimeoutSeconds()
+            + "s timeout per resource");
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
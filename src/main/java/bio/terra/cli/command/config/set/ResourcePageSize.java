@@ -0,0 +1,61 @@
+package bio.terra.cli.command.config.set;
+
+import bio.terra.cli.businessobject.Config;
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.exception.UserActionableException;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the fourth-level "terra config set resource-page-size" command. */
+@Command(
+    name = "resource-page-size",
+    description = "Set the number of resources to fetch per request when listing resources.")
+public class ResourcePageSize extends BaseCommand {
+
+  @CommandLine.ArgGroup(exclusive = true, multiplicity = "1")
+  ResourcePageSizeArgGroup argGroup;
+
+  static class ResourcePageSizeArgGroup {
+    @CommandLine.Option(names = "--size", description = "Number of resources per request.")
+    private int size;
+
+    @CommandLine.Option(
+        names = "--default",
+        description =
+            "Use the default number of resources per request: "
+                + Config.DEFAULT_RESOURCES_PAGE_SIZE
+                + ".")
+    private boolean useDefault;
+  }
+
+  /** Updates the resources page size property of the global context. */
+  @Override
+  protected void execute() {
+    Config config = Context.getConfig();
+    int prevPageSize = config.getResourcesPageSize();
+    int newPageSize = argGroup.useDefault ? Config.DEFAULT_RESOURCES_PAGE_SIZE : argGroup.size;
+    if (newPageSize <= 0) {
+      throw new UserActionableException("Number of resources per request must be positive.");
+    }
+    config.setResourcesPageSize(newPageSize);
+
+    if (config.getResourcesPageSize() == prevPageSize) {
+      OUT.println(
+          "Number of resources per request: " + config.getResourcesPageSize() + " (UNCHANGED)");
+    } else {
+      OUT.println(
+          "Number of resources per request: "
+              + config.getResourcesPageSize()
+              + " (CHANGED FROM "
+              + prevPageSize
+              + ")");
+    }
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
@@ -0,0 +1,39 @@
+package bio.terra.cli.command.daemon;
+
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.daemon.DaemonProtocol.DaemonInfo;
+import bio.terra.cli.daemon.DaemonServer;
+import bio.terra.cli.exception.UserActionableException;
+import bio.terra.cli.utils.Version;
+import java.util.Optional;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the third-level "terra daemon start" command. */
+@Command(
+    name = "start",
+    description = "Start a background process that runs later commands without a new JVM each.")
+public class Start extends BaseCommand {
+
+  /** Start the daemon, unless it's already running. */
+  @Override
+  protected void execute() {
+    if (Version.isNativeImage()) {
+      throw new UserActionableException(
+          "The daemon runs on a JVM, so it isn't available in a native build of the CLI. Commands"
+              + " in a native build already start without a JVM.");
+    }
+    Optional<DaemonInfo> runningDaemon = DaemonServer.getRunning();
+    if (runningDaemon.isPresent()) {
+      OUT.println("Terra CLI daemon is already running (pid " + runningDaemon.get().pid + ").");
+      return;
+    }
+    DaemonInfo daemonInfo = DaemonServer.startInBackground();
+    OUT.println("Terra CLI daemon started (pid " + daemonInfo.pid + ").");
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
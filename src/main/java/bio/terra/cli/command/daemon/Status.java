@@ -0,0 +1,34 @@
+package bio.terra.cli.command.daemon;
+
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.daemon.DaemonProtocol.DaemonInfo;
+import bio.terra.cli.daemon.DaemonServer;
+import java.util.Optional;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the third-level "terra daemon status" command. */
+@Command(name = "status", description = "Check whether the background process is running.")
+public class Status extends BaseCommand {
+
+  /** Print whether the daemon is running. */
+  @Override
+  protected void execute() {
+    Optional<DaemonInfo> runningDaemon = DaemonServer.getRunning();
+    if (runningDaemon.isPresent()) {
+      OUT.println(
+          "Terra CLI daemon is running (pid "
+              + runningDaemon.get().pid
+              + ", version "
+              + runningDaemon.get().version
+              + ").");
+    } else {
+      OUT.println("Terra CLI daemon is not running.");
+    }
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
@@ -0,0 +1,26 @@
+package bio.terra.cli.command.daemon;
+
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.daemon.DaemonServer;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the third-level "terra daemon stop" command. */
+@Command(name = "stop", description = "Stop the background process.")
+public class Stop extends BaseCommand {
+
+  /** Stop the daemon, if it's running. */
+  @Override
+  protected void execute() {
+    if (DaemonServer.stopRunning()) {
+      OUT.println("Terra CLI daemon stopped.");
+    } else {
+      OUT.println("Terra CLI daemon is not running.");
+    }
+  }
+
+  /** This command never requires login. */
+  @Override
+  protected boolean requiresLogin() {
+    return false;
+  }
+}
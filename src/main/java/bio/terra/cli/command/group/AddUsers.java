@@ -0,0 +1,31 @@
+package bio.terra.cli.command.group;
+
+import bio.terra.cli.businessobject.Group;
+import bio.terra.cli.businessobject.MembershipChange;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.command.shared.options.GroupName;
+import bio.terra.cli.command.shared.options.MembershipFile;
+import bio.terra.cli.service.SamService.GroupPolicy;
+import java.util.List;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the third-level "terra group add-users" command. */
+@Command(
+    name = "add-users",
+    description = "Add many users to a group, with the policies listed in a file.")
+public class AddUsers extends BaseCommand {
+  @CommandLine.Mixin GroupName groupNameOption;
+  @CommandLine.Mixin MembershipFile membershipFileOption;
+  @CommandLine.Mixin Format formatOption;
+
+  /** Add the listed users to a Terra group. */
+  @Override
+  protected void execute() {
+    List<MembershipChange<GroupPolicy>> changes =
+        membershipFileOption.readChanges(GroupPolicy.class);
+    Group.get(groupNameOption.name).addPolicyToMembers(changes, membershipFileOption.getThreads());
+    membershipFileOption.printChanges(changes, formatOption);
+  }
+}
@@ -4,22 +4,31 @@ import bio.terra.cli.businessobject.Group;
 import bio.terra.cli.command.shared.BaseCommand;
 import bio.terra.cli.command.shared.options.Format;
 import bio.terra.cli.serialization.userfacing.UFGroup;
-import bio.terra.cli.utils.UserIO;
+import bio.terra.cli.utils.ParallelUtils;
 import java.util.Comparator;
+import java.util.stream.Collectors;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
 /** This class corresponds to the third-level "terra group list" command. */
 @Command(name = "list", description = "List the groups to which the current user belongs.")
 public class List extends BaseCommand {
+  // maximum number of groups to look up the members of at the same time
+  private static final int MAX_PARALLEL_LOOKUPS = 10;
+
   @CommandLine.Mixin Format formatOption;
 
   /** List the groups to which the current user belongs. */
   @Override
   protected void execute() {
+    // serializing a group looks up its members, and the lookups for different groups are
+    // independent, so do them at the same time
+    java.util.List<Group> groups =
+        Group.list().stream()
+            .sorted(Comparator.comparing(Group::getName))
+            .collect(Collectors.toList());
     formatOption.printReturnValue(
-        UserIO.sortAndMap(Group.list(), Comparator.comparing(Group::getName), UFGroup::new),
-        List::printText);
+        ParallelUtils.mapInParallel(groups, UFGroup::new, MAX_PARALLEL_LOOKUPS), List::printText);
   }
 
   /** Print this command's output in text format. */
@@ -5,7 +5,6 @@ import bio.terra.cli.command.shared.BaseCommand;
 import bio.terra.cli.command.shared.options.Format;
 import bio.terra.cli.command.shared.options.GroupName;
 import bio.terra.cli.serialization.userfacing.UFGroupMember;
-import bio.terra.cli.utils.UserIO;
 import java.util.Comparator;
 import java.util.List;
 import picocli.CommandLine;
@@ -21,18 +20,13 @@ public class ListUsers extends BaseCommand {
   /** List the users in the given group. */
   @Override
   protected void execute() {
-    formatOption.printReturnValue(
-        UserIO.sortAndMap(
-            Group.get(groupNameOption.name).getMembers(),
-            Comparator.comparing(Group.Member::getEmail),
-            UFGroupMember::new),
-        ListUsers::printText);
-  }
-
-  /** Print this command's output in text format. */
-  private static void printText(List<UFGroupMember> returnValue) {
-    for (UFGroupMember groupMember : returnValue) {
-      groupMember.print();
-    }
+    List<Group.Member> members = Group.get(groupNameOption.name).getMembers();
+    formatOption.printReturnValueStream(
+        consumer ->
+            members.stream()
+                .sorted(Comparator.comparing(Group.Member::getEmail))
+                .map(UFGroupMember::new)
+                .forEachOrdered(consumer),
+        UFGroupMember::print);
   }
 }
@@ -4,9 +4,11 @@ import bio.terra.cli.businessobject.Context;
 import bio.terra.cli.businessobject.Resource;
 import bio.terra.cli.command.shared.BaseCommand;
 import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.command.shared.options.ResourceCache;
 import bio.terra.cli.command.shared.options.ResourceName;
 import bio.terra.cli.command.shared.options.WorkspaceOverride;
 import bio.terra.cli.serialization.userfacing.UFResource;
+import java.util.List;
 import picocli.CommandLine;
 
 /** This class corresponds to the third-level "terra resource describe" command. */
@@ -14,6 +16,7 @@ import picocli.CommandLine;
 public class Describe extends BaseCommand {
   @CommandLine.Mixin ResourceName resourceNameOption;
 
+  @CommandLine.Mixin ResourceCache resourceCacheOption;
   @CommandLine.Mixin WorkspaceOverride workspaceOption;
   @CommandLine.Mixin Format formatOption;
 
@@ -21,7 +24,10 @@ public class Describe extends BaseCommand {
   @Override
   protected void execute() {
     workspaceOption.overrideIfSpecified();
-    Resource resource = Context.requireWorkspace().getResource(resourceNameOption.name);
-    formatOption.printReturnValue(resource.serializeToCommand(), UFResource::print);
+    Resource resource =
+        Context.requireWorkspace()
+            .getResource(resourceNameOption.name, resourceCacheOption.getCacheMode());
+    UFResource serializedResource = Resource.serializeListToCommand(List.of(resource)).get(0);
+    formatOption.printReturnValue(serializedResource, UFResource::print);
   }
 }
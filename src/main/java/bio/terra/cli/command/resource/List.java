@@ -4,7 +4,9 @@ import bio.terra.cli.businessobject.Context;
 import bio.terra.cli.businessobject.Resource;
 import bio.terra.cli.command.shared.BaseCommand;
 import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.command.shared.options.ResourceCache;
 import bio.terra.cli.command.shared.options.WorkspaceOverride;
+import bio.terra.cli.exception.UserActionableException;
 import bio.terra.cli.serialization.userfacing.UFResource;
 import bio.terra.workspace.model.AccessScope;
 import bio.terra.workspace.model.StewardshipType;
@@ -25,6 +27,21 @@ public class List extends BaseCommand {
       description = "Filter on a particular resource type: ${COMPLETION-CANDIDATES}.")
   private Resource.Type type;
 
+  @CommandLine.Option(
+      names = "--limit",
+      description =
+          "The maximum number of resources to return. Fetches only the resources needed from the"
+              + " server, and lists them in the order the server returns them instead of by name.")
+  private Integer limit;
+
+  @CommandLine.Option(
+      names = "--page-token",
+      description =
+          "Continue listing from where a previous call with --limit stopped, using the page token"
+              + " it printed.")
+  private String pageToken;
+
+  @CommandLine.Mixin ResourceCache resourceCacheOption;
   @CommandLine.Mixin WorkspaceOverride workspaceOption;
   @CommandLine.Mixin Format formatOption;
 
@@ -32,36 +49,80 @@ public class List extends BaseCommand {
   @Override
   protected void execute() {
     workspaceOption.overrideIfSpecified();
-    java.util.List<UFResource> resources =
-        Context.requireWorkspace().listResourcesAndSync().stream()
-            .filter(
-                (resource) -> {
-                  boolean stewardshipMatches =
-                      stewardship == null || resource.getStewardshipType().equals(stewardship);
-                  boolean typeMatches = type == null || resource.getResourceType().equals(type);
-                  return stewardshipMatches && typeMatches;
-                })
+    if (limit != null || pageToken != null) {
+      executePage();
+      return;
+    }
+    java.util.List<Resource> resources =
+        Context.requireWorkspace()
+            .listResources(resourceCacheOption.getCacheMode(), type, stewardship)
+            .stream()
             .sorted(Comparator.comparing(Resource::getName))
-            .map(Resource::serializeToCommand)
             .collect(Collectors.toList());
-    formatOption.printReturnValue(resources, List::printText);
+    printResources(resources);
   }
 
-  /** Print this command's output in text format. */
-  private static void printText(java.util.List<UFResource> returnValue) {
-    for (UFResource resource : returnValue) {
-      OUT.println(
-          resource.name
-              + " ("
-              + resource.resourceType
-              + ", "
-              + resource.stewardshipType
-              + (resource.stewardshipType.equals(StewardshipType.CONTROLLED)
-                      && resource.accessScope.equals(AccessScope.PRIVATE_ACCESS)
-                  ? ", " + resource.accessScope + " " + resource.privateUserName
-                  : "")
-              + ")"
-              + (resource.description == null ? "" : ": " + resource.description));
+  /**
+   * List one page of the resources in the workspace. The page token is the number of matching
+   * resources listed by previous pages. If there are more resources after this page, then print the
+   * token for the next one to stderr, so it doesn't mix with the JSON output.
+   */
+  private void executePage() {
+    int pageSize = limit == null ? Context.getConfig().getResourcesPageSize() : limit;
+    if (pageSize <= 0) {
+      throw new UserActionableException("Limit must be greater than zero.");
+    }
+    int offset = parsePageToken();
+
+    // fetch one extra resource, to tell whether there's another page after this one
+    java.util.List<Resource> resources =
+        Context.requireWorkspace()
+            .listResourcesRange(
+                resourceCacheOption.getCacheMode(), type, stewardship, offset, pageSize + 1);
+    boolean hasNextPage = resources.size() > pageSize;
+    printResources(hasNextPage ? resources.subList(0, pageSize) : resources);
+    if (hasNextPage) {
+      ERR.println(
+          "More resources are available. To list them, run this command again with --page-token="
+              + (offset + pageSize));
     }
   }
+
+  /** Parse the page token into the number of resources to skip. */
+  private int parsePageToken() {
+    if (pageToken == null) {
+      return 0;
+    }
+    try {
+      int offset = Integer.parseInt(pageToken);
+      if (offset >= 0) {
+        return offset;
+      }
+    } catch (NumberFormatException nfEx) {
+      // fall through to the error below
+    }
+    throw new UserActionableException("Invalid page token: " + pageToken);
+  }
+
+  /** Print the resources, each one as soon as its cloud lookups finish. */
+  private void printResources(java.util.List<Resource> resources) {
+    formatOption.printReturnValueStream(
+        consumer -> Resource.serializeListToCommand(resources, consumer), List::printText);
+  }
+
+  /** Print a single resource in this command's output in text format. */
+  private static void printText(UFResource resource) {
+    OUT.println(
+        resource.name
+            + " ("
+            + resource.resourceType
+            + ", "
+            + resource.stewardshipType
+            + (resource.stewardshipType.equals(StewardshipType.CONTROLLED)
+                    && resource.accessScope.equals(AccessScope.PRIVATE_ACCESS)
+                ? ", " + resource.accessScope + " " + resource.privateUserName
+                : "")
+            + ")"
+            + (resource.description == null ? "" : ": " + resource.description));
+  }
 }
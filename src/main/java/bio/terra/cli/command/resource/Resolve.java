@@ -9,6 +9,7 @@ import bio.terra.cli.businessobject.resource.GcsBucket;
 import bio.terra.cli.businessobject.resource.GcsObject;
 import bio.terra.cli.command.shared.BaseCommand;
 import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.command.shared.options.ResourceCache;
 import bio.terra.cli.command.shared.options.ResourceName;
 import bio.terra.cli.command.shared.options.WorkspaceOverride;
 import picocli.CommandLine;
@@ -34,6 +35,7 @@ public class Resolve extends BaseCommand {
               + "[For BIG_QUERY_DATA_TABLE only] TABLE_ID_ONLY=[data table id]")
   private BqResolvedOptions bqPathFormat = BqResolvedOptions.FULL_PATH;
 
+  @CommandLine.Mixin ResourceCache resourceCacheOption;
   @CommandLine.Mixin WorkspaceOverride workspaceOption;
   @CommandLine.Mixin Format formatOption;
 
@@ -41,7 +43,9 @@ public class Resolve extends BaseCommand {
   @Override
   protected void execute() {
     workspaceOption.overrideIfSpecified();
-    Resource resource = Context.requireWorkspace().getResource(resourceNameOption.name);
+    Resource resource =
+        Context.requireWorkspace()
+            .getResource(resourceNameOption.name, resourceCacheOption.getCacheMode());
 
     String cloudId;
     switch (resource.getResourceType()) {
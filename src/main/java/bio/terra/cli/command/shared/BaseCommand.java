@@ -4,7 +4,10 @@ import bio.terra.cli.app.utils.VersionCheckUtils;
 import bio.terra.cli.businessobject.Context;
 import bio.terra.cli.businessobject.User;
 import bio.terra.cli.command.Main;
+import bio.terra.cli.exception.UserActionableException;
+import bio.terra.cli.service.utils.Telemetry;
 import bio.terra.cli.utils.Logger;
+import bio.terra.cli.utils.StartupTrace;
 import bio.terra.cli.utils.UserIO;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.PrintStream;
@@ -39,28 +42,73 @@ public abstract class BaseCommand implements Callable<Integer> {
   protected static PrintStream OUT;
   protected static PrintStream ERR;
 
+  @CommandLine.Option(
+      names = "--trace-startup",
+      hidden = true,
+      description = "Print how long each phase of running the command takes, to stderr.")
+  private boolean traceStartup;
+
+  @CommandLine.Option(
+      names = "--timings",
+      description =
+          "Print how long each call to a service (e.g. WSM, SAM) takes, with its retries and status codes, to stderr.")
+  private boolean timings;
+
+  @CommandLine.Spec private CommandLine.Model.CommandSpec spec;
+
+  // true while `terra batch` runs its commands. they share the context, logging and credentials
+  // that the batch command already setup, instead of each reading them again
+  private static volatile boolean runningInBatch;
+
   @Override
   public Integer call() {
+    StartupTrace startupTrace = new StartupTrace();
+
     // pull the output streams from the singleton object setup by the top-level Main class
     // in the future, these streams could also be controlled by a global context property
     OUT = UserIO.getOut();
     ERR = UserIO.getErr();
 
-    // read in the global context and setup logging
+    if (runningInBatch) {
+      return callInBatch();
+    }
+
+    // read in the global context and setup logging. changes to the context are written to disk
+    // once, when the command finishes
     Context.initializeFromDisk();
+    Context.deferWritesToDisk();
+    // record the calls this command makes to services, if --timings or an export environment
+    // variable is set
+    Telemetry.startCommand(spec.qualifiedName(), timings);
+    boolean succeeded = false;
+    try {
+      Integer exitCode = callWithContext(startupTrace);
+      succeeded = true;
+      return exitCode;
+    } finally {
+      Context.stopDeferringWritesToDisk();
+      Telemetry.finishCommand(succeeded, ERR);
+    }
+  }
+
+  /** Setup logging, login and execute the command, after the global context is initialized. */
+  private Integer callWithContext(StartupTrace startupTrace) {
+    startupTrace.endPhase("read context");
     Logger.setupLogging(
         Context.getConfig().getConsoleLoggingLevel(), Context.getConfig().getFileLoggingLevel());
+    startupTrace.endPhase("setup logging");
 
+    // credentials are loaded the first time the command uses them. for commands that require login,
+    // that's also when the user is prompted to login again if they're expired
     if (requiresLogin()) {
-      // load existing credentials, prompt for login if they don't exist or are expired
-      User.login();
-    } else if (Context.getUser().isPresent()) {
-      Context.requireUser().loadExistingCredentials();
+      User.loginOnFirstUse();
     }
+    startupTrace.endPhase("check login");
 
     // execute the command
     logger.debug("[COMMAND RUN] terra " + String.join(" ", Main.getArgList()));
     execute();
+    startupTrace.endPhase("execute command");
 
     //     optionally check if this version of the CLI is out of date
     if (VersionCheckUtils.isObsolete()) {
@@ -69,11 +117,44 @@ public abstract class BaseCommand implements Callable<Integer> {
               + "If you have added the CLI to your $PATH, this step will need to be repeated after the installation is complete.%n",
           bio.terra.cli.utils.Version.getVersion());
     }
+    startupTrace.endPhase("check version");
+    if (traceStartup) {
+      startupTrace.print(ERR);
+    }
 
     // set the command exit code
     return 0;
   }
 
+  /**
+   * Execute a command run by `terra batch`, using the context that the batch command already read.
+   * Changes to the context are written to disk by the batch command. The calls the command makes
+   * to services are recorded as part of the batch command, see {@link
+   * Telemetry#recordBatchCommand}.
+   */
+  private Integer callInBatch() {
+    if (timings) {
+      throw new UserActionableException(
+          "The --timings option is not supported for commands in a batch. Use `terra batch --timings` to print the timings of all the commands.");
+    }
+    if (requiresLogin() && Context.getUser().isEmpty()) {
+      throw new UserActionableException(
+          "User not logged in. Run `terra auth login` before `terra batch`.");
+    }
+    Telemetry.recordBatchCommand(spec.qualifiedName(), this::execute);
+    return 0;
+  }
+
+  /**
+   * Set whether commands are run by `terra batch`. The batch command turns this on while it runs
+   * its commands.
+   *
+   * @param inBatch true if commands are run by the batch command
+   */
+  protected static void setRunningInBatch(boolean inBatch) {
+    runningInBatch = inBatch;
+  }
+
   /**
    * Required override for executing this command and printing any output.
    *
@@ -86,6 +167,12 @@ public abstract class BaseCommand implements Callable<Integer> {
    * This method returns true if login is required for the command. Default implementation is to
    * always require login.
    *
+   * <p>If there is no current user, the login flow runs before the command executes. Otherwise, the
+   * existing credentials are only loaded and checked when the command first uses them, so commands
+   * that only read the local context (e.g. a cached resource list) don't pay for it. Commands that
+   * return false here can still use the credentials of an existing user, but are never prompted to
+   * login.
+   *
    * <p>Sub-classes can use the current global and workspace context to decide whether to require
    * login.
    *
@@ -4,10 +4,17 @@ import bio.terra.cli.businessobject.Context;
 import bio.terra.cli.exception.SystemException;
 import bio.terra.cli.utils.JacksonMapper;
 import bio.terra.cli.utils.UserIO;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.Optional;
 import java.util.function.Consumer;
+import javax.annotation.Nullable;
 import picocli.CommandLine;
 
 /**
@@ -31,50 +38,201 @@ public class Format {
     return Optional.ofNullable(format).orElseGet(() -> Context.getConfig().getFormat());
   }
 
-  /** This enum specifies the format options for printing the command output. */
+  /**
+   * This enum specifies the format options for printing the command output. NDJSON prints one
+   * compact JSON object per line, which is easier to pipe into line-oriented tools than a single
+   * pretty-printed JSON array.
+   */
   public enum FormatOptions {
     JSON,
+    NDJSON,
     TEXT;
   }
 
   /**
-   * This method calls the {@link #printJson} method if the --format flag is set to JSON. Otherwise,
-   * it calls the {@link #printText} method, passing the return value object as an argument.
+   * This method calls the {@link #printJson} method if the --format flag is set to JSON, or prints
+   * the return value as NDJSON if the flag is set to NDJSON. Otherwise, it calls the {@link
+   * #printText} method, passing the return value object as an argument.
    *
    * @param returnValue command return value
    */
   public <T> void printReturnValue(T returnValue) {
-    printReturnValue(returnValue, Format::printText, Format::printJson);
+    printReturnValue(returnValue, Format::printText);
   }
 
   /**
-   * This method calls the {@link #printJson} method if the --format flag is set to JSON. Otherwise,
-   * it calls the given printTextFunction.
+   * This method calls the {@link #printJson} method if the --format flag is set to JSON, or prints
+   * the return value as NDJSON if the flag is set to NDJSON. Otherwise, it calls the given
+   * printTextFunction.
    *
    * @param returnValue command return value
    * @param printTextFunction reference to function that accepts the command return value and prints
    *     it out in text format
    */
   public <T> void printReturnValue(T returnValue, Consumer<T> printTextFunction) {
-    printReturnValue(returnValue, printTextFunction, Format::printJson);
+    switch (getEffectiveFormatOption()) {
+      case JSON:
+        printJson(returnValue);
+        break;
+      case NDJSON:
+        printJsonLines(returnValue);
+        break;
+      default:
+        printTextFunction.accept(returnValue);
+    }
   }
 
   /**
-   * This method calls the given printJsonFunction if the --format flag is set to JSON. Otherwise,
-   * it calls the given printTextFunction.
+   * This method calls the given printJsonFunction if the --format flag is set to JSON. If the flag
+   * is set to NDJSON, it also calls the printJsonFunction, and re-prints the JSON it prints as
+   * NDJSON (i.e. one line per element if it's an array), so that both formats contain the same
+   * JSON. Otherwise, it calls the given printTextFunction.
    *
    * @param returnValue command return value
    * @param printTextFunction reference to function that accepts the command return value and prints
    *     it out in text format
    * @param printJsonFunction reference to function that accepts the command return value and prints
-   *     it out in JSON format
+   *     it out in JSON format, to {@link UserIO#getOut}
    */
   public <T> void printReturnValue(
       T returnValue, Consumer<T> printTextFunction, Consumer<T> printJsonFunction) {
-    if (getEffectiveFormatOption() == FormatOptions.JSON) {
-      printJsonFunction.accept(returnValue);
+    switch (getEffectiveFormatOption()) {
+      case JSON:
+        printJsonFunction.accept(returnValue);
+        break;
+      case NDJSON:
+        JsonNode printedJson =
+            readJsonTree(UserIO.captureOut(() -> printJsonFunction.accept(returnValue)));
+        if (printedJson != null) {
+          printJsonLines(printedJson);
+        }
+        break;
+      default:
+        printTextFunction.accept(returnValue);
+    }
+  }
+
+  /**
+   * Print a list-valued return value one element at a time, as each element is produced, instead of
+   * waiting for the whole list. This is meant for list commands whose elements are fetched or
+   * serialized incrementally, so that the first elements reach the terminal or pipe right away and
+   * the printed elements do not need to be held in memory.
+   *
+   * <p>The JSON format prints the same pretty-printed array as {@link #printJson}, but writes each
+   * element to the output stream as soon as it is passed to the consumer. The NDJSON format prints
+   * each element as a compact JSON object on its own line. The text format calls the given
+   * printTextFunction once per element.
+   *
+   * <p>If the producer throws an exception part way through, the JSON array is left unclosed, so
+   * that the partial output can't be mistaken for the complete list.
+   *
+   * @param producer function that produces the elements in order, passing each one to the given
+   *     consumer
+   * @param printTextFunction reference to function that accepts a single element and prints it out
+   *     in text format
+   */
+  public <T> void printReturnValueStream(
+      Consumer<Consumer<T>> producer, Consumer<T> printTextFunction) {
+    switch (getEffectiveFormatOption()) {
+      case JSON:
+        printJsonStream(producer);
+        break;
+      case NDJSON:
+        producer.accept(Format::printJsonLine);
+        break;
+      default:
+        producer.accept(printTextFunction);
+    }
+  }
+
+  /**
+   * Print the elements of a JSON array as they are produced, using a Jackson streaming generator.
+   * The output is identical to calling {@link #printJson} on the full list.
+   *
+   * @param producer function that produces the elements in order, passing each one to the given
+   *     consumer
+   */
+  private static <T> void printJsonStream(Consumer<Consumer<T>> producer) {
+    // don't let Jackson close stdout when it closes the generator
+    ObjectWriter objectWriter =
+        JacksonMapper.getMapper()
+            .writerWithDefaultPrettyPrinter()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    PrintStream out = UserIO.getOut();
+    try {
+      SequenceWriter sequenceWriter = objectWriter.writeValues(out).init(true);
+      try {
+        producer.accept(
+            element -> {
+              try {
+                // the writer flushes after each value, so this element is visible immediately
+                sequenceWriter.write(element);
+              } catch (IOException ioEx) {
+                throw new UncheckedIOException(ioEx);
+              }
+            });
+      } catch (RuntimeException ex) {
+        // don't close the writer, which would print the closing bracket of the array
+        out.println();
+        throw ex;
+      }
+      sequenceWriter.close();
+    } catch (IOException | UncheckedIOException ioEx) {
+      throw new SystemException("Error JSON-formatting the command return value.", ioEx);
+    }
+    out.println();
+  }
+
+  /**
+   * Print the return value in NDJSON format. If the return value is a collection, then each element
+   * is printed on its own line. Otherwise, the return value is printed on a single line.
+   *
+   * @param returnValue command return value
+   */
+  private static <T> void printJsonLines(T returnValue) {
+    // an object node is iterable over its field values, so check for an array node explicitly
+    if (returnValue instanceof JsonNode) {
+      JsonNode jsonNode = (JsonNode) returnValue;
+      if (jsonNode.isArray()) {
+        jsonNode.forEach(Format::printJsonLine);
+      } else {
+        printJsonLine(jsonNode);
+      }
+    } else if (returnValue instanceof Iterable) {
+      ((Iterable<?>) returnValue).forEach(Format::printJsonLine);
     } else {
-      printTextFunction.accept(returnValue);
+      printJsonLine(returnValue);
+    }
+  }
+
+  /**
+   * Parse the JSON printed by a custom JSON print function.
+   *
+   * @param json printed JSON
+   * @return the parsed JSON, or null if nothing was printed
+   */
+  @Nullable
+  private static JsonNode readJsonTree(String json) {
+    if (json.isBlank()) {
+      return null;
+    }
+    try {
+      return JacksonMapper.getMapper().readTree(json);
+    } catch (JsonProcessingException jsonEx) {
+      throw new SystemException("Error reading the JSON-formatted command return value.", jsonEx);
+    }
+  }
+
+  /**
+   * Print a single value as compact JSON on its own line, regardless of the --format flag.
+   *
+   * @param value value to print
+   */
+  public static <T> void printJsonLine(T value) {
+    try {
+      UserIO.getOut().println(JacksonMapper.getMapper().writeValueAsString(value));
+    } catch (JsonProcessingException jsonEx) {
+      throw new SystemException("Error JSON-formatting the command return value.", jsonEx);
     }
   }
 
@@ -1,6 +1,7 @@
 package bio.terra.cli.command.shared.options;
 
 import bio.terra.cli.exception.UserActionableException;
+import bio.terra.cli.utils.FileUtils;
 import bio.terra.cli.utils.JacksonMapper;
 import com.fasterxml.jackson.databind.MapperFeature;
 import java.io.IOException;
@@ -45,7 +46,7 @@ public class GcsBucketLifecycle {
       // read in the lifecycle rules from a file
       try {
         return JacksonMapper.readFileIntoJavaObject(
-            lifecycleArgGroup.pathToLifecycleFile.toFile(),
+            FileUtils.resolveUserPath(lifecycleArgGroup.pathToLifecycleFile).toFile(),
             bio.terra.cli.serialization.userfacing.input.GcsBucketLifecycle.class,
             Collections.singletonList(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS));
       } catch (IOException ioEx) {
@@ -0,0 +1,128 @@
+package bio.terra.cli.command.shared.options;
+
+import bio.terra.cli.businessobject.MembershipChange;
+import bio.terra.cli.exception.UserActionableException;
+import bio.terra.cli.serialization.userfacing.UFMembershipChange;
+import bio.terra.cli.utils.FileUtils;
+import bio.terra.cli.utils.UserIO;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import picocli.CommandLine;
+
+/**
+ * Command helper class that defines the options for commands that add or remove many members at
+ * once (e.g. `terra workspace add-users`).
+ *
+ * <p>This class is meant to be used as a @CommandLine.Mixin.
+ */
+public class MembershipFile {
+  // value of the --from-file option that means read from stdin
+  private static final String STDIN = "-";
+
+  @CommandLine.Option(
+      names = "--from-file",
+      required = true,
+      description =
+          "File with one email and role (or policy) per line, separated by a comma or whitespace. Blank lines and lines starting with # are skipped. Use - to read from stdin.")
+  private String fromFile;
+
+  @CommandLine.Option(
+      names = "--threads",
+      defaultValue = "10",
+      showDefaultValue = CommandLine.Help.Visibility.ALWAYS,
+      description = "Maximum number of changes to make at the same time.")
+  private int threads;
+
+  /**
+   * Read the email + role pairs from the file or stdin.
+   *
+   * @param roleClass enum of the valid roles (or policies)
+   * @return list of changes, in the order they appear in the input
+   * @throws UserActionableException if the input can't be read, or a line isn't valid
+   */
+  public <R extends Enum<R>> List<MembershipChange<R>> readChanges(Class<R> roleClass) {
+    if (threads < 1) {
+      throw new UserActionableException("Number of threads must be at least 1.");
+    }
+    List<String> lines;
+    try {
+      if (STDIN.equals(fromFile)) {
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(UserIO.getIn(), StandardCharsets.UTF_8));
+        lines = reader.lines().collect(Collectors.toList());
+      } else {
+        lines = Files.readAllLines(FileUtils.resolveUserPath(fromFile), StandardCharsets.UTF_8);
+      }
+    } catch (IOException ioEx) {
+      throw new UserActionableException("Error reading email and role pairs: " + fromFile, ioEx);
+    }
+
+    List<MembershipChange<R>> changes = new ArrayList<>();
+    for (int ctr = 0; ctr < lines.size(); ctr++) {
+      String line = lines.get(ctr).trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] fields = line.split("\\s*,\\s*|\\s+");
+      if (fields.length != 2) {
+        throw new UserActionableException(
+            "Line " + (ctr + 1) + " should have an email and a role: " + line);
+      }
+      changes.add(new MembershipChange<>(fields[0], parseRole(roleClass, fields[1], ctr + 1)));
+    }
+    return changes;
+  }
+
+  /**
+   * Print the outcome of each change in the given format, then fail the command if any of them
+   * failed.
+   *
+   * @param changes changes that were made
+   * @param formatOption format to print the changes in
+   * @throws UserActionableException if any change failed
+   */
+  public <R extends Enum<R>> void printChanges(
+      List<MembershipChange<R>> changes, Format formatOption) {
+    formatOption.printReturnValueStream(
+        consumer -> changes.stream().map(UFMembershipChange::new).forEachOrdered(consumer),
+        UFMembershipChange::print);
+    long numFailed = MembershipChange.countFailed(changes);
+    if (numFailed > 0) {
+      throw new UserActionableException(
+          numFailed
+              + " of "
+              + changes.size()
+              + " changes failed. Run the command again after fixing the failed lines, the other"
+              + " changes are already in effect and will be skipped.");
+    }
+  }
+
+  /** Get the maximum number of changes to make at the same time. */
+  public int getThreads() {
+    return threads;
+  }
+
+  /** Parse a role name, ignoring case. */
+  private static <R extends Enum<R>> R parseRole(Class<R> roleClass, String name, int lineNum) {
+    try {
+      return Enum.valueOf(roleClass, name.toUpperCase());
+    } catch (IllegalArgumentException iaEx) {
+      throw new UserActionableException(
+          "Line "
+              + lineNum
+              + " has an invalid role: "
+              + name
+              + ". Valid values: "
+              + Arrays.stream(roleClass.getEnumConstants())
+                  .map(Enum::name)
+                  .collect(Collectors.joining(", ")));
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package bio.terra.cli.command.shared.options;
+
+import bio.terra.cli.businessobject.Workspace.ResourceCacheMode;
+import picocli.CommandLine;
+
+/**
+ * Command helper class that defines the --refresh and --offline flags for controlling whether to
+ * use the list of resources cached in the context file.
+ *
+ * <p>This class is meant to be used as a @CommandLine.Mixin.
+ */
+public class ResourceCache {
+
+  @CommandLine.ArgGroup(exclusive = true, multiplicity = "0..1")
+  ResourceCacheArgGroup argGroup;
+
+  static class ResourceCacheArgGroup {
+    @CommandLine.Option(
+        names = "--refresh",
+        description = "Re-fetch the list of resources from the server, even if the cache is fresh.")
+    private boolean refresh;
+
+    @CommandLine.Option(
+        names = "--offline",
+        description =
+            "Use the cached list of resources, even if it is stale. Does not contact the server to"
+                + " list resources.")
+    private boolean offline;
+  }
+
+  /**
+   * Helper method to get the cache mode from the flags. Defaults to using the cached list unless it
+   * is older than the resource cache TTL in the config.
+   */
+  public ResourceCacheMode getCacheMode() {
+    if (argGroup == null) {
+      return ResourceCacheMode.IF_STALE;
+    }
+    return argGroup.refresh
+        ? ResourceCacheMode.REFRESH
+        : (argGroup.offline ? ResourceCacheMode.OFFLINE : ResourceCacheMode.IF_STALE);
+  }
+}
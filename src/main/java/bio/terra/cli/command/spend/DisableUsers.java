@@ -0,0 +1,30 @@
+package bio.terra.cli.command.spend;
+
+import bio.terra.cli.businessobject.MembershipChange;
+import bio.terra.cli.businessobject.SpendProfileUser;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.command.shared.options.MembershipFile;
+import bio.terra.cli.service.SpendProfileManagerService.SpendProfilePolicy;
+import java.util.List;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the third-level "terra spend disable-users" command. */
+@Command(
+    name = "disable-users",
+    description =
+        "Disable use of the Workspace Manager default spend profile for many users or groups, with the policies listed in a file.")
+public class DisableUsers extends BaseCommand {
+  @CommandLine.Mixin MembershipFile membershipFileOption;
+  @CommandLine.Mixin Format formatOption;
+
+  /** Disable access to the WSM default spend profile for the listed emails. */
+  @Override
+  protected void execute() {
+    List<MembershipChange<SpendProfilePolicy>> changes =
+        membershipFileOption.readChanges(SpendProfilePolicy.class);
+    SpendProfileUser.disableAll(changes, membershipFileOption.getThreads());
+    membershipFileOption.printChanges(changes, formatOption);
+  }
+}
@@ -0,0 +1,32 @@
+package bio.terra.cli.command.workspace;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.businessobject.MembershipChange;
+import bio.terra.cli.businessobject.WorkspaceUser;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.command.shared.options.MembershipFile;
+import bio.terra.cli.command.shared.options.WorkspaceOverride;
+import java.util.List;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the third-level "terra workspace add-users" command. */
+@Command(
+    name = "add-users",
+    description = "Add many users or groups to the workspace, with the roles listed in a file.")
+public class AddUsers extends BaseCommand {
+  @CommandLine.Mixin MembershipFile membershipFileOption;
+  @CommandLine.Mixin WorkspaceOverride workspaceOption;
+  @CommandLine.Mixin Format formatOption;
+
+  /** Add the listed emails to the workspace. */
+  @Override
+  protected void execute() {
+    workspaceOption.overrideIfSpecified();
+    List<MembershipChange<WorkspaceUser.Role>> changes =
+        membershipFileOption.readChanges(WorkspaceUser.Role.class);
+    WorkspaceUser.addAll(changes, Context.requireWorkspace(), membershipFileOption.getThreads());
+    membershipFileOption.printChanges(changes, formatOption);
+  }
+}
@@ -8,6 +8,7 @@ import bio.terra.cli.command.shared.options.WorkspaceOverride;
 import bio.terra.cli.exception.SystemException;
 import bio.terra.cli.exception.UserActionableException;
 import bio.terra.cli.service.GoogleOauth;
+import bio.terra.cli.utils.FileUtils;
 import com.google.api.client.util.DateTime;
 import com.google.auth.oauth2.ServiceAccountCredentials;
 import com.google.cloud.bigquery.BigQuery;
@@ -86,9 +87,10 @@ public class BreakGlass extends BaseCommand {
           ImmutableList.of("https://www.googleapis.com/auth/cloud-platform");
       userProjectsAdminCredentials =
           GoogleOauth.getServiceAccountCredential(
-              Path.of(userProjectAdminSAKeyFile).toFile(), SA_SCOPES);
+              FileUtils.resolveUserPath(userProjectAdminSAKeyFile).toFile(), SA_SCOPES);
       bigQueryCredentials =
-          GoogleOauth.getServiceAccountCredential(Path.of(bigQuerySAKeyFile).toFile(), SA_SCOPES);
+          GoogleOauth.getServiceAccountCredential(
+              FileUtils.resolveUserPath(bigQuerySAKeyFile).toFile(), SA_SCOPES);
     } catch (IOException ioEx) {
       throw new UserActionableException("Error reading break-glass SA key files.", ioEx);
     }
@@ -5,7 +5,6 @@ import bio.terra.cli.businessobject.Workspace;
 import bio.terra.cli.command.shared.BaseCommand;
 import bio.terra.cli.command.shared.options.Format;
 import bio.terra.cli.serialization.userfacing.UFWorkspace;
-import bio.terra.cli.utils.UserIO;
 import java.util.Comparator;
 import java.util.Optional;
 import picocli.CommandLine;
@@ -38,41 +37,39 @@ public class List extends BaseCommand {
   /** List all workspaces a user has access to. */
   @Override
   protected void execute() {
-    formatOption.printReturnValue(
-        UserIO.sortAndMap(
-            Workspace.list(offset, limit),
-            Comparator.comparing(Workspace::getName),
-            UFWorkspace::new),
+    java.util.List<Workspace> workspaces = Workspace.list(offset, limit);
+    formatOption.printReturnValueStream(
+        consumer ->
+            workspaces.stream()
+                .sorted(Comparator.comparing(Workspace::getName))
+                .map(UFWorkspace::new)
+                .forEachOrdered(consumer),
         this::printText);
   }
 
-  /** Print this command's output in text format. */
-  private void printText(java.util.List<UFWorkspace> returnValue) {
+  /** Print a single workspace in this command's output in text format. */
+  private void printText(UFWorkspace workspace) {
     Optional<Workspace> currentWorkspace = Context.getWorkspace();
-    for (UFWorkspace workspace : returnValue) {
-      String prefix =
-          (currentWorkspace.isPresent() && currentWorkspace.get().getId().equals(workspace.id))
-              ? " * "
-              : "   ";
-      OUT.println(prefix + workspace.id);
+    String prefix =
+        (currentWorkspace.isPresent() && currentWorkspace.get().getId().equals(workspace.id))
+            ? " * "
+            : "   ";
+    OUT.println(prefix + workspace.id);
 
-      String propertyDescription = "%16s: %s";
-      String displayName = workspace.name;
-      if (!(displayName == null || displayName.isBlank())) {
-        OUT.println(String.format(propertyDescription, "Name", displayName));
-      }
-      String description = workspace.description;
-      if (!(description == null || description.isBlank())) {
-        OUT.println(String.format(propertyDescription, "Description", description));
-      }
-      String googleProjectId = workspace.googleProjectId;
-      OUT.println(
-          String.format(
-              propertyDescription,
-              "Google project ID",
-              (googleProjectId == null || googleProjectId.isBlank())
-                  ? "(UNSET)"
-                  : googleProjectId));
+    String propertyDescription = "%16s: %s";
+    String displayName = workspace.name;
+    if (!(displayName == null || displayName.isBlank())) {
+      OUT.println(String.format(propertyDescription, "Name", displayName));
     }
+    String description = workspace.description;
+    if (!(description == null || description.isBlank())) {
+      OUT.println(String.format(propertyDescription, "Description", description));
+    }
+    String googleProjectId = workspace.googleProjectId;
+    OUT.println(
+        String.format(
+            propertyDescription,
+            "Google project ID",
+            (googleProjectId == null || googleProjectId.isBlank()) ? "(UNSET)" : googleProjectId));
   }
 }
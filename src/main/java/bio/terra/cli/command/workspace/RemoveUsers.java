@@ -0,0 +1,32 @@
+package bio.terra.cli.command.workspace;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.businessobject.MembershipChange;
+import bio.terra.cli.businessobject.WorkspaceUser;
+import bio.terra.cli.command.shared.BaseCommand;
+import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.command.shared.options.MembershipFile;
+import bio.terra.cli.command.shared.options.WorkspaceOverride;
+import java.util.List;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+
+/** This class corresponds to the third-level "terra workspace remove-users" command. */
+@Command(
+    name = "remove-users",
+    description = "Remove many users or groups from the workspace roles listed in a file.")
+public class RemoveUsers extends BaseCommand {
+  @CommandLine.Mixin MembershipFile membershipFileOption;
+  @CommandLine.Mixin WorkspaceOverride workspaceOption;
+  @CommandLine.Mixin Format formatOption;
+
+  /** Remove the listed emails from the workspace. */
+  @Override
+  protected void execute() {
+    workspaceOption.overrideIfSpecified();
+    List<MembershipChange<WorkspaceUser.Role>> changes =
+        membershipFileOption.readChanges(WorkspaceUser.Role.class);
+    WorkspaceUser.removeAll(changes, Context.requireWorkspace(), membershipFileOption.getThreads());
+    membershipFileOption.printChanges(changes, formatOption);
+  }
+}
@@ -0,0 +1,178 @@
+package bio.terra.cli.daemon;
+
+import bio.terra.cli.command.Main;
+import bio.terra.cli.daemon.DaemonProtocol.DaemonInfo;
+import bio.terra.cli.utils.Version;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Entry point for the `terra` launch script. If a {@link DaemonServer} is running for the current
+ * context directory, this forwards the command line, stdin, stdout, stderr and exit code to it.
+ * Otherwise, or if the daemon can't run the command, it runs the command in this process, exactly
+ * as {@link Main#main(String...)} does.
+ *
+ * <p>The forwarding path only uses the Java standard library and the small {@link DaemonProtocol}
+ * class, so a warm command doesn't pay for loading the CLI's dependencies or setting up logging.
+ */
+public class DaemonClient {
+  // top-level commands that always run in this process, because they depend on this process's
+  // working directory, environment variables or terminal beyond what is sent to the daemon (e.g.
+  // launching apps, the browser login flow), or because they manage the daemon itself
+  @VisibleForTesting
+  public static final Set<String> LOCAL_ONLY_COMMANDS =
+      Set.of("app", "auth", "bq", "daemon", "gcloud", "git", "gsutil", "nextflow");
+
+  // maximum time to wait to connect to the daemon, before falling back to running locally
+  private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+  // size of the buffer for forwarding stdin
+  private static final int STDIN_BUFFER_SIZE = 8192;
+
+  // exit code if the connection to the daemon is lost while it is running a command. matches the
+  // exit code Main uses for system exceptions
+  private static final int SYSTEM_EXIT_CODE = 2;
+
+  private DaemonClient() {}
+
+  /**
+   * Main entry point into the CLI application. Forwards the command to the daemon if possible, and
+   * otherwise runs it here.
+   *
+   * @param args from stdin
+   */
+  public static void main(String... args) {
+    Optional<Integer> exitCode =
+        runsInDaemon(args)
+            ? DaemonProtocol.readDaemonInfo().flatMap(daemonInfo -> forward(daemonInfo, args))
+            : Optional.empty();
+    if (exitCode.isPresent()) {
+      System.exit(exitCode.get());
+    }
+    Main.main(args);
+  }
+
+  /**
+   * Check whether a command can be sent to the daemon, instead of always running in this process.
+   *
+   * @param args command and arguments
+   * @return true if the command can be sent to the daemon
+   */
+  @VisibleForTesting
+  public static boolean runsInDaemon(String... args) {
+    return args.length > 0 && !LOCAL_ONLY_COMMANDS.contains(args[0]);
+  }
+
+  /**
+   * Send the command to the daemon and relay its output until it exits.
+   *
+   * @param daemonInfo connection details of the running daemon
+   * @param args command and arguments
+   * @return the command's exit code, or empty if the command should run in this process instead
+   *     (e.g. the daemon isn't actually running, or it's a different CLI version)
+   */
+  @VisibleForTesting
+  public static Optional<Integer> forward(DaemonInfo daemonInfo, String... args) {
+    Socket socket = new Socket();
+    boolean requestSent = false;
+    try {
+      socket.connect(
+          new InetSocketAddress(InetAddress.getLoopbackAddress(), daemonInfo.port),
+          CONNECT_TIMEOUT_MILLIS);
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+      out.writeUTF(daemonInfo.token);
+      out.writeUTF(String.valueOf(Version.getVersion()));
+      out.writeInt(args.length);
+      for (String arg : args) {
+        out.writeUTF(arg);
+      }
+      // the daemon resolves relative file paths (e.g. --from-file) against this directory
+      out.writeUTF(Path.of("").toAbsolutePath().toString());
+      Map<String, String> envVars = DaemonProtocol.getTerraEnvVars();
+      out.writeInt(envVars.size());
+      for (Map.Entry<String, String> envVar : envVars.entrySet()) {
+        out.writeUTF(envVar.getKey());
+        out.writeUTF(envVar.getValue());
+      }
+      out.flush();
+      requestSent = true;
+
+      // forward stdin on a separate thread, as it arrives. this is a daemon thread, so it doesn't
+      // keep the process alive if the command finishes without reading all of stdin
+      Thread stdinPump = new Thread(() -> pumpStdin(System.in, out), "terra-client-stdin");
+      stdinPump.setDaemon(true);
+      stdinPump.start();
+
+      while (true) {
+        byte type = in.readByte();
+        switch (type) {
+          case DaemonProtocol.STDOUT:
+            writeAndFlush(System.out, DaemonProtocol.readFramePayload(in));
+            break;
+          case DaemonProtocol.STDERR:
+            writeAndFlush(System.err, DaemonProtocol.readFramePayload(in));
+            break;
+          case DaemonProtocol.EXIT:
+            return Optional.of(in.readInt());
+          case DaemonProtocol.REJECTED:
+            return Optional.empty();
+          default:
+            throw new IOException("Unexpected frame type from the daemon: " + type);
+        }
+      }
+    } catch (IOException ioEx) {
+      if (!requestSent) {
+        // the daemon isn't running (e.g. a stale rendezvous file), so run the command here
+        return Optional.empty();
+      }
+      // the daemon may have already started running the command, so running it again here could
+      // repeat its side effects (e.g. creating a resource twice)
+      System.err.println(
+          "[ERROR] Lost connection to the Terra CLI daemon while running the command: "
+              + ioEx.getMessage());
+      return Optional.of(SYSTEM_EXIT_CODE);
+    } finally {
+      try {
+        socket.close();
+      } catch (IOException ioEx) {
+        // nothing else to do, the process is about to exit
+      }
+    }
+  }
+
+  /** Copy stdin to the daemon as frames, then send EOF. */
+  private static void pumpStdin(InputStream stdin, DataOutputStream out) {
+    byte[] buf = new byte[STDIN_BUFFER_SIZE];
+    try {
+      int len;
+      while ((len = stdin.read(buf)) != -1) {
+        DaemonProtocol.writeFrame(out, DaemonProtocol.STDIN, buf, 0, len);
+      }
+      DaemonProtocol.writeFrame(out, DaemonProtocol.STDIN_EOF, 0);
+    } catch (IOException ioEx) {
+      // the command finished and the connection was closed
+    }
+  }
+
+  /** Write bytes to the given stream, and flush it so the output shows up immediately. */
+  private static void writeAndFlush(PrintStream printStream, byte[] bytes) {
+    printStream.write(bytes, 0, bytes.length);
+    printStream.flush();
+  }
+}
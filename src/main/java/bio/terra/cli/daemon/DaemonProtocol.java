@@ -0,0 +1,237 @@
+package bio.terra.cli.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Wire protocol and rendezvous file shared by the {@link DaemonServer} and the {@link
+ * DaemonClient}.
+ *
+ * <p>The daemon listens on a loopback TCP port, and writes the port and a random secret token to a
+ * file in the context directory that only the current OS user can read. A client proves it can read
+ * that file by sending the token first.
+ *
+ * <p>Request (client to server): token, client CLI version, number of arguments, each argument,
+ * the client's working directory, the number of client environment variables that start with
+ * {@link #ENV_VAR_PREFIX}, each variable's name and value, then any number of {@link #STDIN} frames
+ * followed by a single {@link #STDIN_EOF} frame.
+ *
+ * <p>Response (server to client): any number of {@link #STDOUT} and {@link #STDERR} frames, then a
+ * single {@link #EXIT} frame with the command's exit code. If the server won't run the command
+ * (e.g. the client is a different CLI version, or has different environment variables), it sends a
+ * single {@link #REJECTED} frame instead, and the client runs the command itself.
+ *
+ * <p>This class deliberately uses only the Java standard library, so that the client can start
+ * without loading the CLI's dependencies.
+ */
+public class DaemonProtocol {
+  // frame types
+  public static final byte STDIN = 1;
+  public static final byte STDIN_EOF = 2;
+  public static final byte STDOUT = 3;
+  public static final byte STDERR = 4;
+  public static final byte EXIT = 5;
+  public static final byte REJECTED = 6;
+
+  // mirrors Context.getContextDir. duplicated here so that the client doesn't load the Context
+  // class, which initializes the logging framework
+  private static final String CONTEXT_DIR_OVERRIDE_NAME = "TERRA_CONTEXT_PARENT_DIR";
+  private static final String CONTEXT_DIRNAME = ".terra";
+  private static final String DAEMON_FILENAME = "daemon.properties";
+
+  // environment variables that change how the CLI behaves (e.g. TERRA_CONTEXT_PARENT_DIR,
+  // TERRA_TELEMETRY_FILE) start with this prefix. the daemon can't change its own environment, so
+  // it only runs commands for clients whose variables match its own
+  public static final String ENV_VAR_PREFIX = "TERRA_";
+
+  // property names in the rendezvous file
+  private static final String PORT_PROPERTY = "port";
+  private static final String TOKEN_PROPERTY = "token";
+  private static final String PID_PROPERTY = "pid";
+  private static final String VERSION_PROPERTY = "version";
+
+  private DaemonProtocol() {}
+
+  /** Connection details for a running daemon, as written in the rendezvous file. */
+  public static class DaemonInfo {
+    public final int port;
+    public final String token;
+    public final long pid;
+    public final String version;
+
+    public DaemonInfo(int port, String token, long pid, String version) {
+      this.port = port;
+      this.token = token;
+      this.pid = pid;
+      this.version = version;
+    }
+  }
+
+  /**
+   * Get the rendezvous file for the daemon that serves the current context directory.
+   *
+   * @return absolute path to the rendezvous file, or empty if the context directory override points
+   *     to an invalid directory
+   */
+  public static Optional<Path> getDaemonFile() {
+    Path parentDir = Paths.get(System.getProperty("user.home"));
+    String overrideDirName = System.getenv(CONTEXT_DIR_OVERRIDE_NAME);
+    if (overrideDirName != null && !overrideDirName.isBlank()) {
+      parentDir = Paths.get(overrideDirName).toAbsolutePath();
+      if (!Files.isDirectory(parentDir)) {
+        return Optional.empty();
+      }
+    }
+    return Optional.of(parentDir.resolve(CONTEXT_DIRNAME).resolve(DAEMON_FILENAME));
+  }
+
+  /**
+   * Read the rendezvous file.
+   *
+   * @return connection details, or empty if there is no daemon running (or the file is unreadable)
+   */
+  public static Optional<DaemonInfo> readDaemonInfo() {
+    return getDaemonFile().flatMap(DaemonProtocol::readDaemonInfo);
+  }
+
+  /**
+   * Read the given rendezvous file.
+   *
+   * @param daemonFile path to the rendezvous file
+   * @return connection details, or empty if the file doesn't exist or is unreadable
+   */
+  public static Optional<DaemonInfo> readDaemonInfo(Path daemonFile) {
+    if (!Files.exists(daemonFile)) {
+      return Optional.empty();
+    }
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(daemonFile, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+      return Optional.of(
+          new DaemonInfo(
+              Integer.parseInt(properties.getProperty(PORT_PROPERTY)),
+              properties.getProperty(TOKEN_PROPERTY),
+              Long.parseLong(properties.getProperty(PID_PROPERTY)),
+              properties.getProperty(VERSION_PROPERTY)));
+    } catch (IOException | RuntimeException ex) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Write the rendezvous file, readable only by the current OS user. The file is written to a
+   * temporary file first and then moved into place, so a client never reads a partial file.
+   *
+   * @param daemonFile path to the rendezvous file
+   * @param daemonInfo connection details to write
+   */
+  public static void writeDaemonInfo(Path daemonFile, DaemonInfo daemonInfo) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty(PORT_PROPERTY, String.valueOf(daemonInfo.port));
+    properties.setProperty(TOKEN_PROPERTY, daemonInfo.token);
+    properties.setProperty(PID_PROPERTY, String.valueOf(daemonInfo.pid));
+    properties.setProperty(VERSION_PROPERTY, String.valueOf(daemonInfo.version));
+
+    Files.createDirectories(daemonFile.getParent());
+    Path tempFile =
+        Files.createTempFile(
+            daemonFile.getParent(),
+            DAEMON_FILENAME,
+            ".tmp",
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+      properties.store(writer, "Terra CLI daemon");
+    }
+    Files.move(
+        tempFile, daemonFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Get the environment variables of this process that start with {@link #ENV_VAR_PREFIX}.
+   *
+   * @return map of variable name to value, sorted by name
+   */
+  public static Map<String, String> getTerraEnvVars() {
+    Map<String, String> envVars = new TreeMap<>();
+    System.getenv().entrySet().stream()
+        .filter(envVar -> envVar.getKey().startsWith(ENV_VAR_PREFIX))
+        .forEach(envVar -> envVars.put(envVar.getKey(), envVar.getValue()));
+    return envVars;
+  }
+
+  /** Write a frame with a byte payload. Synchronizes on the stream, so frames don't interleave. */
+  public static void writeFrame(DataOutputStream out, byte type, byte[] buf, int off, int len)
+      throws IOException {
+    synchronized (out) {
+      out.writeByte(type);
+      out.writeInt(len);
+      out.write(buf, off, len);
+      out.flush();
+    }
+  }
+
+  /**
+   * Write a frame with an integer payload: the exit code for {@link #EXIT}, and zero for the other
+   * frame types that carry no data.
+   */
+  public static void writeFrame(DataOutputStream out, byte type, int value) throws IOException {
+    synchronized (out) {
+      out.writeByte(type);
+      out.writeInt(value);
+      out.flush();
+    }
+  }
+
+  /**
+   * Read the payload of a byte frame, after its type has been read.
+   *
+   * @return the payload bytes
+   */
+  public static byte[] readFramePayload(DataInputStream in) throws IOException {
+    int len = in.readInt();
+    byte[] buf = new byte[len];
+    in.readFully(buf);
+    return buf;
+  }
+
+  /**
+   * Output stream that sends everything written to it as frames of the given type. Each write is
+   * sent as it happens, so output shows up on the client's terminal without waiting for the command
+   * to finish.
+   */
+  public static class FrameOutputStream extends OutputStream {
+    private final DataOutputStream out;
+    private final byte type;
+
+    public FrameOutputStream(DataOutputStream out, byte type) {
+      this.out = out;
+      this.type = type;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) throws IOException {
+      if (len > 0) {
+        writeFrame(out, type, buf, off, len);
+      }
+    }
+  }
+}
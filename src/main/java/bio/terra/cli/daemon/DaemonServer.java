@@ -0,0 +1,358 @@
+package bio.terra.cli.daemon;
+
+import bio.terra.cli.command.Main;
+import bio.terra.cli.daemon.DaemonProtocol.DaemonInfo;
+import bio.terra.cli.daemon.DaemonProtocol.FrameOutputStream;
+import bio.terra.cli.exception.SystemException;
+import bio.terra.cli.utils.FileUtils;
+import bio.terra.cli.utils.UserIO;
+import bio.terra.cli.utils.Version;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long-lived local server that runs CLI commands on behalf of the {@link DaemonClient}, so that
+ * consecutive commands share one warm JVM: loaded classes, JIT-compiled code, open HTTP connections
+ * (see {@link bio.terra.cli.service.utils.SharedHttpClients}) and in-memory caches (e.g. pet SA
+ * access tokens).
+ *
+ * <p>Each command still re-reads the context file and credentials from disk, exactly as it would in
+ * a new process, so the daemon never serves stale state after a command run outside of it.
+ *
+ * <p>Relative file paths in a command (e.g. --from-file, --lifecycle) are resolved against the
+ * client's working directory, which the client sends with the command. The daemon only runs
+ * commands for clients whose TERRA_* environment variables match its own. Otherwise, the client
+ * runs the command itself.
+ *
+ * <p>The CLI keeps the current context and working directory in static state, so the daemon runs
+ * one command at a time. Other clients wait in the connection backlog until the current command
+ * finishes, so a slow command delays every other client.
+ */
+public class DaemonServer {
+  private static final Logger logger = LoggerFactory.getLogger(DaemonServer.class);
+
+  // stop the daemon if no command has run for this long, so it doesn't linger forever
+  private static final Duration IDLE_TIMEOUT = Duration.ofHours(3);
+
+  // maximum time for a client to send its request after connecting
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+
+  // number of clients that can wait for their turn while a command is running
+  private static final int CONNECTION_BACKLOG = 256;
+
+  // exit code to send if a command throws past the picocli exception handler. matches the exit code
+  // Main uses for unexpected exceptions
+  private static final int UNEXPECTED_EXIT_CODE = 3;
+
+  private static final int TOKEN_LENGTH_BYTES = 32;
+
+  // maximum time to wait for a new daemon process to start listening, or an old one to stop
+  private static final Duration START_STOP_TIMEOUT = Duration.ofSeconds(30);
+  private static final Duration START_POLL_INTERVAL = Duration.ofMillis(100);
+
+  private DaemonServer() {}
+
+  /**
+   * Entry point for the daemon process. This is started in the background by the `terra daemon
+   * start` command, and runs until it is idle for too long or is stopped.
+   */
+  public static void main(String... args) {
+    Path daemonFile =
+        DaemonProtocol.getDaemonFile()
+            .orElseThrow(() -> new SystemException("Invalid context directory for the daemon."));
+    byte[] tokenBytes = new byte[TOKEN_LENGTH_BYTES];
+    new SecureRandom().nextBytes(tokenBytes);
+    String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+
+    try (ServerSocket serverSocket =
+        new ServerSocket(0, CONNECTION_BACKLOG, InetAddress.getLoopbackAddress())) {
+      serverSocket.setSoTimeout((int) IDLE_TIMEOUT.toMillis());
+      DaemonProtocol.writeDaemonInfo(
+          daemonFile,
+          new DaemonInfo(
+              serverSocket.getLocalPort(),
+              token,
+              ProcessHandle.current().pid(),
+              Version.getVersion()));
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteDaemonFile(daemonFile)));
+      logger.info("Daemon listening on port {}", serverSocket.getLocalPort());
+
+      // handle one connection at a time: the next client isn't accepted until the current command
+      // finishes, because commands share the static context and the working directory
+      while (true) {
+        try (Socket socket = serverSocket.accept()) {
+          handleConnection(socket, token);
+        } catch (SocketTimeoutException stEx) {
+          logger.info("Daemon idle for {}, stopping.", IDLE_TIMEOUT);
+          break;
+        } catch (IOException ioEx) {
+          // a client went away part way through. keep serving the others
+          logger.warn("Error handling daemon connection.", ioEx);
+        }
+      }
+    } catch (IOException ioEx) {
+      throw new SystemException("Error starting the daemon.", ioEx);
+    }
+    System.exit(0);
+  }
+
+  /**
+   * Get the daemon that serves the current context directory, if it is running.
+   *
+   * @return connection details of the running daemon, or empty if there is none
+   */
+  public static Optional<DaemonInfo> getRunning() {
+    return DaemonProtocol.readDaemonInfo()
+        .filter(
+            daemonInfo ->
+                ProcessHandle.of(daemonInfo.pid).map(ProcessHandle::isAlive).orElse(false));
+  }
+
+  /**
+   * Start a daemon process in the background, using the same Java runtime, JVM options and
+   * classpath as this process, and wait until it is listening.
+   *
+   * @return connection details of the new daemon
+   * @throws SystemException if the process can't be started or doesn't start listening in time
+   */
+  public static DaemonInfo startInBackground() {
+    String javaCommand =
+        ProcessHandle.current()
+            .info()
+            .command()
+            .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    List<String> command = new ArrayList<>();
+    command.add(javaCommand);
+    command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(DaemonServer.class.getName());
+    logger.debug("Starting daemon: {}", command);
+
+    Process process;
+    try {
+      process =
+          new ProcessBuilder(command)
+              .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+              .redirectError(ProcessBuilder.Redirect.DISCARD)
+              .start();
+      // the daemon never reads its own stdin. commands read the client's stdin instead
+      process.getOutputStream().close();
+    } catch (IOException ioEx) {
+      throw new SystemException("Error starting the daemon process.", ioEx);
+    }
+
+    // wait for the new process to write the rendezvous file, which it does once it is listening
+    Instant deadline = Instant.now().plus(START_STOP_TIMEOUT);
+    while (Instant.now().isBefore(deadline) && process.isAlive()) {
+      Optional<DaemonInfo> daemonInfo =
+          DaemonProtocol.readDaemonInfo().filter(info -> info.pid == process.pid());
+      if (daemonInfo.isPresent()) {
+        return daemonInfo.get();
+      }
+      try {
+        Thread.sleep(START_POLL_INTERVAL.toMillis());
+      } catch (InterruptedException intEx) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    process.destroy();
+    throw new SystemException("The daemon process did not start. See the log file for details.");
+  }
+
+  /**
+   * Stop the running daemon, if there is one, and wait for it to exit.
+   *
+   * @return true if a daemon was running
+   */
+  public static boolean stopRunning() {
+    Optional<DaemonInfo> daemonInfo = getRunning();
+    Optional<Path> daemonFile = DaemonProtocol.getDaemonFile();
+    if (daemonInfo.isEmpty()) {
+      // clean up the rendezvous file if the daemon was killed without running its shutdown hook
+      try {
+        if (daemonFile.isPresent()) {
+          Files.deleteIfExists(daemonFile.get());
+        }
+      } catch (IOException ioEx) {
+        logger.warn("Error deleting stale daemon file.", ioEx);
+      }
+      return false;
+    }
+
+    ProcessHandle processHandle = ProcessHandle.of(daemonInfo.get().pid).orElseThrow();
+    processHandle.destroy();
+    try {
+      processHandle.onExit().get(START_STOP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException | TimeoutException ex) {
+      throw new SystemException("The daemon process did not stop.", ex);
+    } catch (InterruptedException intEx) {
+      Thread.currentThread().interrupt();
+      throw new SystemException("Interrupted while waiting for the daemon to stop.", intEx);
+    }
+    return true;
+  }
+
+  /**
+   * Read a request from a client, run the command and send back its output and exit code.
+   *
+   * @param socket connection to the client
+   * @param token secret token the client must send first
+   */
+  @VisibleForTesting
+  public static void handleConnection(Socket socket, String token) throws IOException {
+    socket.setSoTimeout((int) REQUEST_TIMEOUT.toMillis());
+    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+    String clientToken = in.readUTF();
+    if (!MessageDigest.isEqual(
+        clientToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+      logger.warn("Daemon connection with invalid token, closing it.");
+      return;
+    }
+    String clientVersion = in.readUTF();
+    if (!String.valueOf(Version.getVersion()).equals(clientVersion)) {
+      // e.g. the CLI was upgraded while the daemon was running. let the client run the command.
+      // check this before reading the rest of the request, whose format may differ by version
+      logger.info("Rejecting command from client version {}", clientVersion);
+      rejectCommand(socket, in, out);
+      return;
+    }
+    String[] args = new String[in.readInt()];
+    for (int ctr = 0; ctr < args.length; ctr++) {
+      args[ctr] = in.readUTF();
+    }
+    Path clientWorkingDir = Path.of(in.readUTF());
+    Map<String, String> clientEnvVars = new TreeMap<>();
+    int numEnvVars = in.readInt();
+    for (int ctr = 0; ctr < numEnvVars; ctr++) {
+      clientEnvVars.put(in.readUTF(), in.readUTF());
+    }
+    if (!DaemonProtocol.getTerraEnvVars().equals(clientEnvVars)) {
+      // e.g. the client sets TERRA_TELEMETRY_FILE. this process can't change its own environment,
+      // so let the client run the command
+      logger.info(
+          "Rejecting command from client with different {}* env vars",
+          DaemonProtocol.ENV_VAR_PREFIX);
+      rejectCommand(socket, in, out);
+      return;
+    }
+    socket.setSoTimeout(0);
+
+    // pipe the client's stdin frames into the command's input stream, on a separate thread so that
+    // the command can read it as it arrives (e.g. for a confirmation prompt)
+    PipedInputStream stdin = new PipedInputStream();
+    PipedOutputStream stdinWriter = new PipedOutputStream(stdin);
+    Thread stdinPump = new Thread(() -> pumpStdin(in, stdinWriter), "terra-daemon-stdin");
+    stdinPump.setDaemon(true);
+    stdinPump.start();
+
+    PrintStream stdout =
+        new PrintStream(
+            new FrameOutputStream(out, DaemonProtocol.STDOUT), true, StandardCharsets.UTF_8);
+    PrintStream stderr =
+        new PrintStream(
+            new FrameOutputStream(out, DaemonProtocol.STDERR), true, StandardCharsets.UTF_8);
+    UserIO.initialize(stdout, stderr, stdin);
+    FileUtils.setWorkingDirectory(clientWorkingDir);
+
+    int exitCode;
+    try {
+      exitCode = Main.runCommand(args);
+    } catch (RuntimeException | Error ex) {
+      logger.error("Unexpected error running command in the daemon.", ex);
+      exitCode = UNEXPECTED_EXIT_CODE;
+    }
+    stdout.flush();
+    stderr.flush();
+    DaemonProtocol.writeFrame(out, DaemonProtocol.EXIT, exitCode);
+
+    // unblock the stdin thread if it's waiting for the command to read more input
+    stdin.close();
+  }
+
+  /**
+   * Tell the client to run the command itself. Then read and discard the rest of the request (e.g.
+   * stdin frames) until the client closes the connection. Closing the connection with unread data
+   * makes the client see a connection reset, which it can't tell apart from the daemon dying part
+   * way through a command.
+   */
+  private static void rejectCommand(Socket socket, DataInputStream in, DataOutputStream out)
+      throws IOException {
+    DaemonProtocol.writeFrame(out, DaemonProtocol.REJECTED, 0);
+    socket.shutdownOutput();
+    try {
+      in.transferTo(OutputStream.nullOutputStream());
+    } catch (SocketTimeoutException stEx) {
+      logger.debug("Daemon client did not close the connection after the command was rejected.");
+    }
+  }
+
+  /** Copy stdin frames from the client into the pipe, until the client sends EOF or goes away. */
+  private static void pumpStdin(DataInputStream in, PipedOutputStream stdinWriter) {
+    try (stdinWriter) {
+      while (true) {
+        byte type = in.readByte();
+        if (type == DaemonProtocol.STDIN) {
+          stdinWriter.write(DaemonProtocol.readFramePayload(in));
+          stdinWriter.flush();
+        } else {
+          // STDIN_EOF
+          in.readInt();
+          return;
+        }
+      }
+    } catch (IOException ioEx) {
+      // the command finished and the client closed the connection, or the pipe's reader is gone
+      logger.debug("Stopped reading stdin from the daemon client.", ioEx);
+    }
+  }
+
+  /** Delete the rendezvous file, if it still points to this process. */
+  private static void deleteDaemonFile(Path daemonFile) {
+    DaemonProtocol.readDaemonInfo()
+        .filter(daemonInfo -> daemonInfo.pid == ProcessHandle.current().pid())
+        .ifPresent(
+            daemonInfo -> {
+              try {
+                Files.deleteIfExists(daemonFile);
+              } catch (IOException ioEx) {
+                logger.warn("Error deleting daemon file.", ioEx);
+              }
+            });
+  }
+}
@@ -21,7 +21,12 @@ public class PDConfig {
   public final BrowserLaunchOption browserLaunchOption;
   public final CommandRunnerOption commandRunnerOption;
   public final String dockerImageId;
+  public final Integer appContainerIdleTimeoutSeconds;
   public final int resourcesCacheSize;
+  public final int resourcesPageSize;
+  public final Integer resourcesCacheTtlSeconds;
+  public final int resourceLookupThreads;
+  public final int resourceLookupTimeoutSeconds;
   public final Logger.LogLevel fileLoggingLevel;
   public final Logger.LogLevel consoleLoggingLevel;
   public final Format.FormatOptions format;
@@ -31,7 +36,12 @@ public class PDConfig {
     this.browserLaunchOption = internalObj.getBrowserLaunchOption();
     this.commandRunnerOption = internalObj.getCommandRunnerOption();
     this.dockerImageId = internalObj.getDockerImageId();
+    this.appContainerIdleTimeoutSeconds = internalObj.getAppContainerIdleTimeoutSeconds();
     this.resourcesCacheSize = internalObj.getResourcesCacheSize();
+    this.resourcesPageSize = internalObj.getResourcesPageSize();
+    this.resourcesCacheTtlSeconds = internalObj.getResourcesCacheTtlSeconds();
+    this.resourceLookupThreads = internalObj.getResourceLookupThreads();
+    this.resourceLookupTimeoutSeconds = internalObj.getResourceLookupTimeoutSeconds();
     this.fileLoggingLevel = internalObj.getFileLoggingLevel();
     this.consoleLoggingLevel = internalObj.getConsoleLoggingLevel();
     this.format = internalObj.getFormat();
@@ -41,7 +51,12 @@ public class PDConfig {
     this.browserLaunchOption = builder.browserLaunchOption;
     this.commandRunnerOption = builder.commandRunnerOption;
     this.dockerImageId = builder.dockerImageId;
+    this.appContainerIdleTimeoutSeconds = builder.appContainerIdleTimeoutSeconds;
     this.resourcesCacheSize = builder.resourcesCacheSize;
+    this.resourcesPageSize = builder.resourcesPageSize;
+    this.resourcesCacheTtlSeconds = builder.resourcesCacheTtlSeconds;
+    this.resourceLookupThreads = builder.resourceLookupThreads;
+    this.resourceLookupTimeoutSeconds = builder.resourceLookupTimeoutSeconds;
     this.fileLoggingLevel = builder.fileLoggingLevel;
     this.consoleLoggingLevel = builder.consoleLoggingLevel;
     this.format = builder.format;
@@ -52,7 +67,12 @@ public class PDConfig {
     private BrowserLaunchOption browserLaunchOption;
     private CommandRunnerOption commandRunnerOption;
     private String dockerImageId;
+    private Integer appContainerIdleTimeoutSeconds;
     private int resourcesCacheSize;
+    private int resourcesPageSize;
+    private Integer resourcesCacheTtlSeconds;
+    private int resourceLookupThreads;
+    private int resourceLookupTimeoutSeconds;
     private Logger.LogLevel fileLoggingLevel;
     private Logger.LogLevel consoleLoggingLevel;
     private Format.FormatOptions format;
@@ -72,11 +92,36 @@ public class PDConfig {
       return this;
     }
 
+    public Builder appContainerIdleTimeoutSeconds(Integer appContainerIdleTimeoutSeconds) {
+      this.appContainerIdleTimeoutSeconds = appContainerIdleTimeoutSeconds;
+      return this;
+    }
+
     public Builder resourcesCacheSize(int resourcesCacheSize) {
       this.resourcesCacheSize = resourcesCacheSize;
       return this;
     }
 
+    public Builder resourcesPageSize(int resourcesPageSize) {
+      this.resourcesPageSize = resourcesPageSize;
+      return this;
+    }
+
+    public Builder resourcesCacheTtlSeconds(Integer resourcesCacheTtlSeconds) {
+      this.resourcesCacheTtlSeconds = resourcesCacheTtlSeconds;
+      return this;
+    }
+
+    public Builder resourceLookupThreads(int resourceLookupThreads) {
+      this.resourceLookupThreads = resourceLookupThreads;
+      return this;
+    }
+
+    public Builder resourceLookupTimeoutSeconds(int resourceLookupTimeoutSeconds) {
+      this.resourceLookupTimeoutSeconds = resourceLookupTimeoutSeconds;
+      return this;
+    }
+
     public Builder fileLoggingLevel(Logger.LogLevel fileLoggingLevel) {
       this.fileLoggingLevel = fileLoggingLevel;
       return this;
@@ -1,12 +1,13 @@
 package bio.terra.cli.serialization.persisted;
 
-import bio.terra.cli.businessobject.Resource;
 import bio.terra.cli.businessobject.Workspace;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * External representation of a workspace for writing to disk.
@@ -17,31 +18,44 @@ import java.util.stream.Collectors;
  */
 @JsonDeserialize(builder = PDWorkspace.Builder.class)
 public class PDWorkspace {
+  // version of this format that this version of the CLI writes. increment it whenever the
+  // resources are moved or written differently, so that older and newer versions of the CLI can
+  // tell which format a context file was written in.
+  //   0 (missing): resources are held inline in the resources field
+  //   2: resources are held in a separate file per workspace, see ResourceStore
+  public static final int CURRENT_FORMAT_VERSION = 2;
+
+  public final int formatVersion;
   public final UUID id;
   public final String name;
   public final String description;
   public final String googleProjectId;
   public final String serverName;
   public final String userEmail;
-  public final List<PDResource> resources;
+  // only set when reading a context file written by an older version of the CLI. the resources are
+  // now written to a separate file per workspace, see ResourceStore
+  @Nullable public final List<PDResource> resources;
+  public final OffsetDateTime resourcesSyncTime;
+  @Nullable public final Integer resourcesCount;
   public final boolean isLoaded;
 
   /** Serialize an instance of the internal class to the disk format. */
   public PDWorkspace(Workspace internalObj) {
+    this.formatVersion = CURRENT_FORMAT_VERSION;
     this.id = internalObj.getId();
     this.name = internalObj.getName();
     this.description = internalObj.getDescription();
     this.googleProjectId = internalObj.getGoogleProjectId();
     this.serverName = internalObj.getServerName();
     this.userEmail = internalObj.getUserEmail();
-    this.resources =
-        internalObj.getResources().stream()
-            .map(Resource::serializeToDisk)
-            .collect(Collectors.toList());
+    this.resources = null;
+    this.resourcesSyncTime = internalObj.getResourcesSyncTime();
+    this.resourcesCount = internalObj.getResourcesCount();
     this.isLoaded = internalObj.getIsLoaded();
   }
 
   private PDWorkspace(PDWorkspace.Builder builder) {
+    this.formatVersion = builder.formatVersion;
     this.id = builder.id;
     this.name = builder.name;
     this.description = builder.description;
@@ -49,11 +63,16 @@ public class PDWorkspace {
     this.serverName = builder.serverName;
     this.userEmail = builder.userEmail;
     this.resources = builder.resources;
+    this.resourcesSyncTime = builder.resourcesSyncTime;
+    this.resourcesCount = builder.resourcesCount;
     this.isLoaded = builder.isLoaded;
   }
 
+  // ignore fields added by newer versions of the CLI, so that they don't break reading the context
+  @JsonIgnoreProperties(ignoreUnknown = true)
   @JsonPOJOBuilder(buildMethodName = "build", withPrefix = "")
   public static class Builder {
+    private int formatVersion;
     private UUID id;
     private String name;
     private String description;
@@ -61,8 +80,15 @@ public class PDWorkspace {
     private String serverName;
     private String userEmail;
     private List<PDResource> resources;
+    private OffsetDateTime resourcesSyncTime;
+    private Integer resourcesCount;
     private boolean isLoaded;
 
+    public Builder formatVersion(int formatVersion) {
+      this.formatVersion = formatVersion;
+      return this;
+    }
+
     public Builder id(UUID id) {
       this.id = id;
       return this;
@@ -98,6 +124,16 @@ public class PDWorkspace {
       return this;
     }
 
+    public Builder resourcesSyncTime(OffsetDateTime resourcesSyncTime) {
+      this.resourcesSyncTime = resourcesSyncTime;
+      return this;
+    }
+
+    public Builder resourcesCount(Integer resourcesCount) {
+      this.resourcesCount = resourcesCount;
+      return this;
+    }
+
     public Builder isLoaded(boolean isLoaded) {
       this.isLoaded = isLoaded;
       return this;
@@ -0,0 +1,78 @@
+package bio.terra.cli.serialization.userfacing;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+
+/**
+ * External representation of one command run by `terra batch`, with its exit code and output, for
+ * command input/output.
+ *
+ * <p>This is a POJO class intended for serialization. This JSON format is user-facing.
+ */
+@JsonDeserialize(builder = UFBatchCommand.Builder.class)
+public class UFBatchCommand {
+  public final int line;
+  public final String command;
+  public final int exitCode;
+  public final String stdout;
+  public final String stderr;
+
+  public UFBatchCommand(int line, String command, int exitCode, String stdout, String stderr) {
+    this.line = line;
+    this.command = command;
+    this.exitCode = exitCode;
+    this.stdout = stdout;
+    this.stderr = stderr;
+  }
+
+  /** Constructor for Jackson deserialization during testing. */
+  private UFBatchCommand(Builder builder) {
+    this.line = builder.line;
+    this.command = builder.command;
+    this.exitCode = builder.exitCode;
+    this.stdout = builder.stdout;
+    this.stderr = builder.stderr;
+  }
+
+  @JsonPOJOBuilder(buildMethodName = "build", withPrefix = "")
+  public static class Builder {
+    private int line;
+    private String command;
+    private int exitCode;
+    private String stdout;
+    private String stderr;
+
+    public Builder line(int line) {
+      this.line = line;
+      return this;
+    }
+
+    public Builder command(String command) {
+      this.command = command;
+      return this;
+    }
+
+    public Builder exitCode(int exitCode) {
+      this.exitCode = exitCode;
+      return this;
+    }
+
+    public Builder stdout(String stdout) {
+      this.stdout = stdout;
+      return this;
+    }
+
+    public Builder stderr(String stderr) {
+      this.stderr = stderr;
+      return this;
+    }
+
+    /** Call the private constructor. */
+    public UFBatchCommand build() {
+      return new UFBatchCommand(this);
+    }
+
+    /** Default constructor for Jackson. */
+    public Builder() {}
+  }
+}
@@ -25,7 +25,12 @@ public class UFConfig {
   public final Config.BrowserLaunchOption browserLaunchOption;
   public final Config.CommandRunnerOption commandRunnerOption;
   public final String dockerImageId;
+  public final int appContainerIdleTimeoutSeconds;
   public final int resourcesCacheSize;
+  public final int resourcesPageSize;
+  public final int resourcesCacheTtlSeconds;
+  public final int resourceLookupThreads;
+  public final int resourceLookupTimeoutSeconds;
   public final Logger.LogLevel fileLoggingLevel;
   public final Logger.LogLevel consoleLoggingLevel;
   public final String serverName;
@@ -38,7 +43,12 @@ public class UFConfig {
     this.browserLaunchOption = internalConfig.getBrowserLaunchOption();
     this.commandRunnerOption = internalConfig.getCommandRunnerOption();
     this.dockerImageId = internalConfig.getDockerImageId();
+    this.appContainerIdleTimeoutSeconds = internalConfig.getAppContainerIdleTimeoutSeconds();
     this.resourcesCacheSize = internalConfig.getResourcesCacheSize();
+    this.resourcesPageSize = internalConfig.getResourcesPageSize();
+    this.resourcesCacheTtlSeconds = internalConfig.getResourcesCacheTtlSeconds();
+    this.resourceLookupThreads = internalConfig.getResourceLookupThreads();
+    this.resourceLookupTimeoutSeconds = internalConfig.getResourceLookupTimeoutSeconds();
     this.fileLoggingLevel = internalConfig.getFileLoggingLevel();
     this.consoleLoggingLevel = internalConfig.getConsoleLoggingLevel();
     this.serverName = internalServer.getName();
@@ -51,7 +61,12 @@ public class UFConfig {
     this.browserLaunchOption = builder.browserLaunchOption;
     this.commandRunnerOption = builder.commandRunnerOption;
     this.dockerImageId = builder.dockerImageId;
+    this.appContainerIdleTimeoutSeconds = builder.appContainerIdleTimeoutSeconds;
     this.resourcesCacheSize = builder.resourcesCacheSize;
+    this.resourcesPageSize = builder.resourcesPageSize;
+    this.resourcesCacheTtlSeconds = builder.resourcesCacheTtlSeconds;
+    this.resourceLookupThreads = builder.resourceLookupThreads;
+    this.resourceLookupTimeoutSeconds = builder.resourceLookupTimeoutSeconds;
     this.fileLoggingLevel = builder.fileLoggingLevel;
     this.consoleLoggingLevel = builder.consoleLoggingLevel;
     this.serverName = builder.serverName;
@@ -65,8 +80,23 @@ public class UFConfig {
     OUT.println("[app-launch] app launch mode = " + commandRunnerOption);
     OUT.println("[browser] browser launch for login = " + browserLaunchOption);
     OUT.println("[image] docker image id = " + dockerImageId);
+    OUT.println(
+        "[app-container-idle-timeout] seconds to keep a tool container running for reuse = "
+            + appContainerIdleTimeoutSeconds);
     OUT.println(
         "[resource-limit] max number of resources to allow per workspace = " + resourcesCacheSize);
+    OUT.println(
+        "[resource-page-size] number of resources to fetch per request to the server = "
+            + resourcesPageSize);
+    OUT.println(
+        "[resource-cache-ttl] seconds before re-fetching the cached list of resources = "
+            + resourcesCacheTtlSeconds);
+    OUT.println(
+        "[resource-lookup] threads for resource cloud lookups = "
+            + resourceLookupThreads
+            + ", timeout per resource = "
+            + resourceLookupTimeoutSeconds
+            + "s");
     OUT.println();
     OUT.println(
         "[logging, console] logging level for printing directly to the terminal = "
@@ -87,7 +117,12 @@ public class UFConfig {
     private Config.BrowserLaunchOption browserLaunchOption;
     private Config.CommandRunnerOption commandRunnerOption;
     private String dockerImageId;
+    private int appContainerIdleTimeoutSeconds;
     private int resourcesCacheSize;
+    private int resourcesPageSize;
+    private int resourcesCacheTtlSeconds;
+    private int resourceLookupThreads;
+    private int resourceLookupTimeoutSeconds;
     private Logger.LogLevel fileLoggingLevel;
     private Logger.LogLevel consoleLoggingLevel;
     private String serverName;
@@ -109,11 +144,36 @@ public class UFConfig {
       return this;
     }
 
+    public Builder appContainerIdleTimeoutSeconds(int appContainerIdleTimeoutSeconds) {
+      this.appContainerIdleTimeoutSeconds = appContainerIdleTimeoutSeconds;
+      return this;
+    }
+
     public Builder resourcesCacheSize(int resourcesCacheSize) {
       this.resourcesCacheSize = resourcesCacheSize;
       return this;
     }
 
+    public Builder resourcesPageSize(int resourcesPageSize) {
+      this.resourcesPageSize = resourcesPageSize;
+      return this;
+    }
+
+    public Builder resourcesCacheTtlSeconds(int resourcesCacheTtlSeconds) {
+      this.resourcesCacheTtlSeconds = resourcesCacheTtlSeconds;
+      return this;
+    }
+
+    public Builder resourceLookupThreads(int resourceLookupThreads) {
+      this.resourceLookupThreads = resourceLookupThreads;
+      return this;
+    }
+
+    public Builder resourceLookupTimeoutSeconds(int resourceLookupTimeoutSeconds) {
+      this.resourceLookupTimeoutSeconds = resourceLookupTimeoutSeconds;
+      return this;
+    }
+
     public Builder fileLoggingLevel(Logger.LogLevel fileLoggingLevel) {
       this.fileLoggingLevel = fileLoggingLevel;
       return this;
@@ -0,0 +1,95 @@
+package bio.terra.cli.serialization.userfacing;
+
+import bio.terra.cli.businessobject.MembershipChange;
+import bio.terra.cli.utils.UserIO;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * External representation of one change in a bulk membership update (e.g. `terra workspace
+ * add-users`) for command input/output.
+ *
+ * <p>This is a POJO class intended for serialization. This JSON format is user-facing.
+ *
+ * <p>See the {@link MembershipChange} class for a membership change's internal representation.
+ */
+@JsonDeserialize(builder = UFMembershipChange.Builder.class)
+public class UFMembershipChange {
+  public final String email;
+  public final String role;
+  public final MembershipChange.Status status;
+  public final String errorMessage;
+  public final List<String> roles;
+
+  public UFMembershipChange(MembershipChange<?> internalObj) {
+    this.email = internalObj.getEmail();
+    this.role = internalObj.getRole().name();
+    this.status = internalObj.getStatus();
+    this.errorMessage = internalObj.getErrorMessage();
+    this.roles =
+        internalObj.getRolesAfter().stream().map(Enum::name).sorted().collect(Collectors.toList());
+  }
+
+  /** Constructor for Jackson deserialization during testing. */
+  private UFMembershipChange(Builder builder) {
+    this.email = builder.email;
+    this.role = builder.role;
+    this.status = builder.status;
+    this.errorMessage = builder.errorMessage;
+    this.roles = builder.roles;
+  }
+
+  /** Print out this object in text format. */
+  public void print() {
+    PrintStream OUT = UserIO.getOut();
+    OUT.println(email + " " + role + ": " + status + " (roles: " + String.join(", ", roles) + ")");
+    if (errorMessage != null) {
+      OUT.println("  " + errorMessage);
+    }
+  }
+
+  @JsonPOJOBuilder(buildMethodName = "build", withPrefix = "")
+  public static class Builder {
+    private String email;
+    private String role;
+    private MembershipChange.Status status;
+    private String errorMessage;
+    private List<String> roles;
+
+    public Builder email(String email) {
+      this.email = email;
+      return this;
+    }
+
+    public Builder role(String role) {
+      this.role = role;
+      return this;
+    }
+
+    public Builder status(MembershipChange.Status status) {
+      this.status = status;
+      return this;
+    }
+
+    public Builder errorMessage(String errorMessage) {
+      this.errorMessage = errorMessage;
+      return this;
+    }
+
+    public Builder roles(List<String> roles) {
+      this.roles = roles;
+      return this;
+    }
+
+    /** Call the private constructor. */
+    public UFMembershipChange build() {
+      return new UFMembershipChange(this);
+    }
+
+    /** Default constructor for Jackson. */
+    public Builder() {}
+  }
+}
@@ -0,0 +1,45 @@
+package bio.terra.cli.serialization.userfacing;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+
+/**
+ * External representation of the resource lookup config for command input/output.
+ *
+ * <p>This is a POJO class intended for serialization. This JSON format is user-facing.
+ */
+@JsonDeserialize(builder = UFResourceLookupConfig.Builder.class)
+public class UFResourceLookupConfig {
+  // number of threads and per-resource timeout for the cloud lookups done when describing resources
+  public final int threads;
+  public final int timeoutSeconds;
+
+  private UFResourceLookupConfig(Builder builder) {
+    this.threads = builder.threads;
+    this.timeoutSeconds = builder.timeoutSeconds;
+  }
+
+  @JsonPOJOBuilder(buildMethodName = "build", withPrefix = "")
+  public static class Builder {
+    private int threads;
+    private int timeoutSeconds;
+
+    public Builder threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    public Builder timeoutSeconds(int timeoutSeconds) {
+      this.timeoutSeconds = timeoutSeconds;
+      return this;
+    }
+
+    /** Call the private constructor. */
+    public UFResourceLookupConfig build() {
+      return new UFResourceLookupConfig(this);
+    }
+
+    /** Default constructor for Jackson. */
+    public Builder() {}
+  }
+}
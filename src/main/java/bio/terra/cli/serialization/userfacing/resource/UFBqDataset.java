@@ -26,10 +26,23 @@ public class UFBqDataset extends UFResource {
 
   /** Serialize an instance of the internal class to the command format. */
   public UFBqDataset(BqDataset internalObj) {
+    this(internalObj, true);
+  }
+
+  /**
+   * Serialize an instance of the internal class to the command format. Only query the cloud for
+   * the dataset location and number of tables if fetchCloudMetadata is true.
+   */
+  public UFBqDataset(BqDataset internalObj, boolean fetchCloudMetadata) {
     super(internalObj);
     this.projectId = internalObj.getProjectId();
     this.datasetId = internalObj.getDatasetId();
 
+    if (!fetchCloudMetadata) {
+      this.location = null;
+      this.numTables = null;
+      return;
+    }
     GoogleBigQuery bigQuery = GoogleBigQuery.fromContextForPetSa();
     Optional<Dataset> dataset = bigQuery.getDataset(projectId, datasetId);
     this.location = dataset.map(Dataset::getLocation).orElse(null);
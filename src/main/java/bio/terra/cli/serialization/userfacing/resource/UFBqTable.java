@@ -29,11 +29,24 @@ public class UFBqTable extends UFResource {
 
   /** Serialize an instance of the internal class to the command format. */
   public UFBqTable(BqTable internalObj) {
+    this(internalObj, true);
+  }
+
+  /**
+   * Serialize an instance of the internal class to the command format. Only query the cloud for
+   * the table description and number of rows if fetchCloudMetadata is true.
+   */
+  public UFBqTable(BqTable internalObj, boolean fetchCloudMetadata) {
     super(internalObj);
     this.projectId = internalObj.getProjectId();
     this.datasetId = internalObj.getDatasetId();
     this.dataTableId = internalObj.getDataTableId();
 
+    if (!fetchCloudMetadata) {
+      this.tableDescription = null;
+      this.numRows = null;
+      return;
+    }
     GoogleBigQuery bigQuery = GoogleBigQuery.fromContextForPetSa();
     Optional<Table> dataTableOptional = bigQuery.getDataTable(projectId, datasetId, dataTableId);
     tableDescription = dataTableOptional.map(Table::getDescription).orElse(null);
@@ -28,12 +28,21 @@ public class UFGcpNotebook extends UFResource {
 
   /** Serialize an instance of the internal class to the command format. */
   public UFGcpNotebook(GcpNotebook internalObj) {
+    this(internalObj, true);
+  }
+
+  /**
+   * Serialize an instance of the internal class to the command format. Only query the cloud for
+   * the notebook instance properties (e.g. state, proxy URL) if fetchCloudMetadata is true.
+   */
+  public UFGcpNotebook(GcpNotebook internalObj, boolean fetchCloudMetadata) {
     super(internalObj);
     this.projectId = internalObj.getProjectId();
     this.instanceId = internalObj.getInstanceId();
     this.location = internalObj.getLocation();
 
-    Optional<Instance> instance = internalObj.getInstance();
+    Optional<Instance> instance =
+        fetchCloudMetadata ? internalObj.getInstance() : Optional.empty();
     this.instanceName = instance.map(Instance::getName).orElse(null);
     this.state = instance.map(Instance::getState).orElse(null);
     this.proxyUri = instance.map(Instance::getProxyUri).orElse(null);
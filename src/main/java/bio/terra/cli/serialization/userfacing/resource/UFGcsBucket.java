@@ -29,9 +29,22 @@ public class UFGcsBucket extends UFResource {
 
   /** Serialize an instance of the internal class to the command format. */
   public UFGcsBucket(GcsBucket internalObj) {
+    this(internalObj, true);
+  }
+
+  /**
+   * Serialize an instance of the internal class to the command format. Only query the cloud for
+   * the bucket location and number of objects if fetchCloudMetadata is true.
+   */
+  public UFGcsBucket(GcsBucket internalObj, boolean fetchCloudMetadata) {
     super(internalObj);
     this.bucketName = internalObj.getBucketName();
 
+    if (!fetchCloudMetadata) {
+      this.location = null;
+      this.numObjects = null;
+      return;
+    }
     GoogleCloudStorage storage = GoogleCloudStorage.fromContextForPetSa();
     Optional<BucketCow> bucket = storage.getBucket(bucketName);
     this.location = bucket.map((bucketCow) -> bucketCow.getBucketInfo().getLocation()).orElse(null);
@@ -33,10 +33,25 @@ public class UFGcsObject extends UFResource {
 
   /** Serialize an instance of the internal class to the command format. */
   public UFGcsObject(GcsObject internalObj) {
+    this(internalObj, true);
+  }
+
+  /**
+   * Serialize an instance of the internal class to the command format. Only query the cloud for
+   * the object properties (e.g. size, content type) if fetchCloudMetadata is true.
+   */
+  public UFGcsObject(GcsObject internalObj, boolean fetchCloudMetadata) {
     super(internalObj);
     this.bucketName = internalObj.getBucketName();
     this.objectName = internalObj.getObjectName();
 
+    if (!fetchCloudMetadata) {
+      this.isDirectory = null;
+      this.size = null;
+      this.contentType = null;
+      this.timeStorageClassUpdated = null;
+      return;
+    }
     GoogleCloudStorage storage = GoogleCloudStorage.fromContextForPetSa();
     Optional<BlobCow> blob = storage.getBlob(bucketName, objectName);
     isDirectory = blob.map(blobCow -> blobCow.getBlobInfo().isDirectory()).orElse(null);
@@ -64,7 +79,7 @@ public class UFGcsObject extends UFResource {
     PrintStream OUT = UserIO.getOut();
     OUT.println(prefix + "GCS bucket name: " + bucketName);
     OUT.println(prefix + "Full path to the object: " + objectName);
-    OUT.println(prefix + "Content type: " + contentType == null ? "(unknown)" : contentType);
+    OUT.println(prefix + "Content type: " + (contentType == null ? "(unknown)" : contentType));
     OUT.println(prefix + "Is directory: " + (isDirectory == null ? "(unknown)" : isDirectory));
     OUT.println(prefix + "Size: " + (size == null ? "(unknown)" : size + " bytes"));
 
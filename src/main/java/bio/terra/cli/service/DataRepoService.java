@@ -3,6 +3,7 @@ package bio.terra.cli.service;
 import bio.terra.cli.businessobject.Server;
 import bio.terra.cli.businessobject.User;
 import bio.terra.cli.exception.SystemException;
+import bio.terra.cli.service.utils.SharedHttpClients;
 import bio.terra.datarepo.api.UnauthenticatedApi;
 import bio.terra.datarepo.client.ApiClient;
 import bio.terra.datarepo.client.ApiException;
@@ -32,14 +33,25 @@ public class DataRepoService {
    * can be called.
    */
   private DataRepoService(@Nullable User user, Server server) {
-    this.apiClient = new ApiClient();
+    // fetch the user access token
+    // this method call will attempt to refresh the token if it's already expired
+    String accessTokenValue = user == null ? null : user.getUserAccessToken().getTokenValue();
 
-    this.apiClient.setBasePath(server.getDataRepoUri());
-    if (user != null) {
-      // fetch the user access token
-      // this method call will attempt to refresh the token if it's already expired
-      this.apiClient.setAccessToken(user.getUserAccessToken().getTokenValue());
-    }
+    // re-use the API client, and its open connections, across instances of this class
+    this.apiClient =
+        SharedHttpClients.getApiClient(
+            ApiClient.class,
+            server.getDataRepoUri(),
+            accessTokenValue,
+            () -> {
+              ApiClient newApiClient = new ApiClient();
+              newApiClient.setBasePath(server.getDataRepoUri());
+              if (accessTokenValue != null) {
+                newApiClient.setAccessToken(accessTokenValue);
+              }
+              return newApiClient;
+            },
+            existingApiClient -> existingApiClient.getHttpClient().close());
   }
 
   /**
@@ -4,6 +4,8 @@ import bio.terra.cli.businessobject.Context;
 import bio.terra.cli.exception.SystemException;
 import bio.terra.cli.service.utils.CrlUtils;
 import bio.terra.cli.service.utils.HttpUtils;
+import bio.terra.cli.service.utils.RetryPolicy;
+import bio.terra.cli.service.utils.Telemetry;
 import bio.terra.cloudres.google.bigquery.BigQueryCow;
 import com.google.api.client.googleapis.json.GoogleJsonResponseException;
 import com.google.api.services.bigquery.model.Dataset;
@@ -12,7 +14,9 @@ import com.google.api.services.bigquery.model.TableList;
 import com.google.auth.oauth2.GoogleCredentials;
 import java.io.IOException;
 import java.net.SocketTimeoutException;
+import java.time.Duration;
 import java.util.Optional;
+import javax.annotation.Nullable;
 import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +30,15 @@ public class GoogleBigQuery {
   // default value for the maximum number of times to retry HTTP requests to BQ
   public static final int BQ_MAXIMUM_RETRIES = 5;
 
+  // policy for retrying BQ calls. back off exponentially, because newly granted access to a
+  // dataset can take several seconds to propagate
+  private static final RetryPolicy BQ_RETRY_POLICY =
+      new RetryPolicy.Builder()
+          .maxRetries(BQ_MAXIMUM_RETRIES)
+          .initialDelay(HttpUtils.DEFAULT_DURATION_SLEEP_FOR_RETRY)
+          .exponentialBackoff(Duration.ofSeconds(10))
+          .build();
+
   /**
    * Factory method for class that talks to BQ. Pulls the current user from the context. Uses the
    * pet SA credentials instead of the end user credentials because we need the cloud-platform scope
@@ -97,8 +110,7 @@ public class GoogleBigQuery {
             HttpUtils.callWithRetries(
                 makeRequest,
                 GoogleBigQuery::isRetryable,
-                BQ_MAXIMUM_RETRIES,
-                HttpUtils.DEFAULT_DURATION_SLEEP_FOR_RETRY),
+                BQ_RETRY_POLICY),
         errorMsg);
   }
 
@@ -113,13 +125,26 @@ public class GoogleBigQuery {
   private <T> T handleClientExceptions(
       HttpUtils.SupplierWithCheckedException<T, IOException> makeRequest, String errorMsg) {
     try {
-      return makeRequest.makeRequest();
+      return Telemetry.recordOperation("bq", GoogleBigQuery::getStatusCode, makeRequest);
     } catch (IOException | InterruptedException ex) {
       // wrap the BQ exception and re-throw it
       throw new SystemException(errorMsg, ex);
     }
   }
 
+  /**
+   * Utility method that gets the HTTP status code from an exception thrown by the BQ client.
+   *
+   * @param ex exception to check
+   * @return the status code, or null if the exception is not from the BQ client
+   */
+  @Nullable
+  private static Integer getStatusCode(Exception ex) {
+    return ex instanceof GoogleJsonResponseException
+        ? ((GoogleJsonResponseException) ex).getStatusCode()
+        : null;
+  }
+
   /**
    * Utility method that checks if an exception thrown by the BQ client is retryable.
    *
@@ -4,6 +4,8 @@ import bio.terra.cli.businessobject.Context;
 import bio.terra.cli.exception.SystemException;
 import bio.terra.cli.service.utils.CrlUtils;
 import bio.terra.cli.service.utils.HttpUtils;
+import bio.terra.cli.service.utils.RetryPolicy;
+import bio.terra.cli.service.utils.Telemetry;
 import bio.terra.cloudres.google.storage.BlobCow;
 import bio.terra.cloudres.google.storage.BucketCow;
 import bio.terra.cloudres.google.storage.StorageCow;
@@ -13,8 +15,10 @@ import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageException;
 import java.net.SocketTimeoutException;
+import java.time.Duration;
 import java.util.Iterator;
 import java.util.Optional;
+import javax.annotation.Nullable;
 import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,6 +32,15 @@ public class GoogleCloudStorage {
   // default value for the maximum number of times to retry HTTP requests to GCS
   public static final int GCS_MAXIMUM_RETRIES = 5;
 
+  // policy for retrying GCS calls. start at the default sleep and back off exponentially, since
+  // some retryable errors (e.g. permission propagation delays) can take several seconds to clear
+  private static final RetryPolicy GCS_RETRY_POLICY =
+      new RetryPolicy.Builder()
+          .maxRetries(GCS_MAXIMUM_RETRIES)
+          .initialDelay(HttpUtils.DEFAULT_DURATION_SLEEP_FOR_RETRY)
+          .exponentialBackoff(Duration.ofSeconds(10))
+          .build();
+
   /**
    * Factory method for class that talks to GCS. Pulls the current user from the context. Uses the
    * pet SA credentials instead of the end user credentials because we need the cloud-platform scope
@@ -101,8 +114,7 @@ public class GoogleCloudStorage {
             HttpUtils.callWithRetries(
                 makeRequest,
                 GoogleCloudStorage::isRetryable,
-                GCS_MAXIMUM_RETRIES,
-                HttpUtils.DEFAULT_DURATION_SLEEP_FOR_RETRY),
+                GCS_RETRY_POLICY),
         errorMsg);
   }
 
@@ -117,13 +129,24 @@ public class GoogleCloudStorage {
   private <T> T handleClientExceptions(
       HttpUtils.SupplierWithCheckedException<T, StorageException> makeRequest, String errorMsg) {
     try {
-      return makeRequest.makeRequest();
+      return Telemetry.recordOperation("gcs", GoogleCloudStorage::getStatusCode, makeRequest);
     } catch (StorageException | InterruptedException ex) {
       // wrap the GCS exception and re-throw it
       throw new SystemException(errorMsg, ex);
     }
   }
 
+  /**
+   * Utility method that gets the HTTP status code from an exception thrown by the GCS client.
+   *
+   * @param ex exception to check
+   * @return the status code, or null if the exception is not from the GCS client
+   */
+  @Nullable
+  private static Integer getStatusCode(Exception ex) {
+    return ex instanceof StorageException ? ((StorageException) ex).getCode() : null;
+  }
+
   /**
    * Utility method that checks if an exception thrown by the GCS client is retryable.
    *
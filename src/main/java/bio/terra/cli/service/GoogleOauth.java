@@ -2,6 +2,7 @@ package bio.terra.cli.service;
 
 import bio.terra.cli.exception.SystemException;
 import bio.terra.cli.service.utils.HttpUtils;
+import bio.terra.cli.utils.JacksonMapper;
 import bio.terra.cli.utils.UserIO;
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.auth.oauth2.StoredCredential;
@@ -11,6 +12,7 @@ import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpStatusCodes;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.store.DataStore;
@@ -267,6 +269,42 @@ public final class GoogleOauth {
     return credential.getAccessToken();
   }
 
+  /**
+   * Look up the expiration time of an access token
+   * (https://developers.google.com/identity/protocols/oauth2/openid-connect#validatinganidtoken).
+   *
+   * <p>This is useful for tokens that were minted by another service (e.g. pet SA tokens from SAM),
+   * which are returned without an expiration time.
+   *
+   * @param accessToken access token string
+   * @return expiration time of the token, or empty if it could not be looked up
+   */
+  public static Optional<Date> getAccessTokenExpiration(String accessToken) {
+    String endpoint = "https://oauth2.googleapis.com/tokeninfo";
+    Map<String, String> headers =
+        ImmutableMap.of("Content-type", "application/x-www-form-urlencoded");
+    Map<String, String> params = ImmutableMap.of("access_token", accessToken);
+
+    try {
+      // use POST so that the token is passed in the request body instead of the URL
+      HttpUtils.HttpResponse response =
+          HttpUtils.sendHttpRequest(endpoint, "POST", headers, params);
+      if (!HttpStatusCodes.isSuccess(response.statusCode)) {
+        logger.warn("Error looking up access token info (status code = {})", response.statusCode);
+        return Optional.empty();
+      }
+      // the exp field is the expiration time in seconds since the epoch
+      long expirationSeconds =
+          JacksonMapper.getMapper().readTree(response.responseBody).path("exp").asLong(0);
+      return expirationSeconds <= 0
+          ? Optional.empty()
+          : Optional.of(new Date(expirationSeconds * 1000));
+    } catch (IOException ioEx) {
+      logger.warn("Error looking up access token info", ioEx);
+      return Optional.empty();
+    }
+  }
+
   /**
    * Revoke token (https://developers.google.com/identity/protocols/oauth2/web-server#tokenrevoke).
    *
@@ -6,14 +6,19 @@ import bio.terra.cli.businessobject.User;
 import bio.terra.cli.exception.SystemException;
 import bio.terra.cli.exception.UserActionableException;
 import bio.terra.cli.service.utils.HttpUtils;
+import bio.terra.cli.service.utils.RetryPolicy;
+import bio.terra.cli.service.utils.SharedHttpClients;
+import bio.terra.cli.service.utils.Telemetry;
 import bio.terra.cli.utils.JacksonMapper;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.api.client.http.HttpStatusCodes;
 import com.google.auth.oauth2.AccessToken;
 import java.io.IOException;
 import java.net.SocketTimeoutException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
 import org.apache.http.HttpStatus;
@@ -41,6 +46,17 @@ import org.slf4j.LoggerFactory;
 public class SamService {
   private static final Logger logger = LoggerFactory.getLogger(SamService.class);
 
+  // policy for retrying SAM calls. back off exponentially with jitter, and respect any Retry-After
+  // header. SAM calls are on the critical path of most commands, so give up sooner than for WSM
+  private static final RetryPolicy SAM_RETRY_POLICY =
+      new RetryPolicy.Builder()
+          .maxRetries(HttpUtils.DEFAULT_MAXIMUM_RETRIES)
+          .initialDelay(Duration.ofMillis(250))
+          .exponentialBackoff(Duration.ofSeconds(5))
+          .deadline(Duration.ofMinutes(1))
+          .retryAfter(SamService::getRetryAfter)
+          .build();
+
   // the Terra environment where the SAM service lives
   private final Server server;
 
@@ -82,15 +98,36 @@ public class SamService {
   private SamService(@Nullable AccessToken accessToken, Server server) {
     this.accessToken = accessToken;
     this.server = server;
-    this.apiClient = new ApiClient();
-
-    this.apiClient.setBasePath(server.getSamUri());
-    this.apiClient.setUserAgent("OpenAPI-Generator/1.0.0 java"); // only logs an error in sam
-    if (accessToken != null) {
-      // fetch the user access token
-      // this method call will attempt to refresh the token if it's already expired
-      this.apiClient.setAccessToken(accessToken.getTokenValue());
-    }
+    String accessTokenValue = accessToken == null ? null : accessToken.getTokenValue();
+
+    // re-use the API client, and its open connections, across instances of this class
+    this.apiClient =
+        SharedHttpClients.getApiClient(
+            ApiClient.class,
+            server.getSamUri(),
+            accessTokenValue,
+            () -> {
+              ApiClient newApiClient = new ApiClient();
+              newApiClient.setBasePath(server.getSamUri());
+              // only logs an error in sam
+              newApiClient.setUserAgent("OpenAPI-Generator/1.0.0 java");
+              newApiClient.setHttpClient(
+                  newApiClient
+                      .getHttpClient()
+                      .newBuilder()
+                      .addNetworkInterceptor(new Telemetry.OkHttpInterceptor())
+                      .build());
+              if (accessTokenValue != null) {
+                newApiClient.setAccessToken(accessTokenValue);
+              }
+              return newApiClient;
+            },
+            existingApiClient -> {
+              // OkHttp clients don't have a close method. shut down the dispatcher threads and
+              // close the idle pooled connections instead
+              existingApiClient.getHttpClient().dispatcher().executorService().shutdown();
+              existingApiClient.getHttpClient().connectionPool().evictAll();
+            });
   }
 
   /**
@@ -510,6 +547,17 @@ public class SamService {
     return statusCode == exceptionStatusCode;
   }
 
+  /**
+   * Utility method that gets the HTTP status code from an exception thrown by the SAM client.
+   *
+   * @param ex exception to check
+   * @return the status code, or null if the exception is not from the SAM client
+   */
+  @Nullable
+  private static Integer getStatusCode(Exception ex) {
+    return ex instanceof ApiException ? ((ApiException) ex).getCode() : null;
+  }
+
   /**
    * Utility method that checks if an exception thrown by the SAM client is retryable.
    *
@@ -533,9 +581,24 @@ public class SamService {
         || statusCode == HttpStatus.SC_BAD_GATEWAY
         || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE
         || statusCode == HttpStatus.SC_GATEWAY_TIMEOUT
+        || statusCode == HttpUtils.TOO_MANY_REQUESTS_STATUS_CODE
         || isSamInternalSocketTimeout;
   }
 
+  /**
+   * Utility method that gets the time SAM asked us to wait before retrying, from the Retry-After
+   * header of an exception thrown by the SAM client.
+   *
+   * @param ex exception to check
+   * @return time to wait, or empty if the exception does not include a Retry-After header
+   */
+  private static Optional<Duration> getRetryAfter(Exception ex) {
+    if (!(ex instanceof ApiException)) {
+      return Optional.empty();
+    }
+    return RetryPolicy.parseRetryAfterHeader(((ApiException) ex).getResponseHeaders());
+  }
+
   /**
    * Execute a function that includes hitting SAM endpoints. Retry if the function throws an {@link
    * #isRetryable} exception. If an exception is thrown by the SAM client or the retries, make sure
@@ -548,7 +611,8 @@ public class SamService {
   private void callWithRetries(
       HttpUtils.RunnableWithCheckedException<ApiException> makeRequest, String errorMsg) {
     handleClientExceptions(
-        () -> HttpUtils.callWithRetries(makeRequest, SamService::isRetryable), errorMsg);
+        () -> HttpUtils.callWithRetries(makeRequest, SamService::isRetryable, SAM_RETRY_POLICY),
+        errorMsg);
   }
 
   /**
@@ -565,7 +629,8 @@ public class SamService {
   private <T> T callWithRetries(
       HttpUtils.SupplierWithCheckedException<T, ApiException> makeRequest, String errorMsg) {
     return handleClientExceptions(
-        () -> HttpUtils.callWithRetries(makeRequest, SamService::isRetryable), errorMsg);
+        () -> HttpUtils.callWithRetries(makeRequest, SamService::isRetryable, SAM_RETRY_POLICY),
+        errorMsg);
   }
 
   /**
@@ -593,7 +658,8 @@ public class SamService {
                 isOneTimeError,
                 handleOneTimeError,
                 (ex) ->
-                    false), // don't retry because the handleOneTimeError already includes retries
+                    false, // don't retry because the handleOneTimeError already includes retries
+                SAM_RETRY_POLICY),
         errorMsg);
   }
 
@@ -624,7 +690,8 @@ public class SamService {
                 isOneTimeError,
                 handleOneTimeError,
                 (ex) ->
-                    false), // don't retry because the handleOneTimeError already includes retries
+                    false, // don't retry because the handleOneTimeError already includes retries
+                SAM_RETRY_POLICY),
         errorMsg);
   }
 
@@ -659,7 +726,7 @@ public class SamService {
   private <T> T handleClientExceptions(
       HttpUtils.SupplierWithCheckedException<T, ApiException> makeRequest, String errorMsg) {
     try {
-      return makeRequest.makeRequest();
+      return Telemetry.recordOperation("sam", SamService::getStatusCode, makeRequest);
     } catch (ApiException | InterruptedException ex) {
       // if this is a SAM client exception, check for a message in the response body
       if (ex instanceof ApiException) {
@@ -21,7 +21,11 @@ import bio.terra.cli.serialization.userfacing.input.UpdateReferencedGcsBucketPar
 import bio.terra.cli.serialization.userfacing.input.UpdateReferencedGcsObjectParams;
 import bio.terra.cli.serialization.userfacing.input.UpdateReferencedGitRepoParams;
 import bio.terra.cli.service.utils.HttpUtils;
+import bio.terra.cli.service.utils.RetryPolicy;
+import bio.terra.cli.service.utils.SharedHttpClients;
+import bio.terra.cli.service.utils.Telemetry;
 import bio.terra.cli.utils.JacksonMapper;
+import bio.terra.cli.utils.ParallelUtils;
 import bio.terra.workspace.api.ControlledGcpResourceApi;
 import bio.terra.workspace.api.ReferencedGcpResourceApi;
 import bio.terra.workspace.api.ResourceApi;
@@ -86,7 +90,9 @@ import bio.terra.workspace.model.PrivateResourceUser;
 import bio.terra.workspace.model.ReferenceResourceCommonFields;
 import bio.terra.workspace.model.ResourceDescription;
 import bio.terra.workspace.model.ResourceList;
+import bio.terra.workspace.model.ResourceType;
 import bio.terra.workspace.model.RoleBindingList;
+import bio.terra.workspace.model.StewardshipType;
 import bio.terra.workspace.model.SystemVersion;
 import bio.terra.workspace.model.UpdateBigQueryDataTableReferenceRequestBody;
 import bio.terra.workspace.model.UpdateBigQueryDatasetReferenceRequestBody;
@@ -109,6 +115,7 @@ import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -121,8 +128,28 @@ import org.slf4j.LoggerFactory;
 public class WorkspaceManagerService {
 
   private static final Logger logger = LoggerFactory.getLogger(WorkspaceManagerService.class);
-  private static final int CLONE_WORKSPACE_MAXIMUM_RETRIES = 360;
-  private static final Duration CLONE_WORKSPACE_RETRY_INTERVAL = Duration.ofSeconds(10);
+
+  // policy for retrying WSM calls. back off exponentially with jitter, and respect any Retry-After
+  // header, so that many clients retrying during a WSM brownout don't all hit it at the same time
+  private static final RetryPolicy WSM_RETRY_POLICY =
+      new RetryPolicy.Builder()
+          .maxRetries(HttpUtils.DEFAULT_MAXIMUM_RETRIES)
+          .initialDelay(Duration.ofMillis(500))
+          .exponentialBackoff(Duration.ofSeconds(8))
+          .deadline(Duration.ofMinutes(2))
+          .retryAfter(WorkspaceManagerService::getRetryAfter)
+          .build();
+
+  // policies for polling WSM async jobs. the deadlines match the previous fixed number of polls
+  private static final RetryPolicy CLONE_WORKSPACE_POLICY =
+      buildJobPollingPolicy(Duration.ofHours(1));
+  private static final RetryPolicy CREATE_CLOUD_CONTEXT_POLICY =
+      buildJobPollingPolicy(Duration.ofMinutes(2));
+  // creating a GCP notebook instance should take less than ~10 minutes
+  private static final RetryPolicy CREATE_NOTEBOOK_POLICY =
+      buildJobPollingPolicy(Duration.ofMinutes(10));
+  private static final RetryPolicy DELETE_RESOURCE_POLICY =
+      buildJobPollingPolicy(Duration.ofMinutes(2));
 
   // the Terra environment where the WSM service lives
   private final Server server;
@@ -130,12 +157,8 @@ public class WorkspaceManagerService {
   // the client object used for talking to WSM
   private final ApiClient apiClient;
 
-  // the maximum number of retries and time to sleep for creating a new workspace
-  private static final int CREATE_WORKSPACE_MAXIMUM_RETRIES = 120;
-  private static final Duration CREATE_WORKSPACE_DURATION_SLEEP_FOR_RETRY = Duration.ofSeconds(1);
-
-  // maximum number of resources to fetch per call to the enumerate endpoint
-  private static final int MAX_RESOURCES_PER_ENUMERATE_REQUEST = 100;
+  // maximum number of concurrent calls to the enumerate endpoint, after the first page
+  private static final int MAX_PARALLEL_ENUMERATE_REQUESTS = 4;
 
   /**
    * Factory method for class that talks to WSM. No user credentials are used, so only
@@ -159,14 +182,24 @@ public class WorkspaceManagerService {
    */
   private WorkspaceManagerService(@Nullable AccessToken accessToken, Server server) {
     this.server = server;
-    this.apiClient = new ApiClient();
-
-    this.apiClient.setBasePath(server.getWorkspaceManagerUri());
-    if (accessToken != null) {
-      // fetch the user access token
-      // this method call will attempt to refresh the token if it's already expired
-      this.apiClient.setAccessToken(accessToken.getTokenValue());
-    }
+    String accessTokenValue = accessToken == null ? null : accessToken.getTokenValue();
+
+    // re-use the API client, and its open connections, across instances of this class
+    this.apiClient =
+        SharedHttpClients.getApiClient(
+            ApiClient.class,
+            server.getWorkspaceManagerUri(),
+            accessTokenValue,
+            () -> {
+              ApiClient newApiClient = new ApiClient();
+              newApiClient.setBasePath(server.getWorkspaceManagerUri());
+              newApiClient.getHttpClient().register(new Telemetry.JerseyResponseFilter());
+              if (accessTokenValue != null) {
+                newApiClient.setAccessToken(accessTokenValue);
+              }
+              return newApiClient;
+            },
+            existingApiClient -> existingApiClient.getHttpClient().close());
   }
 
   /**
@@ -230,7 +263,8 @@ public class WorkspaceManagerService {
           WorkspaceApi workspaceApi = new WorkspaceApi(apiClient);
           HttpUtils.callWithRetries(
               () -> workspaceApi.createWorkspace(workspaceRequestBody),
-              WorkspaceManagerService::isRetryable);
+              WorkspaceManagerService::isRetryable,
+              WSM_RETRY_POLICY);
 
           // create the Google project that backs the Terra workspace object
           UUID jobId = UUID.randomUUID();
@@ -241,7 +275,8 @@ public class WorkspaceManagerService {
           // make the initial create context request
           HttpUtils.callWithRetries(
               () -> workspaceApi.createCloudContext(cloudContextRequest, workspaceId),
-              WorkspaceManagerService::isRetryable);
+              WorkspaceManagerService::isRetryable,
+              WSM_RETRY_POLICY);
 
           // poll the result endpoint until the job is no longer RUNNING
           CreateCloudContextResult createContextResult =
@@ -249,8 +284,7 @@ public class WorkspaceManagerService {
                   () -> workspaceApi.getCreateCloudContextResult(workspaceId, jobId.toString()),
                   (result) -> isDone(result.getJobReport()),
                   WorkspaceManagerService::isRetryable,
-                  CREATE_WORKSPACE_MAXIMUM_RETRIES,
-                  CREATE_WORKSPACE_DURATION_SLEEP_FOR_RETRY);
+                  CREATE_CLOUD_CONTEXT_POLICY);
           logger.debug("create workspace context result: {}", createContextResult);
           StatusEnum status = createContextResult.getJobReport().getStatus();
           if (StatusEnum.FAILED == status) {
@@ -290,7 +324,9 @@ public class WorkspaceManagerService {
 
           // call the get workspace endpoint to get the full description object
           return HttpUtils.callWithRetries(
-              () -> workspaceApi.getWorkspace(workspaceId), WorkspaceManagerService::isRetryable);
+              () -> workspaceApi.getWorkspace(workspaceId),
+              WorkspaceManagerService::isRetryable,
+              WSM_RETRY_POLICY);
         },
         "Error creating a new workspace");
   }
@@ -392,8 +428,7 @@ public class WorkspaceManagerService {
                             workspaceId, initialResult.getJobReport().getId()),
                     (result) -> isDone(result.getJobReport()),
                     WorkspaceManagerService::isRetryable,
-                    CLONE_WORKSPACE_MAXIMUM_RETRIES,
-                    CLONE_WORKSPACE_RETRY_INTERVAL),
+                    CLONE_WORKSPACE_POLICY),
             "Error in cloning workspace.");
     logger.debug("clone workspace polling result: {}", cloneWorkspaceResult);
     throwIfJobNotCompleted(
@@ -462,54 +497,177 @@ public class WorkspaceManagerService {
    * Throw an exception if the number of resources in the workspace is greater than the specified
    * limit.
    *
+   * <p>The first page is fetched by itself, so that small workspaces only need a single request.
+   * If the first page is full, then the following pages are fetched in batches of up to {@link
+   * #MAX_PARALLEL_ENUMERATE_REQUESTS} concurrent requests. Paging stops at the first page that
+   * returns fewer than the page size, or once the limit is exceeded.
+   *
    * @param workspaceId the workspace to query
    * @param limit the maximum number of resources to return
+   * @param pageSize the number of resources to fetch per call to the enumerate endpoint
    * @return a list of resources
    * @throws SystemException if the number of resources in the workspace > the specified limit
    */
-  public List<ResourceDescription> enumerateAllResources(UUID workspaceId, int limit) {
-    return handleClientExceptions(
-        () -> {
-          // poll the enumerate endpoint until no results are returned, or we hit the limit
-          List<ResourceDescription> allResources = new ArrayList<>();
-          int numResultsReturned = 0;
-          do {
-            int offset = allResources.size();
-            ResourceList result =
-                HttpUtils.callWithRetries(
-                    () ->
-                        new ResourceApi(apiClient)
-                            .enumerateResources(
-                                workspaceId,
-                                offset,
-                                MAX_RESOURCES_PER_ENUMERATE_REQUEST,
-                                null,
-                                null),
-                    WorkspaceManagerService::isRetryable);
-
-            // add all fetched resources to the running list
-            numResultsReturned = result.getResources().size();
-            logger.debug("Called enumerate endpoints, fetched {} resources", numResultsReturned);
-            allResources.addAll(result.getResources());
-
-            // if we have fetched more than the limit, then throw an exception
-            if (allResources.size() > limit) {
-              throw new SystemException(
-                  "Total number of resources ("
-                      + allResources.size()
-                      + ") exceeds the CLI limit ("
-                      + limit
-                      + ")");
-            }
+  public List<ResourceDescription> enumerateAllResources(
+      UUID workspaceId, int limit, int pageSize) {
+    return enumerateAllResources(workspaceId, null, null, limit, pageSize);
+  }
+
+  /**
+   * Same as {@link #enumerateAllResources(UUID, int, int)}, but only return the resources that
+   * match the given type and stewardship. The filtering happens on the server, so resources that
+   * don't match are never downloaded, and don't count toward the limit.
+   *
+   * @param workspaceId the workspace to query
+   * @param resourceType resource type to match, or null to match all types
+   * @param stewardshipType stewardship type to match, or null to match all stewardship types
+   * @param limit the maximum number of resources to return
+   * @param pageSize the number of resources to fetch per call to the enumerate endpoint
+   * @return a list of resources
+   * @throws SystemException if the number of matching resources > the specified limit
+   */
+  public List<ResourceDescription> enumerateAllResources(
+      UUID workspaceId,
+      @Nullable ResourceType resourceType,
+      @Nullable StewardshipType stewardshipType,
+      int limit,
+      int pageSize) {
+    List<ResourceDescription> allResources = new ArrayList<>();
+    int nextOffset = 0;
+    int numParallelRequests = 1;
+    boolean fetchedLastPage = false;
+    while (!fetchedLastPage) {
+      // build the batch of offsets to fetch. there's no need to fetch past the limit, because that
+      // throws an error anyway
+      List<Integer> offsets = new ArrayList<>();
+      for (int ctr = 0; ctr < numParallelRequests && nextOffset <= limit; ctr++) {
+        offsets.add(nextOffset);
+        nextOffset += pageSize;
+      }
+      if (offsets.isEmpty()) {
+        break;
+      }
+      List<ResourceList> pages =
+          ParallelUtils.mapInParallel(
+              offsets,
+              (offset) ->
+                  callWithRetries(
+                      () ->
+                          new ResourceApi(apiClient)
+                              .enumerateResources(
+                                  workspaceId, offset, pageSize, resourceType, stewardshipType),
+                      "Error enumerating resources in the workspace."),
+              numParallelRequests);
+
+      // add the fetched resources to the running list, in offset order
+      for (ResourceList page : pages) {
+        int numResultsReturned = page.getResources().size();
+        logger.debug("Called enumerate endpoints, fetched {} resources", numResultsReturned);
+        allResources.addAll(page.getResources());
+
+        // if we have fetched more than the limit, then throw an exception
+        if (allResources.size() > limit) {
+          throw new SystemException(
+              "Total number of resources ("
+                  + allResources.size()
+                  + ") exceeds the CLI limit ("
+                  + limit
+                  + ")");
+        }
+
+        // if this fetch returned less than the maximum allowed per request, then that indicates
+        // there are no more. ignore any speculatively fetched pages after this one
+        if (numResultsReturned < pageSize) {
+          fetchedLastPage = true;
+          break;
+        }
+      }
+      numParallelRequests = MAX_PARALLEL_ENUMERATE_REQUESTS;
+    }
 
-            // if this fetch returned less than the maximum allowed per request, then that indicates
-            // there are no more
-          } while (numResultsReturned >= MAX_RESOURCES_PER_ENUMERATE_REQUEST);
+    logger.debug("Fetched total number of resources: {}", allResources.size());
+    return allResources;
+  }
 
-          logger.debug("Fetched total number of resources: {}", allResources.size());
-          return allResources;
-        },
-        "Error enumerating resources in the workspace.");
+  /**
+   * Call the Workspace Manager GET "/api/workspaces/v1/{workspaceId}/resources" endpoint, possibly
+   * multiple times, to get a range of the resources (controlled and referenced) in the workspace
+   * that match the given type and stewardship. Unlike {@link #enumerateAllResources}, this only
+   * fetches the pages that overlap the range, so it doesn't download the rest of the workspace.
+   *
+   * @param workspaceId the workspace to query
+   * @param resourceType resource type to match, or null to match all types
+   * @param stewardshipType stewardship type to match, or null to match all stewardship types
+   * @param offset the number of matching resources to skip
+   * @param limit the maximum number of resources to return
+   * @param pageSize the maximum number of resources to fetch per call to the enumerate endpoint
+   * @return a list of up to limit resources, fewer if there are no more matching resources
+   */
+  public List<ResourceDescription> enumerateResources(
+      UUID workspaceId,
+      @Nullable ResourceType resourceType,
+      @Nullable StewardshipType stewardshipType,
+      int offset,
+      int limit,
+      int pageSize) {
+    List<ResourceDescription> resources = new ArrayList<>();
+    while (resources.size() < limit) {
+      int pageOffset = offset + resources.size();
+      int pageLimit = Math.min(pageSize, limit - resources.size());
+      ResourceList page =
+          callWithRetries(
+              () ->
+                  new ResourceApi(apiClient)
+                      .enumerateResources(
+                          workspaceId, pageOffset, pageLimit, resourceType, stewardshipType),
+              "Error enumerating resources in the workspace.");
+      int numResultsReturned = page.getResources().size();
+      logger.debug("Called enumerate endpoint, fetched {} resources", numResultsReturned);
+      resources.addAll(page.getResources());
+
+      // if this fetch returned less than requested, then that indicates there are no more
+      if (numResultsReturned < pageLimit) {
+        break;
+      }
+    }
+    return resources;
+  }
+
+  /**
+   * Call the Workspace Manager GET "/api/workspaces/v1/{workspaceId}/resources" endpoint, possibly
+   * multiple times, to find a single resource (controlled or referenced) by name. WSM has no
+   * endpoint to get a resource of any type by name, so this pages through the enumerate endpoint
+   * and stops at the first page that has a resource with the name, instead of fetching the rest of
+   * the workspace.
+   *
+   * @param workspaceId the workspace that contains the resource
+   * @param resourceName the resource name
+   * @param pageSize the maximum number of resources to fetch per call to the enumerate endpoint
+   * @return the resource, or empty if there is no resource with that name
+   */
+  public Optional<ResourceDescription> findResourceByName(
+      UUID workspaceId, String resourceName, int pageSize) {
+    int offset = 0;
+    while (true) {
+      int pageOffset = offset;
+      ResourceList page =
+          callWithRetries(
+              () ->
+                  new ResourceApi(apiClient)
+                      .enumerateResources(workspaceId, pageOffset, pageSize, null, null),
+              "Error enumerating resources in the workspace.");
+      logger.debug("Called enumerate endpoint, fetched {} resources", page.getResources().size());
+      Optional<ResourceDescription> resource =
+          page.getResources().stream()
+              .filter(description -> resourceName.equals(description.getMetadata().getName()))
+              .findFirst();
+
+      // if this fetch returned less than requested, then that indicates there are no more
+      if (resource.isPresent() || page.getResources().size() < pageSize) {
+        return resource;
+      }
+      offset += pageSize;
+    }
   }
 
   /**
@@ -684,7 +842,8 @@ public class WorkspaceManagerService {
           // Start the GCP notebook creation job.
           HttpUtils.callWithRetries(
               () -> controlledGcpResourceApi.createAiNotebookInstance(createRequest, workspaceId),
-              WorkspaceManagerService::isRetryable);
+              WorkspaceManagerService::isRetryable,
+              WSM_RETRY_POLICY);
 
           // Poll the result endpoint until the job is no longer RUNNING.
           CreatedControlledGcpAiNotebookInstanceResult createResult =
@@ -694,9 +853,7 @@ public class WorkspaceManagerService {
                           workspaceId, jobId),
                   (result) -> isDone(result.getJobReport()),
                   WorkspaceManagerService::isRetryable,
-                  // Creating a GCP notebook instance should take less than ~10 minutes.
-                  60,
-                  Duration.ofSeconds(10));
+                  CREATE_NOTEBOOK_POLICY);
           logger.debug("Create controlled GCP notebook result {}", createResult);
           throwIfJobNotCompleted(createResult.getJobReport(), createResult.getErrorReport());
           return createResult.getAiNotebookInstance();
@@ -1175,7 +1332,8 @@ public class WorkspaceManagerService {
               () ->
                   controlledGcpResourceApi.deleteAiNotebookInstance(
                       deleteRequest, workspaceId, resourceId),
-              WorkspaceManagerService::isRetryable);
+              WorkspaceManagerService::isRetryable,
+              WSM_RETRY_POLICY);
 
           // poll the result endpoint until the job is no longer RUNNING
           DeleteControlledGcpAiNotebookInstanceResult deleteResult =
@@ -1184,7 +1342,8 @@ public class WorkspaceManagerService {
                       controlledGcpResourceApi.getDeleteAiNotebookInstanceResult(
                           workspaceId, asyncJobId),
                   (result) -> isDone(result.getJobReport()),
-                  WorkspaceManagerService::isRetryable);
+                  WorkspaceManagerService::isRetryable,
+                  DELETE_RESOURCE_POLICY);
           logger.debug("delete controlled GCP notebook instance result: {}", deleteResult);
 
           throwIfJobNotCompleted(deleteResult.getJobReport(), deleteResult.getErrorReport());
@@ -1212,14 +1371,16 @@ public class WorkspaceManagerService {
           // make the initial delete request
           HttpUtils.callWithRetries(
               () -> controlledGcpResourceApi.deleteBucket(deleteRequest, workspaceId, resourceId),
-              WorkspaceManagerService::isRetryable);
+              WorkspaceManagerService::isRetryable,
+              WSM_RETRY_POLICY);
 
           // poll the result endpoint until the job is no longer RUNNING
           DeleteControlledGcpGcsBucketResult deleteResult =
               HttpUtils.pollWithRetries(
                   () -> controlledGcpResourceApi.getDeleteBucketResult(workspaceId, asyncJobId),
                   (result) -> isDone(result.getJobReport()),
-                  WorkspaceManagerService::isRetryable);
+                  WorkspaceManagerService::isRetryable,
+                  DELETE_RESOURCE_POLICY);
           logger.debug("delete controlled gcs bucket result: {}", deleteResult);
 
           throwIfJobNotCompleted(deleteResult.getJobReport(), deleteResult.getErrorReport());
@@ -1285,6 +1446,17 @@ public class WorkspaceManagerService {
     return statusCode == exceptionStatusCode;
   }
 
+  /**
+   * Utility method that gets the HTTP status code from an exception thrown by the WSM client.
+   *
+   * @param ex exception to check
+   * @return the status code, or null if the exception is not from the WSM client
+   */
+  @Nullable
+  private static Integer getStatusCode(Exception ex) {
+    return ex instanceof ApiException ? ((ApiException) ex).getCode() : null;
+  }
+
   /**
    * Utility method that checks if an exception thrown by the WSM client is retryable.
    *
@@ -1300,7 +1472,38 @@ public class WorkspaceManagerService {
     return statusCode == HttpStatus.SC_INTERNAL_SERVER_ERROR
         || statusCode == HttpStatus.SC_BAD_GATEWAY
         || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE
-        || statusCode == HttpStatus.SC_GATEWAY_TIMEOUT;
+        || statusCode == HttpStatus.SC_GATEWAY_TIMEOUT
+        || statusCode == HttpUtils.TOO_MANY_REQUESTS_STATUS_CODE;
+  }
+
+  /**
+   * Utility method that gets the time WSM asked us to wait before retrying, from the Retry-After
+   * header of an exception thrown by the WSM client.
+   *
+   * @param ex exception to check
+   * @return time to wait, or empty if the exception does not include a Retry-After header
+   */
+  private static Optional<Duration> getRetryAfter(Exception ex) {
+    if (!(ex instanceof ApiException)) {
+      return Optional.empty();
+    }
+    return RetryPolicy.parseRetryAfterHeader(((ApiException) ex).getResponseHeaders());
+  }
+
+  /**
+   * Build a policy for polling a WSM async job. Poll quickly at first so that short jobs return as
+   * soon as they complete, and back off for longer ones.
+   *
+   * @param deadline maximum time to wait for the job to complete
+   */
+  private static RetryPolicy buildJobPollingPolicy(Duration deadline) {
+    return new RetryPolicy.Builder()
+        .maxRetries(Integer.MAX_VALUE)
+        .initialDelay(Duration.ofMillis(500))
+        .exponentialBackoff(Duration.ofSeconds(10))
+        .deadline(deadline)
+        .retryAfter(WorkspaceManagerService::getRetryAfter)
+        .build();
   }
 
   /**
@@ -1315,7 +1518,9 @@ public class WorkspaceManagerService {
   private void callWithRetries(
       HttpUtils.RunnableWithCheckedException<ApiException> makeRequest, String errorMsg) {
     handleClientExceptions(
-        () -> HttpUtils.callWithRetries(makeRequest, WorkspaceManagerService::isRetryable),
+        () ->
+            HttpUtils.callWithRetries(
+                makeRequest, WorkspaceManagerService::isRetryable, WSM_RETRY_POLICY),
         errorMsg);
   }
 
@@ -1331,7 +1536,9 @@ public class WorkspaceManagerService {
   private <T> T callWithRetries(
       HttpUtils.SupplierWithCheckedException<T, ApiException> makeRequest, String errorMsg) {
     return handleClientExceptions(
-        () -> HttpUtils.callWithRetries(makeRequest, WorkspaceManagerService::isRetryable),
+        () ->
+            HttpUtils.callWithRetries(
+                makeRequest, WorkspaceManagerService::isRetryable, WSM_RETRY_POLICY),
         errorMsg);
   }
 
@@ -1360,7 +1567,8 @@ public class WorkspaceManagerService {
                 isOneTimeError,
                 handleOneTimeError,
                 (ex) ->
-                    false), // don't retry because the handleOneTimeError already includes retries
+                    false, // don't retry because the handleOneTimeError already includes retries
+                WSM_RETRY_POLICY),
         errorMsg);
   }
 
@@ -1393,7 +1601,7 @@ public class WorkspaceManagerService {
   private <T> T handleClientExceptions(
       HttpUtils.SupplierWithCheckedException<T, ApiException> makeRequest, String errorMsg) {
     try {
-      return makeRequest.makeRequest();
+      return Telemetry.recordOperation("wsm", WorkspaceManagerService::getStatusCode, makeRequest);
     } catch (ApiException | InterruptedException ex) {
       // if this is a WSM client exception, check for a message in the response body
       if (ex instanceof ApiException) {
@@ -2,17 +2,13 @@ package bio.terra.cli.service.utils;
 
 import bio.terra.cli.exception.SystemException;
 import bio.terra.cli.utils.UserIO;
-import com.google.api.client.http.HttpStatusCodes;
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.URI;
 import java.net.URLEncoder;
-import java.nio.charset.Charset;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Predicate;
@@ -29,6 +25,20 @@ public class HttpUtils {
   // default value for the time to sleep between retries
   public static final Duration DEFAULT_DURATION_SLEEP_FOR_RETRY = Duration.ofSeconds(1);
 
+  // default policy for retrying HTTP requests: back off exponentially from half a second, so that a
+  // transient error clears quickly but a struggling server isn't hit by every client in lockstep
+  public static final RetryPolicy DEFAULT_RETRY_POLICY =
+      new RetryPolicy.Builder()
+          .maxRetries(DEFAULT_MAXIMUM_RETRIES)
+          .initialDelay(Duration.ofMillis(500))
+          .exponentialBackoff(Duration.ofSeconds(8))
+          .deadline(Duration.ofMinutes(2))
+          .build();
+
+  // HTTP status code a server returns when it is rate limiting requests. this is not defined in
+  // org.apache.http.HttpStatus
+  public static final int TOO_MANY_REQUESTS_STATUS_CODE = 429;
+
   private HttpUtils() {}
 
   /** This is a POJO class to hold the HTTP status code and the raw JSON response body. */
@@ -43,7 +53,7 @@ public class HttpUtils {
   }
 
   /**
-   * Sends an HTTP request using Java's HTTPURLConnection class.
+   * Sends an HTTP request using the shared Java HTTP client.
    *
    * @param urlStr where to direct the request
    * @param requestType the type of request, GET/PUT/POST/DELETE
@@ -65,7 +75,8 @@ public class HttpUtils {
   }
 
   /**
-   * Sends an HTTP request using Java's HTTPURLConnection class.
+   * Sends an HTTP request using the shared Java HTTP client, which re-uses open connections across
+   * requests (see {@link SharedHttpClients}).
    *
    * @param urlStr where to direct the request
    * @param requestType the type of request, GET/PUT/POST/DELETE
@@ -83,9 +94,9 @@ public class HttpUtils {
     if (hasParams) {
       StringBuilder paramsStrBuilder = new StringBuilder();
       for (Map.Entry<String, String> mapEntry : params.entrySet()) {
-        paramsStrBuilder.append(URLEncoder.encode(mapEntry.getKey(), "UTF-8"));
+        paramsStrBuilder.append(URLEncoder.encode(mapEntry.getKey(), StandardCharsets.UTF_8));
         paramsStrBuilder.append("=");
-        paramsStrBuilder.append(URLEncoder.encode(mapEntry.getValue(), "UTF-8"));
+        paramsStrBuilder.append(URLEncoder.encode(mapEntry.getValue(), StandardCharsets.UTF_8));
         paramsStrBuilder.append("&");
       }
       paramsStr = paramsStrBuilder.toString();
@@ -96,57 +107,52 @@ public class HttpUtils {
       urlStr += "?" + paramsStr;
     }
 
-    // open HTTP connection
-    URL url = new URL(urlStr);
-    HttpURLConnection con = (HttpURLConnection) url.openConnection();
+    // for other request types, write the parameters to the request body
+    HttpRequest.BodyPublisher bodyPublisher =
+        requestType.equals("GET") || paramsStr.isEmpty()
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofString(paramsStr);
+    HttpRequest.Builder requestBuilder =
+        HttpRequest.newBuilder(URI.create(urlStr)).method(requestType, bodyPublisher);
 
     // set header properties
-    con.setRequestMethod(requestType);
     for (Map.Entry<String, String> headerEntry : headers.entrySet()) {
-      con.setRequestProperty(headerEntry.getKey(), headerEntry.getValue());
-    }
-
-    // for other request types, write the parameters to the request body
-    if (!requestType.equals("GET")) {
-      con.setDoOutput(true);
-      DataOutputStream outputStream = new DataOutputStream(con.getOutputStream());
-      outputStream.writeBytes(paramsStr);
-      outputStream.flush();
-      outputStream.close();
-    }
-
-    // send the request and read the returned status code
-    int statusCode = con.getResponseCode();
-
-    // select the appropriate input stream depending on the status code
-    InputStream inputStream;
-    if (HttpStatusCodes.isSuccess(statusCode)) {
-      inputStream = con.getInputStream();
-    } else {
-      inputStream = con.getErrorStream();
+      requestBuilder.header(headerEntry.getKey(), headerEntry.getValue());
     }
 
-    // read the response body
-    BufferedReader bufferedReader =
-        new BufferedReader(new InputStreamReader(inputStream, Charset.defaultCharset()));
-    String inputLine;
-    StringBuffer responseBody = new StringBuffer();
-    while ((inputLine = bufferedReader.readLine()) != null) {
-      responseBody.append(inputLine);
+    // send the request and read the returned status code and response body. the connection is
+    // returned to the shared client's pool afterwards, instead of being closed
+    java.net.http.HttpResponse<String> response;
+    try {
+      response =
+          Telemetry.recordOperation(
+              "http",
+              ex -> null,
+              () -> {
+                java.net.http.HttpResponse<String> httpResponse =
+                    SharedHttpClients.getHttpClient()
+                        .send(
+                            requestBuilder.build(),
+                            java.net.http.HttpResponse.BodyHandlers.ofString());
+                Telemetry.recordHttpResponse(
+                    httpResponse.statusCode(),
+                    httpResponse
+                        .headers()
+                        .firstValueAsLong("content-length")
+                        .orElse(httpResponse.body().length()));
+                return httpResponse;
+              });
+    } catch (InterruptedException intEx) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while sending HTTP request.", intEx);
     }
-    bufferedReader.close();
-
-    // close HTTP connection
-    con.disconnect();
 
     // return a POJO that includes both the response body and status code
-    return new HttpResponse(responseBody.toString(), statusCode);
+    return new HttpResponse(response.body(), response.statusCode());
   }
 
   /**
-   * Helper method to call a function with retries. Uses {@link #DEFAULT_MAXIMUM_RETRIES} for
-   * maximum number of retries and {@link #DEFAULT_DURATION_SLEEP_FOR_RETRY} for the time to sleep
-   * between retries.
+   * Helper method to call a function with retries. Uses {@link #DEFAULT_RETRY_POLICY}.
    *
    * @param makeRequest function to perform the request
    * @param isRetryable function to test whether the exception is retryable or not
@@ -163,14 +169,11 @@ public class HttpUtils {
           return null;
         },
         isRetryable,
-        DEFAULT_MAXIMUM_RETRIES,
-        DEFAULT_DURATION_SLEEP_FOR_RETRY);
+        DEFAULT_RETRY_POLICY);
   }
 
   /**
-   * Helper method to call a function with retries. Uses {@link #DEFAULT_MAXIMUM_RETRIES} for
-   * maximum number of retries and {@link #DEFAULT_DURATION_SLEEP_FOR_RETRY} for the time to sleep
-   * between retries.
+   * Helper method to call a function with retries. Uses {@link #DEFAULT_RETRY_POLICY}.
    *
    * @param makeRequest function to perform the request
    * @param isRetryable function to test whether the exception is retryable or not
@@ -183,12 +186,11 @@ public class HttpUtils {
   public static <T, E extends Exception> T callWithRetries(
       SupplierWithCheckedException<T, E> makeRequest, Predicate<Exception> isRetryable)
       throws E, InterruptedException {
-    return callWithRetries(
-        makeRequest, isRetryable, DEFAULT_MAXIMUM_RETRIES, DEFAULT_DURATION_SLEEP_FOR_RETRY);
+    return callWithRetries(makeRequest, isRetryable, DEFAULT_RETRY_POLICY);
   }
 
   /**
-   * Helper method to call a function with retries.
+   * Helper method to call a function with retries, sleeping for a fixed time between tries.
    *
    * @param <T> type of the response object (i.e. return type of the makeRequest function)
    * @param makeRequest function to perform the request
@@ -206,19 +208,37 @@ public class HttpUtils {
       int maxCalls,
       Duration sleepDuration)
       throws E, InterruptedException {
+    return callWithRetries(makeRequest, isRetryable, RetryPolicy.fixed(maxCalls, sleepDuration));
+  }
+
+  /**
+   * Helper method to call a function with retries.
+   *
+   * @param <T> type of the response object (i.e. return type of the makeRequest function)
+   * @param makeRequest function to perform the request
+   * @param isRetryable function to test whether the exception is retryable or not
+   * @param retryPolicy how many times to retry and how long to sleep between tries
+   * @return the response object
+   * @throws E if makeRequest throws an exception that is not retryable
+   * @throws SystemException if the retry policy is exhausted, and the last attempt threw a
+   *     retryable exception
+   */
+  public static <T, E extends Exception> T callWithRetries(
+      SupplierWithCheckedException<T, E> makeRequest,
+      Predicate<Exception> isRetryable,
+      RetryPolicy retryPolicy)
+      throws E, InterruptedException {
     // isDone always return true
     return pollWithRetries(
         makeRequest,
         (result) -> true,
         isRetryable,
         /* shouldPrintToStderrOnRetry */ true,
-        maxCalls,
-        sleepDuration);
+        retryPolicy);
   }
 
   /**
-   * Helper method to poll with retries. Uses {@link #DEFAULT_MAXIMUM_RETRIES} for maximum number of
-   * retries and {@link #DEFAULT_DURATION_SLEEP_FOR_RETRY} for the time to sleep between retries.
+   * Helper method to poll with retries. Uses {@link #DEFAULT_RETRY_POLICY}.
    *
    * @param makeRequest function to perform the request
    * @param isRetryable function to test whether the exception is retryable or not
@@ -233,16 +253,11 @@ public class HttpUtils {
       Predicate<T> isDone,
       Predicate<Exception> isRetryable)
       throws E, InterruptedException {
-    return pollWithRetries(
-        makeRequest,
-        isDone,
-        isRetryable,
-        DEFAULT_MAXIMUM_RETRIES,
-        DEFAULT_DURATION_SLEEP_FOR_RETRY);
+    return pollWithRetries(makeRequest, isDone, isRetryable, DEFAULT_RETRY_POLICY);
   }
 
   /**
-   * Helper method to poll with retries.
+   * Helper method to poll with retries, sleeping for a fixed time between tries.
    *
    * @param <T> type of the response object (i.e. return type of the makeRequest function)
    * @param makeRequest function to perform the request
@@ -263,12 +278,30 @@ public class HttpUtils {
       Duration sleepDuration)
       throws E, InterruptedException {
     return pollWithRetries(
-        makeRequest,
-        isDone,
-        isRetryable,
-        /* shouldPrintToStderrOnRetry */ false,
-        maxCalls,
-        sleepDuration);
+        makeRequest, isDone, isRetryable, RetryPolicy.fixed(maxCalls, sleepDuration));
+  }
+
+  /**
+   * Helper method to poll with retries.
+   *
+   * @param <T> type of the response object (i.e. return type of the makeRequest function)
+   * @param makeRequest function to perform the request
+   * @param isDone function to decide whether to keep polling or not, based on the result
+   * @param isRetryable function to test whether the exception is retryable or not
+   * @param retryPolicy how many times to poll or retry and how long to sleep between tries
+   * @return the response object
+   * @throws E if makeRequest throws an exception that is not retryable
+   * @throws SystemException if the retry policy is exhausted, and the last attempt threw a
+   *     retryable exception
+   */
+  public static <T, E extends Exception> T pollWithRetries(
+      SupplierWithCheckedException<T, E> makeRequest,
+      Predicate<T> isDone,
+      Predicate<Exception> isRetryable,
+      RetryPolicy retryPolicy)
+      throws E, InterruptedException {
+    return pollWithRetries(
+        makeRequest, isDone, isRetryable, /* shouldPrintToStderrOnRetry */ false, retryPolicy);
   }
 
   /**
@@ -276,7 +309,8 @@ public class HttpUtils {
    *
    * <p>If there is no timeout, the method returns the last result.
    *
-   * <p>If there is a timeout, the behavior depends on the last attempt.
+   * <p>If there is a timeout (i.e. the retry policy's maximum number of retries or deadline is
+   * reached), the behavior depends on the last attempt.
    *
    * <p>- If the last attempt produced a result that is not done (i.e. isDone returns false), then
    * the result is returned.
@@ -289,67 +323,74 @@ public class HttpUtils {
    * @param isDone function to decide whether to keep polling or not, based on the result
    * @param isRetryable function to test whether the exception is retryable or not
    * @param shouldPrintToStderrOnRetry should print to stderr on retry
-   * @param maxCalls maximum number of times to poll or retry
-   * @param sleepDuration time to sleep between tries
+   * @param retryPolicy how many times to poll or retry and how long to sleep between tries
    * @return the response object
    * @throws E if makeRequest throws an exception that is not retryable
-   * @throws SystemException if the maximum number of retries is exhausted, and the last attempt
-   *     threw a retryable exception
+   * @throws SystemException if the retry policy is exhausted, and the last attempt threw a
+   *     retryable exception
    */
   public static <T, E extends Exception> T pollWithRetries(
       SupplierWithCheckedException<T, E> makeRequest,
       Predicate<T> isDone,
       Predicate<Exception> isRetryable,
       boolean shouldPrintToStderrOnRetry,
-      int maxCalls,
-      Duration sleepDuration)
+      RetryPolicy retryPolicy)
       throws E, InterruptedException {
+    Instant startTime = Instant.now();
     int numTries = 0;
-    Exception lastRetryableException = null;
-    do {
+    Duration sleepDuration = null;
+    while (true) {
       numTries++;
+      Exception lastRetryableException = null;
+      T result = null;
+      Telemetry.Span attemptSpan = Telemetry.startAttempt(numTries);
+      Exception attemptException = null;
       try {
         logger.debug("Request attempt #{}", numTries);
 
         // Print to STDERR so that terminal command doesn't appear to hang.
         if (shouldPrintToStderrOnRetry && numTries > 1) {
           UserIO.getErr()
-              .printf("Encountered error, retrying request (%s/%s)%n", numTries - 1, maxCalls);
+              .printf(
+                  "Encountered error, retrying request (%s/%s)%n",
+                  numTries - 1, retryPolicy.getMaxRetries());
         }
 
-        T result = makeRequest.makeRequest();
+        result = makeRequest.makeRequest();
         logger.debug("Result: {}", result);
 
-        boolean jobCompleted = isDone.test(result);
-        boolean timedOut = numTries > maxCalls;
-        if (jobCompleted || timedOut) {
-          // polling is either done (i.e. job completed) or timed out: return the last result
-          logger.debug(
-              "polling with retries completed. jobCompleted = {}, timedOut = {}",
-              jobCompleted,
-              timedOut);
+        if (isDone.test(result)) {
+          logger.debug("polling with retries completed after {} tries", numTries);
           return result;
         }
       } catch (Exception ex) {
+        attemptException = ex;
         if (!isRetryable.test(ex)) {
           // the exception is not retryable: re-throw
           throw ex;
-        } else {
-          // keep track of the last retryable exception so we can re-throw it in case of a timeout
-          lastRetryableException = ex;
         }
+        // keep track of the last retryable exception so we can re-throw it in case of a timeout
+        lastRetryableException = ex;
         logger.info("Caught retryable exception: {}", ex);
+      } finally {
+        Telemetry.endAttempt(attemptSpan, attemptException);
       }
 
-      // sleep before retrying, unless this is the last try
-      if (numTries < maxCalls) {
-        Thread.sleep(sleepDuration.toMillis());
+      sleepDuration = retryPolicy.getNextSleep(sleepDuration, lastRetryableException);
+      if (retryPolicy.isExhausted(numTries, startTime, sleepDuration)) {
+        if (lastRetryableException == null) {
+          // polling timed out: return the last result
+          logger.debug("polling with retries timed out after {} tries", numTries);
+          return result;
+        }
+        // request with retries timed out: re-throw the last exception
+        throw new SystemException(
+            "Request with retries timed out after " + numTries + " tries.",
+            lastRetryableException);
       }
-    } while (numTries <= maxCalls);
-
-    // request with retries timed out: re-throw the last exception
-    throw new SystemException(
-        "Request with retries timed out after " + numTries + " tries.", lastRetryableException);
+      logger.debug("Sleeping {} ms before the next try", sleepDuration.toMillis());
+      Thread.sleep(sleepDuration.toMillis());
+    }
   }
 
   /**
@@ -368,7 +409,7 @@ public class HttpUtils {
    * @param handleOneTimeError function to handle the one-time error before retrying the request
    * @param handleOneTimeErrorIsRetryable function to test whether an exception thrown by
    *     handleOneTimeError is retryable or not
-   * @return the response object
+   * @param retryPolicy how many times to retry each request and how long to sleep between tries
    * @throws E1 if makeRequest throws an exception that is not the expected one-time error
    * @throws E2 if handleOneTimeError throws an exception
    */
@@ -378,7 +419,8 @@ public class HttpUtils {
           Predicate<Exception> makeRequestIsRetryable,
           Predicate<Exception> isOneTimeError,
           RunnableWithCheckedException<E2> handleOneTimeError,
-          Predicate<Exception> handleOneTimeErrorIsRetryable)
+          Predicate<Exception> handleOneTimeErrorIsRetryable,
+          RetryPolicy retryPolicy)
           throws E1, E2, InterruptedException {
     callAndHandleOneTimeErrorWithRetries(
         () -> {
@@ -388,7 +430,8 @@ public class HttpUtils {
         makeRequestIsRetryable,
         isOneTimeError,
         handleOneTimeError,
-        handleOneTimeErrorIsRetryable);
+        handleOneTimeErrorIsRetryable,
+        retryPolicy);
   }
 
   /**
@@ -407,6 +450,7 @@ public class HttpUtils {
    * @param handleOneTimeError function to handle the one-time error before retrying the request
    * @param handleOneTimeErrorIsRetryable function to test whether an exception thrown by
    *     handleOneTimeError is retryable or not
+   * @param retryPolicy how many times to retry each request and how long to sleep between tries
    * @param <T> type of the response object (i.e. return type of the makeRequest function)
    * @return the response object
    * @throws E1 if makeRequest throws an exception that is not the expected one-time error
@@ -418,11 +462,12 @@ public class HttpUtils {
           Predicate<Exception> makeRequestIsRetryable,
           Predicate<Exception> isOneTimeError,
           RunnableWithCheckedException<E2> handleOneTimeError,
-          Predicate<Exception> handleOneTimeErrorIsRetryable)
+          Predicate<Exception> handleOneTimeErrorIsRetryable,
+          RetryPolicy retryPolicy)
           throws E1, E2, InterruptedException {
     try {
       // make the initial request
-      return callWithRetries(makeRequest, makeRequestIsRetryable);
+      return callWithRetries(makeRequest, makeRequestIsRetryable, retryPolicy);
     } catch (Exception ex) {
       // if the exception is not the expected one-time error, then quit here
       if (!isOneTimeError.test(ex)) {
@@ -431,13 +476,21 @@ public class HttpUtils {
       logger.info("Caught possible one-time error: {}", ex);
 
       // handle the one-time error
-      callWithRetries(handleOneTimeError, handleOneTimeErrorIsRetryable);
+      callWithRetries(
+          () -> {
+            handleOneTimeError.run();
+            return null;
+          },
+          handleOneTimeErrorIsRetryable,
+          retryPolicy);
 
       // retry the request. include some retries for the one-time error, to allow time for
       // information to propagate (this delay seems to happen on inviting a new user -- sometimes it
       // takes several seconds for WSM to recognize a newly invited user in SAM. not sure why)
       return callWithRetries(
-          makeRequest, (ex2) -> isOneTimeError.test(ex2) || makeRequestIsRetryable.test(ex2));
+          makeRequest,
+          (ex2) -> isOneTimeError.test(ex2) || makeRequestIsRetryable.test(ex2),
+          retryPolicy);
     }
   }
 
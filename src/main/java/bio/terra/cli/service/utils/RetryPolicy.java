@@ -0,0 +1,215 @@
+package bio.terra.cli.service.utils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * Policy for how many times, and how long to wait between tries, when retrying or polling a
+ * request. Used by the retry helpers in {@link HttpUtils}. Each service class can define its own
+ * policies (e.g. a short one for regular calls, a long one for polling a clone job).
+ *
+ * <p>The sleep between tries is either fixed, or grows exponentially with decorrelated jitter
+ * (https://aws.amazon.com/blogs/architecture/exponential-backoff-and-jitter/): each sleep is a
+ * random duration between the initial delay and three times the previous sleep, capped at the
+ * maximum delay. The jitter keeps many clients that hit the same outage from retrying in lockstep.
+ *
+ * <p>If the policy has a Retry-After function, and it returns a value for the exception thrown by
+ * the last try, then the sleep is at least that long.
+ *
+ * <p>If the policy has a deadline, then there are no more tries once the next sleep would end past
+ * the deadline, regardless of the maximum number of retries.
+ */
+public class RetryPolicy {
+  private final int maxRetries;
+  private final Duration initialDelay;
+  private final Duration maxDelay;
+  private final boolean exponentialBackoff;
+  @Nullable private final Duration deadline;
+  @Nullable private final Function<Exception, Optional<Duration>> retryAfter;
+  @Nullable private final Random random;
+
+  private RetryPolicy(Builder builder) {
+    this.maxRetries = builder.maxRetries;
+    this.initialDelay = builder.initialDelay;
+    this.maxDelay = builder.maxDelay == null ? builder.initialDelay : builder.maxDelay;
+    this.exponentialBackoff = builder.exponentialBackoff;
+    this.deadline = builder.deadline;
+    this.retryAfter = builder.retryAfter;
+    this.random = builder.random;
+  }
+
+  /**
+   * Build a policy that sleeps for the same amount of time between each try, with no deadline.
+   * This matches the retry behavior before policies were configurable.
+   *
+   * @param maxRetries maximum number of times to retry
+   * @param sleepDuration time to sleep between tries
+   */
+  public static RetryPolicy fixed(int maxRetries, Duration sleepDuration) {
+    return new Builder().maxRetries(maxRetries).initialDelay(sleepDuration).build();
+  }
+
+  /** Maximum number of times to retry, after the first try. */
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  /**
+   * Get the time to sleep before the next try.
+   *
+   * @param previousSleep time slept before the last try, null if this is the first retry
+   * @param lastException retryable exception thrown by the last try, null if the last try returned
+   *     a result (i.e. when polling)
+   * @return time to sleep before the next try
+   */
+  public Duration getNextSleep(
+      @Nullable Duration previousSleep, @Nullable Exception lastException) {
+    Duration sleep = initialDelay;
+    if (exponentialBackoff && previousSleep != null) {
+      long lowerMillis = initialDelay.toMillis();
+      long upperMillis = Math.max(lowerMillis + 1, previousSleep.toMillis() * 3);
+      long randomMillis =
+          random == null
+              ? ThreadLocalRandom.current().nextLong(lowerMillis, upperMillis)
+              : lowerMillis + (long) (random.nextDouble() * (upperMillis - lowerMillis));
+      sleep = Duration.ofMillis(Math.min(maxDelay.toMillis(), randomMillis));
+    }
+
+    // the server knows best how long to wait, so don't retry sooner than it asks
+    if (retryAfter != null && lastException != null) {
+      Optional<Duration> retryAfterDuration = retryAfter.apply(lastException);
+      if (retryAfterDuration.isPresent() && retryAfterDuration.get().compareTo(sleep) > 0) {
+        sleep = retryAfterDuration.get();
+      }
+    }
+    return sleep;
+  }
+
+  /**
+   * Return true if there should be no more tries, either because the maximum number of retries is
+   * used up or because sleeping for the given time would pass the deadline.
+   *
+   * @param numTries number of tries so far
+   * @param startTime time of the first try
+   * @param nextSleep time to sleep before the next try
+   */
+  public boolean isExhausted(int numTries, Instant startTime, Duration nextSleep) {
+    if (numTries > maxRetries) {
+      return true;
+    }
+    return deadline != null && Instant.now().plus(nextSleep).isAfter(startTime.plus(deadline));
+  }
+
+  /**
+   * Parse the value of a Retry-After response header, which is either a number of seconds or an
+   * HTTP date (https://datatracker.ietf.org/doc/html/rfc7231#section-7.1.3). Header names are
+   * matched case-insensitively, since the generated clients differ in how they store them.
+   *
+   * @param responseHeaders response headers, null if there were none
+   * @return time to wait before retrying, or empty if there is no valid Retry-After header
+   */
+  public static Optional<Duration> parseRetryAfterHeader(
+      @Nullable Map<String, List<String>> responseHeaders) {
+    if (responseHeaders == null) {
+      return Optional.empty();
+    }
+    Optional<String> headerValue =
+        responseHeaders.entrySet().stream()
+            .filter(entry -> "Retry-After".equalsIgnoreCase(entry.getKey()))
+            .flatMap(entry -> entry.getValue().stream())
+            .findFirst()
+            .map(String::trim);
+    if (headerValue.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(headerValue.get()))));
+    } catch (NumberFormatException nfEx) {
+      // not a number of seconds, try parsing it as a date below
+    }
+    try {
+      ZonedDateTime retryTime =
+          ZonedDateTime.parse(headerValue.get(), DateTimeFormatter.RFC_1123_DATE_TIME);
+      Duration untilRetryTime = Duration.between(Instant.now(), retryTime.toInstant());
+      return Optional.of(untilRetryTime.isNegative() ? Duration.ZERO : untilRetryTime);
+    } catch (DateTimeParseException dtpEx) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Builder for {@link RetryPolicy}. Defaults to a fixed sleep, with no deadline and no Retry-After
+   * handling.
+   */
+  public static class Builder {
+    private int maxRetries = HttpUtils.DEFAULT_MAXIMUM_RETRIES;
+    private Duration initialDelay = HttpUtils.DEFAULT_DURATION_SLEEP_FOR_RETRY;
+    private Duration maxDelay;
+    private boolean exponentialBackoff;
+    private Duration deadline;
+    private Function<Exception, Optional<Duration>> retryAfter;
+    private Random random;
+
+    /** Maximum number of times to retry, after the first try. */
+    public Builder maxRetries(int maxRetries) {
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /** Time to sleep before the first retry, and the minimum sleep between tries. */
+    public Builder initialDelay(Duration initialDelay) {
+      this.initialDelay = initialDelay;
+      return this;
+    }
+
+    /**
+     * Grow the sleep between tries exponentially with jitter, up to the given maximum sleep.
+     *
+     * @param maxDelay maximum time to sleep between tries, not counting any Retry-After header
+     */
+    public Builder exponentialBackoff(Duration maxDelay) {
+      this.exponentialBackoff = true;
+      this.maxDelay = maxDelay;
+      return this;
+    }
+
+    /** Maximum total time to spend retrying, measured from the first try. */
+    public Builder deadline(Duration deadline) {
+      this.deadline = deadline;
+      return this;
+    }
+
+    /**
+     * Function to get the time the server asked us to wait before retrying (e.g. from a Retry-After
+     * response header) from a retryable exception.
+     */
+    public Builder retryAfter(Function<Exception, Optional<Duration>> retryAfter) {
+      this.retryAfter = retryAfter;
+      return this;
+    }
+
+    /**
+     * Source of the jitter for exponential backoff. Defaults to {@link ThreadLocalRandom}. Pass a
+     * seeded instance to get the same sleeps every time (e.g. in tests).
+     */
+    public Builder random(Random random) {
+      this.random = random;
+      return this;
+    }
+
+    /** Call the private constructor. */
+    public RetryPolicy build() {
+      return new RetryPolicy(this);
+    }
+  }
+}
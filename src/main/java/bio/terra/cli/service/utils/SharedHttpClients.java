@@ -0,0 +1,150 @@
+package bio.terra.cli.service.utils;
+
+import bio.terra.cli.exception.SystemException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide HTTP clients, shared by all the service classes so that consecutive calls re-use
+ * open connections instead of paying for a new TCP and TLS handshake each time.
+ *
+ * <p>Raw HTTP requests (see {@link HttpUtils}) go through a single Java {@link HttpClient}, which
+ * keeps a pool of keep-alive connections, negotiates HTTP/2 where the server supports it, and
+ * re-uses TLS sessions.
+ *
+ * <p>The generated client libraries (WSM, SAM, TDR) each bring their own HTTP stack, which keeps a
+ * connection pool per {@code ApiClient} instance. Building an {@code ApiClient} is also expensive
+ * (e.g. the Jersey-based ones set up a new dependency injection container each time). So instead
+ * of building a new one per service object, the service classes share one {@code ApiClient} per
+ * server URL and access token. Clients that are evicted from the cache are closed, so that their
+ * connection pools and threads don't outlive them.
+ */
+public class SharedHttpClients {
+  private static final Logger logger = LoggerFactory.getLogger(SharedHttpClients.class);
+
+  // timeout for opening a new connection. this does not limit how long a request can take
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+
+  // maximum number of generated API clients to keep. there is typically one per service for the
+  // current user, but a single JVM can see several users and token refreshes (e.g. in tests)
+  private static final int MAX_API_CLIENTS = 32;
+
+  private static final HttpClient httpClient =
+      HttpClient.newBuilder()
+          .version(HttpClient.Version.HTTP_2)
+          .followRedirects(HttpClient.Redirect.NORMAL)
+          .connectTimeout(CONNECT_TIMEOUT)
+          .build();
+
+  // (API client class + base path + hash of the access token) -> API client instance. the key
+  // holds a hash instead of the token itself, so that the token isn't kept around in another place
+  private static final Cache<String, SharedApiClient> apiClients =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_API_CLIENTS)
+          .removalListener(SharedHttpClients::closeApiClient)
+          .build();
+
+  private SharedHttpClients() {}
+
+  /** Get the shared Java HTTP client for making raw HTTP requests. */
+  public static HttpClient getHttpClient() {
+    return httpClient;
+  }
+
+  /**
+   * Get the shared generated API client for the given server URL and access token, building it if
+   * this is the first request for that combination.
+   *
+   * @param apiClientClass class of the generated API client
+   * @param basePath base URL of the server
+   * @param accessToken access token string the client is configured with, null if unauthenticated
+   * @param apiClientBuilder function to build and configure a new API client
+   * @param apiClientCloser function to release the resources held by an API client, once it is no
+   *     longer shared
+   * @param <T> class of the generated API client
+   * @return shared API client instance
+   */
+  public static <T> T getApiClient(
+      Class<T> apiClientClass,
+      String basePath,
+      @Nullable String accessToken,
+      Supplier<T> apiClientBuilder,
+      Consumer<T> apiClientCloser) {
+    String tokenHash =
+        accessToken == null
+            ? "unauthenticated"
+            : Hashing.sha256().hashString(accessToken, StandardCharsets.UTF_8).toString();
+    String key = apiClientClass.getName() + " " + basePath + " " + tokenHash;
+    try {
+      return apiClientClass.cast(
+          apiClients.get(
+                  key,
+                  () -> {
+                    logger.debug(
+                        "Building new API client {} for {}", apiClientClass.getName(), basePath);
+                    T apiClient = apiClientBuilder.get();
+                    return new SharedApiClient(apiClient, () -> apiClientCloser.accept(apiClient));
+                  })
+              .apiClient);
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      // unwrap and re-throw the exception thrown by the builder
+      Throwables.throwIfUnchecked(ex.getCause());
+      throw new SystemException("Error building API client.", ex.getCause());
+    }
+  }
+
+  /**
+   * Close all the shared API clients and remove them from the cache. Service objects that are
+   * already using one of them should not be used afterwards.
+   */
+  @VisibleForTesting
+  public static void closeApiClients() {
+    apiClients.invalidateAll();
+    apiClients.cleanUp();
+  }
+
+  /**
+   * Close an API client that was removed from the cache. Log, but don't throw, any errors, because
+   * this is called from whichever thread happens to trigger the eviction.
+   */
+  private static void closeApiClient(RemovalNotification<String, SharedApiClient> notification) {
+    SharedApiClient sharedApiClient = notification.getValue();
+    if (sharedApiClient == null) {
+      return;
+    }
+    logger.debug(
+        "Closing API client {} ({})",
+        sharedApiClient.apiClient.getClass().getName(),
+        notification.getCause());
+    try {
+      sharedApiClient.closer.run();
+    } catch (RuntimeException rEx) {
+      logger.warn("Error closing API client.", rEx);
+    }
+  }
+
+  /** API client in the cache, along with the function to close it. */
+  private static class SharedApiClient {
+    private final Object apiClient;
+    private final Runnable closer;
+
+    SharedApiClient(Object apiClient, Runnable closer) {
+      this.apiClient = apiClient;
+      this.closer = closer;
+    }
+  }
+}
@@ -0,0 +1,626 @@
+package bio.terra.cli.service.utils;
+
+import bio.terra.cli.utils.FileUtils;
+import bio.terra.cli.utils.JacksonMapper;
+import bio.terra.cli.utils.Version;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records a span for each call the CLI makes to a service (e.g. WSM, SAM, GCS) while a command
+ * runs, and a child span for each attempt of that call. Spans record how long the call took, how
+ * many attempts it made, the HTTP status codes it got back and the size of the responses.
+ *
+ * <p>Nothing is recorded unless the command is run with the `--timings` option, which prints a
+ * summary to stderr when the command finishes, or one of these environment variables is set:
+ *
+ * <p>- {@value #FILE_ENV_VAR}: append the spans to this file, one JSON object per line.
+ *
+ * <p>- {@value #OTLP_ENDPOINT_ENV_VAR}: send the spans to this OpenTelemetry collector endpoint as
+ * OTLP/HTTP JSON (e.g. http://localhost:4318/v1/traces).
+ *
+ * <p>The command being recorded is tracked per thread, so commands that run at the same time in one
+ * JVM (e.g. `terra batch --parallel`, or commands run by the daemon) each record their own calls.
+ * Threads started by a command (e.g. the workers that look up resources in parallel) record to the
+ * same command, as children of the span that was current when they started, each with their own
+ * attempts.
+ */
+public class Telemetry {
+  private static final Logger logger = LoggerFactory.getLogger(Telemetry.class);
+
+  // environment variable with the path of a file to append the spans to
+  public static final String FILE_ENV_VAR = "TERRA_TELEMETRY_FILE";
+
+  // environment variable with the URL of an OTLP/HTTP endpoint to send the spans to
+  public static final String OTLP_ENDPOINT_ENV_VAR = "TERRA_TELEMETRY_OTLP_ENDPOINT";
+
+  // name of the CLI in exported spans
+  private static final String SERVICE_NAME = "terra-cli";
+
+  // maximum time to wait for the collector, so that a collector that's down doesn't hold up the
+  // command for long
+  private static final Duration OTLP_EXPORT_TIMEOUT = Duration.ofSeconds(5);
+
+  // span kind and status code values defined by the OTLP protocol
+  private static final int OTLP_SPAN_KIND_INTERNAL = 1;
+  private static final int OTLP_SPAN_KIND_CLIENT = 3;
+  private static final int OTLP_STATUS_CODE_OK = 1;
+  private static final int OTLP_STATUS_CODE_ERROR = 2;
+
+  // methods in the service classes that wrap a call. operations are named after the method that
+  // calls them instead
+  private static final Set<String> WRAPPER_METHOD_NAMES =
+      Set.of("callWithRetries", "callAndHandleOneTimeError", "handleClientExceptions");
+
+  // command being recorded on this thread, null if nothing is being recorded. threads started by
+  // the command record to the same one
+  private static final InheritableThreadLocal<Recording> currentRecording =
+      new InheritableThreadLocal<>();
+  private static final InheritableThreadLocal<Span> currentSpan = new InheritableThreadLocal<>();
+
+  private Telemetry() {}
+
+  /** What a span covers. */
+  private enum Kind {
+    COMMAND,
+    OPERATION,
+    ATTEMPT
+  }
+
+  /**
+   * Start recording the calls made by a command, if the `--timings` option or either of the
+   * environment variables is set.
+   *
+   * @param commandName name of the command (e.g. "terra workspace describe")
+   * @param printTimings true to print a summary of the calls when the command finishes
+   */
+  public static void startCommand(String commandName, boolean printTimings) {
+    currentSpan.remove();
+    if (!printTimings && getEnvVar(FILE_ENV_VAR).isEmpty() && getOtlpEndpoint().isEmpty()) {
+      currentRecording.remove();
+      return;
+    }
+    currentRecording.set(
+        new Recording(
+            new Span(Kind.COMMAND, null, commandName, SERVICE_NAME, null), printTimings));
+  }
+
+  /**
+   * Stop recording, print the summary if the `--timings` option was set, and export the spans.
+   * Errors exporting the spans are logged, and do not fail the command.
+   *
+   * @param succeeded true if the command finished without throwing an exception
+   * @param printStream stream to print the summary to (e.g. stderr, so it doesn't mix with the
+   *     command's output)
+   */
+  public static void finishCommand(boolean succeeded, PrintStream printStream) {
+    Recording recording = currentRecording.get();
+    currentRecording.remove();
+    currentSpan.remove();
+    if (recording == null) {
+      return;
+    }
+    Span span = recording.commandSpan;
+    if (!succeeded) {
+      span.error = "CommandFailed";
+    }
+    span.end();
+
+    List<Span> spans;
+    synchronized (recording.finishedSpans) {
+      spans = new ArrayList<>(recording.finishedSpans);
+    }
+    spans.sort(Comparator.comparingLong(s -> s.startNanoTime));
+    if (recording.printTimings) {
+      printSummary(span, spans, printStream);
+    }
+    spans.add(0, span);
+    getEnvVar(FILE_ENV_VAR).ifPresent(file -> exportToFile(FileUtils.resolveUserPath(file), spans));
+    getOtlpEndpoint().ifPresent(endpoint -> exportToOtlp(endpoint, spans));
+  }
+
+  /**
+   * Record a command run by `terra batch` as a child of the batch command, so that the calls it
+   * makes are grouped under it in the exported spans. Does nothing extra if the batch command isn't
+   * being recorded.
+   *
+   * @param commandName name of the command (e.g. "terra workspace describe")
+   * @param command function to run the command
+   */
+  public static void recordBatchCommand(String commandName, Runnable command) {
+    Recording recording = currentRecording.get();
+    if (recording == null) {
+      command.run();
+      return;
+    }
+    Span previous = currentSpan.get();
+    Span span =
+        new Span(
+            Kind.COMMAND,
+            previous != null ? previous : recording.commandSpan,
+            commandName,
+            SERVICE_NAME,
+            previous);
+    currentSpan.set(span);
+    try {
+      command.run();
+    } catch (RuntimeException ex) {
+      span.error = "CommandFailed";
+      throw ex;
+    } finally {
+      endSpan(recording, span);
+    }
+  }
+
+  /**
+   * Record a call to a service as one operation. Called by the wrapper method in each service
+   * class, so the operation covers the call and all its retries. The operation is named after the
+   * service class method that made the call (e.g. "getWorkspace").
+   *
+   * @param service short name of the service (e.g. "wsm")
+   * @param getStatusCode function to get the HTTP status code from an exception thrown by the
+   *     service client, returns null if the exception doesn't have one
+   * @param makeRequest function to perform the call
+   * @param <T> type of the response object (i.e. return type of the makeRequest function)
+   * @return the result of makeRequest
+   * @throws E if makeRequest throws an exception
+   */
+  public static <T, E extends Exception> T recordOperation(
+      String service,
+      Function<Exception, Integer> getStatusCode,
+      HttpUtils.SupplierWithCheckedException<T, E> makeRequest)
+      throws E, InterruptedException {
+    Recording recording = currentRecording.get();
+    Span span = startSpan(recording, Kind.OPERATION, null, service, getStatusCode);
+    if (span == null) {
+      return makeRequest.makeRequest();
+    }
+    try {
+      return makeRequest.makeRequest();
+    } catch (Exception ex) {
+      span.fail(ex);
+      throw ex;
+    } finally {
+      endSpan(recording, span);
+    }
+  }
+
+  /**
+   * Start recording one attempt of the current operation. Called by {@link
+   * HttpUtils#pollWithRetries} before each try.
+   *
+   * @param attemptNumber number of this attempt, starting at 1
+   * @return the attempt span to pass to {@link #endAttempt}, null if nothing is being recorded
+   */
+  @Nullable
+  static Span startAttempt(int attemptNumber) {
+    return startSpan(currentRecording.get(), Kind.ATTEMPT, attemptNumber, null, null);
+  }
+
+  /**
+   * Finish recording one attempt of the current operation.
+   *
+   * @param span span returned by {@link #startAttempt}, does nothing if null
+   * @param exception exception the attempt threw, null if it returned a result
+   */
+  static void endAttempt(@Nullable Span span, @Nullable Exception exception) {
+    if (span == null) {
+      return;
+    }
+    if (exception != null) {
+      span.fail(exception);
+    }
+    endSpan(currentRecording.get(), span);
+  }
+
+  /**
+   * Record the status code and size of an HTTP response, on the current attempt or operation of
+   * this thread. Called by the HTTP clients' response hooks (see {@link JerseyResponseFilter},
+   * {@link OkHttpInterceptor}) and {@link HttpUtils#sendHttpRequest}.
+   *
+   * @param statusCode HTTP status code
+   * @param responseBytes length of the response body, negative if unknown
+   */
+  static void recordHttpResponse(int statusCode, long responseBytes) {
+    Span span = currentSpan.get();
+    if (span != null && currentRecording.get() != null) {
+      span.addResponse(statusCode, responseBytes);
+    }
+  }
+
+  /** Start a span as a child of this thread's current span, or of the command if there is none. */
+  @Nullable
+  private static Span startSpan(
+      @Nullable Recording recording,
+      Kind kind,
+      @Nullable Integer attemptNumber,
+      @Nullable String service,
+      @Nullable Function<Exception, Integer> getStatusCode) {
+    if (recording == null) {
+      return null;
+    }
+    Span previous = currentSpan.get();
+    Span parent = previous != null ? previous : recording.commandSpan;
+    Span span;
+    if (kind == Kind.ATTEMPT) {
+      String name = parent.name + " attempt " + attemptNumber;
+      span = new Span(kind, parent, name, parent.service, previous);
+      span.getStatusCode = parent.getStatusCode;
+    } else {
+      span = new Span(kind, parent, getCallerName(), service, previous);
+      span.getStatusCode = getStatusCode;
+    }
+    currentSpan.set(span);
+    return span;
+  }
+
+  /**
+   * End a span, and make its parent the current span of this thread again. The span is added to the
+   * given recording, unless the command finished in the meantime.
+   */
+  private static void endSpan(@Nullable Recording recording, Span span) {
+    span.end();
+    currentSpan.set(span.previousOnThread);
+    if (span.kind == Kind.ATTEMPT && span.parent != null && span.parent.kind == Kind.OPERATION) {
+      span.parent.addAttempt(span);
+    }
+    if (recording != null) {
+      recording.finishedSpans.add(span);
+    }
+  }
+
+  /**
+   * Get the name of the service class method that made a call, skipping this class, {@link
+   * HttpUtils}, the service class wrapper methods and lambdas.
+   */
+  private static String getCallerName() {
+    return StackWalker.getInstance()
+        .walk(
+            frames ->
+                frames
+                    .filter(
+                        frame ->
+                            !frame.getClassName().equals(Telemetry.class.getName())
+                                && !frame.getClassName().equals(HttpUtils.class.getName())
+                                && !WRAPPER_METHOD_NAMES.contains(frame.getMethodName())
+                                && !frame.getMethodName().startsWith("lambda$"))
+                    .findFirst()
+                    .map(StackWalker.StackFrame::getMethodName)
+                    .orElse("unknown"));
+  }
+
+  /** Print one line per operation, a total per service and a total for the command. */
+  private static void printSummary(Span command, List<Span> spans, PrintStream printStream) {
+    List<Span> operations =
+        spans.stream().filter(span -> span.kind == Kind.OPERATION).collect(Collectors.toList());
+    printStream.println("[timings]");
+    printStream.println(
+        String.format(
+            "%-8s %-36s %8s %-16s %10s %9s",
+            "service", "operation", "attempts", "status", "bytes", "time"));
+    for (Span operation : operations) {
+      printStream.println(
+          String.format(
+              "%-8s %-36s %8d %-16s %10s %6d ms",
+              operation.service,
+              operation.name + (operation.error == null ? "" : " (failed)"),
+              operation.attempts,
+              operation.getStatusCodesString(),
+              operation.responseBytes > 0 ? Long.toString(operation.responseBytes) : "-",
+              operation.getDurationMillis()));
+    }
+
+    Map<String, List<Span>> operationsByService = new LinkedHashMap<>();
+    operations.forEach(
+        operation ->
+            operationsByService
+                .computeIfAbsent(operation.service, service -> new ArrayList<>())
+                .add(operation));
+    operationsByService.forEach(
+        (service, serviceOperations) ->
+            printStream.println(
+                String.format(
+                    "%-8s %-36s %8d %-16s %10s %6d ms",
+                    service,
+                    "total (" + serviceOperations.size() + " calls)",
+                    serviceOperations.stream().mapToInt(operation -> operation.attempts).sum(),
+                    "",
+                    Long.toString(
+                        serviceOperations.stream()
+                            .mapToLong(operation -> operation.responseBytes)
+                            .sum()),
+                    serviceOperations.stream().mapToLong(Span::getDurationMillis).sum())));
+    printStream.println(
+        String.format(
+            "%-8s %-36s %8s %-16s %10s %6d ms",
+            "command", command.name, "", "", "", command.getDurationMillis()));
+  }
+
+  /** Append the spans to a file, one JSON object per line. */
+  private static void exportToFile(Path file, List<Span> spans) {
+    List<String> lines = new ArrayList<>();
+    for (Span span : spans) {
+      ObjectNode json = JacksonMapper.getMapper().createObjectNode();
+      json.put("traceId", span.traceId);
+      json.put("spanId", span.spanId);
+      json.put("parentSpanId", span.parent == null ? null : span.parent.spanId);
+      json.put("kind", span.kind.toString().toLowerCase(Locale.ROOT));
+      json.put("service", span.service);
+      json.put("name", span.name);
+      json.put("startTime", span.startTime.toString());
+      json.put("durationMs", span.durationNanos / 1_000_000.0);
+      json.put("attempts", span.attempts);
+      ArrayNode statusCodes = json.putArray("statusCodes");
+      span.statusCodes.forEach(statusCodes::add);
+      json.put("responseBytes", span.responseBytes);
+      json.put("error", span.error);
+      lines.add(json.toString());
+    }
+    try {
+      Files.write(
+          file,
+          lines,
+          StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (IOException ioEx) {
+      logger.warn("Error writing telemetry spans to file: {}", file, ioEx);
+    }
+  }
+
+  /** Send the spans to an OpenTelemetry collector, using the OTLP/HTTP JSON encoding. */
+  private static void exportToOtlp(String endpoint, List<Span> spans) {
+    ObjectNode request = JacksonMapper.getMapper().createObjectNode();
+    ObjectNode resourceSpans = request.putArray("resourceSpans").addObject();
+    ArrayNode resourceAttributes = resourceSpans.putObject("resource").putArray("attributes");
+    addOtlpAttribute(resourceAttributes, "service.name", SERVICE_NAME);
+    addOtlpAttribute(resourceAttributes, "service.version", Version.getVersion());
+    ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+    scopeSpans.putObject("scope").put("name", Telemetry.class.getName());
+    ArrayNode otlpSpans = scopeSpans.putArray("spans");
+    for (Span span : spans) {
+      ObjectNode otlpSpan = otlpSpans.addObject();
+      otlpSpan.put("traceId", span.traceId);
+      otlpSpan.put("spanId", span.spanId);
+      if (span.parent != null) {
+        otlpSpan.put("parentSpanId", span.parent.spanId);
+      }
+      otlpSpan.put("name", span.kind == Kind.COMMAND ? span.name : span.service + " " + span.name);
+      otlpSpan.put(
+          "kind", span.kind == Kind.COMMAND ? OTLP_SPAN_KIND_INTERNAL : OTLP_SPAN_KIND_CLIENT);
+      long startUnixNanos =
+          span.startTime.getEpochSecond() * 1_000_000_000L + span.startTime.getNano();
+      otlpSpan.put("startTimeUnixNano", Long.toString(startUnixNanos));
+      otlpSpan.put("endTimeUnixNano", Long.toString(startUnixNanos + span.durationNanos));
+      ArrayNode attributes = otlpSpan.putArray("attributes");
+      addOtlpAttribute(attributes, "peer.service", span.service);
+      if (span.kind == Kind.OPERATION) {
+        addOtlpAttribute(attributes, "terra.attempts", span.attempts);
+      }
+      if (!span.statusCodes.isEmpty()) {
+        addOtlpAttribute(
+            attributes,
+            "http.response.status_code",
+            span.statusCodes.get(span.statusCodes.size() - 1));
+        addOtlpAttribute(attributes, "terra.status_codes", span.getStatusCodesString());
+      }
+      if (span.responseBytes > 0) {
+        addOtlpAttribute(attributes, "http.response.body.size", span.responseBytes);
+      }
+      ObjectNode status = otlpSpan.putObject("status");
+      if (span.error == null) {
+        status.put("code", OTLP_STATUS_CODE_OK);
+      } else {
+        addOtlpAttribute(attributes, "error.type", span.error);
+        status.put("code", OTLP_STATUS_CODE_ERROR);
+      }
+    }
+
+    HttpRequest httpRequest =
+        HttpRequest.newBuilder(URI.create(endpoint))
+            .timeout(OTLP_EXPORT_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(request.toString()))
+            .build();
+    try {
+      java.net.http.HttpResponse<String> response =
+          SharedHttpClients.getHttpClient()
+              .send(httpRequest, java.net.http.HttpResponse.BodyHandlers.ofString());
+      if (response.statusCode() / 100 != 2) {
+        logger.warn(
+            "Error sending telemetry spans to {}: status code {}, response body: {}",
+            endpoint,
+            response.statusCode(),
+            response.body());
+      }
+    } catch (IOException ioEx) {
+      logger.warn("Error sending telemetry spans to {}", endpoint, ioEx);
+    } catch (InterruptedException intEx) {
+      Thread.currentThread().interrupt();
+      logger.warn("Interrupted sending telemetry spans to {}", endpoint, intEx);
+    }
+  }
+
+  /** Add a string attribute to an OTLP attribute list. */
+  private static void addOtlpAttribute(ArrayNode attributes, String key, String value) {
+    ObjectNode attribute = attributes.addObject();
+    attribute.put("key", key);
+    attribute.putObject("value").put("stringValue", value);
+  }
+
+  /** Add an integer attribute to an OTLP attribute list. OTLP JSON encodes these as strings. */
+  private static void addOtlpAttribute(ArrayNode attributes, String key, long value) {
+    ObjectNode attribute = attributes.addObject();
+    attribute.put("key", key);
+    attribute.putObject("value").put("intValue", Long.toString(value));
+  }
+
+  /** Get the OTLP endpoint, if the environment variable is set. */
+  private static Optional<String> getOtlpEndpoint() {
+    return getEnvVar(OTLP_ENDPOINT_ENV_VAR);
+  }
+
+  /** Get the value of an environment variable, if it is set and not blank. */
+  private static Optional<String> getEnvVar(String name) {
+    return Optional.ofNullable(System.getenv(name)).filter(value -> !value.isBlank());
+  }
+
+  /** Generate a random id of the given number of bytes, as a lower-case hex string. */
+  private static String newId(int numBytes) {
+    StringBuilder id = new StringBuilder();
+    for (int ctr = 0; ctr < numBytes; ctr++) {
+      id.append(String.format("%02x", ThreadLocalRandom.current().nextInt(256)));
+    }
+    return id.toString();
+  }
+
+  /** Calls recorded for one command. */
+  private static class Recording {
+    private final Span commandSpan;
+    private final boolean printTimings;
+    private final List<Span> finishedSpans = Collections.synchronizedList(new ArrayList<>());
+
+    private Recording(Span commandSpan, boolean printTimings) {
+      this.commandSpan = commandSpan;
+      this.printTimings = printTimings;
+    }
+  }
+
+  /** A timed command, operation or attempt, and what it got back from the service. */
+  static class Span {
+    private final Kind kind;
+    private final String traceId;
+    private final String spanId;
+    @Nullable private final Span parent;
+    private final String name;
+    private final String service;
+    private final Instant startTime = Instant.now();
+    private final long startNanoTime = System.nanoTime();
+
+    // span that was current on this thread before this one started
+    @Nullable private final Span previousOnThread;
+    @Nullable private Function<Exception, Integer> getStatusCode;
+
+    private long durationNanos;
+    private int attempts;
+    private final List<Integer> statusCodes = new ArrayList<>();
+    private long responseBytes;
+    @Nullable private String error;
+
+    private Span(
+        Kind kind,
+        @Nullable Span parent,
+        String name,
+        String service,
+        @Nullable Span previousOnThread) {
+      this.kind = kind;
+      this.traceId = parent == null ? newId(16) : parent.traceId;
+      this.spanId = newId(8);
+      this.parent = parent;
+      this.name = name;
+      this.service = service;
+      this.previousOnThread = previousOnThread;
+    }
+
+    /** Record the status code and size of an HTTP response. */
+    private synchronized void addResponse(int statusCode, long numBytes) {
+      statusCodes.add(statusCode);
+      if (numBytes > 0) {
+        responseBytes += numBytes;
+      }
+    }
+
+    /** Add the status codes and bytes of a finished attempt to this operation. */
+    private synchronized void addAttempt(Span attempt) {
+      attempts++;
+      statusCodes.addAll(attempt.statusCodes);
+      responseBytes += attempt.responseBytes;
+    }
+
+    /**
+     * Record the exception that a span threw. If no HTTP response was recorded (e.g. the client
+     * doesn't expose one), use the status code from the exception.
+     */
+    private synchronized void fail(Exception ex) {
+      error = ex.getClass().getSimpleName();
+      if (statusCodes.isEmpty() && getStatusCode != null) {
+        Integer statusCode = getStatusCode.apply(ex);
+        if (statusCode != null) {
+          statusCodes.add(statusCode);
+        }
+      }
+    }
+
+    private synchronized void end() {
+      durationNanos = System.nanoTime() - startNanoTime;
+      // operations that don't retry (e.g. raw HTTP requests) make a single attempt
+      if (kind == Kind.OPERATION && attempts == 0) {
+        attempts = 1;
+      }
+    }
+
+    private long getDurationMillis() {
+      return durationNanos / 1_000_000;
+    }
+
+    private synchronized String getStatusCodesString() {
+      return statusCodes.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+  }
+
+  /**
+   * Response filter for the Jersey-based generated clients (e.g. WSM), which records the status
+   * code and size of each response.
+   */
+  public static class JerseyResponseFilter implements ClientResponseFilter {
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+      recordHttpResponse(responseContext.getStatus(), responseContext.getLength());
+    }
+  }
+
+  /**
+   * Network interceptor for the OkHttp-based generated clients (e.g. SAM), which records the
+   * status code and size of each response.
+   */
+  public static class OkHttpInterceptor implements Interceptor {
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+      Response response = chain.proceed(chain.request());
+      ResponseBody body = response.body();
+      recordHttpResponse(response.code(), body == null ? -1 : body.contentLength());
+      return response;
+    }
+  }
+}
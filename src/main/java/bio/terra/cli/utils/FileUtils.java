@@ -6,8 +6,12 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +19,37 @@ import org.slf4j.LoggerFactory;
 public class FileUtils {
   private static final Logger logger = LoggerFactory.getLogger(FileUtils.class);
 
+  // directory to resolve relative paths from the command line against. null means this process's
+  // working directory. the daemon sets it to the working directory of the client it's running a
+  // command for
+  @Nullable private static volatile Path workingDirectory;
+
+  /**
+   * Set the directory to resolve relative paths from the command line against.
+   *
+   * @param directory absolute path, or null to use this process's working directory
+   */
+  public static void setWorkingDirectory(@Nullable Path directory) {
+    workingDirectory = directory;
+  }
+
+  /**
+   * Resolve a path from the command line (e.g. the value of a --from-file option) against the
+   * working directory of the user who ran the command. Absolute paths are returned unchanged.
+   *
+   * @param path path as the user typed it
+   * @return path that can be opened from this process
+   */
+  public static Path resolveUserPath(Path path) {
+    Path directory = workingDirectory;
+    return directory == null ? path : directory.resolve(path);
+  }
+
+  /** Same as {@link #resolveUserPath(Path)}, for a path that is still a string. */
+  public static Path resolveUserPath(String path) {
+    return resolveUserPath(Path.of(path));
+  }
+
   /**
    * Build a stream handle to a resource file.
    *
@@ -62,4 +97,75 @@ public class FileUtils {
 
     return Files.write(outputFile.toPath(), fileContents.getBytes(StandardCharsets.UTF_8));
   }
+
+  /**
+   * Write bytes to a file by writing them to a temporary file in the same directory first, and then
+   * renaming it over the file. A reader sees either the old or the new contents, never a partially
+   * written file.
+   *
+   * @param outputFile the file to write to
+   * @param fileContents the bytes to write
+   */
+  public static void writeBytesToFileAtomically(Path outputFile, byte[] fileContents)
+      throws IOException {
+    logger.debug("Writing to file: {}", outputFile);
+    Files.createDirectories(outputFile.getParent());
+    Path tempFile =
+        Files.createTempFile(outputFile.getParent(), outputFile.getFileName().toString(), ".tmp");
+    writeAndMove(tempFile, outputFile, fileContents);
+  }
+
+  /**
+   * Same as {@link #writeBytesToFileAtomically(Path, byte[])}, but the file is only readable and
+   * writable by its owner (0600). Use this for files that hold credentials. On file systems that
+   * don't support POSIX permissions, the file is written with the default permissions.
+   *
+   * @param outputFile the file to write to
+   * @param fileContents the bytes to write
+   */
+  public static void writeOwnerOnlyBytesToFileAtomically(Path outputFile, byte[] fileContents)
+      throws IOException {
+    logger.debug("Writing to owner-only file: {}", outputFile);
+    Files.createDirectories(outputFile.getParent());
+    Path tempFile;
+    try {
+      tempFile =
+          Files.createTempFile(
+              outputFile.getParent(),
+              outputFile.getFileName().toString(),
+              ".tmp",
+              PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+    } catch (UnsupportedOperationException uoEx) {
+      tempFile =
+          Files.createTempFile(outputFile.getParent(), outputFile.getFileName().toString(), ".tmp");
+    }
+    writeAndMove(tempFile, outputFile, fileContents);
+  }
+
+  /** Write bytes to a temporary file and rename it over the output file. */
+  private static void writeAndMove(Path tempFile, Path outputFile, byte[] fileContents)
+      throws IOException {
+    try {
+      Files.write(tempFile, fileContents);
+      moveAtomically(tempFile, outputFile);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Rename a file, replacing the target if it exists. The rename is atomic if the file system
+   * supports it.
+   *
+   * @param source the file to rename
+   * @param target the new name
+   */
+  public static void moveAtomically(Path source, Path target) throws IOException {
+    try {
+      Files.move(
+          source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException amnsEx) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
 }
@@ -30,6 +30,10 @@ public class Logger {
   private static final long MAX_FILE_SIZE = 5 * FileSize.MB_COEFFICIENT; // 5 MB
   private static final int MAX_NUM_FILES = 5;
 
+  // logging levels the appenders are currently set up with, null if logging hasn't been set up yet
+  private static LogLevel currentConsoleLoggingLevel;
+  private static LogLevel currentFileLoggingLevel;
+
   /**
    * Setup a file and console appender for the root logger. Each may use a different logging level,
    * as specified in the global context.
@@ -41,6 +45,17 @@ public class Logger {
               + " and an exception would have been thrown earlier when we first read in the global "
               + "context file anyway.")
   public static void setupLogging(LogLevel consoleLoggingLevel, LogLevel fileLoggingLevel) {
+    // skip rebuilding the appenders if they're already set up with the same levels and the log
+    // file hasn't been deleted out from under them (e.g. for the second and later commands run by
+    // the daemon)
+    if (consoleLoggingLevel == currentConsoleLoggingLevel
+        && fileLoggingLevel == currentFileLoggingLevel
+        && Context.getLogFile().toFile().exists()) {
+      return;
+    }
+    currentConsoleLoggingLevel = consoleLoggingLevel;
+    currentFileLoggingLevel = fileLoggingLevel;
+
     LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
     loggerContext.reset();
 
@@ -0,0 +1,181 @@
+package bio.terra.cli.utils;
+
+import bio.terra.cli.exception.SystemException;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility methods for fanning out independent, blocking calls (e.g. a cloud lookup per workspace
+ * resource) onto a bounded pool of worker threads.
+ *
+ * <p>Mapper functions may read the current context (e.g. {@link
+ * bio.terra.cli.businessobject.Context#getConfig}, {@code getUser}, {@code getWorkspace}) and call
+ * the service classes, which are safe to use from several threads. They must not change which
+ * server, user or workspace is current, or re-initialize the context, because the other workers and
+ * the calling thread share it.
+ */
+public class ParallelUtils {
+  private static final Logger logger = LoggerFactory.getLogger(ParallelUtils.class);
+
+  private ParallelUtils() {}
+
+  /**
+   * Apply a function to each element of a list, using up to the given number of threads. The
+   * returned list is in the same order as the input list, regardless of the order in which the
+   * calls complete.
+   *
+   * @param inputs list of elements to map
+   * @param mapper function to apply to each element
+   * @param maxThreads maximum number of elements to process at the same time
+   * @param <F> type of the input elements
+   * @param <T> type of the output elements
+   * @return list of outputs, in the same order as the inputs
+   */
+  public static <F, T> List<T> mapInParallel(
+      List<F> inputs, Function<F, T> mapper, int maxThreads) {
+    return mapInParallel(inputs, mapper, null, maxThreads, null);
+  }
+
+  /**
+   * Apply a function to each element of a list, using up to the given number of threads. The
+   * returned list is in the same order as the input list, regardless of the order in which the
+   * calls complete.
+   *
+   * <p>If a timeout is specified and the mapper does not return within that time for a particular
+   * element, then the output for that element is the result of the timeout mapper instead. The
+   * timer for each element starts when a worker thread picks it up, not when it is queued. The
+   * timeout mapper is called eagerly, so it should be cheap (e.g. no network calls).
+   *
+   * <p>If the mapper throws an exception for any element, then that exception is re-thrown here
+   * after the workers are stopped. Elements after it that haven't started yet are skipped, and
+   * workers that are still running are interrupted.
+   *
+   * @param inputs list of elements to map
+   * @param mapper function to apply to each element
+   * @param mapperOnTimeout function to apply to an element whose mapper call timed out, null if
+   *     there is no timeout
+   * @param maxThreads maximum number of elements to process at the same time
+   * @param timeoutPerElement maximum time to wait for the mapper call for a single element, null if
+   *     there is no timeout
+   * @param <F> type of the input elements
+   * @param <T> type of the output elements
+   * @return list of outputs, in the same order as the inputs
+   */
+  public static <F, T> List<T> mapInParallel(
+      List<F> inputs,
+      Function<F, T> mapper,
+      @Nullable Function<F, T> mapperOnTimeout,
+      int maxThreads,
+      @Nullable Duration timeoutPerElement) {
+    List<T> outputs = new ArrayList<>(inputs.size());
+    mapInParallel(inputs, mapper, mapperOnTimeout, maxThreads, timeoutPerElement, outputs::add);
+    return outputs;
+  }
+
+  /**
+   * Apply a function to each element of a list, using up to the given number of threads, and pass
+   * each output to the given consumer as soon as it and all the outputs before it are available.
+   * The consumer is always called on the calling thread, in the same order as the input list.
+   *
+   * <p>This is useful for streaming the outputs somewhere (e.g. printing them to the terminal)
+   * without waiting for the slowest element, and without holding on to the outputs that have
+   * already been consumed.
+   *
+   * <p>Timeouts and exceptions are handled the same way as in {@link #mapInParallel(List, Function,
+   * Function, int, Duration)}. If the mapper throws an exception, then the consumer will already
+   * have been called for all the elements before it.
+   *
+   * @param inputs list of elements to map
+   * @param mapper function to apply to each element
+   * @param mapperOnTimeout function to apply to an element whose mapper call timed out, null if
+   *     there is no timeout
+   * @param maxThreads maximum number of elements to process at the same time
+   * @param timeoutPerElement maximum time to wait for the mapper call for a single element, null if
+   *     there is no timeout
+   * @param consumer function to call with each output, in the same order as the inputs
+   * @param <F> type of the input elements
+   * @param <T> type of the output elements
+   */
+  public static <F, T> void mapInParallel(
+      List<F> inputs,
+      Function<F, T> mapper,
+      @Nullable Function<F, T> mapperOnTimeout,
+      int maxThreads,
+      @Nullable Duration timeoutPerElement,
+      Consumer<T> consumer) {
+    if (inputs.isEmpty()) {
+      return;
+    }
+    boolean hasTimeout = mapperOnTimeout != null && timeoutPerElement != null;
+    int numThreads = Math.max(1, Math.min(maxThreads, inputs.size()));
+    logger.debug("Mapping {} elements on {} threads", inputs.size(), numThreads);
+
+    // use daemon threads so that a hung call past its timeout does not keep the JVM alive
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            numThreads,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("terra-worker-%d").build());
+    // index of the first element whose mapper threw, so that workers don't start on any elements
+    // after it. elements before it still run, because their outputs are consumed first
+    AtomicInteger firstFailedIndex = new AtomicInteger(Integer.MAX_VALUE);
+    try {
+      List<CompletableFuture<T>> futures = new ArrayList<>(inputs.size());
+      for (int index = 0; index < inputs.size(); index++) {
+        F input = inputs.get(index);
+        int inputIndex = index;
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(
+            () -> {
+              if (inputIndex > firstFailedIndex.get()) {
+                future.cancel(false);
+                return;
+              }
+              if (hasTimeout) {
+                future.completeOnTimeout(
+                    mapperOnTimeout.apply(input),
+                    timeoutPerElement.toMillis(),
+                    TimeUnit.MILLISECONDS);
+              }
+              try {
+                future.complete(mapper.apply(input));
+              } catch (RuntimeException | Error ex) {
+                firstFailedIndex.accumulateAndGet(inputIndex, Math::min);
+                future.completeExceptionally(ex);
+              }
+            });
+        futures.add(future);
+      }
+
+      // wait for the results in the order of the inputs, so the output order is deterministic.
+      // drop the reference to each future once its result is consumed, so it can be collected.
+      for (int ctr = 0; ctr < futures.size(); ctr++) {
+        T output = futures.get(ctr).join();
+        futures.set(ctr, null);
+        consumer.accept(output);
+      }
+    } catch (CompletionException completionEx) {
+      // unwrap and re-throw the exception thrown by the mapper
+      Throwable cause = completionEx.getCause() == null ? completionEx : completionEx.getCause();
+      Throwables.throwIfUnchecked(cause);
+      throw new SystemException("Error running calls in parallel.", cause);
+    } finally {
+      // stop any workers that are still running past their timeout, or that were queued behind a
+      // call that threw an exception
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package bio.terra.cli.utils;
+
+import java.io.PrintStream;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how long each phase of running a command takes, and how many classes each phase loads.
+ * The first phase covers everything from JVM start until the trace is created (i.e. JVM
+ * initialization, picocli building the command tree and parsing the arguments).
+ *
+ * <p>This is for diagnosing slow startup, and is printed by the hidden `--trace-startup` option
+ * that all commands accept. Class loading counts help separate time spent loading libraries (e.g.
+ * the first use of Jackson or the Google client libraries) from time spent waiting on the network.
+ */
+public class StartupTrace {
+  private final RuntimeMXBean runtimeBean = ManagementFactory.getRuntimeMXBean();
+  private final ClassLoadingMXBean classLoadingBean = ManagementFactory.getClassLoadingMXBean();
+  private final List<String> phaseSummaries = new ArrayList<>();
+
+  private long lastPhaseEndMillis = 0;
+  private long lastPhaseEndClassCount = 0;
+
+  /** Start a trace, recording the time since JVM start as the first phase. */
+  public StartupTrace() {
+    endPhase("jvm start and argument parsing");
+  }
+
+  /**
+   * Mark the end of a phase, which started at the end of the previous phase.
+   *
+   * @param phaseName name of the phase to print
+   */
+  public void endPhase(String phaseName) {
+    long nowMillis = runtimeBean.getUptime();
+    long classCount = classLoadingBean.getTotalLoadedClassCount();
+    phaseSummaries.add(
+        String.format(
+            "%-32s %6d ms %6d classes",
+            phaseName, nowMillis - lastPhaseEndMillis, classCount - lastPhaseEndClassCount));
+    lastPhaseEndMillis = nowMillis;
+    lastPhaseEndClassCount = classCount;
+  }
+
+  /**
+   * Print one line per phase, and a total.
+   *
+   * @param printStream stream to print to (e.g. stderr, so the trace doesn't mix with the command's
+   *     output)
+   */
+  public void print(PrintStream printStream) {
+    printStream.println("[startup trace]");
+    phaseSummaries.forEach(printStream::println);
+    printStream.println(
+        String.format(
+            "%-32s %6d ms %6d classes", "total", lastPhaseEndMillis, lastPhaseEndClassCount));
+  }
+}
@@ -0,0 +1,78 @@
+package bio.terra.cli.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * Output stream that writes to a different target stream for each thread. This lets commands that
+ * run at the same time in one JVM (e.g. `terra batch --parallel`) each capture their own output,
+ * even though they all write to the same {@link UserIO} streams.
+ *
+ * <p>Threads that haven't set a target write to the default stream. Threads started by a thread
+ * that has a target (e.g. the workers a command uses to look up resources in parallel) write to
+ * the same target.
+ */
+public class ThreadRoutedOutputStream extends OutputStream {
+  private final OutputStream defaultStream;
+  private final InheritableThreadLocal<OutputStream> threadStream = new InheritableThreadLocal<>();
+
+  /**
+   * Build a stream that writes to the given default stream, until a thread sets its own target.
+   *
+   * @param defaultStream stream for threads that haven't set a target
+   */
+  public ThreadRoutedOutputStream(OutputStream defaultStream) {
+    this.defaultStream = defaultStream;
+  }
+
+  /**
+   * Write the current thread's output, and that of any threads it starts from now on, to the given
+   * stream.
+   *
+   * @param target stream to write to, or null for the default stream
+   * @return stream the current thread wrote to before, or null if it was the default stream. pass
+   *     this back in to restore it
+   */
+  @Nullable
+  public OutputStream routeCurrentThread(@Nullable OutputStream target) {
+    OutputStream previousTarget = threadStream.get();
+    if (target == null) {
+      threadStream.remove();
+    } else {
+      threadStream.set(target);
+    }
+    return previousTarget;
+  }
+
+  /** Return true if the current thread writes to its own target, instead of the default stream. */
+  public boolean isCurrentThreadRouted() {
+    return threadStream.get() != null;
+  }
+
+  /** Get the stream for threads that haven't set a target. */
+  public OutputStream getDefaultStream() {
+    return defaultStream;
+  }
+
+  /** Get the stream to write to for the current thread. */
+  private OutputStream getTarget() {
+    OutputStream target = threadStream.get();
+    return target == null ? defaultStream : target;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    getTarget().write(b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    getTarget().write(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    getTarget().flush();
+  }
+}
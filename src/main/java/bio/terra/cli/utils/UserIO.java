@@ -1,13 +1,17 @@
 package bio.terra.cli.utils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 
@@ -15,6 +19,10 @@ import picocli.CommandLine;
  * Singleton class for holding a reference to input and output streams (e.g. stdin, stdout, stderr).
  * The purpose of holding these references in a single place is so that we can read/write in/output
  * throughout the codebase without passing around the streams from the top-level command classes.
+ *
+ * <p>The output and error streams go through a {@link ThreadRoutedOutputStream}, so that a thread
+ * can send what it writes somewhere else (e.g. each command run by `terra batch`), without changing
+ * the streams for other threads. See {@link #routeOutput}.
  */
 public class UserIO {
   private static final org.slf4j.Logger logger = LoggerFactory.getLogger(UserIO.class);
@@ -23,16 +31,16 @@ public class UserIO {
   private static final PrintStream DEFAULT_ERR_STREAM = System.err;
   private static final InputStream DEFAULT_IN_STREAM = System.in;
 
-  private final PrintStream out;
-  private final PrintStream err;
+  private final RoutedPrintStream out;
+  private final RoutedPrintStream err;
   private final InputStream in;
 
   private static UserIO userIO;
 
   /** Constructor that initializes the printer with the specified output streams. */
   private UserIO(PrintStream out, PrintStream err, InputStream in) {
-    this.out = out;
-    this.err = err;
+    this.out = RoutedPrintStream.wrap(out);
+    this.err = RoutedPrintStream.wrap(err);
     this.in = in;
   }
 
@@ -53,8 +61,8 @@ public class UserIO {
     if (userIO == null) {
       initialize(DEFAULT_OUT_STREAM, DEFAULT_ERR_STREAM, DEFAULT_IN_STREAM);
     } else {
-      logger.warn(
-          "Printing setup called multiple times. This is expected when testing, not during normal operation.");
+      logger.debug(
+          "Printing setup called multiple times. This is expected when testing or running as a daemon.");
     }
     cmd.setOut(getPrintWriter(userIO.out));
     cmd.setErr(getPrintWriter(userIO.err));
@@ -68,6 +76,9 @@ public class UserIO {
    * <p>- In normal operation, this method is called once from the {@link
    * #setupPrinting(CommandLine)} method.
    *
+   * <p>Streams returned by {@link #getOut} and {@link #getErr} can be passed back in, e.g. to
+   * restore them, and keep the threads that are routed elsewhere.
+   *
    * @param standardOut stream to write standard out to
    * @param standardErr stream to write standard err to
    */
@@ -89,6 +100,54 @@ public class UserIO {
     return userIO.out;
   }
 
+  /**
+   * Run a function, sending what it writes to the output and error streams to the given streams
+   * instead. Only output written on the current thread, and on threads it starts, is routed, so
+   * other threads (e.g. commands run in parallel by `terra batch`) keep printing as normal.
+   *
+   * @param routedOut stream to write the function's output to
+   * @param routedErr stream to write the function's errors to, or null to leave them alone
+   * @param function function to run
+   * @return result of the function
+   */
+  public static <T> T routeOutput(
+      OutputStream routedOut, @Nullable OutputStream routedErr, Supplier<T> function) {
+    if (userIO == null) {
+      initialize(DEFAULT_OUT_STREAM, DEFAULT_ERR_STREAM, DEFAULT_IN_STREAM);
+    }
+    UserIO currentUserIO = userIO;
+    OutputStream previousOut = currentUserIO.out.router.routeCurrentThread(routedOut);
+    OutputStream previousErr =
+        routedErr == null ? null : currentUserIO.err.router.routeCurrentThread(routedErr);
+    try {
+      return function.get();
+    } finally {
+      currentUserIO.out.router.routeCurrentThread(previousOut);
+      if (routedErr != null) {
+        currentUserIO.err.router.routeCurrentThread(previousErr);
+      }
+    }
+  }
+
+  /**
+   * Run a function and return what it writes to the output stream, instead of printing it. See
+   * {@link #routeOutput}.
+   *
+   * @param function function to run
+   * @return what the function wrote to the output stream
+   */
+  public static String captureOut(Runnable function) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    routeOutput(
+        buffer,
+        null,
+        () -> {
+          function.run();
+          return null;
+        });
+    return buffer.toString(StandardCharsets.UTF_8);
+  }
+
   /**
    * Utility method to get the error stream from the singleton.
    *
@@ -115,11 +174,48 @@ public class UserIO {
     return userIO.in;
   }
 
+  /**
+   * Utility method to check whether output is written straight to this process's stdout and
+   * stderr, i.e. it has not been redirected (e.g. by tests, or by the daemon to send it to a
+   * client), or routed elsewhere for the current thread.
+   *
+   * @return true if the output and error streams are this process's stdout and stderr
+   */
+  public static boolean isDefaultOutput() {
+    if (userIO == null) {
+      return true;
+    }
+    return userIO.out.isDefaultFor(DEFAULT_OUT_STREAM)
+        && userIO.err.isDefaultFor(DEFAULT_ERR_STREAM);
+  }
+
   /** Utility method to get a UTF-8 encoded character output stream from a raw byte stream. */
   private static PrintWriter getPrintWriter(PrintStream printStream) {
     return new PrintWriter(printStream, true, StandardCharsets.UTF_8);
   }
 
+  /** Print stream that writes through a {@link ThreadRoutedOutputStream}. */
+  private static class RoutedPrintStream extends PrintStream {
+    private final ThreadRoutedOutputStream router;
+
+    private RoutedPrintStream(ThreadRoutedOutputStream router) {
+      super(router, true, StandardCharsets.UTF_8);
+      this.router = router;
+    }
+
+    /** Wrap a stream in a router, unless it's already one. */
+    private static RoutedPrintStream wrap(PrintStream stream) {
+      return stream instanceof RoutedPrintStream
+          ? (RoutedPrintStream) stream
+          : new RoutedPrintStream(new ThreadRoutedOutputStream(stream));
+    }
+
+    /** Return true if the current thread writes straight to the given stream. */
+    private boolean isDefaultFor(PrintStream stream) {
+      return router.getDefaultStream() == stream && !router.isCurrentThreadRouted();
+    }
+  }
+
   /** Utility method to sort and map a list's contents. */
   public static <F, T> List<T> sortAndMap(
       List<F> fromList, Comparator<F> sorter, Function<F, T> mapper) {
@@ -1,10 +1,32 @@
 package bio.terra.cli.utils;
 
-/** Utility methods for the currently installed version of the Terra CLI. */
+/**
+ * Utility methods for the currently installed version of the Terra CLI.
+ *
+ * <p>The versions are read from the JAR manifest when this class is initialized. The native image
+ * build initializes this class at build time, when the JAR is still there, so the versions are
+ * also available to a native executable, which has no manifest.
+ */
 public class Version {
+  private static final String VERSION = Version.class.getPackage().getSpecificationVersion();
+  private static final String IMPLEMENTATION_VERSION =
+      Version.class.getPackage().getImplementationVersion();
+
   /** Getter for the Terra CLI version of the current JAR. */
   public static String getVersion() {
-    // read from the JAR Manifest file
-    return Version.class.getPackage().getSpecificationVersion();
+    return VERSION;
+  }
+
+  /**
+   * Getter for the implementation version of the current JAR, which is the default Docker image id.
+   * Returns null when running from source code (e.g. unit tests), because there is no manifest.
+   */
+  public static String getImplementationVersion() {
+    return IMPLEMENTATION_VERSION;
+  }
+
+  /** Return true if this is running as a GraalVM native executable, instead of on a JVM. */
+  public static boolean isNativeImage() {
+    return System.getProperty("org.graalvm.nativeimage.imagecode") != null;
   }
 }
@@ -12,19 +12,28 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 
 /**
  * Utility methods for executing commands and reading their outputs during testing. This class is
  * intended for unit tests because it calls the commands directly in Java.
+ *
+ * <p>When testing a native executable (./gradlew runTestsWithTag -PtestTag=unit -PtestNativeImage),
+ * each command runs in the executable instead, and the context is re-read from disk afterwards so
+ * that the test sees any changes the command made.
  */
 public class TestCommand {
+  // path to the native executable to run commands in, null to call the commands directly in Java
+  @Nullable private static final String NATIVE_IMAGE = System.getProperty("TERRA_NATIVE_IMAGE");
 
   private static ObjectMapper objectMapper = new ObjectMapper();
 
@@ -67,7 +76,8 @@ public class TestCommand {
 
     // execute the command from the top-level Main class
     System.out.println("COMMAND: " + String.join(" ", args));
-    int exitCode = Main.runCommand(args);
+    int exitCode =
+        NATIVE_IMAGE == null ? Main.runCommand(args) : runNativeImage(stdIn, stdOut, stdErr, args);
 
     // log the stdout, stdin and stderr to the console
     String stdOutStr = stdOut.toString(StandardCharsets.UTF_8);
@@ -91,6 +101,60 @@ public class TestCommand {
     return new Result(exitCode, stdOutStr, stdErrStr);
   }
 
+  /**
+   * Run a command in the native executable, in a child process, and copy its standard in, out and
+   * error to and from the given streams. Re-read the context afterwards, because the command may
+   * have changed it on disk.
+   *
+   * @return process exit code
+   */
+  private static int runNativeImage(
+      @Nullable InputStream stdIn, OutputStream stdOut, OutputStream stdErr, String... args) {
+    List<String> command = new ArrayList<>();
+    command.add(NATIVE_IMAGE);
+    // pass through the pet SA key file, for app commands (see above)
+    String credentialsOverride =
+        System.getProperty(CommandRunner.CREDENTIALS_OVERRIDE_SYSTEM_PROPERTY);
+    if (credentialsOverride != null) {
+      command.add(
+          "-D" + CommandRunner.CREDENTIALS_OVERRIDE_SYSTEM_PROPERTY + "=" + credentialsOverride);
+    }
+    command.addAll(Arrays.asList(args));
+
+    try {
+      Process process = new ProcessBuilder(command).start();
+      // copy each stream on its own thread, so a full pipe can't block the child process
+      CompletableFuture<Void> copyIn =
+          CompletableFuture.runAsync(
+              () -> {
+                try (OutputStream processIn = process.getOutputStream()) {
+                  if (stdIn != null) {
+                    stdIn.transferTo(processIn);
+                  }
+                } catch (IOException ioEx) {
+                  throw new UncheckedIOException(ioEx);
+                }
+              });
+      CompletableFuture<Void> copyErr =
+          CompletableFuture.runAsync(
+              () -> {
+                try {
+                  process.getErrorStream().transferTo(stdErr);
+                } catch (IOException ioEx) {
+                  throw new UncheckedIOException(ioEx);
+                }
+              });
+      process.getInputStream().transferTo(stdOut);
+      copyIn.join();
+      copyErr.join();
+      int exitCode = process.waitFor();
+      Context.initializeFromDisk();
+      return exitCode;
+    } catch (IOException | InterruptedException ex) {
+      throw new RuntimeException("Error running command in the native executable", ex);
+    }
+  }
+
   /**
    * Call the top-level Main class to execute a command. Return the exit code, standard out and
    * standard error.
@@ -0,0 +1,92 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import bio.terra.cli.serialization.userfacing.UFBatchCommand;
+import bio.terra.cli.utils.JacksonMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import harness.TestCommand;
+import harness.baseclasses.ClearContextUnit;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for the `terra batch` command. */
+@Tag("unit")
+public class Batch extends ClearContextUnit {
+  @Test
+  @DisplayName("batch runs each line and prints one result per line")
+  void runsEachLine(@TempDir Path tempDir) throws IOException {
+    Path commandsFile = tempDir.resolve("commands.txt");
+    Files.write(
+        commandsFile,
+        List.of(
+            "# set the format, then read it back",
+            "config set format \"JSON\"",
+            "",
+            "terra config get format"),
+        StandardCharsets.UTF_8);
+
+    // `terra batch --from-file=$commandsFile`
+    TestCommand.Result cmd =
+        TestCommand.runCommand("batch", "--from-file=" + commandsFile.toString());
+    assertEquals(0, cmd.exitCode, "batch exit code = success");
+
+    List<UFBatchCommand> results = readResults(cmd.stdOut);
+    assertEquals(2, results.size(), "one result per command");
+    assertEquals(2, results.get(0).line, "first result is for line 2");
+    assertEquals(0, results.get(0).exitCode, "config set exit code = success");
+    assertEquals(4, results.get(1).line, "second result is for line 4");
+    assertEquals("terra config get format", results.get(1).command, "command text is the line");
+    assertThat("config get output is captured", results.get(1).stdout, containsString("JSON"));
+  }
+
+  @Test
+  @DisplayName("batch stops at the first failure, unless --keep-going is specified")
+  void stopsAtFailure(@TempDir Path tempDir) throws IOException {
+    Path commandsFile = tempDir.resolve("commands.txt");
+    Files.write(
+        commandsFile,
+        List.of("config get format", "config get not-a-property", "config get format"),
+        StandardCharsets.UTF_8);
+
+    // `terra batch --from-file=$commandsFile`
+    TestCommand.Result cmd =
+        TestCommand.runCommand("batch", "--from-file=" + commandsFile.toString());
+    assertEquals(1, cmd.exitCode, "batch exit code = user actionable error");
+    assertThat("error mentions the failed line", cmd.stdErr, containsString("line 2"));
+    List<UFBatchCommand> results = readResults(cmd.stdOut);
+    assertEquals(2, results.size(), "commands after the failure are not run");
+    assertEquals(2, results.get(1).exitCode, "invalid command exit code = parse error");
+
+    // `terra batch --from-file=$commandsFile --keep-going`
+    cmd =
+        TestCommand.runCommand(
+            "batch", "--from-file=" + commandsFile.toString(), "--keep-going", "--parallel=2");
+    assertEquals(1, cmd.exitCode, "batch exit code = user actionable error");
+    assertThat("error counts the failures", cmd.stdErr, containsString("1 of 3 commands failed"));
+    results = readResults(cmd.stdOut);
+    assertEquals(3, results.size(), "all commands are run");
+    assertEquals(3, results.get(2).line, "results are in input order");
+  }
+
+  /** Read the NDJSON output of the batch command. */
+  private static List<UFBatchCommand> readResults(String stdOut) throws JsonProcessingException {
+    List<UFBatchCommand> results = new ArrayList<>();
+    for (String line : stdOut.split("\n")) {
+      if (!line.isBlank()) {
+        results.add(JacksonMapper.getMapper().readValue(line, UFBatchCommand.class));
+      }
+    }
+    return results;
+  }
+}
@@ -4,19 +4,24 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import bio.terra.cli.businessobject.Config.BrowserLaunchOption;
 import bio.terra.cli.businessobject.Config.CommandRunnerOption;
 import bio.terra.cli.serialization.userfacing.UFConfig;
 import bio.terra.cli.serialization.userfacing.UFLoggingConfig;
+import bio.terra.cli.serialization.userfacing.UFResourceLookupConfig;
 import bio.terra.cli.serialization.userfacing.UFServer;
 import bio.terra.cli.serialization.userfacing.UFWorkspace;
+import bio.terra.cli.serialization.userfacing.resource.UFGcsBucket;
 import bio.terra.cli.utils.Logger;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import harness.TestCommand;
 import harness.TestCommand.Result;
 import harness.baseclasses.SingleWorkspaceUnit;
 import java.io.IOException;
+import java.util.List;
 import java.util.UUID;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
@@ -81,6 +86,21 @@ public class Config extends SingleWorkspaceUnit {
     TestCommand.runCommandExpectSuccess(
         "resource", "create", "gcs-bucket", "--name=" + name2, "--bucket-name=" + bucketName2);
 
+    // set the page size to 1, so that listing the 2 resources takes multiple requests
+    TestCommand.runCommandExpectSuccess("config", "set", "resource-page-size", "--size=1");
+
+    // `terra resource list --type=GCS_BUCKET --refresh`
+    List<UFGcsBucket> listedBuckets =
+        TestCommand.runAndParseCommandExpectSuccess(
+            new TypeReference<>() {}, "resource", "list", "--type=GCS_BUCKET", "--refresh");
+    assertTrue(
+        listedBuckets.stream().anyMatch(resource -> name1.equals(resource.name)),
+        "first resource listed with page size 1");
+    assertTrue(
+        listedBuckets.stream().anyMatch(resource -> name2.equals(resource.name)),
+        "second resource listed with page size 1");
+    TestCommand.runCommandExpectSuccess("config", "set", "resource-page-size", "--default");
+
     // set the resource limit to 1
     TestCommand.runCommandExpectSuccess("config", "set", "resource-limit", "--max=1");
 
@@ -90,6 +110,12 @@ public class Config extends SingleWorkspaceUnit {
         "error thrown when resource limit exceeded",
         stdErr,
         containsString("Total number of resources (2) exceeds the CLI limit (1)"));
+
+    // `terra resource list --offline` uses the cached list without checking the limit
+    List<UFGcsBucket> cachedBuckets =
+        TestCommand.runAndParseCommandExpectSuccess(
+            new TypeReference<>() {}, "resource", "list", "--type=GCS_BUCKET", "--offline");
+    assertEquals(2, cachedBuckets.size(), "offline list returns the cached resources");
   }
 
   @Test
@@ -223,6 +249,21 @@ public class Config extends SingleWorkspaceUnit {
     config = TestCommand.runAndParseCommandExpectSuccess(UFConfig.class, "config", "list");
     assertEquals(imageId, config.dockerImageId, "list reflects set for image");
 
+    // `terra config set app-container-idle-timeout --seconds=300`
+    TestCommand.runCommandExpectSuccess(
+        "config", "set", "app-container-idle-timeout", "--seconds=300");
+    // `terra config get app-container-idle-timeout`
+    int appContainerIdleTimeout =
+        TestCommand.runAndParseCommandExpectSuccess(
+            Integer.class, "config", "get", "app-container-idle-timeout");
+    assertEquals(300, appContainerIdleTimeout, "get reflects set for app-container-idle-timeout");
+    // `terra config list`
+    config = TestCommand.runAndParseCommandExpectSuccess(UFConfig.class, "config", "list");
+    assertEquals(
+        300,
+        config.appContainerIdleTimeoutSeconds,
+        "list reflects set for app-container-idle-timeout");
+
     // `terra config set resource-limit --max=3`
     TestCommand.runCommandExpectSuccess("config", "set", "resource-limit", "--max=3");
     // `terra config get resource-limit`
@@ -234,6 +275,43 @@ public class Config extends SingleWorkspaceUnit {
     config = TestCommand.runAndParseCommandExpectSuccess(UFConfig.class, "config", "list");
     assertEquals(3, config.resourcesCacheSize, "list reflects set for resource-limit");
 
+    // `terra config set resource-page-size --size=25`
+    TestCommand.runCommandExpectSuccess("config", "set", "resource-page-size", "--size=25");
+    // `terra config get resource-page-size`
+    int resourcePageSize =
+        TestCommand.runAndParseCommandExpectSuccess(
+            Integer.class, "config", "get", "resource-page-size");
+    assertEquals(25, resourcePageSize, "get reflects set for resource-page-size");
+    // `terra config list`
+    config = TestCommand.runAndParseCommandExpectSuccess(UFConfig.class, "config", "list");
+    assertEquals(25, config.resourcesPageSize, "list reflects set for resource-page-size");
+
+    // `terra config set resource-cache-ttl --seconds=0`
+    TestCommand.runCommandExpectSuccess("config", "set", "resource-cache-ttl", "--seconds=0");
+    // `terra config get resource-cache-ttl`
+    int resourceCacheTtl =
+        TestCommand.runAndParseCommandExpectSuccess(
+            Integer.class, "config", "get", "resource-cache-ttl");
+    assertEquals(0, resourceCacheTtl, "get reflects set for resource-cache-ttl");
+    // `terra config list`
+    config = TestCommand.runAndParseCommandExpectSuccess(UFConfig.class, "config", "list");
+    assertEquals(0, config.resourcesCacheTtlSeconds, "list reflects set for resource-cache-ttl");
+
+    // `terra config set resource-lookup --threads=4 --timeout=15`
+    TestCommand.runCommandExpectSuccess(
+        "config", "set", "resource-lookup", "--threads=4", "--timeout=15");
+    // `terra config get resource-lookup`
+    UFResourceLookupConfig resourceLookup =
+        TestCommand.runAndParseCommandExpectSuccess(
+            UFResourceLookupConfig.class, "config", "get", "resource-lookup");
+    assertEquals(4, resourceLookup.threads, "get reflects set for resource-lookup threads");
+    assertEquals(15, resourceLookup.timeoutSeconds, "get reflects set for resource-lookup timeout");
+    // `terra config list`
+    config = TestCommand.runAndParseCommandExpectSuccess(UFConfig.class, "config", "list");
+    assertEquals(4, config.resourceLookupThreads, "list reflects set for resource-lookup threads");
+    assertEquals(
+        15, config.resourceLookupTimeoutSeconds, "list reflects set for resource-lookup timeout");
+
     // `terra config set logging --console --level=ERROR`
     TestCommand.runCommandExpectSuccess("config", "set", "logging", "--console", "--level=ERROR");
     // `terra config set logging --file --level=TRACE`
@@ -272,5 +350,10 @@ public class Config extends SingleWorkspaceUnit {
     // --format switch overrides current setting
     Result result3 = TestCommand.runCommand("config", "list", "--format=json");
     assertThat(result3.stdOut, containsString("\"format\" : \"TEXT\""));
+
+    // ndjson prints compact json on a single line
+    Result result4 = TestCommand.runCommand("config", "list", "--format=ndjson");
+    assertThat(result4.stdOut, containsString("\"format\":\"TEXT\""));
+    assertEquals(1, result4.stdOut.trim().lines().count(), "ndjson output is a single line");
   }
 }
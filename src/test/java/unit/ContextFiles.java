@@ -0,0 +1,315 @@
+package unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.businessobject.Resource;
+import bio.terra.cli.businessobject.VersionCheck;
+import bio.terra.cli.businessobject.Workspace;
+import bio.terra.cli.command.Main;
+import bio.terra.cli.exception.UserActionableException;
+import bio.terra.cli.serialization.persisted.PDContext;
+import bio.terra.cli.serialization.persisted.PDVersionCheck;
+import bio.terra.cli.serialization.persisted.PDWorkspace;
+import bio.terra.cli.serialization.persisted.resource.PDGitRepo;
+import bio.terra.cli.utils.JacksonMapper;
+import bio.terra.workspace.model.StewardshipType;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import harness.TestCommand;
+import harness.baseclasses.ClearContextUnit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for persisting the context as one file per part, in the context sub-directory. */
+@Tag("unit")
+public class ContextFiles extends ClearContextUnit {
+  private static final String CONFIG_FILENAME = "config.json";
+  private static final String VERSION_CHECK_FILENAME = "version-check.json";
+  private static final String WORKSPACE_FILENAME = "workspace.json";
+  private static final String LEGACY_CONTEXT_FILENAME = "context.json";
+
+  @Test
+  @DisplayName("context file from an older version is split into files, and then deleted")
+  void legacyFileMigrated() throws IOException {
+    writeLegacyContextFile(7);
+    Path legacyContextFile = Context.getContextDir().resolve(LEGACY_CONTEXT_FILENAME);
+
+    Context.initializeFromDisk();
+    assertEquals(7, Context.getConfig().getResourcesPageSize(), "config read from legacy file");
+
+    Context.synchronizeToDisk();
+    assertFalse(legacyContextFile.toFile().exists(), "legacy file is deleted");
+    assertTrue(getShardFile(CONFIG_FILENAME).toFile().exists(), "config file is written");
+    assertTrue(getShardFile(VERSION_CHECK_FILENAME).toFile().exists(), "version check written");
+
+    Context.initializeFromDisk();
+    assertEquals(7, Context.getConfig().getResourcesPageSize(), "config read from new file");
+  }
+
+  @Test
+  @DisplayName("read-only command leaves the context file from an older version in place")
+  void legacyFileKeptByReadOnlyCommand() throws IOException {
+    writeLegacyContextFile(7);
+    Path legacyContextFile = Context.getContextDir().resolve(LEGACY_CONTEXT_FILENAME);
+
+    // `terra config get resource-page-size --format=json`
+    int pageSize =
+        TestCommand.runAndParseCommandExpectSuccess(
+            Integer.class, "config", "get", "resource-page-size");
+    assertEquals(7, pageSize, "config read from legacy file");
+    assertTrue(legacyContextFile.toFile().exists(), "legacy file is kept");
+    assertFalse(Context.getContextShardDir().toFile().exists(), "no new files are written");
+  }
+
+  @Test
+  @DisplayName("setting a part of the context to null deletes its file")
+  void nullValueDeletesFile() {
+    Context.setVersionCheck(new VersionCheck(OffsetDateTime.now()));
+    assertTrue(getShardFile(VERSION_CHECK_FILENAME).toFile().exists(), "file is written");
+
+    Context.setVersionCheck(null);
+    assertFalse(getShardFile(VERSION_CHECK_FILENAME).toFile().exists(), "file is deleted");
+
+    Context.initializeFromDisk();
+    assertTrue(Context.getVersionCheck().isEmpty(), "null value is read back");
+  }
+
+  @Test
+  @DisplayName("changes to a workspace that another command replaced are dropped")
+  void replacedWorkspaceDropsChanges() throws IOException {
+    Context.setWorkspace(buildWorkspace());
+
+    // this command reads the workspace
+    Context.initializeFromDisk();
+    Workspace workspace = Context.requireWorkspace();
+
+    // another command sets a different workspace
+    Workspace otherWorkspace = buildWorkspace();
+    JacksonMapper.writeJavaObjectToFile(
+        getShardFile(WORKSPACE_FILENAME).toFile(), new PDWorkspace(otherWorkspace));
+
+    // this command changes the workspace it read
+    workspace.addResourceAndSync(buildResource());
+
+    Context.initializeFromDisk();
+    Workspace workspaceOnDisk = Context.requireWorkspace();
+    assertEquals(otherWorkspace.getId(), workspaceOnDisk.getId(), "other workspace is kept");
+    assertEquals(0, workspaceOnDisk.getResourcesCount(), "changes to this workspace are dropped");
+  }
+
+  @Test
+  @DisplayName("changes to different fields of the same file by two commands are merged")
+  void disjointChangesMerged() throws IOException {
+    // this command reads the config
+    Context.initializeFromDisk();
+    int cacheSize = Context.getConfig().getResourcesCacheSize();
+
+    // another command changes one field
+    editConfigFile("resourcesPageSize", 7);
+
+    // this command changes another field
+    Context.getConfig().setResourcesCacheSize(cacheSize + 1);
+    Context.synchronizeToDisk();
+
+    Context.initializeFromDisk();
+    assertEquals(7, Context.getConfig().getResourcesPageSize(), "other command's change is kept");
+    assertEquals(
+        cacheSize + 1,
+        Context.getConfig().getResourcesCacheSize(),
+        "this command's change is kept");
+  }
+
+  @Test
+  @DisplayName("changes to the same field of the same file by two commands conflict")
+  void conflictingChangesThrow() throws IOException {
+    // this command reads the config
+    Context.initializeFromDisk();
+    Context.getConfig();
+
+    // another command changes a field
+    editConfigFile("resourcesPageSize", 7);
+
+    // this command changes the same field to a different value
+    Context.getConfig().setResourcesPageSize(8);
+    assertThrows(UserActionableException.class, Context::synchronizeToDisk, "conflict is reported");
+
+    Context.initializeFromDisk();
+    assertEquals(7, Context.getConfig().getResourcesPageSize(), "other command's change is kept");
+  }
+
+  @Test
+  @DisplayName("file created by another command conflicts with one this command creates")
+  void createdFileConflicts() throws IOException {
+    // this command reads the version check, when there is no file
+    Files.deleteIfExists(getShardFile(VERSION_CHECK_FILENAME));
+    Context.initializeFromDisk();
+    assertTrue(Context.getVersionCheck().isEmpty(), "no version check is read");
+
+    // another command creates the file
+    OffsetDateTime otherCheckTime = OffsetDateTime.now().minusMinutes(1);
+    writeVersionCheckFile(otherCheckTime);
+
+    // this command creates it too
+    assertThrows(
+        UserActionableException.class,
+        () -> Context.setVersionCheck(new VersionCheck(OffsetDateTime.now())),
+        "conflict is reported");
+
+    Context.initializeFromDisk();
+    assertEquals(
+        otherCheckTime.toInstant(),
+        Context.getVersionCheck().orElseThrow().getLastVersionCheckTime().toInstant(),
+        "other command's file is kept");
+  }
+
+  @Test
+  @DisplayName("file deleted by another command conflicts with changes from this command")
+  void deletedFileConflicts() throws IOException {
+    // this command reads the version check
+    Context.setVersionCheck(new VersionCheck(OffsetDateTime.now().minusMinutes(1)));
+    Context.initializeFromDisk();
+    assertTrue(Context.getVersionCheck().isPresent(), "version check is read");
+
+    // another command deletes the file
+    Files.delete(getShardFile(VERSION_CHECK_FILENAME));
+
+    // this command changes it
+    assertThrows(
+        UserActionableException.class,
+        () -> Context.setVersionCheck(new VersionCheck(OffsetDateTime.now())),
+        "conflict is reported");
+    assertFalse(getShardFile(VERSION_CHECK_FILENAME).toFile().exists(), "file stays deleted");
+  }
+
+  @Test
+  @DisplayName("commands in separate processes that change different fields at once all persist")
+  void concurrentProcessesMerged() throws Exception {
+    // a recent version check, so that the commands don't update it
+    Context.setVersionCheck(new VersionCheck(OffsetDateTime.now()));
+
+    List<List<String>> commands =
+        List.of(
+            List.of("config", "set", "resource-page-size", "--size=7"),
+            List.of("config", "set", "resource-cache-ttl", "--seconds=123"),
+            List.of("config", "set", "app-container-idle-timeout", "--seconds=45"));
+    List<Process> processes = new ArrayList<>();
+    for (List<String> command : commands) {
+      processes.add(startCliProcess(command));
+    }
+    for (Process process : processes) {
+      assertTrue(process.waitFor(2, TimeUnit.MINUTES), "command finishes");
+      assertEquals(0, process.exitValue(), "command exit code = success");
+    }
+
+    Context.initializeFromDisk();
+    assertEquals(7, Context.getConfig().getResourcesPageSize(), "page size is kept");
+    assertEquals(123, Context.getConfig().getResourcesCacheTtlSeconds(), "cache ttl is kept");
+    assertEquals(
+        45, Context.getConfig().getAppContainerIdleTimeoutSeconds(), "idle timeout is kept");
+  }
+
+  /** Change one field of the config file, the way another command would. */
+  private static void editConfigFile(String fieldName, int value) throws IOException {
+    Path configFile = getShardFile(CONFIG_FILENAME);
+    ObjectNode config = (ObjectNode) JacksonMapper.getMapper().readTree(configFile.toFile());
+    config.put(fieldName, value);
+    JacksonMapper.getMapper()
+        .writerWithDefaultPrettyPrinter()
+        .writeValue(configFile.toFile(), config);
+  }
+
+  /** Write the version check file, the way another command would. */
+  private static void writeVersionCheckFile(OffsetDateTime lastVersionCheckTime)
+      throws IOException {
+    JacksonMapper.writeJavaObjectToFile(
+        getShardFile(VERSION_CHECK_FILENAME).toFile(),
+        new PDVersionCheck.Builder().lastVersionCheckTime(lastVersionCheckTime).build());
+  }
+
+  /**
+   * Start a CLI command in a new JVM, with this test's classpath. It inherits the environment, so
+   * it uses the same context directory.
+   */
+  private static Process startCliProcess(List<String> args) throws IOException {
+    List<String> command = new ArrayList<>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(Main.class.getName());
+    command.addAll(args);
+    return new ProcessBuilder(command)
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .redirectError(ProcessBuilder.Redirect.DISCARD)
+        .start();
+  }
+
+  /**
+   * Replace the context files with a single context file, as written by older versions of the CLI.
+   * The current config and server are kept, with the given resource page size.
+   */
+  private static void writeLegacyContextFile(int resourcesPageSize) throws IOException {
+    Context.initializeFromDisk();
+    Context.getConfig().setResourcesPageSize(resourcesPageSize);
+    // a recent version check, so that commands don't update it
+    PDContext legacyContext =
+        new PDContext(
+            Context.getConfig(),
+            Context.getServer(),
+            null,
+            null,
+            new VersionCheck(OffsetDateTime.now()));
+    JacksonMapper.writeJavaObjectToFile(
+        Context.getContextDir().resolve(LEGACY_CONTEXT_FILENAME).toFile(), legacyContext);
+    FileUtils.deleteDirectory(Context.getContextShardDir().toFile());
+  }
+
+  /** Get the file for one part of the context. */
+  private static Path getShardFile(String fileName) {
+    return Context.getContextShardDir().resolve(fileName);
+  }
+
+  /** Build a workspace with a new id, which doesn't need a server or login. */
+  private static Workspace buildWorkspace() {
+    UUID id = UUID.randomUUID();
+    return new Workspace(
+        new PDWorkspace.Builder()
+            .formatVersion(PDWorkspace.CURRENT_FORMAT_VERSION)
+            .id(id)
+            .name("workspace " + id)
+            .description("")
+            .googleProjectId("terra-test-project")
+            .serverName(Context.getServer().getName())
+            .userEmail("test@example.com")
+            .resourcesSyncTime(OffsetDateTime.now())
+            .resourcesCount(0)
+            .isLoaded(true)
+            .build());
+  }
+
+  /** Build a git repo reference with a new id, which doesn't need a workspace or server. */
+  private static Resource buildResource() {
+    UUID id = UUID.randomUUID();
+    return new PDGitRepo.Builder()
+        .gitRepoUrl("https://github.com/DataBiosphere/terra-workspace-manager.git")
+        .id(id)
+        .name("repo" + id.toString().replace("-", ""))
+        .description("")
+        .resourceType(Resource.Type.GIT_REPO)
+        .stewardshipType(StewardshipType.REFERENCED)
+        .build()
+        .deserializeToInternal();
+  }
+}
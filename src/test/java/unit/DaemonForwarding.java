@@ -0,0 +1,255 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.cli.daemon.DaemonClient;
+import bio.terra.cli.daemon.DaemonProtocol;
+import bio.terra.cli.daemon.DaemonProtocol.DaemonInfo;
+import bio.terra.cli.daemon.DaemonServer;
+import bio.terra.cli.utils.FileUtils;
+import bio.terra.cli.utils.Version;
+import harness.baseclasses.ClearContextUnit;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for forwarding commands from the `terra` launch script to a running daemon. */
+@Tag("unit")
+public class DaemonForwarding extends ClearContextUnit {
+  private static final String TOKEN = "test-token";
+  private static final String CLI_VERSION = String.valueOf(Version.getVersion());
+
+  @AfterEach
+  void resetWorkingDirectory() {
+    FileUtils.setWorkingDirectory(null);
+  }
+
+  @Test
+  @DisplayName("frames written by one side are read back by the other")
+  void frameRoundTrip() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    OutputStream stdout = new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDOUT);
+    stdout.write("hello".getBytes(StandardCharsets.UTF_8));
+    stdout.write(new byte[0]);
+    stdout.write('!');
+    byte[] stderrBytes = {0, 1, (byte) 0xff};
+    DaemonProtocol.writeFrame(out, DaemonProtocol.STDERR, stderrBytes, 0, stderrBytes.length);
+    DaemonProtocol.writeFrame(out, DaemonProtocol.EXIT, 42);
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    assertEquals(DaemonProtocol.STDOUT, in.readByte(), "first frame is stdout");
+    assertEquals(
+        "hello",
+        new String(DaemonProtocol.readFramePayload(in), StandardCharsets.UTF_8),
+        "stdout payload is read back");
+    assertEquals(DaemonProtocol.STDOUT, in.readByte(), "empty write doesn't send a frame");
+    assertEquals(
+        "!",
+        new String(DaemonProtocol.readFramePayload(in), StandardCharsets.UTF_8),
+        "single byte write is sent as its own frame");
+    assertEquals(DaemonProtocol.STDERR, in.readByte(), "next frame is stderr");
+    assertArrayEquals(stderrBytes, DaemonProtocol.readFramePayload(in), "raw bytes round trip");
+    assertEquals(DaemonProtocol.EXIT, in.readByte(), "last frame is the exit code");
+    assertEquals(42, in.readInt(), "exit code is read back");
+    assertEquals(0, in.available(), "nothing follows the exit frame");
+  }
+
+  @Test
+  @DisplayName("rendezvous file is read back, and is only readable by the owner")
+  void rendezvousFileRoundTrip(@TempDir Path tempDir) throws IOException {
+    Path daemonFile = tempDir.resolve("daemon.properties");
+    assertTrue(DaemonProtocol.readDaemonInfo(daemonFile).isEmpty(), "missing file is empty");
+
+    DaemonProtocol.writeDaemonInfo(daemonFile, new DaemonInfo(1234, TOKEN, 5678, "1.2.3"));
+    DaemonInfo daemonInfo = DaemonProtocol.readDaemonInfo(daemonFile).orElseThrow();
+    assertEquals(1234, daemonInfo.port, "port is read back");
+    assertEquals(TOKEN, daemonInfo.token, "token is read back");
+    assertEquals(5678, daemonInfo.pid, "pid is read back");
+    assertEquals("1.2.3", daemonInfo.version, "version is read back");
+    assertEquals(
+        "rw-------",
+        PosixFilePermissions.toString(Files.getPosixFilePermissions(daemonFile)),
+        "file is only readable by the owner");
+
+    Files.writeString(daemonFile, "port=not-a-number\n", StandardCharsets.UTF_8);
+    assertTrue(DaemonProtocol.readDaemonInfo(daemonFile).isEmpty(), "invalid file is empty");
+  }
+
+  @Test
+  @DisplayName("daemon closes the connection from a client with the wrong token")
+  void rejectsWrongToken() throws Exception {
+    DaemonResponse response =
+        sendRequest("wrong-token", CLI_VERSION, DaemonProtocol.getTerraEnvVars());
+    assertTrue(response.frameTypes.isEmpty(), "daemon sends nothing back");
+    assertFalse(response.exitCode.isPresent(), "command doesn't run");
+  }
+
+  @Test
+  @DisplayName("daemon rejects a client with a different CLI version")
+  void rejectsOtherVersion() throws Exception {
+    DaemonResponse response =
+        sendRequest(TOKEN, "0.0.0-not-this-version", DaemonProtocol.getTerraEnvVars());
+    assertEquals(List.of(DaemonProtocol.REJECTED), response.frameTypes, "daemon rejects command");
+  }
+
+  @Test
+  @DisplayName("daemon rejects a client with different TERRA_* env vars")
+  void rejectsOtherEnvVars() throws Exception {
+    Map<String, String> envVars = new TreeMap<>(DaemonProtocol.getTerraEnvVars());
+    envVars.put("TERRA_DAEMON_FORWARDING_TEST", "only set on the client");
+    DaemonResponse response = sendRequest(TOKEN, CLI_VERSION, envVars);
+    assertEquals(List.of(DaemonProtocol.REJECTED), response.frameTypes, "daemon rejects command");
+  }
+
+  @Test
+  @DisplayName("daemon runs a command from a matching client and sends back its output")
+  void runsMatchingClient() throws Exception {
+    DaemonResponse response =
+        sendRequest(TOKEN, CLI_VERSION, DaemonProtocol.getTerraEnvVars(), "version");
+    assertEquals(Optional.of(0), response.exitCode, "command succeeds");
+    assertThat("stdout is relayed", response.stdOut, containsString(CLI_VERSION));
+  }
+
+  @Test
+  @DisplayName("client runs the command itself if the rendezvous file points to a stopped daemon")
+  void staleRendezvousFile(@TempDir Path tempDir) throws IOException {
+    // find a port that nothing is listening on
+    int port;
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      port = serverSocket.getLocalPort();
+    }
+    Path daemonFile = tempDir.resolve("daemon.properties");
+    DaemonProtocol.writeDaemonInfo(
+        daemonFile, new DaemonInfo(port, TOKEN, Long.MAX_VALUE, CLI_VERSION));
+
+    DaemonInfo staleDaemonInfo = DaemonProtocol.readDaemonInfo(daemonFile).orElseThrow();
+    assertTrue(
+        DaemonClient.forward(staleDaemonInfo, "config", "list").isEmpty(),
+        "client falls back to running the command itself");
+  }
+
+  @Test
+  @DisplayName("local-only commands are never sent to the daemon")
+  void localOnlyCommands() {
+    for (String command : DaemonClient.LOCAL_ONLY_COMMANDS) {
+      assertFalse(DaemonClient.runsInDaemon(command, "--help"), command + " runs locally");
+    }
+    assertFalse(DaemonClient.runsInDaemon(), "no command runs locally");
+    assertTrue(DaemonClient.runsInDaemon("workspace", "list"), "other commands use the daemon");
+  }
+
+  /**
+   * Send a request to a daemon connection handler listening on a new loopback port, and read back
+   * everything it sends until it exits, rejects the command or closes the connection.
+   */
+  private static DaemonResponse sendRequest(
+      String token, String version, Map<String, String> envVars, String... args)
+      throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      Future<?> daemon =
+          executor.submit(
+              () -> {
+                try (Socket socket = serverSocket.accept()) {
+                  DaemonServer.handleConnection(socket, TOKEN);
+                }
+                return null;
+              });
+
+      DaemonResponse response = new DaemonResponse();
+      try (Socket socket =
+          new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort())) {
+        socket.setSoTimeout((int) TimeUnit.SECONDS.toMillis(60));
+        DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        DataInputStream in =
+            new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out.writeUTF(token);
+        out.writeUTF(version);
+        out.writeInt(args.length);
+        for (String arg : args) {
+          out.writeUTF(arg);
+        }
+        out.writeUTF(Path.of("").toAbsolutePath().toString());
+        out.writeInt(envVars.size());
+        for (Map.Entry<String, String> envVar : envVars.entrySet()) {
+          out.writeUTF(envVar.getKey());
+          out.writeUTF(envVar.getValue());
+        }
+        DaemonProtocol.writeFrame(out, DaemonProtocol.STDIN_EOF, 0);
+        response.readFrom(in);
+      }
+      daemon.get(60, TimeUnit.SECONDS);
+      return response;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Everything the daemon sent back for one request. */
+  private static class DaemonResponse {
+    // type of each frame, in the order they were received
+    private final List<Byte> frameTypes = new ArrayList<>();
+    private String stdOut = "";
+    private Optional<Integer> exitCode = Optional.empty();
+
+    /** Read frames until the daemon exits, rejects the command or closes the connection. */
+    void readFrom(DataInputStream in) throws IOException {
+      ByteArrayOutputStream stdOutBytes = new ByteArrayOutputStream();
+      try {
+        while (exitCode.isEmpty()) {
+          byte type = in.readByte();
+          frameTypes.add(type);
+          if (type == DaemonProtocol.EXIT) {
+            exitCode = Optional.of(in.readInt());
+          } else if (type == DaemonProtocol.REJECTED) {
+            in.readInt();
+            break;
+          } else {
+            byte[] payload = DaemonProtocol.readFramePayload(in);
+            if (type == DaemonProtocol.STDOUT) {
+              stdOutBytes.write(payload);
+            }
+          }
+        }
+      } catch (EOFException | SocketException ex) {
+        // the daemon closed the connection without a reply
+      }
+      stdOut = stdOutBytes.toString(StandardCharsets.UTF_8);
+    }
+  }
+}
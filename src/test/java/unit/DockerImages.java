@@ -0,0 +1,221 @@
+package unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.cli.app.utils.DockerClientWrapper;
+import bio.terra.cli.app.utils.DockerImageManager;
+import com.github.dockerjava.api.exception.NotFoundException;
+import harness.baseclasses.ClearContextUnit;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Tests for keeping track of which Docker images are on the local machine, and pulling them. */
+@Tag("unit")
+public class DockerImages extends ClearContextUnit {
+  private static final String IMAGE_ID = "terra-cli-test/docker-images/1.0:stable";
+
+  @Test
+  @DisplayName("image that was found once is marked ready, and not checked again")
+  void readyMarker(@TempDir Path tempDir) throws IOException {
+    FakeDockerClientWrapper dockerClientWrapper = new FakeDockerClientWrapper(true);
+    FakeDockerCommand dockerCommand = new FakeDockerCommand(tempDir);
+    DockerImageManager dockerImageManager = dockerCommand.buildManager(dockerClientWrapper);
+
+    dockerImageManager.ensureReady(IMAGE_ID);
+    assertEquals(1, dockerClientWrapper.numChecks.get(), "image is checked the first time");
+    assertTrue(dockerImageManager.isMarkedReady(IMAGE_ID), "image is marked ready");
+
+    dockerImageManager.ensureReady(IMAGE_ID);
+    dockerCommand.buildManager(dockerClientWrapper).ensureReady(IMAGE_ID);
+    assertEquals(1, dockerClientWrapper.numChecks.get(), "later commands use the marker");
+    assertEquals(List.of(), dockerCommand.getCalls(), "image is not pulled");
+  }
+
+  @Test
+  @DisplayName("missing image is pulled in the foreground and marked ready")
+  void missingImagePulled(@TempDir Path tempDir) throws IOException {
+    FakeDockerClientWrapper dockerClientWrapper = new FakeDockerClientWrapper(false);
+    FakeDockerCommand dockerCommand = new FakeDockerCommand(tempDir);
+    DockerImageManager dockerImageManager = dockerCommand.buildManager(dockerClientWrapper);
+
+    dockerImageManager.ensureReady(IMAGE_ID);
+    assertEquals(List.of("pull " + IMAGE_ID), dockerCommand.getCalls(), "image is pulled");
+    assertTrue(dockerImageManager.isMarkedReady(IMAGE_ID), "pulled image is marked ready");
+
+    dockerImageManager.ensureReady(IMAGE_ID);
+    assertEquals(1, dockerCommand.getCalls().size(), "image is only pulled once");
+  }
+
+  @Test
+  @DisplayName("image removed after it was marked ready is pulled again, and the command retried")
+  void recoversFromRemovedImage(@TempDir Path tempDir) throws IOException {
+    FakeDockerClientWrapper dockerClientWrapper = new FakeDockerClientWrapper(true);
+    FakeDockerCommand dockerCommand = new FakeDockerCommand(tempDir);
+    DockerImageManager dockerImageManager = dockerCommand.buildManager(dockerClientWrapper);
+    dockerImageManager.ensureReady(IMAGE_ID);
+
+    // e.g. `docker image prune`, which doesn't know about the marker
+    dockerClientWrapper.imageExists = false;
+    AtomicInteger numAttempts = new AtomicInteger();
+    int result =
+        dockerImageManager.runWithImage(
+            IMAGE_ID,
+            () -> {
+              if (numAttempts.incrementAndGet() == 1) {
+                throw new NotFoundException("No such image: " + IMAGE_ID);
+              }
+              return 42;
+            });
+    assertEquals(42, result, "retry returns the result");
+    assertEquals(2, numAttempts.get(), "command is retried once");
+    assertEquals(List.of("pull " + IMAGE_ID), dockerCommand.getCalls(), "image is pulled again");
+    assertTrue(dockerImageManager.isMarkedReady(IMAGE_ID), "pulled image is marked ready");
+  }
+
+  @Test
+  @DisplayName("not found error for an image that is there is not retried")
+  void otherNotFoundNotRetried(@TempDir Path tempDir) throws IOException {
+    FakeDockerClientWrapper dockerClientWrapper = new FakeDockerClientWrapper(true);
+    FakeDockerCommand dockerCommand = new FakeDockerCommand(tempDir);
+    DockerImageManager dockerImageManager = dockerCommand.buildManager(dockerClientWrapper);
+
+    AtomicInteger numAttempts = new AtomicInteger();
+    assertThrows(
+        NotFoundException.class,
+        () ->
+            dockerImageManager.runWithImage(
+                IMAGE_ID,
+                () -> {
+                  numAttempts.incrementAndGet();
+                  throw new NotFoundException("No such container");
+                }));
+    assertEquals(1, numAttempts.get(), "command is not retried");
+    assertEquals(List.of(), dockerCommand.getCalls(), "image is not pulled");
+  }
+
+  @Test
+  @DisplayName("pull lock left by a process that exited is ignored")
+  void stalePullLock(@TempDir Path tempDir) throws Exception {
+    FakeDockerClientWrapper dockerClientWrapper = new FakeDockerClientWrapper(false);
+    FakeDockerCommand dockerCommand = new FakeDockerCommand(tempDir);
+    DockerImageManager dockerImageManager = dockerCommand.buildManager(dockerClientWrapper);
+
+    // write a lock for a process that already exited
+    Process exitedProcess = new ProcessBuilder("true").start();
+    exitedProcess.waitFor();
+    Path pullLockFile = dockerImageManager.getPullLockFile(IMAGE_ID);
+    Files.createDirectories(pullLockFile.getParent());
+    Files.writeString(pullLockFile, String.valueOf(exitedProcess.pid()), StandardCharsets.UTF_8);
+
+    assertTrue(dockerImageManager.pullInBackgroundIfMissing(IMAGE_ID), "background pull starts");
+    Instant deadline = Instant.now().plus(Duration.ofSeconds(30));
+    while (!dockerImageManager.isMarkedReady(IMAGE_ID) && Instant.now().isBefore(deadline)) {
+      Thread.sleep(100);
+    }
+    assertTrue(dockerImageManager.isMarkedReady(IMAGE_ID), "background pull marks image ready");
+    assertEquals(List.of("pull " + IMAGE_ID), dockerCommand.getCalls(), "image is pulled");
+  }
+
+  @Test
+  @DisplayName("pull lock held by a running process means the image is being pulled")
+  void runningPullLock(@TempDir Path tempDir) throws IOException {
+    FakeDockerClientWrapper dockerClientWrapper = new FakeDockerClientWrapper(false);
+    FakeDockerCommand dockerCommand = new FakeDockerCommand(tempDir);
+    DockerImageManager dockerImageManager = dockerCommand.buildManager(dockerClientWrapper);
+
+    // write a lock for this process, which is still running
+    Path pullLockFile = dockerImageManager.getPullLockFile(IMAGE_ID);
+    Files.createDirectories(pullLockFile.getParent());
+    Files.writeString(
+        pullLockFile, String.valueOf(ProcessHandle.current().pid()), StandardCharsets.UTF_8);
+
+    assertTrue(dockerImageManager.pullInBackgroundIfMissing(IMAGE_ID), "image is being pulled");
+    assertEquals(List.of(), dockerCommand.getCalls(), "no other pull is started");
+    assertTrue(pullLockFile.toFile().exists(), "lock is kept");
+    Files.delete(pullLockFile);
+  }
+
+  @Test
+  @DisplayName("default image is only pre-fetched if the default image of another version is used")
+  void prefetchOnlyAfterUpgrade() {
+    String defaultImageId = "gcr.io/terra-cli-dev/terra-cli/0.200.0:stable";
+    assertTrue(
+        DockerImageManager.isOtherVersionOfDefaultImage(
+            "gcr.io/terra-cli-dev/terra-cli/0.199.0:stable", defaultImageId),
+        "default image of an older version");
+    assertFalse(
+        DockerImageManager.isOtherVersionOfDefaultImage(defaultImageId, defaultImageId),
+        "default image of this version");
+    assertFalse(
+        DockerImageManager.isOtherVersionOfDefaultImage(
+            "gcr.io/my-project/my-image:latest", defaultImageId),
+        "custom image");
+    assertFalse(
+        DockerImageManager.isOtherVersionOfDefaultImage(
+            "gcr.io/terra-cli-dev/terra-cli/0.199.0:custom", defaultImageId),
+        "other tag of the default image");
+    assertFalse(
+        DockerImageManager.isOtherVersionOfDefaultImage(
+            "gcr.io/terra-cli-dev/terra-cli/fork/0.199.0:stable", defaultImageId),
+        "image in a sub-directory of the default repository");
+    assertFalse(
+        DockerImageManager.isOtherVersionOfDefaultImage(
+            "gcr.io/terra-cli-dev/terra-cli/0.199.0:stable", null),
+        "no default image, e.g. running from source");
+  }
+
+  /** Docker client that reports whether the image exists, without asking the Docker daemon. */
+  private static class FakeDockerClientWrapper extends DockerClientWrapper {
+    private final AtomicInteger numChecks = new AtomicInteger();
+    private volatile boolean imageExists;
+
+    FakeDockerClientWrapper(boolean imageExists) {
+      this.imageExists = imageExists;
+    }
+
+    @Override
+    public boolean checkImageExists(String imageId) {
+      numChecks.incrementAndGet();
+      return imageExists;
+    }
+  }
+
+  /** Script that stands in for the docker CLI, and records the arguments it was called with. */
+  private static class FakeDockerCommand {
+    private final Path script;
+    private final Path callsFile;
+
+    FakeDockerCommand(Path tempDir) throws IOException {
+      script = tempDir.resolve("docker");
+      callsFile = tempDir.resolve("docker-calls.txt");
+      Files.writeString(
+          script, "#!/bin/sh\necho \"$@\" >> \"" + callsFile + "\"\n", StandardCharsets.UTF_8);
+      Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwx------"));
+    }
+
+    DockerImageManager buildManager(DockerClientWrapper dockerClientWrapper) {
+      return new DockerImageManager(dockerClientWrapper, script.toString());
+    }
+
+    /** Get the arguments of each call to the script, in order. */
+    List<String> getCalls() throws IOException {
+      return callsFile.toFile().exists()
+          ? Files.readAllLines(callsFile, StandardCharsets.UTF_8)
+          : List.of();
+    }
+  }
+}
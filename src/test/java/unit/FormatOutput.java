@@ -0,0 +1,121 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.endsWith;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.cli.command.shared.options.Format;
+import bio.terra.cli.utils.JacksonMapper;
+import bio.terra.cli.utils.UserIO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+/** Tests for printing command output in the JSON and NDJSON formats with {@link Format}. */
+@Tag("unit")
+public class FormatOutput {
+  private final ByteArrayOutputStream stdOut = new ByteArrayOutputStream();
+  private PrintStream previousOut;
+  private PrintStream previousErr;
+  private InputStream previousIn;
+
+  @BeforeEach
+  void redirectOutput() {
+    previousOut = UserIO.getOut();
+    previousErr = UserIO.getErr();
+    previousIn = UserIO.getIn();
+    UserIO.initialize(
+        new PrintStream(stdOut, true, StandardCharsets.UTF_8), previousErr, previousIn);
+  }
+
+  @AfterEach
+  void restoreOutput() {
+    UserIO.initialize(previousOut, previousErr, previousIn);
+  }
+
+  @Test
+  @DisplayName("ndjson prints the same json as a custom json print function")
+  void ndjsonUsesCustomJsonPrinter() throws JsonProcessingException {
+    List<Map<String, String>> returnValue = List.of(Map.of("name", "a"), Map.of("name", "b"));
+    // custom printer that only prints the names
+    Consumer<List<Map<String, String>>> printNames =
+        list ->
+            Format.printJson(
+                list.stream().map(element -> element.get("name")).collect(Collectors.toList()));
+
+    parseFormat("--format=JSON").printReturnValue(returnValue, Format::printText, printNames);
+    List<?> json = JacksonMapper.getMapper().readValue(stdOut.toString(), List.class);
+    stdOut.reset();
+
+    parseFormat("--format=NDJSON").printReturnValue(returnValue, Format::printText, printNames);
+    List<String> ndjsonLines = stdOut.toString().lines().collect(Collectors.toList());
+
+    assertEquals(List.of("a", "b"), json, "json output is from the custom printer");
+    assertEquals(List.of("\"a\"", "\"b\""), ndjsonLines, "ndjson has one line per json element");
+  }
+
+  @Test
+  @DisplayName("ndjson is printed to the stream that the thread's output is routed to")
+  void ndjsonRoutedOutput() {
+    // e.g. a command run by `terra batch`
+    ByteArrayOutputStream routedOut = new ByteArrayOutputStream();
+    UserIO.routeOutput(
+        routedOut,
+        null,
+        () -> {
+          parseFormat("--format=NDJSON")
+              .printReturnValue(List.of("a", "b"), Format::printText, Format::printJson);
+          return null;
+        });
+    List<String> ndjsonLines =
+        routedOut.toString(StandardCharsets.UTF_8).lines().collect(Collectors.toList());
+
+    assertEquals(List.of("\"a\"", "\"b\""), ndjsonLines, "ndjson is written to the routed stream");
+    assertEquals("", stdOut.toString(), "nothing is written to the default stream");
+  }
+
+  @Test
+  @DisplayName("json stream is left unclosed when the producer throws part way through")
+  void jsonStreamUnclosedOnError() {
+    Consumer<Consumer<String>> failingProducer =
+        consumer -> {
+          consumer.accept("first");
+          throw new IllegalStateException("producer failed");
+        };
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> parseFormat("--format=JSON").printReturnValueStream(failingProducer, s -> {}));
+
+    String output = stdOut.toString().trim();
+    assertThat("partial output includes the first element", output, endsWith("\"first\""));
+    assertThat("partial output is not a closed array", output, not(endsWith("]")));
+  }
+
+  /** Parse the format option, the same way a command that uses it as a mixin does. */
+  private static Format parseFormat(String formatArg) {
+    FormatCommand command = new FormatCommand();
+    new CommandLine(command).parseArgs(formatArg);
+    return command.formatOption;
+  }
+
+  /** Command with just the format option. */
+  @CommandLine.Command(name = "format-test")
+  private static class FormatCommand {
+    @CommandLine.Mixin Format formatOption;
+  }
+}
@@ -0,0 +1,151 @@
+package unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.cli.utils.ParallelUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for mapping a list on worker threads with {@link ParallelUtils}. */
+@Tag("unit")
+public class ParallelMapping {
+  @Test
+  @DisplayName("outputs are in input order, regardless of the order the calls finish")
+  void outputsInInputOrder() {
+    List<Integer> inputs = IntStream.range(0, 20).boxed().collect(Collectors.toList());
+
+    // later elements finish first
+    List<Integer> outputs =
+        ParallelUtils.mapInParallel(
+            inputs,
+            input -> {
+              sleep(2 * (inputs.size() - input));
+              return input * 10;
+            },
+            5);
+
+    assertEquals(
+        inputs.stream().map(input -> input * 10).collect(Collectors.toList()),
+        outputs,
+        "outputs match inputs, in order");
+  }
+
+  @Test
+  @DisplayName("mapper exception is re-thrown, after consuming the outputs before it")
+  void exceptionPropagates() {
+    List<Integer> inputs = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+    List<Integer> consumed = new ArrayList<>();
+
+    IllegalStateException ex =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                ParallelUtils.mapInParallel(
+                    inputs,
+                    input -> {
+                      if (input == 3) {
+                        throw new IllegalStateException("mapper failed on 3");
+                      }
+                      return input;
+                    },
+                    null,
+                    4,
+                    null,
+                    consumed::add));
+
+    assertEquals("mapper failed on 3", ex.getMessage(), "mapper exception is re-thrown as is");
+    assertEquals(List.of(0, 1, 2), consumed, "outputs before the failed element are consumed");
+  }
+
+  @Test
+  @DisplayName("mapper exception skips elements not started yet and interrupts running ones")
+  void exceptionCancelsOtherCalls() throws InterruptedException {
+    List<Integer> inputs = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+    Set<Integer> started = ConcurrentHashMap.newKeySet();
+    CountDownLatch secondStarted = new CountDownLatch(1);
+    CountDownLatch secondInterrupted = new CountDownLatch(1);
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            ParallelUtils.mapInParallel(
+                inputs,
+                input -> {
+                  started.add(input);
+                  if (input == 0) {
+                    // fail once the other worker is busy with element 1
+                    awaitQuietly(secondStarted);
+                    throw new IllegalStateException("mapper failed on 0");
+                  } else if (input == 1) {
+                    secondStarted.countDown();
+                    try {
+                      Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                    } catch (InterruptedException intEx) {
+                      secondInterrupted.countDown();
+                    }
+                  }
+                  return input;
+                },
+                2));
+
+    assertTrue(
+        secondInterrupted.await(10, TimeUnit.SECONDS), "running call on element 1 is interrupted");
+    assertEquals(Set.of(0, 1), started, "no elements are started after the failure");
+  }
+
+  @Test
+  @DisplayName("no more than the maximum number of calls run at the same time")
+  void threadCap() {
+    List<Integer> inputs = IntStream.range(0, 12).boxed().collect(Collectors.toList());
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+    ParallelUtils.mapInParallel(
+        inputs,
+        input -> {
+          maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+          threadNames.add(Thread.currentThread().getName());
+          sleep(20);
+          running.decrementAndGet();
+          return input;
+        },
+        3);
+
+    assertTrue(maxRunning.get() <= 3, "at most 3 calls ran at once: " + maxRunning.get());
+    assertTrue(threadNames.size() <= 3, "at most 3 worker threads: " + threadNames);
+    assertTrue(
+        threadNames.stream().allMatch(name -> name.startsWith("terra-worker-")),
+        "calls run on the worker threads: " + threadNames);
+  }
+
+  /** Sleep, ignoring interrupts. */
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException intEx) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Wait for a latch, ignoring interrupts. */
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException intEx) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -2,6 +2,8 @@ package unit;
 
 import static harness.utils.ExternalBQDatasets.randomDatasetId;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import bio.terra.cli.businessobject.Context;
@@ -13,8 +15,11 @@ import harness.baseclasses.SingleWorkspaceUnit;
 import harness.utils.ExternalGCSBuckets;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
@@ -23,6 +28,7 @@ import org.hamcrest.CoreMatchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Tests for the `terra app` commands and the pass-through apps: `terra gcloud`, `terra gsutil`,
@@ -281,6 +287,93 @@ public class PassthroughApps extends SingleWorkspaceUnit {
     TestCommand.runCommandExpectExitCode(123, "app", "execute", "exit", "123");
   }
 
+  @Test
+  @DisplayName("tool commands re-use a warm container when the idle timeout is set")
+  void warmContainerReused() throws IOException {
+    workspaceCreator.login();
+
+    // `terra workspace set --id=$id`
+    UFWorkspace workspace =
+        TestCommand.runAndParseCommandExpectSuccess(
+            UFWorkspace.class, "workspace", "set", "--id=" + getWorkspaceId());
+
+    // `terra config set app-container-idle-timeout --seconds=60`
+    TestCommand.runCommandExpectSuccess(
+        "config", "set", "app-container-idle-timeout", "--seconds=60");
+
+    try {
+      // `terra app execute touch /tmp/warmContainerReused`
+      // this file is only on the container, so the next command only sees it if it runs there too
+      TestCommand.runCommandExpectSuccess("app", "execute", "touch", "/tmp/warmContainerReused");
+
+      // `terra app execute test -e /tmp/warmContainerReused`
+      TestCommand.runCommandExpectSuccess(
+          "app", "execute", "test", "-e", "/tmp/warmContainerReused");
+
+      // `terra gcloud config get-value project`
+      TestCommand.Result cmd = TestCommand.runCommand("gcloud", "config", "get-value", "project");
+      assertThat(
+          "setup command configured gcloud in the warm container",
+          cmd.stdOut,
+          CoreMatchers.containsString(workspace.googleProjectId));
+
+      // `terra app execute exit 123`
+      TestCommand.runCommandExpectExitCode(123, "app", "execute", "exit", "123");
+    } finally {
+      // `terra config set app-container-idle-timeout --default`
+      TestCommand.runCommandExpectSuccess(
+          "config", "set", "app-container-idle-timeout", "--default");
+    }
+  }
+
+  @Test
+  @DisplayName("parallel batch runs tool commands alongside commands that change resources")
+  void parallelBatchWithToolCommands(@TempDir Path tempDir) throws IOException {
+    workspaceCreator.login();
+
+    // `terra workspace set --id=$id`
+    TestCommand.runCommandExpectSuccess("workspace", "set", "--id=" + getWorkspaceId());
+
+    // tool commands write the context to disk while the other lines change the resources, so
+    // this hangs if the two take their locks in different orders
+    String repoUrl = "https://github.com/DataBiosphere/terra-workspace-manager.git";
+    Path commandsFile = tempDir.resolve("commands.txt");
+    Files.write(
+        commandsFile,
+        List.of(
+            "resource add-ref git-repo --name=parallelBatch1 --repo-url=" + repoUrl,
+            "app execute echo parallelBatch",
+            "resource add-ref git-repo --name=parallelBatch2 --repo-url=" + repoUrl,
+            "resource list",
+            "app execute echo parallelBatch",
+            "resource add-ref git-repo --name=parallelBatch3 --repo-url=" + repoUrl),
+        StandardCharsets.UTF_8);
+
+    // `terra batch --from-file=$commandsFile --parallel=4`
+    TestCommand.Result cmd =
+        assertTimeoutPreemptively(
+            Duration.ofMinutes(5),
+            () ->
+                TestCommand.runCommand(
+                    "batch", "--from-file=" + commandsFile.toString(), "--parallel=4"),
+            "batch finishes");
+    assertEquals(0, cmd.exitCode, "batch exit code = success");
+
+    try {
+      // `terra resource list`
+      cmd = TestCommand.runCommand("resource", "list");
+      for (String name : List.of("parallelBatch1", "parallelBatch2", "parallelBatch3")) {
+        assertThat(
+            "resource added by the batch is listed", cmd.stdOut, CoreMatchers.containsString(name));
+      }
+    } finally {
+      for (String name : List.of("parallelBatch1", "parallelBatch2", "parallelBatch3")) {
+        // `terra resource delete --name=$name`
+        TestCommand.runCommand("resource", "delete", "--name=" + name, "--quiet");
+      }
+    }
+  }
+
   @Test
   @DisplayName("exit code is passed through to CLI caller in local process")
   void exitCodePassedThroughLocalProcess() throws IOException {
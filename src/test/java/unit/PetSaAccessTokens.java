@@ -0,0 +1,246 @@
+package unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.businessobject.PetSaAccessTokenCache;
+import bio.terra.cli.businessobject.User;
+import bio.terra.cli.serialization.persisted.PDUser;
+import com.google.auth.oauth2.AccessToken;
+import harness.baseclasses.ClearContextUnit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for re-using pet SA access tokens until shortly before they expire. */
+@Tag("unit")
+public class PetSaAccessTokens extends ClearContextUnit {
+  private static final String PROJECT_ID = "terra-test-project";
+  private static final List<String> SCOPES = List.of("openid", "email");
+
+  private final TestClock clock = new TestClock(Instant.parse("2022-01-01T00:00:00Z"));
+  private final FakeFetcher fetcher = new FakeFetcher();
+
+  @Override
+  @BeforeEach
+  protected void setupEachTime() throws IOException {
+    super.setupEachTime();
+    PetSaAccessTokenCache.setTokenFetcherAndClock(fetcher, clock);
+  }
+
+  @AfterEach
+  void resetFetcherAndClock() {
+    PetSaAccessTokenCache.setTokenFetcherAndClock(null, null);
+  }
+
+  @Test
+  @DisplayName("cached token is re-used until it is within 5 minutes of expiring")
+  void refreshedCloseToExpiry() {
+    User user = buildUser();
+    fetcher.lifetime = Duration.ofMinutes(30);
+
+    AccessToken token = PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES);
+    clock.advance(Duration.ofMinutes(24));
+    assertEquals(
+        token.getTokenValue(),
+        PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES).getTokenValue(),
+        "token with 6 minutes left is re-used");
+    assertEquals(1, fetcher.numFetches.get(), "token is only fetched once");
+
+    clock.advance(Duration.ofMinutes(2));
+    AccessToken refreshedToken = PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES);
+    assertNotEquals(
+        token.getTokenValue(), refreshedToken.getTokenValue(), "token with 4 minutes left is not");
+    assertEquals(2, fetcher.numFetches.get(), "token is fetched again");
+  }
+
+  @Test
+  @DisplayName("token is assumed to last 10 minutes if its expiration can't be looked up")
+  void assumedLifetime() {
+    User user = buildUser();
+    fetcher.lifetime = null;
+
+    AccessToken token = PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES);
+    assertEquals(
+        Date.from(clock.instant().plus(Duration.ofMinutes(10))),
+        token.getExpirationTime(),
+        "expiration is 10 minutes from now");
+
+    clock.advance(Duration.ofMinutes(4));
+    PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES);
+    assertEquals(1, fetcher.numFetches.get(), "token is re-used while outside the margin");
+
+    clock.advance(Duration.ofMinutes(2));
+    PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES);
+    assertEquals(2, fetcher.numFetches.get(), "token is fetched again inside the margin");
+  }
+
+  @Test
+  @DisplayName("order of the scopes doesn't change which token is used")
+  void scopeOrderIgnored() {
+    User user = buildUser();
+
+    AccessToken token = PetSaAccessTokenCache.get(user, PROJECT_ID, List.of("openid", "email"));
+    AccessToken reorderedToken =
+        PetSaAccessTokenCache.get(user, PROJECT_ID, List.of("email", "openid"));
+    assertEquals(token.getTokenValue(), reorderedToken.getTokenValue(), "same token is used");
+    assertEquals(1, fetcher.numFetches.get(), "token is only fetched once");
+
+    PetSaAccessTokenCache.get(user, PROJECT_ID, List.of("openid"));
+    assertEquals(2, fetcher.numFetches.get(), "different scopes need a different token");
+  }
+
+  @Test
+  @DisplayName("users don't share tokens")
+  void perUser() {
+    User user = buildUser();
+    User otherUser = buildUser();
+
+    AccessToken token = PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES);
+    AccessToken otherToken = PetSaAccessTokenCache.get(otherUser, PROJECT_ID, SCOPES);
+    assertNotEquals(token.getTokenValue(), otherToken.getTokenValue(), "each user has a token");
+    assertEquals(
+        user.getId(), fetcher.tokenUsers.get(token.getTokenValue()), "token fetched for user");
+    assertEquals(
+        otherUser.getId(),
+        fetcher.tokenUsers.get(otherToken.getTokenValue()),
+        "other token fetched for other user");
+
+    PetSaAccessTokenCache.clear(user);
+    PetSaAccessTokenCache.clear(otherUser);
+    assertEquals(
+        token.getTokenValue(),
+        PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES).getTokenValue(),
+        "token read back from disk belongs to the same user");
+  }
+
+  @Test
+  @DisplayName("cached tokens are written to an owner-only file and read back by later commands")
+  void persistedOwnerOnly() throws IOException {
+    User user = buildUser();
+
+    AccessToken token = PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES);
+    assertEquals(
+        "rw-------",
+        PosixFilePermissions.toString(
+            Files.getPosixFilePermissions(Context.getPetSaAccessTokenFile(user))),
+        "cache file is only readable by the owner");
+
+    // drop the in-memory cache, as if this were the next command
+    PetSaAccessTokenCache.clear(user);
+    assertEquals(
+        token.getTokenValue(),
+        PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES).getTokenValue(),
+        "token is read back from disk");
+    assertEquals(1, fetcher.numFetches.get(), "token is only fetched once");
+  }
+
+  @Test
+  @DisplayName("concurrent callers that need the same token wait for a single fetch")
+  void concurrentCallersFetchOnce() throws Exception {
+    User user = buildUser();
+    CountDownLatch allStarted = new CountDownLatch(8);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> futures = new ArrayList<>();
+      for (int ctr = 0; ctr < 8; ctr++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  allStarted.countDown();
+                  allStarted.await(10, TimeUnit.SECONDS);
+                  return PetSaAccessTokenCache.get(user, PROJECT_ID, SCOPES).getTokenValue();
+                }));
+      }
+      for (Future<String> future : futures) {
+        assertEquals(
+            futures.get(0).get(30, TimeUnit.SECONDS),
+            future.get(30, TimeUnit.SECONDS),
+            "all callers get the same token");
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, fetcher.numFetches.get(), "token is only fetched once");
+  }
+
+  /** Build a user with a new id, which doesn't need to be logged in. */
+  private static User buildUser() {
+    String id = UUID.randomUUID().toString();
+    return new User(new PDUser.Builder().id(id).email(id + "@example.com").build());
+  }
+
+  /** Fetcher that makes up a new token for each call, instead of asking SAM. */
+  private class FakeFetcher implements PetSaAccessTokenCache.TokenFetcher {
+    private final AtomicInteger numFetches = new AtomicInteger();
+    private final Map<String, String> tokenUsers = new ConcurrentHashMap<>();
+    // lifetime of new tokens, or null if their expiration can't be looked up
+    private volatile Duration lifetime = Duration.ofHours(1);
+
+    @Override
+    public String fetchToken(User user, String googleProjectId, List<String> scopes) {
+      String tokenValue = "token" + numFetches.incrementAndGet();
+      tokenUsers.put(tokenValue, user.getId());
+      return tokenValue;
+    }
+
+    @Override
+    public Optional<Date> getExpiration(String tokenValue) {
+      return lifetime == null
+          ? Optional.empty()
+          : Optional.of(Date.from(clock.instant().plus(lifetime)));
+    }
+  }
+
+  /** Clock that only moves when the test advances it. */
+  private static class TestClock extends Clock {
+    private volatile Instant now;
+
+    TestClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException("Test clock is always UTC.");
+    }
+  }
+}
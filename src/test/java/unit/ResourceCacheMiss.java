@@ -0,0 +1,143 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import bio.terra.cli.serialization.userfacing.input.AddGitRepoParams;
+import bio.terra.cli.serialization.userfacing.input.CreateResourceParams;
+import bio.terra.cli.serialization.userfacing.resource.UFGitRepo;
+import bio.terra.cli.service.WorkspaceManagerService;
+import bio.terra.workspace.model.CloningInstructionsEnum;
+import bio.terra.workspace.model.ResourceType;
+import bio.terra.workspace.model.StewardshipType;
+import harness.TestCommand;
+import harness.baseclasses.SingleWorkspaceUnit;
+import java.io.IOException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for looking up a single resource that isn't in the cached list of resources. */
+@Tag("unit")
+public class ResourceCacheMiss extends SingleWorkspaceUnit {
+  private static final String GIT_REPO_URL =
+      "https://github.com/DataBiosphere/terra-workspace-manager.git";
+
+  @Override
+  @BeforeEach
+  protected void setupEachTime() throws IOException {
+    super.setupEachTime();
+
+    workspaceCreator.login();
+
+    // `terra workspace set --id=$id`
+    TestCommand.runCommandExpectSuccess("workspace", "set", "--id=" + getWorkspaceId());
+
+    // set the page size to 1, so that looking up a resource takes multiple requests
+    TestCommand.runCommandExpectSuccess("config", "set", "resource-page-size", "--size=1");
+  }
+
+  @AfterEach
+  void resetPageSize() {
+    TestCommand.runCommandExpectSuccess("config", "set", "resource-page-size", "--default");
+  }
+
+  @Test
+  @DisplayName("describe fetches a resource added by another client and caches it")
+  void fetchOnMiss() {
+    // `terra resource add-ref git-repo --name=$name --repo-url=$repoUrl`
+    TestCommand.runCommandExpectSuccess(
+        "resource",
+        "add-ref",
+        "git-repo",
+        "--name=fetchOnMissCached",
+        "--repo-url=" + GIT_REPO_URL);
+
+    // add a resource without going through the CLI, so that it's not in the cached list
+    String name = "fetchOnMissAdded";
+    addGitRepoOutsideCli(name);
+
+    // `terra resource describe --name=$name --offline`
+    String stdErr =
+        TestCommand.runCommandExpectExitCode(
+            1, "resource", "describe", "--name=" + name, "--offline");
+    assertThat("resource is not in the cached list", stdErr, containsString("Resource not found"));
+
+    // `terra resource describe --name=$name --format=json`
+    UFGitRepo describedResource =
+        TestCommand.runAndParseCommandExpectSuccess(
+            UFGitRepo.class, "resource", "describe", "--name=" + name);
+    assertEquals(name, describedResource.name, "describe fetches the missing resource");
+
+    // `terra resource describe --name=$name --offline --format=json`
+    UFGitRepo cachedResource =
+        TestCommand.runAndParseCommandExpectSuccess(
+            UFGitRepo.class, "resource", "describe", "--name=" + name, "--offline");
+    assertEquals(describedResource.id, cachedResource.id, "fetched resource is cached");
+
+    // `terra resource describe --name=$name --offline --format=json`
+    UFGitRepo otherResource =
+        TestCommand.runAndParseCommandExpectSuccess(
+            UFGitRepo.class, "resource", "describe", "--name=fetchOnMissCached", "--offline");
+    assertEquals(
+        "fetchOnMissCached", otherResource.name, "fetch keeps the rest of the cached list");
+  }
+
+  @Test
+  @DisplayName("describe --refresh drops a resource deleted by another client from the cache")
+  void dropStaleOnRefresh() {
+    // `terra resource add-ref git-repo --name=$name --repo-url=$repoUrl --format=json`
+    String name = "dropStaleOnRefresh";
+    UFGitRepo addedResource =
+        TestCommand.runAndParseCommandExpectSuccess(
+            UFGitRepo.class,
+            "resource",
+            "add-ref",
+            "git-repo",
+            "--name=" + name,
+            "--repo-url=" + GIT_REPO_URL);
+
+    // delete the resource without going through the CLI, so that it stays in the cached list
+    WorkspaceManagerService.fromContext()
+        .deleteReferencedGitRepo(getWorkspaceId(), addedResource.id);
+
+    // `terra resource describe --name=$name --offline --format=json`
+    UFGitRepo staleResource =
+        TestCommand.runAndParseCommandExpectSuccess(
+            UFGitRepo.class, "resource", "describe", "--name=" + name, "--offline");
+    assertEquals(addedResource.id, staleResource.id, "deleted resource is still cached");
+
+    // `terra resource describe --name=$name --refresh`
+    String stdErr =
+        TestCommand.runCommandExpectExitCode(
+            1, "resource", "describe", "--name=" + name, "--refresh");
+    assertThat("refresh finds the resource deleted", stdErr, containsString("Resource not found"));
+
+    // `terra resource describe --name=$name --offline`
+    stdErr =
+        TestCommand.runCommandExpectExitCode(
+            1, "resource", "describe", "--name=" + name, "--offline");
+    assertThat(
+        "stale resource is dropped from the cache", stdErr, containsString("Resource not found"));
+  }
+
+  /** Add a git repo reference by calling WSM directly, without updating the cached list. */
+  private static void addGitRepoOutsideCli(String name) {
+    WorkspaceManagerService.fromContext()
+        .createReferencedGitRepo(
+            getWorkspaceId(),
+            new AddGitRepoParams.Builder()
+                .resourceFields(
+                    new CreateResourceParams.Builder()
+                        .name(name)
+                        .resourceType(ResourceType.GIT_REPO)
+                        .stewardshipType(StewardshipType.REFERENCED)
+                        .cloningInstructions(CloningInstructionsEnum.REFERENCE)
+                        .build())
+                .gitRepoUrl(GIT_REPO_URL)
+                .build());
+  }
+}
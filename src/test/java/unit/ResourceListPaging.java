@@ -0,0 +1,158 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import bio.terra.cli.serialization.userfacing.resource.UFGitRepo;
+import bio.terra.cli.service.WorkspaceManagerService;
+import bio.terra.workspace.model.ResourceDescription;
+import bio.terra.workspace.model.ResourceType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import harness.TestCommand;
+import harness.baseclasses.SingleWorkspaceUnit;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for listing one page of resources at a time with `terra resource list --limit`. */
+@Tag("unit")
+public class ResourceListPaging extends SingleWorkspaceUnit {
+  private static final String GIT_REPO_URL =
+      "https://github.com/DataBiosphere/terra-workspace-manager.git";
+  private static final List<String> NAMES = List.of("paging1", "paging2", "paging3");
+
+  @Override
+  @BeforeAll
+  protected void setupOnce() throws Exception {
+    super.setupOnce();
+
+    // `terra workspace set --id=$id`
+    TestCommand.runCommandExpectSuccess("workspace", "set", "--id=" + getWorkspaceId());
+
+    // `terra resource add-ref git-repo --name=$name --repo-url=$repoUrl`
+    for (String name : NAMES) {
+      TestCommand.runCommandExpectSuccess(
+          "resource", "add-ref", "git-repo", "--name=" + name, "--repo-url=" + GIT_REPO_URL);
+    }
+  }
+
+  @Override
+  @BeforeEach
+  protected void setupEachTime() throws IOException {
+    super.setupEachTime();
+
+    workspaceCreator.login();
+
+    // `terra workspace set --id=$id`
+    TestCommand.runCommandExpectSuccess("workspace", "set", "--id=" + getWorkspaceId());
+
+    // set the page size to 1, so that each page of the list takes multiple requests
+    TestCommand.runCommandExpectSuccess("config", "set", "resource-page-size", "--size=1");
+  }
+
+  @AfterEach
+  void resetPageSize() {
+    TestCommand.runCommandExpectSuccess("config", "set", "resource-page-size", "--default");
+  }
+
+  @Test
+  @DisplayName("list pages through all resources, printing the next page token to stderr")
+  void pagesThroughResources() throws JsonProcessingException {
+    // `terra resource list --type=GIT_REPO --limit=2 --format=json`
+    TestCommand.Result firstPage =
+        TestCommand.runCommand("resource", "list", "--type=GIT_REPO", "--limit=2", "--format=json");
+    assertEquals(0, firstPage.exitCode, "exit code = success");
+    List<UFGitRepo> firstResources = readResources(firstPage);
+    assertEquals(2, firstResources.size(), "first page has the limit number of resources");
+    assertThat(
+        "next page token is printed to stderr", firstPage.stdErr, containsString("--page-token=2"));
+    assertThat(
+        "next page token is not printed to stdout", firstPage.stdOut, not(containsString("token")));
+
+    // `terra resource list --type=GIT_REPO --limit=2 --page-token=2 --format=json`
+    TestCommand.Result lastPage =
+        TestCommand.runCommand(
+            "resource", "list", "--type=GIT_REPO", "--limit=2", "--page-token=2", "--format=json");
+    assertEquals(0, lastPage.exitCode, "exit code = success");
+    List<UFGitRepo> lastResources = readResources(lastPage);
+    assertEquals(1, lastResources.size(), "last page has the remaining resource");
+    assertThat(
+        "no next page token after the last page",
+        lastPage.stdErr,
+        not(containsString("--page-token")));
+
+    List<String> listedNames = new ArrayList<>();
+    firstResources.forEach(resource -> listedNames.add(resource.name));
+    lastResources.forEach(resource -> listedNames.add(resource.name));
+    assertEquals(
+        NAMES,
+        listedNames.stream().sorted().collect(Collectors.toList()),
+        "pages include each resource once");
+  }
+
+  @Test
+  @DisplayName("list with an invalid page token or limit fails")
+  void invalidPageToken() {
+    // `terra resource list --page-token=abc`
+    String stdErr = TestCommand.runCommandExpectExitCode(1, "resource", "list", "--page-token=abc");
+    assertThat(
+        "error message includes the invalid token",
+        stdErr,
+        containsString("Invalid page token: abc"));
+
+    // `terra resource list --page-token=-1`
+    stdErr = TestCommand.runCommandExpectExitCode(1, "resource", "list", "--page-token=-1");
+    assertThat("negative page token is invalid", stdErr, containsString("Invalid page token: -1"));
+
+    // `terra resource list --limit=0`
+    stdErr = TestCommand.runCommandExpectExitCode(1, "resource", "list", "--limit=0");
+    assertThat(
+        "limit must be positive", stdErr, containsString("Limit must be greater than zero."));
+  }
+
+  @Test
+  @DisplayName("enumerate a range of resources across multiple pages")
+  void enumerateRange() {
+    WorkspaceManagerService wsm = WorkspaceManagerService.fromContext();
+
+    List<String> allNames =
+        getNames(wsm.enumerateResources(getWorkspaceId(), ResourceType.GIT_REPO, null, 0, 10, 1));
+    assertEquals(NAMES.size(), allNames.size(), "range past the end returns all resources");
+
+    List<String> range =
+        getNames(wsm.enumerateResources(getWorkspaceId(), ResourceType.GIT_REPO, null, 1, 2, 1));
+    assertEquals(allNames.subList(1, 3), range, "range with page size 1 takes multiple pages");
+
+    List<String> rangeBiggerPages =
+        getNames(wsm.enumerateResources(getWorkspaceId(), ResourceType.GIT_REPO, null, 1, 2, 2));
+    assertEquals(range, rangeBiggerPages, "range doesn't depend on the page size");
+
+    List<String> pastEnd =
+        getNames(wsm.enumerateResources(getWorkspaceId(), ResourceType.GIT_REPO, null, 3, 2, 1));
+    assertEquals(List.of(), pastEnd, "range after the last resource is empty");
+  }
+
+  /** Read the list of resources from the JSON output of `terra resource list`. */
+  private static List<UFGitRepo> readResources(TestCommand.Result result)
+      throws JsonProcessingException {
+    return new ObjectMapper().readValue(result.stdOut, new TypeReference<>() {});
+  }
+
+  /** Get the names of the enumerated resources, in order. */
+  private static List<String> getNames(List<ResourceDescription> resources) {
+    return resources.stream()
+        .map(resource -> resource.getMetadata().getName())
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,180 @@
+package unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import bio.terra.cli.businessobject.Context;
+import bio.terra.cli.businessobject.Resource;
+import bio.terra.cli.businessobject.ResourceStore;
+import bio.terra.cli.serialization.persisted.resource.PDGitRepo;
+import bio.terra.workspace.model.StewardshipType;
+import harness.baseclasses.ClearContextUnit;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for reading and writing the per-workspace file of cached resources. */
+@Tag("unit")
+public class ResourceStoreFile extends ClearContextUnit {
+  private static final String GIT_REPO_URL =
+      "https://github.com/DataBiosphere/terra-workspace-manager.git";
+
+  @Test
+  @DisplayName("resources written to the store are read back in order")
+  void roundTrip() throws IOException {
+    ResourceStore store = new ResourceStore(UUID.randomUUID());
+    assertEquals(List.of(), store.readAll(), "store without a file is empty");
+
+    List<Resource> resources = List.of(buildResource("a"), buildResource("b"));
+    store.writeAll(resources);
+    assertEquals(getNames(resources), getNames(store.readAll()), "read all after write all");
+
+    Resource appended = buildResource("c");
+    store.append(appended);
+    assertEquals(List.of("a", "b", "c"), getNames(store.readAll()), "append adds to the end");
+
+    Resource renamed = buildResource(resources.get(0).getId(), "a-renamed");
+    store.replace(renamed);
+    assertEquals(
+        List.of("a-renamed", "b", "c"),
+        getNames(store.readAll()),
+        "replace writes the new resource in place of the old one");
+
+    Resource added = buildResource("d");
+    store.replace(added);
+    assertEquals(
+        List.of("a-renamed", "b", "c", "d"),
+        getNames(store.readAll()),
+        "replace adds a new resource to the end");
+
+    store.remove(resources.get(1).getId());
+    assertEquals(
+        List.of("a-renamed", "c", "d"), getNames(store.readAll()), "remove drops resource");
+
+    store.delete();
+    assertEquals(List.of(), store.readAll(), "store is empty after delete");
+  }
+
+  @Test
+  @DisplayName("append from a stale store replaces the resource written by another store")
+  void appendAfterConcurrentChange() throws IOException {
+    UUID workspaceId = UUID.randomUUID();
+    ResourceStore store = new ResourceStore(workspaceId);
+    ResourceStore otherStore = new ResourceStore(workspaceId);
+    Resource resource = buildResource("a");
+    store.writeAll(List.of());
+
+    // the other store adds the resource, without this one seeing it
+    otherStore.append(resource);
+    store.append(resource);
+
+    assertEquals(List.of("a"), getNames(store.readAll()), "resource is only listed once");
+  }
+
+  @Test
+  @DisplayName("reading a store with a partially written line fails")
+  void partialLine() throws IOException {
+    UUID workspaceId = UUID.randomUUID();
+    ResourceStore store = new ResourceStore(workspaceId);
+    store.writeAll(List.of(buildResource("a")));
+
+    // simulate a write that was interrupted part way through a line
+    Path storeFile = Context.getResourceStoreFile(workspaceId);
+    Files.writeString(
+        storeFile,
+        "{\"@class\":\"bio.terra.cli.serialization.persisted.resource.PDGitRepo\",\"id\":",
+        StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+    assertThrows(IOException.class, store::readAll, "partial line is not skipped");
+
+    // a line that isn't JSON at all
+    Files.writeString(storeFile, "not json\n", StandardCharsets.UTF_8);
+    assertThrows(IOException.class, store::readAll, "corrupt line is not skipped");
+  }
+
+  @Test
+  @DisplayName("reads running at the same time as appends only see whole resources")
+  void concurrentAppendAndRead() throws Exception {
+    UUID workspaceId = UUID.randomUUID();
+    List<String> names =
+        IntStream.range(0, 50).mapToObj(num -> "resource" + num).collect(Collectors.toList());
+    new ResourceStore(workspaceId).writeAll(List.of());
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    AtomicBoolean appending = new AtomicBoolean(true);
+    try {
+      Future<?> appender =
+          executor.submit(
+              () -> {
+                ResourceStore store = new ResourceStore(workspaceId);
+                try {
+                  for (String name : names) {
+                    store.append(buildResource(name));
+                  }
+                } finally {
+                  appending.set(false);
+                }
+                return null;
+              });
+      Future<?> reader =
+          executor.submit(
+              () -> {
+                ResourceStore store = new ResourceStore(workspaceId);
+                while (appending.get()) {
+                  List<String> readNames = getNames(store.readAll());
+                  assertEquals(
+                      names.subList(0, readNames.size()),
+                      readNames,
+                      "read sees a prefix of the appended resources");
+                }
+                return null;
+              });
+      appender.get();
+      reader.get();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(
+        names, getNames(new ResourceStore(workspaceId).readAll()), "all appends are read back");
+  }
+
+  /** Build a git repo reference with a new id, which doesn't need a workspace or server. */
+  private static Resource buildResource(String name) {
+    return buildResource(UUID.randomUUID(), name);
+  }
+
+  /** Build a git repo reference with the given id. */
+  private static Resource buildResource(UUID id, String name) {
+    return new PDGitRepo.Builder()
+        .gitRepoUrl(GIT_REPO_URL)
+        .id(id)
+        .name(name)
+        .description("")
+        .resourceType(Resource.Type.GIT_REPO)
+        .stewardshipType(StewardshipType.REFERENCED)
+        .build()
+        .deserializeToInternal();
+  }
+
+  /** Get the names of the resources, in order. */
+  private static List<String> getNames(List<Resource> resources) {
+    List<String> names = new ArrayList<>();
+    resources.forEach(resource -> names.add(resource.getName()));
+    return names;
+  }
+}
@@ -0,0 +1,151 @@
+package unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.cli.exception.SystemException;
+import bio.terra.cli.service.utils.HttpUtils;
+import bio.terra.cli.service.utils.RetryPolicy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for the sleeps and number of tries of a {@link RetryPolicy}. */
+@Tag("unit")
+public class RetryPolicyBackoff {
+  private static final Duration INITIAL_DELAY = Duration.ofMillis(100);
+  private static final Duration MAX_DELAY = Duration.ofSeconds(5);
+
+  @Test
+  @DisplayName("exponential backoff sleeps grow up to three times the previous sleep")
+  void backoffGrows() {
+    // always pick the top of the jitter range
+    RetryPolicy policy = exponentialPolicy(new FixedRandom(0.9999));
+
+    Duration sleep = policy.getNextSleep(null, null);
+    assertEquals(INITIAL_DELAY, sleep, "first retry sleeps for the initial delay");
+    for (int ctr = 0; ctr < 3; ctr++) {
+      Duration nextSleep = policy.getNextSleep(sleep, null);
+      assertEquals(
+          sleep.toMillis() * 3 - 1, nextSleep.toMillis(), "sleep grows to 3x the previous one");
+      sleep = nextSleep;
+    }
+  }
+
+  @Test
+  @DisplayName("exponential backoff sleeps are capped at the maximum delay")
+  void backoffCapped() {
+    RetryPolicy policy = exponentialPolicy(new FixedRandom(0.9999));
+
+    Duration sleep = null;
+    for (int ctr = 0; ctr < 20; ctr++) {
+      sleep = policy.getNextSleep(sleep, null);
+      assertTrue(sleep.compareTo(MAX_DELAY) <= 0, "sleep never exceeds the cap: " + sleep);
+    }
+    assertEquals(MAX_DELAY, sleep, "sleep reaches the cap");
+  }
+
+  @Test
+  @DisplayName("exponential backoff jitter stays between the initial delay and 3x the last sleep")
+  void jitterBounds() {
+    RetryPolicy policy = exponentialPolicy(new Random(42));
+
+    Duration previousSleep = Duration.ofMillis(1000);
+    for (int ctr = 0; ctr < 1000; ctr++) {
+      Duration sleep = policy.getNextSleep(previousSleep, null);
+      assertTrue(sleep.compareTo(INITIAL_DELAY) >= 0, "sleep is at least the initial delay");
+      assertTrue(
+          sleep.toMillis() < previousSleep.toMillis() * 3, "sleep is less than 3x the last sleep");
+    }
+
+    // lowest and highest values the jitter can pick
+    assertEquals(
+        INITIAL_DELAY,
+        exponentialPolicy(new FixedRandom(0)).getNextSleep(previousSleep, null),
+        "bottom of the jitter range is the initial delay");
+    assertEquals(
+        Duration.ofMillis(2999),
+        exponentialPolicy(new FixedRandom(0.9999999)).getNextSleep(previousSleep, null),
+        "top of the jitter range is just under 3x the last sleep");
+  }
+
+  @Test
+  @DisplayName("retryable exception is retried up to the maximum number of retries")
+  void maxAttempts() {
+    AtomicInteger numCalls = new AtomicInteger();
+    RuntimeException retryableEx = new IllegalStateException("retryable");
+
+    SystemException ex =
+        assertThrows(
+            SystemException.class,
+            () ->
+                HttpUtils.callWithRetries(
+                    () -> {
+                      numCalls.incrementAndGet();
+                      throw retryableEx;
+                    },
+                    (thrown) -> true,
+                    RetryPolicy.fixed(3, Duration.ofMillis(1))));
+
+    assertEquals(4, numCalls.get(), "first try plus 3 retries");
+    assertSame(retryableEx, ex.getCause(), "last retryable exception is the cause");
+    assertTrue(
+        RetryPolicy.fixed(3, Duration.ofMillis(1)).isExhausted(4, Instant.now(), Duration.ZERO),
+        "policy is exhausted after the maximum number of retries");
+    assertFalse(
+        RetryPolicy.fixed(3, Duration.ofMillis(1)).isExhausted(3, Instant.now(), Duration.ZERO),
+        "policy is not exhausted before the maximum number of retries");
+  }
+
+  @Test
+  @DisplayName("non-retryable exception is re-thrown without retrying")
+  void nonRetryableNotRetried() {
+    AtomicInteger numCalls = new AtomicInteger();
+    RuntimeException nonRetryableEx = new IllegalArgumentException("not retryable");
+
+    RuntimeException ex =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                HttpUtils.callWithRetries(
+                    () -> {
+                      numCalls.incrementAndGet();
+                      throw nonRetryableEx;
+                    },
+                    (thrown) -> !(thrown instanceof IllegalArgumentException),
+                    RetryPolicy.fixed(3, Duration.ofMillis(1))));
+
+    assertEquals(1, numCalls.get(), "request is only tried once");
+    assertSame(nonRetryableEx, ex, "non-retryable exception is re-thrown as is");
+  }
+
+  /** Build an exponential backoff policy that uses the given source of jitter. */
+  private static RetryPolicy exponentialPolicy(Random random) {
+    return new RetryPolicy.Builder()
+        .initialDelay(INITIAL_DELAY)
+        .exponentialBackoff(MAX_DELAY)
+        .random(random)
+        .build();
+  }
+
+  /** Random that always returns the same double, to pick a known point in the jitter range. */
+  private static class FixedRandom extends Random {
+    private final double value;
+
+    FixedRandom(double value) {
+      this.value = value;
+    }
+
+    @Override
+    public double nextDouble() {
+      return value;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.cli.service.utils.SharedHttpClients;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for sharing generated API clients between service objects. */
+@Tag("unit")
+public class SharedApiClients {
+  private static final String BASE_PATH = "https://terra.example.com";
+
+  @AfterEach
+  void closeApiClients() {
+    SharedHttpClients.closeApiClients();
+  }
+
+  @Test
+  @DisplayName("API clients are shared per server URL and access token")
+  void sharedPerToken() {
+    FakeApiClient client = getApiClient(BASE_PATH, "token1");
+    assertSame(client, getApiClient(BASE_PATH, "token1"), "same token shares a client");
+    assertNotSame(client, getApiClient(BASE_PATH, "token2"), "new token gets a new client");
+    assertNotSame(
+        client, getApiClient(BASE_PATH + "/other", "token1"), "new URL gets a new client");
+    assertSame(
+        getApiClient(BASE_PATH, null),
+        getApiClient(BASE_PATH, null),
+        "unauthenticated calls share a client");
+  }
+
+  @Test
+  @DisplayName("API clients are closed when they're evicted from the cache")
+  void closedOnEviction() {
+    List<FakeApiClient> clients = new ArrayList<>();
+    for (int ctr = 0; ctr < 64; ctr++) {
+      clients.add(getApiClient(BASE_PATH, "token" + ctr));
+    }
+    long numClosed = clients.stream().filter(client -> client.closed).count();
+    assertTrue(numClosed >= 32, "clients over the cache size are closed: " + numClosed);
+
+    SharedHttpClients.closeApiClients();
+    assertEquals(
+        clients.size(),
+        clients.stream().filter(client -> client.closed).count(),
+        "all clients are closed when the cache is cleared");
+    assertTrue(
+        clients.stream().allMatch(client -> client.numCloses == 1), "each client is closed once");
+  }
+
+  @Test
+  @DisplayName("closed API client is not handed out again")
+  void closedNotReused() {
+    FakeApiClient client = getApiClient(BASE_PATH, "token1");
+    SharedHttpClients.closeApiClients();
+    assertTrue(client.closed, "client is closed");
+
+    FakeApiClient newClient = getApiClient(BASE_PATH, "token1");
+    assertNotSame(client, newClient, "new client is built after the old one is closed");
+  }
+
+  /** Get the shared fake API client for the given URL and token. */
+  private static FakeApiClient getApiClient(String basePath, String accessToken) {
+    return SharedHttpClients.getApiClient(
+        FakeApiClient.class, basePath, accessToken, FakeApiClient::new, FakeApiClient::close);
+  }
+
+  /** Stand-in for a generated API client, which records whether it was closed. */
+  private static class FakeApiClient {
+    private volatile boolean closed;
+    private volatile int numCloses;
+
+    void close() {
+      closed = true;
+      numCloses++;
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package unit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bio.terra.cli.service.utils.HttpUtils;
+import bio.terra.cli.service.utils.RetryPolicy;
+import bio.terra.cli.service.utils.Telemetry;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for recording the calls a command makes to services with {@link Telemetry}. */
+@Tag("unit")
+public class TelemetrySpans {
+  @Test
+  @DisplayName("--timings summary lists each operation, named after the method that made it")
+  void timingsSummary() throws InterruptedException {
+    Telemetry.startCommand("terra test timings", true);
+    fetchThing();
+    String summary = finishCommand();
+
+    assertThat("summary has a header", summary, containsString("[timings]"));
+    assertThat("operation is named after its caller", summary, containsString("fetchThing"));
+    assertThat("summary has a total for the service", summary, containsString("total (1 calls)"));
+    assertThat("summary has the command", summary, containsString("terra test timings"));
+  }
+
+  @Test
+  @DisplayName("retries of an operation are counted as attempts")
+  void retriesCountedAsAttempts() throws InterruptedException {
+    Telemetry.startCommand("terra test retries", true);
+    AtomicInteger numCalls = new AtomicInteger();
+    Telemetry.recordOperation(
+        "wsm",
+        ex -> null,
+        () ->
+            HttpUtils.callWithRetries(
+                () -> {
+                  if (numCalls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("retryable");
+                  }
+                  return "thing";
+                },
+                ex -> ex instanceof IllegalStateException,
+                RetryPolicy.fixed(3, Duration.ofMillis(1))));
+    String summary = finishCommand();
+
+    String operationLine = getLine(summary, "retriesCountedAsAttempts");
+    assertThat("operation has 2 attempts", operationLine, containsString(" 2 "));
+  }
+
+  @Test
+  @DisplayName("commands running at the same time on different threads record their own calls")
+  void commandsOnDifferentThreads() throws Exception {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    CountDownLatch bothRecorded = new CountDownLatch(2);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first =
+          executor.submit(
+              () -> {
+                Telemetry.startCommand("terra test first", true);
+                bothStarted.countDown();
+                bothStarted.await(10, TimeUnit.SECONDS);
+                fetchThing();
+                bothRecorded.countDown();
+                bothRecorded.await(10, TimeUnit.SECONDS);
+                return finishCommand();
+              });
+      Future<String> second =
+          executor.submit(
+              () -> {
+                Telemetry.startCommand("terra test second", true);
+                bothStarted.countDown();
+                bothStarted.await(10, TimeUnit.SECONDS);
+                fetchOtherThing();
+                bothRecorded.countDown();
+                bothRecorded.await(10, TimeUnit.SECONDS);
+                return finishCommand();
+              });
+
+      String firstSummary = first.get(30, TimeUnit.SECONDS);
+      String secondSummary = second.get(30, TimeUnit.SECONDS);
+      assertThat("first has its own call", firstSummary, containsString("fetchThing"));
+      assertThat(
+          "first leaves out the other call", firstSummary, not(containsString("fetchOther")));
+      assertThat("second has its own call", secondSummary, containsString("fetchOtherThing"));
+      assertThat(
+          "second leaves out the other call", secondSummary, not(containsString("fetchThing")));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("calls made by threads that a command starts are recorded for that command")
+  void callsFromWorkerThreads() throws Exception {
+    Telemetry.startCommand("terra test workers", true);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<String>> futures =
+          List.of(executor.submit(TelemetrySpans::fetchThing), executor.submit(this::fetchTwice));
+      for (Future<String> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    String summary = finishCommand();
+
+    assertThat("summary has the worker calls", summary, containsString("total (3 calls)"));
+  }
+
+  @Test
+  @DisplayName("nothing is printed after the command finishes without --timings")
+  void noSummaryWithoutTimings() throws InterruptedException {
+    Telemetry.startCommand("terra test quiet", false);
+    fetchThing();
+    assertEquals("", finishCommand(), "no summary is printed");
+  }
+
+  /** Make a recorded call to a fake service. */
+  private static String fetchThing() throws InterruptedException {
+    return Telemetry.recordOperation("wsm", ex -> null, () -> "thing");
+  }
+
+  /** Make a recorded call to a fake service, with a different operation name. */
+  private static String fetchOtherThing() throws InterruptedException {
+    return Telemetry.recordOperation("sam", ex -> null, () -> "other thing");
+  }
+
+  /** Make two recorded calls from the same thread. */
+  private String fetchTwice() throws InterruptedException {
+    fetchThing();
+    return fetchThing();
+  }
+
+  /** Finish recording the command on this thread, and return the summary it printed. */
+  private static String finishCommand() {
+    ByteArrayOutputStream summary = new ByteArrayOutputStream();
+    Telemetry.finishCommand(true, new PrintStream(summary, true, StandardCharsets.UTF_8));
+    return summary.toString(StandardCharsets.UTF_8);
+  }
+
+  /** Get the line of the summary that mentions the given text. */
+  private static String getLine(String summary, String text) {
+    Optional<String> line =
+        summary.lines().filter(summaryLine -> summaryLine.contains(text)).findFirst();
+    assertTrue(line.isPresent(), "summary has a line for " + text + ": " + summary);
+    return line.get();
+  }
+}
@@ -0,0 +1,90 @@
+package unit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import bio.terra.cli.app.DockerCommandRunner;
+import bio.terra.cli.app.utils.DockerClientWrapper;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/** Tests for deciding which tool commands can share a warm app container. */
+@Tag("unit")
+public class WarmContainers {
+  private static final String IMAGE_ID = "gcr.io/terra-cli-dev/terra-cli/1.0:stable";
+  private static final String SETUP_COMMAND = "terra_init.sh";
+  private static final String WORKING_DIR = "/usr/local/etc";
+  private static final Map<Path, Path> BIND_MOUNTS =
+      Map.of(Path.of("/root/.terra"), Path.of("/home/user/.terra"));
+  private static final int IDLE_TIMEOUT_SECONDS = 300;
+
+  @Test
+  @DisplayName("warm container key changes when the workspace, image or credentials change")
+  void keyChangesWithSetup() {
+    Map<String, String> envVars = buildEnvVars("project-1", "/root/.terra/adc-1.json");
+    String key = buildKey(IMAGE_ID, envVars);
+
+    assertNotEquals(
+        key,
+        buildKey(IMAGE_ID, buildEnvVars("project-2", "/root/.terra/adc-1.json")),
+        "other workspace project gets a new container");
+    assertNotEquals(
+        key, buildKey(IMAGE_ID + "-other", envVars), "other image gets a new container");
+    assertNotEquals(
+        key,
+        buildKey(IMAGE_ID, buildEnvVars("project-1", "/root/.terra/adc-2.json")),
+        "other credentials file gets a new container");
+    assertNotEquals(
+        key,
+        DockerClientWrapper.buildWarmContainerKey(
+            IMAGE_ID,
+            SETUP_COMMAND,
+            WORKING_DIR,
+            DockerCommandRunner.getSetupEnvVars(envVars),
+            BIND_MOUNTS,
+            IDLE_TIMEOUT_SECONDS + 1),
+        "other idle timeout gets a new container");
+  }
+
+  @Test
+  @DisplayName("warm container key doesn't change for env vars that are passed to each command")
+  void keyIgnoresCommandEnvVars() {
+    Map<String, String> envVars = buildEnvVars("project-1", "/root/.terra/adc-1.json");
+    String key = buildKey(IMAGE_ID, envVars);
+
+    Map<String, String> envVarsWithResource = new HashMap<>(envVars);
+    envVarsWithResource.put("TERRA_mybucket", "gs://mybucket");
+    assertEquals(
+        key, buildKey(IMAGE_ID, envVarsWithResource), "new resource re-uses the container");
+
+    // same env vars, added in the opposite order
+    Map<String, String> reorderedEnvVars = new LinkedHashMap<>();
+    reorderedEnvVars.put("GOOGLE_APPLICATION_CREDENTIALS", "/root/.terra/adc-1.json");
+    reorderedEnvVars.put("GOOGLE_CLOUD_PROJECT", "project-1");
+    assertEquals(key, buildKey(IMAGE_ID, reorderedEnvVars), "order of env vars is ignored");
+  }
+
+  /** Build the env vars for a tool command, with the given workspace project and credentials. */
+  private static Map<String, String> buildEnvVars(String googleProjectId, String credentialsFile) {
+    Map<String, String> envVars = new LinkedHashMap<>();
+    envVars.put("GOOGLE_CLOUD_PROJECT", googleProjectId);
+    envVars.put("GOOGLE_APPLICATION_CREDENTIALS", credentialsFile);
+    return envVars;
+  }
+
+  /** Build the warm container key for a tool command, the same way the docker runner does. */
+  private static String buildKey(String imageId, Map<String, String> envVars) {
+    return DockerClientWrapper.buildWarmContainerKey(
+        imageId,
+        SETUP_COMMAND,
+        WORKING_DIR,
+        DockerCommandRunner.getSetupEnvVars(envVars),
+        BIND_MOUNTS,
+        IDLE_TIMEOUT_SECONDS);
+  }
+}
@@ -6,6 +6,8 @@ import static bio.terra.cli.businessobject.WorkspaceUser.Role.WRITER;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import bio.terra.cli.businessobject.MembershipChange;
+import bio.terra.cli.serialization.userfacing.UFMembershipChange;
 import bio.terra.cli.serialization.userfacing.UFWorkspaceUser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -13,6 +15,9 @@ import harness.TestCommand;
 import harness.TestUser;
 import harness.baseclasses.SingleWorkspaceUnit;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +26,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /** Tests for the `terra workspace` commands that handle sharing with other users. */
 @Tag("unit")
@@ -141,6 +147,53 @@ public class WorkspaceUser extends SingleWorkspaceUnit {
     assertTrue(workspaceUser.isEmpty(), "test user is not in users list");
   }
 
+  @Test
+  @DisplayName("bulk add and remove users from a file")
+  void bulkAddRemove(@TempDir Path tempDir) throws IOException {
+    // login as the workspace creator and select a test user to share the workspace with
+    workspaceCreator.login();
+    TestUser testUser = TestUser.chooseTestUserWhoIsNot(workspaceCreator);
+
+    // `terra workspace set --id=$id`
+    TestCommand.runCommandExpectSuccess("workspace", "set", "--id=" + getWorkspaceId());
+
+    // write a file with two roles for the test user
+    Path membershipFile = tempDir.resolve("users.csv");
+    Files.writeString(
+        membershipFile,
+        "# test users\n" + testUser.email + ",READER\n" + testUser.email + " writer\n",
+        StandardCharsets.UTF_8);
+
+    // `terra workspace add-users --from-file=$file --format=json`
+    List<UFMembershipChange> addChanges =
+        TestCommand.runAndParseCommandExpectSuccess(
+            new TypeReference<>() {}, "workspace", "add-users", "--from-file=" + membershipFile);
+    assertEquals(2, addChanges.size(), "add-users returns a change per line");
+    for (UFMembershipChange change : addChanges) {
+      assertEquals(MembershipChange.Status.CHANGED, change.status, "change was made");
+      assertTrue(
+          change.roles.containsAll(Arrays.asList("READER", "WRITER")),
+          "add-users returns the roles after all changes");
+    }
+    expectListedUserWithRoles(testUser.email, READER, WRITER);
+
+    // running the same file again doesn't change anything
+    List<UFMembershipChange> repeatChanges =
+        TestCommand.runAndParseCommandExpectSuccess(
+            new TypeReference<>() {}, "workspace", "add-users", "--from-file=" + membershipFile);
+    for (UFMembershipChange change : repeatChanges) {
+      assertEquals(MembershipChange.Status.UNCHANGED, change.status, "change was skipped");
+    }
+
+    // `terra workspace remove-users --from-file=$file`
+    TestCommand.runCommandExpectSuccess(
+        "workspace", "remove-users", "--from-file=" + membershipFile);
+
+    // check that the user is not in the list
+    Optional<UFWorkspaceUser> workspaceUser = workspaceListUsersWithEmail(testUser.email);
+    assertTrue(workspaceUser.isEmpty(), "test user is not in users list");
+  }
+
   /**
    * Helper method to check that a workspace user is included in the list with the specified roles.
    * Uses the current workspace.
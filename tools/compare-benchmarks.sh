@@ -0,0 +1,48 @@
+#!/bin/bash
+set -e
+## This script compares two sets of JMH benchmark results, and fails if any benchmark got slower by more than the
+## allowed percentage. Results for benchmarks that are only in one of the files are ignored.
+## Benchmark scores vary between machines, so only compare results from runs on the same machine.
+## Dependencies: jq
+## Inputs: baselineResults (arg, required) results file from the earlier commit (e.g. the last release)
+##         currentResults (arg, required) results file from the current commit
+##         maxRegressionPercent (arg, optional) allowed slowdown before failing, default is 20
+## Usage: ./tools/compare-benchmarks.sh baseline.json build/reports/jmh/results.json
+##        ./tools/compare-benchmarks.sh baseline.json build/reports/jmh/results.json 10
+
+## The results files are the output of ./gradlew jmh, written to build/reports/jmh/results.json by default.
+## e.g. to compare the current commit against the last release:
+##   git checkout [last release tag] && ./gradlew jmh && cp build/reports/jmh/results.json /tmp/baseline.json
+##   git checkout - && ./gradlew jmh && ./tools/compare-benchmarks.sh /tmp/baseline.json build/reports/jmh/results.json
+
+baselineResults=$1
+currentResults=$2
+maxRegressionPercent=${3:-20}
+if [ -z "$baselineResults" ] || [ -z "$currentResults" ]; then
+  echo "Usage: ./tools/compare-benchmarks.sh baselineResults currentResults [maxRegressionPercent]"
+  exit 1
+fi
+
+# print one line per benchmark and parameter combination: status, percent slower (negative means faster), name.
+# for throughput mode a higher score is better, for all other modes (e.g. average time) a lower score is better
+comparison=$(jq -r -n --slurpfile baseline "$baselineResults" --slurpfile current "$currentResults" \
+  --argjson maxRegressionPercent "$maxRegressionPercent" '
+  def name: .benchmark
+    + (if .params then " " + (.params | to_entries | map("\(.key)=\(.value)") | join(",")) else "" end);
+  ($baseline[0] | map({(name): .primaryMetric.score}) | add) as $baselineScores
+  | $current[0][]
+  | name as $name
+  | select($baselineScores[$name] != null and $baselineScores[$name] != 0)
+  | $baselineScores[$name] as $baselineScore
+  | (if .mode == "thrpt" then $baselineScore - .primaryMetric.score else .primaryMetric.score - $baselineScore end)
+    / $baselineScore * 100
+  | . as $percentSlower
+  | "\(if $percentSlower > $maxRegressionPercent then "SLOWER" else "ok" end)\t\($percentSlower | round)%\t\($name)"')
+
+echo "$comparison"
+numRegressions=$(echo "$comparison" | grep -c "^SLOWER" || true)
+if [ "$numRegressions" -gt 0 ]; then
+  echo "$numRegressions benchmark(s) got more than $maxRegressionPercent% slower"
+  exit 1
+fi
+echo "No benchmarks got more than $maxRegressionPercent% slower"
@@ -0,0 +1,66 @@
+#!/bin/bash
+
+set -e
+## This script generates a Class Data Sharing (CDS) archive for an installed CLI. At startup, the JVM maps
+## the archived classes into memory instead of loading and verifying them from the JARs one at a time.
+## It runs a representative mix of commands to record which classes they load, and then dumps those classes
+## into [appHome]/lib/terra.jsa. The launch script uses the archive automatically if it exists.
+## The archive is only valid for the Java runtime that generated it and for the exact JAR paths, so this
+## script is run after the JARs are in their final location: by install.sh for a release install, and by
+## ./gradlew generateCdsArchive for the ./gradlew installDist output. installDist does not run it.
+## Dependencies: java
+## Usage: ./tools/generate-cds-archive.sh [launchScript] [appHome]
+##        e.g. ./tools/generate-cds-archive.sh build/install/terra-cli/bin/terra build/install/terra-cli
+
+launchScript=$1
+appHome=$2
+if [ -z "$launchScript" ] || [ -z "$appHome" ]; then
+  echo "Usage: ./tools/generate-cds-archive.sh [launchScript] [appHome]"
+  exit 1
+fi
+archiveFile="$appHome/lib/terra.jsa"
+
+workDir=$(mktemp -d)
+trap 'rm -rf "$workDir"' EXIT
+
+# delete any existing archive, so that it isn't used while recording the class list
+rm -f "$archiveFile"
+
+# run the commands against a throwaway context directory, so that this doesn't change the user's context.
+# none of these commands require login or make network calls
+export TERRA_CONTEXT_PARENT_DIR="$workDir"
+commands=(
+  "version"
+  "config list"
+  "config list --format=json"
+  "server list"
+  "resource list --help"
+  "workspace describe --help"
+)
+echo "--  Recording classes loaded by ${#commands[@]} commands"
+commandNum=0
+for command in "${commands[@]}"; do
+  commandNum=$((commandNum + 1))
+  # shellcheck disable=SC2086
+  JAVA_OPTS="-XX:DumpLoadedClassList=$workDir/classes-$commandNum.lst" "$launchScript" $command > /dev/null 2>&1 || true
+done
+cat "$workDir"/classes-*.lst | sort -u > "$workDir/classes.lst"
+
+# use the same Java runtime and classpath as the launch script. the archive records the classpath, and the JVM
+# ignores the archive if it doesn't match
+if [ -n "$JAVA_HOME" ]; then
+  javaCmd="$JAVA_HOME/bin/java"
+else
+  javaCmd="java"
+fi
+APP_HOME="$appHome"
+eval "$(grep '^CLASSPATH=' "$launchScript")"
+
+echo "--  Dumping $(wc -l < "$workDir/classes.lst" | tr -d ' ') classes to $archiveFile"
+if ! "$javaCmd" -Xshare:dump -XX:SharedClassListFile="$workDir/classes.lst" -XX:SharedArchiveFile="$archiveFile" \
+    -cp "$CLASSPATH" > "$workDir/dump.log" 2>&1; then
+  cat "$workDir/dump.log"
+  echo "Error generating the CDS archive. The CLI still works without it, but starts more slowly."
+  rm -f "$archiveFile"
+  exit 1
+fi
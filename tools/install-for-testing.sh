@@ -1,13 +1,16 @@
 #!/bin/bash
 
 set -e
-## This script installs the CLI for testing. It has two modes:
+## This script installs the CLI for testing. It has three modes:
 ##  - SOURCE_CODE means that the CLI has already been installed directly from source code (./gradlew install).
 #     this script just configures it and pulls the default docker image
 ##  - GITHUB_RELEASE means to download the latest CLI release from GitHub and install it using the bundled scripts
+##  - NATIVE_IMAGE means that a native executable has already been built from source code (./gradlew nativeImage).
+#     this script just configures it and pulls the default docker image
 ## Dependencies: docker, curl
 ## Usage: ./tools/install-for-testing.sh SOURCE_CODE
 ##        ./tools/install-for-testing.sh GITHUB_RELEASE
+##        ./tools/install-for-testing.sh NATIVE_IMAGE
 
 ## The script assumes that it is being run from the top-level directory "terra-cli/".
 if [ $(basename $PWD) != 'terra-cli' ]; then
@@ -18,9 +21,14 @@ fi
 # Tests currently assume Docker is available and running.
 installMode=$1
 echo "installMode: $installMode"
-if [ "$installMode" = "SOURCE_CODE" ]; then
-  echo "Assuming the Java code is already built and installed by Gradle"
-  terra=$(pwd)/build/install/terra-cli/bin/terra
+if [ "$installMode" = "SOURCE_CODE" ] || [ "$installMode" = "NATIVE_IMAGE" ]; then
+  if [ "$installMode" = "SOURCE_CODE" ]; then
+    echo "Assuming the Java code is already built and installed by Gradle"
+    terra=$(pwd)/build/install/terra-cli/bin/terra
+  else
+    echo "Assuming the native executable is already built by Gradle"
+    terra=$(pwd)/build/native/terra
+  fi
 
   echo "Setting the Docker image id to the default"
   $terra config set image --default
@@ -39,7 +47,7 @@ elif [ "$installMode" = "GITHUB_RELEASE" ]; then
 
 else
   echo "Usage: tools/install-for-testing.sh [installMode]"
-  echo "       installMode = SOURCE_CODE, GITHUB_RELEASE"
+  echo "       installMode = SOURCE_CODE, GITHUB_RELEASE, NATIVE_IMAGE"
   exit 1
 fi
 
@@ -43,6 +43,11 @@ echo "--  Moving run script and README out of archive directory"
 cp "$archiveDir"/bin/terra "$archiveDir"/../terra
 cp "$archiveDir"/README.md "$archiveDir"/../README.md
 
+echo "--  Generating class data sharing archive"
+# this must happen after the JARs are in their final location, because the archive is only valid for those paths
+"$archiveDir"/generate-cds-archive.sh "$archiveDir"/../terra "$applicationDir" \
+  || echo "Error generating class data sharing archive, continuing without it. The CLI will start more slowly."
+
 echo "--  Deleting the archive directory"
 cd "$archiveDir"/..
 rm -R "$archiveDir"